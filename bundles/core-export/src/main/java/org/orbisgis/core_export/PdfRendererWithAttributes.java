@@ -38,11 +38,14 @@ import com.itextpdf.text.pdf.PdfTemplate;
 import java.awt.Graphics2D;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.orbisgis.coremap.map.MapTransform;
 import org.orbisgis.coremap.renderer.Renderer;
+import org.orbisgis.coremap.renderer.se.Rule;
 import org.orbisgis.coremap.renderer.se.Symbolizer;
 import org.h2gis.utilities.SpatialResultSetMetaData;
 
@@ -99,6 +102,14 @@ public class PdfRendererWithAttributes extends Renderer {
     public void disposeLayer(Graphics2D g2) {
     }
 
+    @Override
+    protected Set<String> getRequiredFields(Collection<Rule> rules) {
+        Set<String> fields = super.getRequiredFields(rules);
+        // Read by beginFeature
+        fields.add(fieldName);
+        return fields;
+    }
+
     @Override
     public void beginFeature(long id, ResultSet rs) {
         try {
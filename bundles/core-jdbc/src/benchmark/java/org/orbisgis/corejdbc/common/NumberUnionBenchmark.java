@@ -0,0 +1,185 @@
+/*
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information. 
+ * 
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ * 
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ * 
+ * This file is part of OrbisGIS.
+ * 
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc.common;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare the primitive array implementation of {@link LongUnion} and {@link IntegerUnion} with the previous
+ * implementation backed by a list of boxed values ({@link LegacyLongUnion}, {@link LegacyIntegerUnion}).
+ *
+ * Run with {@code mvn -P benchmark test-compile exec:exec} in the core-jdbc folder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumberUnionBenchmark {
+    /** Number of values pushed in the sets */
+    @Param({"1000", "100000"})
+    public int valueCount;
+    /** One value out of gapFrequency is skipped, in order to create that many ranges */
+    @Param({"2", "50"})
+    public int gapFrequency;
+
+    private long[] longValues;
+    private int[] intValues;
+    private long[] probes;
+    private LongUnion longUnion;
+    private LegacyLongUnion legacyLongUnion;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        longValues = new long[valueCount];
+        intValues = new int[valueCount];
+        long value = 0;
+        for (int i = 0; i < valueCount; i++) {
+            value += random.nextInt(gapFrequency) == 0 ? 2 : 1;
+            longValues[i] = value;
+            intValues[i] = (int) value;
+        }
+        // Shuffle insertion order, this is the worst case for both implementations
+        for (int i = valueCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long tmp = longValues[i];
+            longValues[i] = longValues[j];
+            longValues[j] = tmp;
+            int tmpInt = intValues[i];
+            intValues[i] = intValues[j];
+            intValues[j] = tmpInt;
+        }
+        probes = new long[1000];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = (long) (random.nextDouble() * value);
+        }
+        longUnion = new LongUnion(longValues);
+        legacyLongUnion = new LegacyLongUnion(longValues);
+    }
+
+    @Benchmark
+    public LongUnion addLong() {
+        LongUnion union = new LongUnion();
+        for (long v : longValues) {
+            union.add(v);
+        }
+        return union;
+    }
+
+    @Benchmark
+    public LegacyLongUnion addLongLegacy() {
+        LegacyLongUnion union = new LegacyLongUnion();
+        for (long v : longValues) {
+            union.add(v);
+        }
+        return union;
+    }
+
+    @Benchmark
+    public IntegerUnion addInteger() {
+        IntegerUnion union = new IntegerUnion();
+        for (int v : intValues) {
+            union.add(v);
+        }
+        return union;
+    }
+
+    @Benchmark
+    public LegacyIntegerUnion addIntegerLegacy() {
+        LegacyIntegerUnion union = new LegacyIntegerUnion();
+        for (int v : intValues) {
+            union.add(v);
+        }
+        return union;
+    }
+
+    @Benchmark
+    public int containsLong() {
+        int found = 0;
+        for (long probe : probes) {
+            if (longUnion.contains(probe)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int containsLongLegacy() {
+        int found = 0;
+        for (long probe : probes) {
+            if (legacyLongUnion.contains(probe)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public long iterateLong() {
+        long sum = 0;
+        Iterator<Long> it = longUnion.iterator();
+        while (it.hasNext()) {
+            sum += it.next();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long iterateLongLegacy() {
+        long sum = 0;
+        Iterator<Long> it = legacyLongUnion.iterator();
+        while (it.hasNext()) {
+            sum += it.next();
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(NumberUnionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
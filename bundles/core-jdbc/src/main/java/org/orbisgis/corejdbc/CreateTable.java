@@ -31,6 +31,7 @@ package org.orbisgis.corejdbc;
 import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.TableLocation;
 import org.orbisgis.commons.progress.ProgressMonitor;
+import org.orbisgis.corejdbc.common.LongUnion;
 import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
@@ -43,6 +44,7 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 
@@ -51,56 +53,103 @@ import java.util.Set;
  * @author Nicolas Fortin
  */
 public class CreateTable {
-    private static final int INSERT_BATCH_SIZE = 30;
+    private static final int INSERT_BATCH_SIZE = 500;
+    /** Above this number of ranges the selection is copied into a temporary table */
+    public static final int MAX_RANGE_PREDICATES = 100;
     protected final static I18n I18N = I18nFactory.getI18n(CreateTable.class, Locale.getDefault(), I18nFactory.FALLBACK);
 
     /**
      * Create a temporary table that contains the provided collection of integers.
+     * Values are inserted by contiguous ranges, the number of queries depends on the number of ranges, not on the
+     * number of values.
      * @param connection JDBC connection
      * @param pm Progress monitor
      * @param selectedRows Integer to add in temp table,elements must be unique as it will be added a primary key
+     * @param columnName Name of the column
+     * @param insertBatchSize Number of ranges sent in a single batch
      * @return The temporary table name with a column named ROWID
      * @throws java.sql.SQLException
      */
     public static String createIndexTempTable(Connection connection, ProgressMonitor pm, Collection<Long> selectedRows,String columnName,int insertBatchSize) throws SQLException {
-        ProgressMonitor insertProgress = pm.startTask(selectedRows.size());
+        LongUnion ranges = selectedRows instanceof LongUnion ? (LongUnion) selectedRows : new LongUnion(selectedRows);
+        List<Long> intervals = ranges.getValueRanges();
+        ProgressMonitor insertProgress = pm.startTask(intervals.size() / 2);
         // Populate the new source
         try(Statement st = connection.createStatement()) {
             // Create row id table
             String tempTableName = "CREATE_SOURCE";
             tempTableName = MetaData.getNewUniqueName(tempTableName, connection.getMetaData(), "");
             st.execute(String.format("CREATE LOCAL TEMPORARY TABLE %s("+columnName+" bigint primary key)", tempTableName));
-            // Prepare insert statement
-            PreparedStatement insertSt = connection.prepareStatement(String.format("INSERT INTO %s VALUES(?)", tempTableName));
-            // Cancel insert
-            PropertyChangeListener listener = EventHandler.create(PropertyChangeListener.class, insertSt, "cancel");
-            insertProgress.addPropertyChangeListener(ProgressMonitor.PROP_CANCEL,
-                    listener);
-            try {
-                int batchSize = 0;
-                for (long sel : selectedRows){
-                    insertSt.setLong(1, sel);
-                    insertSt.addBatch();
-                    batchSize++;
-                    insertProgress.endTask();
-                    if(batchSize >= insertBatchSize) {
-                        batchSize = 0;
-                        insertSt.executeBatch();
+            // Prepare insert statement, one row for each value of the range
+            String rangeQuery;
+            if(JDBCUtilities.isH2DataBase(connection.getMetaData())) {
+                rangeQuery = "SELECT X FROM SYSTEM_RANGE(?, ?)";
+            } else {
+                rangeQuery = "SELECT generate_series(?::bigint, ?::bigint)";
+            }
+            try(PreparedStatement insertSt = connection.prepareStatement(String.format("INSERT INTO %s %s",
+                    tempTableName, rangeQuery))) {
+                // Cancel insert
+                PropertyChangeListener listener = EventHandler.create(PropertyChangeListener.class, insertSt, "cancel");
+                insertProgress.addPropertyChangeListener(ProgressMonitor.PROP_CANCEL,
+                        listener);
+                try {
+                    int batchSize = 0;
+                    for (int i = 0; i < intervals.size() - 1; i += 2) {
+                        insertSt.setLong(1, intervals.get(i));
+                        insertSt.setLong(2, intervals.get(i + 1));
+                        insertSt.addBatch();
+                        batchSize++;
+                        insertProgress.endTask();
+                        if (batchSize >= insertBatchSize) {
+                            batchSize = 0;
+                            insertSt.executeBatch();
+                        }
+                        if (insertProgress.isCancelled()) {
+                            break;
+                        }
                     }
-                    if(insertProgress.isCancelled()) {
-                        break;
+                    if (batchSize > 0) {
+                        insertSt.executeBatch();
                     }
+                } finally {
+                    insertProgress.removePropertyChangeListener(listener);
                 }
-                if(batchSize > 0) {
-                    insertSt.executeBatch();
-                }
-            } finally {
-                insertProgress.removePropertyChangeListener(listener);
             }
             return tempTableName;
         }
     }
 
+    /**
+     * Build a SQL condition that match the provided values using range predicates.
+     * @param field Quoted field name or expression
+     * @param selectedRows Values to match
+     * @return The SQL condition or null if the values contains too many ranges for a single query
+     */
+    public static String getRangeCondition(String field, Collection<Long> selectedRows) {
+        LongUnion ranges = selectedRows instanceof LongUnion ? (LongUnion) selectedRows : new LongUnion(selectedRows);
+        List<Long> intervals = ranges.getValueRanges();
+        if(intervals.size() / 2 > MAX_RANGE_PREDICATES) {
+            return null;
+        }
+        if(intervals.isEmpty()) {
+            return "FALSE";
+        }
+        StringBuilder condition = new StringBuilder("(");
+        for (int i = 0; i < intervals.size() - 1; i += 2) {
+            if(i > 0) {
+                condition.append(" OR ");
+            }
+            long begin = intervals.get(i);
+            long end = intervals.get(i + 1);
+            if(begin == end) {
+                condition.append(field).append(" = ").append(begin);
+            } else {
+                condition.append(field).append(" BETWEEN ").append(begin).append(" AND ").append(end);
+            }
+        }
+        return condition.append(")").toString();
+    }
 
     public static void createTableFromRowPkSelection(DataSource dataSource, String tableName, Set<Long> selectedRows,
                                                      String newName, ProgressMonitor pm) throws SQLException {
@@ -112,23 +161,38 @@ public class CreateTable {
             if (newName == null) {
                 newName = MetaData.getNewUniqueName(tableName,meta,"selection");
             }
-            // Create row id table
-            String tempTableName = CreateTable.createIndexTempTable(connection, pm, selectedRows,"ROWID", INSERT_BATCH_SIZE);
             PropertyChangeListener listener = EventHandler.create(PropertyChangeListener.class, st, "cancel");
             pm.addPropertyChangeListener(ProgressMonitor.PROP_CANCEL,
                     listener);
-            // Copy content using pk
-            String primaryKeyName = MetaData.getPkName(connection, tableName, true);
-            StringBuilder pkEquality = new StringBuilder("a.%s = ");
-            if (!primaryKeyName.equals(MetaData.POSTGRE_ROW_IDENTIFIER)) {
-                pkEquality.append("b.ROWID");
-            } else {
-                pkEquality.append(MetaData.castLongToTid("b.ROWID"));
+            try {
+                String primaryKeyName = MetaData.getPkName(connection, tableName, true);
+                String rangeCondition = null;
+                if (!primaryKeyName.equals(MetaData.POSTGRE_ROW_IDENTIFIER)) {
+                    rangeCondition = getRangeCondition(primaryKeyName, selectedRows);
+                }
+                if (rangeCondition != null) {
+                    // Copy content using pk ranges
+                    st.execute(String.format("CREATE TABLE %s AS SELECT * FROM %s WHERE %s", TableLocation.parse(newName),
+                            TableLocation.parse(tableName), rangeCondition));
+                } else {
+                    // Create row id table
+                    String tempTableName = CreateTable.createIndexTempTable(connection, pm, selectedRows, "ROWID",
+                            INSERT_BATCH_SIZE);
+                    // Copy content using pk
+                    StringBuilder pkEquality = new StringBuilder("a.%s = ");
+                    if (!primaryKeyName.equals(MetaData.POSTGRE_ROW_IDENTIFIER)) {
+                        pkEquality.append("b.ROWID");
+                    } else {
+                        pkEquality.append(MetaData.castLongToTid("b.ROWID"));
+                    }
+                    st.execute(String.format("CREATE TABLE %s AS SELECT a.* FROM %s a,%s b " +
+                                    "WHERE " + pkEquality, TableLocation.parse(newName),
+                            TableLocation.parse(tableName), tempTableName, primaryKeyName));
+                    st.execute("DROP TABLE IF EXISTS " + tempTableName);
+                }
+            } finally {
+                pm.removePropertyChangeListener(listener);
             }
-            st.execute(String.format("CREATE TABLE %s AS SELECT a.* FROM %s a,%s b " +
-                            "WHERE "+pkEquality, TableLocation.parse(newName),
-                    TableLocation.parse(tableName),tempTableName, primaryKeyName));
-            pm.removePropertyChangeListener(listener);
         }
     }
 }
@@ -114,6 +114,18 @@ public interface DataManager extends RowSetFactory {
      */
     void fireTableEditHappened(TableEditEvent e);
 
+    /**
+     * Values kept by undoable edits stay in memory until this budget is exceeded, then the oldest values are moved
+     * into a table of the database.
+     * @param bytes Estimated size in bytes
+     */
+    void setUndoMemoryBudget(long bytes);
+
+    /**
+     * @return Estimated size in bytes of undo values kept in memory
+     */
+    long getUndoMemoryBudget();
+
     /**
      * @param originalTableName Table name if not exists
      * @return Table name concatenated with "_1" if originalTableName already exists
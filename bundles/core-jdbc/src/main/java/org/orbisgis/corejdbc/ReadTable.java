@@ -67,7 +67,7 @@ public class ReadTable {
     public enum STATS { COUNT, SUM, AVG, STDDEV_SAMP, MIN, MAX}
     protected final static I18n I18N = I18nFactory.getI18n(ReadTable.class, Locale.getDefault(), I18nFactory.FALLBACK);
     private static Logger LOGGER = LoggerFactory.getLogger(ReadTable.class);
-    private static final int INSERT_BATCH_SIZE = 30;
+    private static final int INSERT_BATCH_SIZE = 500;
 
     public static Collection<Integer> getSortedColumnRowIndex(Connection connection, String table, String columnName, boolean ascending, ProgressMonitor progressMonitor) throws SQLException {
         columnName = TableLocation.quoteIdentifier(columnName);
@@ -212,14 +212,72 @@ public class ReadTable {
      * @throws SQLException
      */
     public static String resultSetToString(ResultSet rs,int maxFieldLength, int maxPrintedRows, boolean addColumns, boolean alignColumns, ResultSetFilter resultSetFilter) throws SQLException {
+        final StringBuilder lines = new StringBuilder();
+        printResultSet(rs, maxFieldLength, maxPrintedRows, Integer.MAX_VALUE, addColumns, alignColumns,
+                resultSetFilter, new ResultSetPrinter() {
+                    @Override
+                    public void print(String chunk) {
+                        lines.append(chunk);
+                        lines.append("\n");
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return false;
+                    }
+                });
+        if(lines.length() != 0) {
+            return lines.toString();
+        } else {
+            return I18N.tr("No attributes to show");
+        }
+    }
+
+    /**
+     * Give a human readable format of provided result set by chunks of rows, the rows are read only while the
+     * printer is not cancelled.
+     * @param rs result set to read
+     * @param maxFieldLength Maximum field length to print
+     * @param maxPrintedRows Maximum printed rows
+     * @param chunkRows Maximum number of rows given to the printer at once
+     * @param addColumns Add column header, in the first chunk
+     * @param alignColumns Align columns by using padding
+     * @param printer Receive the lines
+     * @return Number of printed rows
+     * @throws SQLException
+     */
+    public static int printResultSet(ResultSet rs, int maxFieldLength, int maxPrintedRows, int chunkRows,
+                                     boolean addColumns, boolean alignColumns, ResultSetPrinter printer)
+            throws SQLException {
+        return printResultSet(rs, maxFieldLength, maxPrintedRows, chunkRows, addColumns, alignColumns,
+                new AcceptAllFilter(), printer);
+    }
+
+    /**
+     * Give a human readable format of provided result set by chunks of rows, the rows are read only while the
+     * printer is not cancelled.
+     * @param rs result set to read
+     * @param maxFieldLength Maximum field length to print
+     * @param maxPrintedRows Maximum printed rows
+     * @param chunkRows Maximum number of rows given to the printer at once
+     * @param addColumns Add column header, in the first chunk
+     * @param alignColumns Align columns by using padding
+     * @param resultSetFilter Accept or refuse rows by implementing this interface
+     * @param printer Receive the lines
+     * @return Number of printed rows
+     * @throws SQLException
+     */
+    public static int printResultSet(ResultSet rs, int maxFieldLength, int maxPrintedRows, int chunkRows,
+                                     boolean addColumns, boolean alignColumns, ResultSetFilter resultSetFilter,
+                                     ResultSetPrinter printer) throws SQLException {
         // Print headers
         ResultSetMetaData metaData = rs.getMetaData();
         int columnCount = metaData.getColumnCount();
         StringBuilder lines = new StringBuilder();
         StringBuilder formatStringBuilder = new StringBuilder();
-        String[] header = new String[columnCount];
+        String[] row = new String[columnCount];
         for(int idColumn = 1; idColumn <= columnCount; idColumn++) {
-            header[idColumn-1] = metaData.getColumnLabel(idColumn)+"("+metaData.getColumnTypeName(idColumn)+")";
+            row[idColumn-1] = metaData.getColumnLabel(idColumn)+"("+metaData.getColumnTypeName(idColumn)+")";
             if(alignColumns) {
                 formatStringBuilder.append("%-");
                 formatStringBuilder.append(maxFieldLength);
@@ -228,17 +286,17 @@ public class ReadTable {
                 formatStringBuilder.append("%s ");
             }
         }
+        String format = formatStringBuilder.toString();
         if(addColumns) {
-            lines.append(String.format(formatStringBuilder.toString(), header));
-            lines.append("\n");
+            lines.append(String.format(format, (Object[]) row));
         }
         int shownLines = 0;
+        int chunkLines = 0;
         NumberFormat decimalFormat = NumberFormat.getInstance(Locale.getDefault());
         decimalFormat.setGroupingUsed(false);
         decimalFormat.setMaximumFractionDigits(16);
-        while(rs.next() && shownLines < maxPrintedRows) {
+        while(shownLines < maxPrintedRows && !printer.isCancelled() && rs.next()) {
             if(resultSetFilter.printRow(rs)) {
-                String[] row = new String[columnCount];
                 for (int idColumn = 1; idColumn <= columnCount; idColumn++) {
                     Object valObj = rs.getObject(idColumn);
                     String value;
@@ -257,15 +315,21 @@ public class ReadTable {
                     row[idColumn - 1] = value;
                 }
                 shownLines++;
-                lines.append(String.format(formatStringBuilder.toString(), row));
-                lines.append("\n");
+                if(lines.length() != 0) {
+                    lines.append("\n");
+                }
+                lines.append(String.format(format, (Object[]) row));
+                if(++chunkLines >= chunkRows) {
+                    printer.print(lines.toString());
+                    lines.setLength(0);
+                    chunkLines = 0;
+                }
             }
         }
         if(lines.length() != 0) {
-            return lines.toString();
-        } else {
-            return I18N.tr("No attributes to show");
+            printer.print(lines.toString());
         }
+        return shownLines;
     }
 
     private static class AcceptAllFilter implements ResultSetFilter {
@@ -275,6 +339,21 @@ public class ReadTable {
         }
     }
 
+    /**
+     * Receive the formatted lines of a result set.
+     */
+    public static interface ResultSetPrinter {
+        /**
+         * @param chunk Formatted lines, separated by new line characters
+         */
+        void print(String chunk);
+
+        /**
+         * @return True if the reading of the rows must stop
+         */
+        boolean isCancelled();
+    }
+
     public static interface ResultSetFilter {
         /**
          * @param rs Result set in valid row
@@ -469,17 +548,26 @@ public class ReadTable {
                 } else if(customFields != null && !customFields.isEmpty()) {
                     fields = customFields;
                 }
-                // Create a temporary table that contain selected pk
-                selectionTable = CreateTable.createIndexTempTable(connection, pm,rowsId,"pk", INSERT_BATCH_SIZE);
                 String pkName = MetaData.getPkName(connection, tableName, true);
-                StringBuilder pkEquality = new StringBuilder("t1." + pkName + " = ");
+                String rangeCondition = null;
                 if (!pkName.equals(MetaData.POSTGRE_ROW_IDENTIFIER)) {
-                    pkEquality.append("t2.pk");
+                    rangeCondition = CreateTable.getRangeCondition("t1." + pkName, rowsId);
+                }
+                if(rangeCondition != null) {
+                    // Filter using pk ranges
+                    resultSet = st.executeQuery("SELECT " + fields + " FROM " + tableName + " t1 where " + rangeCondition).unwrap(SpatialResultSet.class);
                 } else {
-                    pkEquality.append(MetaData.castLongToTid("t2.pk"));
+                    // Create a temporary table that contain selected pk
+                    selectionTable = CreateTable.createIndexTempTable(connection, pm, rowsId, "pk", INSERT_BATCH_SIZE);
+                    StringBuilder pkEquality = new StringBuilder("t1." + pkName + " = ");
+                    if (!pkName.equals(MetaData.POSTGRE_ROW_IDENTIFIER)) {
+                        pkEquality.append("t2.pk");
+                    } else {
+                        pkEquality.append(MetaData.castLongToTid("t2.pk"));
+                    }
+                    // Join with temp table and compute the envelope on the server side
+                    resultSet = st.executeQuery("SELECT " + fields + " FROM " + tableName + " t1, " + selectionTable + " t2 where " + pkEquality).unwrap(SpatialResultSet.class);
                 }
-                // Join with temp table and compute the envelope on the server side
-                resultSet = st.executeQuery("SELECT " + fields + " FROM " + tableName + " t1, " + selectionTable + " t2 where " + pkEquality).unwrap(SpatialResultSet.class);
             } finally {
                 pm.removePropertyChangeListener(cancelListener);
             }
@@ -493,7 +581,9 @@ public class ReadTable {
         public void close() throws IOException {
             try {
                 resultSet.close();
-                st.execute("DROP TABLE IF EXISTS "+selectionTable);
+                if(selectionTable != null) {
+                    st.execute("DROP TABLE IF EXISTS " + selectionTable);
+                }
                 st.close();
             } catch (SQLException ex) {
                 throw new IOException(ex.getLocalizedMessage(), ex);
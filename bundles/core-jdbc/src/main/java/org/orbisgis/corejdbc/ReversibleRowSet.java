@@ -31,6 +31,7 @@ package org.orbisgis.corejdbc;
 import com.vividsolutions.jts.geom.Geometry;
 
 import java.sql.SQLException;
+import java.util.SortedSet;
 
 /**
  * This kind of RowSet hold an history of update commands. Undo and redo methods are available.
@@ -55,4 +56,21 @@ public interface ReversibleRowSet extends ReadRowSet {
      * @throws SQLException
      */
     void updateGeometry(Geometry geometry) throws SQLException;
+
+    /**
+     * Delete a set of rows using primary key range predicates. The deletion is fired as a single undoable edit.
+     * @param primaryKeys Primary key values of the rows to delete
+     * @throws SQLException
+     */
+    void deleteRows(SortedSet<Long> primaryKeys) throws SQLException;
+
+    /**
+     * Set the values of a column using an SQL expression, in a single statement. The update is fired as a single
+     * undoable edit.
+     * @param columnName Column to update
+     * @param expression SQL expression, other columns of the row can be referenced
+     * @param primaryKeys Primary key values of the rows to update, null in order to update all rows
+     * @throws SQLException
+     */
+    void updateColumn(String columnName, String expression, SortedSet<Long> primaryKeys) throws SQLException;
 }
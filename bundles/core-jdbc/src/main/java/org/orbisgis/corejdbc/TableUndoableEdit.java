@@ -36,6 +36,13 @@ public interface TableUndoableEdit {
      */
     public void die();
 
+    /**
+     * Merge the following edit into this one, in order to compact the undo history.
+     * @param edit Edit done just after this one
+     * @return true if the edit has been merged, then it must not be registered in the undo history.
+     */
+    public boolean addEdit(TableUndoableEdit edit);
+
     /**
      * @return true if an undo task should stop to this undoable edit.
      */
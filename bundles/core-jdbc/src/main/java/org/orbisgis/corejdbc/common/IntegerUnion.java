@@ -28,14 +28,16 @@
  */
 package org.orbisgis.corejdbc.common;
 
-import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
 import java.util.SortedSet;
 
 /**
@@ -58,16 +60,23 @@ import java.util.SortedSet;
  *      }
  * }
  * 
+ * Ranges are stored in a primitive array, the cardinality is cached and
+ * union, intersection and difference with another IntegerUnion are done
+ * range by range (see {@link #union}, {@link #intersection}, {@link #difference}).
+ * 
  * This class is not thread safe
  * 
- * @TODO Add function to push a range instead of a single
  * @author Nicolas Fortin
  */
 public class IntegerUnion implements NumberUnion<Integer> {
-        private static final long serialVersionUID = 1L;
-        
-        // int intervals ex: 0,15,50,60 for 0 to 15 and 50 to 60    
-        protected List<Integer> intervals;
+        private static final long serialVersionUID = 2L;
+        private static final int DEFAULT_CAPACITY = 8;
+
+        // int intervals ex: 0,15,50,60 for 0 to 15 and 50 to 60, only the first rangesLength values are used
+        private int[] ranges;
+        private int rangesLength = 0;
+        // Number of values in this set
+        private long cardinality = 0;
 
         /**
          * Constructor with an initial value
@@ -75,8 +84,7 @@ public class IntegerUnion implements NumberUnion<Integer> {
          */
         public IntegerUnion(int value) {
                 this();
-                intervals.add(value);
-                intervals.add(value);
+                appendRange(value, value);
         }
 
         /**
@@ -91,14 +99,13 @@ public class IntegerUnion implements NumberUnion<Integer> {
                 if (valueEnd < valueBegin) {
                         throw new IllegalArgumentException("Begin value must be inferior or equal to the end value.");
                 }
-                intervals.add(valueBegin);
-                intervals.add(valueEnd);
+                appendRange(valueBegin, valueEnd);
         }
         /**
          * Default constructor
          */
         public IntegerUnion() {
-                intervals = new ArrayList<Integer>();
+                ranges = new int[DEFAULT_CAPACITY];
         }
 
         /**
@@ -107,21 +114,21 @@ public class IntegerUnion implements NumberUnion<Integer> {
          */
         public IntegerUnion(int[] externalArray) {
                 this();
-                for(Integer val : externalArray) {
+                for(int val : externalArray) {
                         internalAdd(val);
                 }
         }
         /**
          * Copy constructor
-         * @param externalSet 
+         * @param externalSet
          */
         public IntegerUnion(IntegerUnion externalSet) {
-                this.intervals = new ArrayList<Integer>(externalSet.intervals);
+                copyExternalIntegerUnion(externalSet);
         }
 
         /**
          * Copy constructor with a generic collection
-         * @param externalCollection 
+         * @param externalCollection
          */
         public IntegerUnion(Collection<Integer> externalCollection) {
                 this();
@@ -139,10 +146,10 @@ public class IntegerUnion implements NumberUnion<Integer> {
          * @param valueIterator Value to insert in this set
          */
         public IntegerUnion(Iterator<Integer> valueIterator) {
-            this();
-            while(valueIterator.hasNext()) {
-                internalAdd(valueIterator.next());
-            }
+                this();
+                while(valueIterator.hasNext()) {
+                        internalAdd(valueIterator.next());
+                }
         }
 
         @Override
@@ -151,18 +158,32 @@ public class IntegerUnion implements NumberUnion<Integer> {
                         return false;
                 }
                 final IntegerUnion other = (IntegerUnion) obj;
-                // Intervals is never Null
-                return this.intervals.equals(other.intervals);
+                if(rangesLength != other.rangesLength) {
+                        return false;
+                }
+                for(int i = 0; i < rangesLength; i++) {
+                        if(ranges[i] != other.ranges[i]) {
+                                return false;
+                        }
+                }
+                return true;
         }
 
         @Override
         public int hashCode() {
+                int hashRanges = 1;
+                for(int i = 0; i < rangesLength; i++) {
+                        hashRanges = 31 * hashRanges + ranges[i];
+                }
                 int hash = 5;
-                hash = 19 * hash + (this.intervals != null ? this.intervals.hashCode() : 0);
+                hash = 19 * hash + hashRanges;
                 return hash;
         }
+
         private void copyExternalIntegerUnion(IntegerUnion externalSet) {
-                intervals.addAll(externalSet.intervals);
+                ranges = Arrays.copyOf(externalSet.ranges, Math.max(DEFAULT_CAPACITY, externalSet.rangesLength));
+                rangesLength = externalSet.rangesLength;
+                cardinality = externalSet.cardinality;
         }
 
         /**
@@ -172,67 +193,111 @@ public class IntegerUnion implements NumberUnion<Integer> {
          */
         @Override
         public boolean isEmpty() {
-                return intervals.isEmpty();
+                return rangesLength == 0;
         }
 
         @Override
         public String toString() {
-                if(intervals.isEmpty()) {
+                if(rangesLength == 0) {
                         return "[]";
                 }
                 StringBuilder ret = new StringBuilder();
-                Iterator<Integer> it = intervals.iterator();
-                while(it.hasNext()) {
+                for(int i = 0; i < rangesLength; i += 2) {
                         ret.append(" [");
-                        ret.append(it.next());
+                        ret.append(ranges[i]);
                         ret.append("-");
-                        ret.append(it.next()+1);
+                        ret.append(ranges[i + 1] + 1);
                         ret.append("[");
                 }
                 return ret.toString();
         }
+
+        /**
+         * Ensure that the internal array can contain the provided number of values
+         * @param length Number of values
+         */
+        private void ensureCapacity(int length) {
+                if(length > ranges.length) {
+                        ranges = Arrays.copyOf(ranges, Math.max(length, ranges.length + (ranges.length >> 1)));
+                }
+        }
+
+        /**
+         * Insert count values at the provided index, values are not initialised
+         */
+        private void insertAt(int index, int count) {
+                ensureCapacity(rangesLength + count);
+                System.arraycopy(ranges, index, ranges, index + count, rangesLength - index);
+                rangesLength += count;
+        }
+
+        /**
+         * Remove count values at the provided index
+         */
+        private void removeAt(int index, int count) {
+                System.arraycopy(ranges, index + count, ranges, index, rangesLength - index - count);
+                rangesLength -= count;
+        }
+
+        /**
+         * Add a range after the last range, the range must not overlap or touch the last range
+         */
+        private void appendRange(int begin, int end) {
+                ensureCapacity(rangesLength + 2);
+                ranges[rangesLength++] = begin;
+                ranges[rangesLength++] = end;
+                cardinality += end - begin + 1L;
+        }
+
+        private int search(int value) {
+                return Arrays.binarySearch(ranges, 0, rangesLength, value);
+        }
+
         /**
          * Remove the provided item from the Set
          * @param value
-         * @return 
+         * @return
          */
         protected final boolean internalRemove(int value) {
-                int index = Collections.binarySearch(intervals, value);
+                int index = search(value);
                 if(index>=0) {
-                                if(index > 0 && intervals.get(index - 1).equals(value)) {
-                                        intervals.remove(index-1);
-                                        intervals.remove(index-1);
-                                } else if(index + 1 < intervals.size() && intervals.get(index + 1).equals(value)) {
-                                        intervals.remove(index);
-                                        intervals.remove(index);
+                        if(index > 0 && ranges[index - 1] == value) {
+                                removeAt(index - 1, 2);
+                        } else if(index + 1 < rangesLength && ranges[index + 1] == value) {
+                                removeAt(index, 2);
+                        } else {
+                                if (index % 2 == 0) {
+                                        ranges[index] = value + 1;
                                 } else {
-                                        if (index % 2 == 0) {
-                                                intervals.set(index,value+1);
-                                        } else {
-                                                intervals.set(index,value-1);
-                                        }
+                                        ranges[index] = value - 1;
                                 }
-                                return true;
+                        }
+                        cardinality--;
+                        return true;
                 } else {
                         index = -index - 1; //retrieve the insertion point
                         if (index % 2 == 0) {
                                 //Not in the collection
-                                return false;                                
+                                return false;
                         } else {
                                 //Split in two ranges
-                                Integer endValue = intervals.get(index);
-                                intervals.set(index, value-1);
-                                intervals.add(index+1,value+1);
-                                intervals.add(index+2,endValue);
+                                int endValue = ranges[index];
+                                insertAt(index + 1, 2);
+                                ranges[index] = value - 1;
+                                ranges[index + 1] = value + 1;
+                                ranges[index + 2] = endValue;
+                                cardinality--;
                                 return true;
                         }
-                }                
+                }
         }
-        
+
         @Override
         public boolean remove(Object o) {
-                Integer value = (Integer) o;
-                return internalRemove(value);
+                if(!(o instanceof Integer)) {
+                        return false;
+                }
+                return internalRemove((Integer) o);
         }
 
         /**
@@ -241,50 +306,77 @@ public class IntegerUnion implements NumberUnion<Integer> {
          * @return True if the value is successfully inserted
          */
         protected final boolean internalAdd(int value) {
-               // Iterate over the value range array and find contiguous value
+                // Values are often added in ascending order, append without searching
+                if(rangesLength == 0 || value > ranges[rangesLength - 1]) {
+                        if(rangesLength > 0 && ranges[rangesLength - 1] == value - 1) {
+                                ranges[rangesLength - 1] = value;
+                                cardinality++;
+                        } else {
+                                appendRange(value, value);
+                        }
+                        return true;
+                }
                 //Find the insertion point in ranges
-                int index = Collections.binarySearch(intervals, value);
+                int index = search(value);
                 if (index >= 0) {
                         return false;
                 }
                 index = -index - 1; //retrieve the insertion point
-                // intervals[index] > value
+                // ranges[index] > value
                 if (index % 2 == 0) {
                         //If index corresponding to begin of a range
-                        boolean mergeFirst = index > 0 && intervals.get(index - 1).equals(value - 1);
-                        boolean mergeSecond = index < intervals.size() && intervals.get(index).equals(value + 1);
+                        boolean mergeFirst = index > 0 && ranges[index - 1] == value - 1;
+                        boolean mergeSecond = index < rangesLength && ranges[index] == value + 1;
                         if (mergeFirst && mergeSecond) {
                                 //Merge two ranges and update the end of the first range
-                                Integer endNextRange = intervals.get(index + 1);
-                                intervals.remove(index);
-                                intervals.remove(index);
-                                intervals.set(index - 1, endNextRange);
-                                return true;
+                                int endNextRange = ranges[index + 1];
+                                removeAt(index, 2);
+                                ranges[index - 1] = endNextRange;
                         } else if (mergeFirst) {
                                 //Replace the value (merge to the previous range)
-                                intervals.set(index - 1, value);
-                                return true;
+                                ranges[index - 1] = value;
                         } else if (mergeSecond) {
                                 //Replace the value (merge to the next range)
-                                intervals.set(index, value);
-                                return true;
+                                ranges[index] = value;
+                        } else {
+                                //New range
+                                insertAt(index, 2);
+                                ranges[index] = value;
+                                ranges[index + 1] = value;
                         }
+                        cardinality++;
+                        return true;
                 } else {
                         //If index corresponding to the end of a range
                         //the provided value is in a range
                         return false;
                 }
-                //New range
-                intervals.add(index, new Integer(value));
-                intervals.add(index,  new Integer(value));
-                return true;                
         }
-        
+
         @Override
         public boolean add(Integer value) {
                 return internalAdd(value);
         }
 
+        /**
+         * Add all values of the range [valueBegin-valueEnd].
+         * @param valueBegin Included begin of range
+         * @param valueEnd Included end of range
+         * @return True if this set has been modified
+         */
+        public boolean addRange(int valueBegin, int valueEnd) {
+                if (valueEnd < valueBegin) {
+                        throw new IllegalArgumentException("Begin value must be inferior or equal to the end value.");
+                }
+                if(rangesLength == 0 || (valueBegin > ranges[rangesLength - 1] && valueBegin - 1 != ranges[rangesLength - 1])) {
+                        appendRange(valueBegin, valueEnd);
+                        return true;
+                }
+                long oldCardinality = cardinality;
+                setRanges(union(this, new IntegerUnion(valueBegin, valueEnd)));
+                return oldCardinality != cardinality;
+        }
+
         @Override
         public Iterator<Integer> iterator() {
                 return listIterator();
@@ -295,8 +387,40 @@ public class IntegerUnion implements NumberUnion<Integer> {
          *
          * @return intervals ex: 0,0,50,60 for [0] and [50-60]
          */
+        @Override
         public List<Integer> getValueRanges() {
-                return Collections.unmodifiableList(intervals);
+                return new RangeList();
+        }
+
+        /**
+         * @return Number of ranges, {@link #getRangeBegin(int)} and {@link #getRangeEnd(int)} are faster than
+         * {@link #getValueRanges()} in order to iterate over ranges as it does not box values.
+         */
+        public int getRangeCount() {
+                return rangesLength / 2;
+        }
+
+        /**
+         * @param rangeIndex Range index [0-getRangeCount()[
+         * @return Included begin of the range
+         */
+        public int getRangeBegin(int rangeIndex) {
+                return ranges[rangeIndex * 2];
+        }
+
+        /**
+         * @param rangeIndex Range index [0-getRangeCount()[
+         * @return Included end of the range
+         */
+        public int getRangeEnd(int rangeIndex) {
+                return ranges[rangeIndex * 2 + 1];
+        }
+
+        /**
+         * @return Number of values in this set, without the {@link Integer#MAX_VALUE} limitation of {@link #size()}
+         */
+        public long getCardinality() {
+                return cardinality;
         }
 
         @Override
@@ -304,71 +428,77 @@ public class IntegerUnion implements NumberUnion<Integer> {
                 return new IntegerComparator();
         }
 
+        /**
+         * @return A copy of values in [e-e1[
+         */
         @Override
         public SortedSet<Integer> subSet(Integer e, Integer e1) {
-                throw new UnsupportedOperationException("Not supported yet.");
+                if(e1 <= e) {
+                        return new IntegerUnion();
+                }
+                return intersection(this, new IntegerUnion(e, e1 - 1));
         }
 
+        /**
+         * @return A copy of values inferior to e
+         */
         @Override
         public SortedSet<Integer> headSet(Integer e) {
-                throw new UnsupportedOperationException("Not supported yet.");
+                if(e == Integer.MIN_VALUE) {
+                        return new IntegerUnion();
+                }
+                return intersection(this, new IntegerUnion(Integer.MIN_VALUE, e - 1));
         }
 
+        /**
+         * @return A copy of values superior or equal to e
+         */
         @Override
         public SortedSet<Integer> tailSet(Integer e) {
-            int index = Collections.binarySearch(intervals, e);
-            if(index < 0) {
-                index = -index - 1; //retrieve the insertion point
-            }
-            IntegerUnion retVal = new IntegerUnion();
-            if(index % 2 != 0) {
-                retVal.intervals = new ArrayList<>(intervals.subList(index, intervals.size()));
-                retVal.intervals.add(0, e);
-            } else {
-                retVal.intervals = intervals.subList(index, intervals.size());
-            }
-            return retVal;
+                return intersection(this, new IntegerUnion(e, Integer.MAX_VALUE));
         }
 
         @Override
         public Integer first() {
-                return intervals.get(0);
+                if(rangesLength == 0) {
+                        throw new NoSuchElementException();
+                }
+                return ranges[0];
         }
 
         @Override
         public Integer last() {
-                return intervals.get(intervals.size()-1);
+                if(rangesLength == 0) {
+                        throw new NoSuchElementException();
+                }
+                return ranges[rangesLength - 1];
         }
 
         @Override
         public int size() {
-                Iterator<Integer> it = intervals.iterator();
-                int count=0;
-                while(it.hasNext()) {
-                        count+=-it.next()+(it.next()+1);
-                }
-                return count;
+                return (int) Math.min(cardinality, Integer.MAX_VALUE);
         }
 
         @Override
         public boolean contains(Object o) {
-                Integer value = (Integer)o;
-                int index = Collections.binarySearch(intervals,value );
+                if(!(o instanceof Integer)) {
+                        return false;
+                }
+                int index = search((Integer) o);
                 if(index>=0) {
                         return true;
                 } else {
                         //retrieve the insertion point
-                        index = -index - 1;     
+                        index = -index - 1;
                         //value < than an end range
-                        return index % 2 != 0; 
+                        return index % 2 != 0;
                 }
-                
         }
 
         @Override
         public Object[] toArray() {
                 int arraySize = size();
-                Object[] values = new Object[size()];
+                Object[] values = new Object[arraySize];
                 Iterator<Integer> it = iterator();
                 for(int i = 0; i < arraySize; i++) {
                         values[i]=it.next();
@@ -378,16 +508,35 @@ public class IntegerUnion implements NumberUnion<Integer> {
 
         @Override
         public <T> T[] toArray(T[] ts) {
-                throw new UnsupportedOperationException("Not supported yet.");
+                return new ArrayList<Integer>(this).toArray(ts);
         }
 
         @Override
         public boolean containsAll(Collection<?> clctn) {
-                throw new UnsupportedOperationException("Not supported yet.");
+                if(clctn instanceof IntegerUnion) {
+                        return difference((IntegerUnion) clctn, this).isEmpty();
+                }
+                for(Object value : clctn) {
+                        if(!contains(value)) {
+                                return false;
+                        }
+                }
+                return true;
         }
 
+        /**
+         * Add all values of the collection, in O(ranges) if the collection is a IntegerUnion
+         * @param clctn Values to add
+         * @return True if all values have been added (none of them was in this set)
+         */
         @Override
         public boolean addAll(Collection<? extends Integer> clctn) {
+                if(clctn instanceof IntegerUnion) {
+                        IntegerUnion other = (IntegerUnion) clctn;
+                        long expectedCardinality = cardinality + other.cardinality;
+                        setRanges(union(this, other));
+                        return cardinality == expectedCardinality;
+                }
                 boolean isAllAdded=true;
                 for (Iterator<? extends Integer> it = clctn.iterator(); it.hasNext();) {
                         Integer value = it.next();
@@ -398,127 +547,291 @@ public class IntegerUnion implements NumberUnion<Integer> {
                 return isAllAdded;
         }
 
+        /**
+         * Keep only the values of the collection, in O(ranges) if the collection is a IntegerUnion
+         * @param clctn Values to keep
+         * @return True if this set has been modified
+         */
         @Override
         public boolean retainAll(Collection<?> clctn) {
-                throw new UnsupportedOperationException("Not supported yet.");
+                long oldCardinality = cardinality;
+                if(clctn instanceof IntegerUnion) {
+                        setRanges(intersection(this, (IntegerUnion) clctn));
+                } else {
+                        IntegerUnion retained = new IntegerUnion();
+                        for(Object value : clctn) {
+                                if(contains(value)) {
+                                        retained.internalAdd((Integer) value);
+                                }
+                        }
+                        setRanges(retained);
+                }
+                return oldCardinality != cardinality;
         }
 
+        /**
+         * Remove all values of the collection, in O(ranges) if the collection is a IntegerUnion
+         * @param clctn Values to remove
+         * @return True if this set has been modified
+         */
         @Override
         public boolean removeAll(Collection<?> clctn) {
-                throw new UnsupportedOperationException("Not supported yet.");
+                long oldCardinality = cardinality;
+                if(clctn instanceof IntegerUnion) {
+                        setRanges(difference(this, (IntegerUnion) clctn));
+                } else {
+                        for(Object value : clctn) {
+                                remove(value);
+                        }
+                }
+                return oldCardinality != cardinality;
         }
 
         @Override
         public void clear() {
-                intervals.clear();
+                rangesLength = 0;
+                cardinality = 0;
+        }
+
+        private void setRanges(IntegerUnion other) {
+                ranges = other.ranges;
+                rangesLength = other.rangesLength;
+                cardinality = other.cardinality;
+        }
+
+        /**
+         * Add a range after the last range of the result, merge it with the last range if they touch
+         */
+        private void mergeRange(int begin, int end) {
+                if(rangesLength > 0 && ranges[rangesLength - 1] == begin - 1 && begin != Integer.MIN_VALUE) {
+                        cardinality += end - ranges[rangesLength - 1];
+                        ranges[rangesLength - 1] = end;
+                } else {
+                        appendRange(begin, end);
+                }
+        }
+
+        /**
+         * @param a First set
+         * @param b Second set
+         * @return Values in a or in b
+         */
+        public static IntegerUnion union(IntegerUnion a, IntegerUnion b) {
+                IntegerUnion result = new IntegerUnion();
+                result.ensureCapacity(a.rangesLength + b.rangesLength);
+                int i = 0;
+                int j = 0;
+                boolean hasCurrent = false;
+                int begin = 0;
+                int end = 0;
+                while(i < a.rangesLength || j < b.rangesLength) {
+                        int nextBegin;
+                        int nextEnd;
+                        if(j >= b.rangesLength || (i < a.rangesLength && a.ranges[i] <= b.ranges[j])) {
+                                nextBegin = a.ranges[i];
+                                nextEnd = a.ranges[i + 1];
+                                i += 2;
+                        } else {
+                                nextBegin = b.ranges[j];
+                                nextEnd = b.ranges[j + 1];
+                                j += 2;
+                        }
+                        if(!hasCurrent) {
+                                begin = nextBegin;
+                                end = nextEnd;
+                                hasCurrent = true;
+                        } else if(end == Integer.MAX_VALUE || nextBegin <= end + 1) {
+                                end = end > nextEnd ? end : nextEnd;
+                        } else {
+                                result.appendRange(begin, end);
+                                begin = nextBegin;
+                                end = nextEnd;
+                        }
+                }
+                if(hasCurrent) {
+                        result.appendRange(begin, end);
+                }
+                return result;
+        }
+
+        /**
+         * @param a First set
+         * @param b Second set
+         * @return Values in a and in b
+         */
+        public static IntegerUnion intersection(IntegerUnion a, IntegerUnion b) {
+                IntegerUnion result = new IntegerUnion();
+                int i = 0;
+                int j = 0;
+                while(i < a.rangesLength && j < b.rangesLength) {
+                        int begin = a.ranges[i] > b.ranges[j] ? a.ranges[i] : b.ranges[j];
+                        int end = a.ranges[i + 1] < b.ranges[j + 1] ? a.ranges[i + 1] : b.ranges[j + 1];
+                        if(begin <= end) {
+                                result.mergeRange(begin, end);
+                        }
+                        if(a.ranges[i + 1] < b.ranges[j + 1]) {
+                                i += 2;
+                        } else {
+                                j += 2;
+                        }
+                }
+                return result;
+        }
+
+        /**
+         * @param a First set
+         * @param b Second set
+         * @return Values in a and not in b
+         */
+        public static IntegerUnion difference(IntegerUnion a, IntegerUnion b) {
+                IntegerUnion result = new IntegerUnion();
+                int j = 0;
+                for(int i = 0; i < a.rangesLength; i += 2) {
+                        int current = a.ranges[i];
+                        int end = a.ranges[i + 1];
+                        boolean done = false;
+                        // Skip ranges of b before the current value
+                        while(j < b.rangesLength && b.ranges[j + 1] < current) {
+                                j += 2;
+                        }
+                        while(!done && j < b.rangesLength && b.ranges[j] <= end) {
+                                if(b.ranges[j] > current) {
+                                        result.mergeRange(current, b.ranges[j] - 1);
+                                }
+                                if(b.ranges[j + 1] >= end) {
+                                        done = true;
+                                } else {
+                                        current = b.ranges[j + 1] + 1;
+                                        j += 2;
+                                }
+                        }
+                        if(!done) {
+                                result.mergeRange(current, end);
+                        }
+                }
+                return result;
         }
 
         /**
          * @return Two direction iterator
          */
         public ListIterator<Integer> listIterator() {
-            return new ValueListIterator(intervals.listIterator());
+                return new ValueListIterator(0, rangesLength > 0 ? ranges[0] : 0);
         }
 
+        /**
+         * @param from First value returned by next()
+         * @return Two direction iterator, starting at the first value superior or equal to from
+         */
         public ListIterator<Integer> listIterator(int from) {
-            int index = Collections.binarySearch(intervals, from);
-            if(index < 0) {
+                int index = search(from);
+                if(index >= 0) {
+                        // from is the begin or the end of a range
+                        return new ValueListIterator(index - index % 2, from);
+                }
                 index = -index - 1; //retrieve the insertion point
-            }
-            if(index % 2 == 0) {
-                return new ValueListIterator(intervals.listIterator(index));
-            } else {
-                ListIterator<Integer> it = intervals.listIterator(index);
-                int end = it.next();
-                return new ValueListIterator(it, from, end + 1);
-            }
-        }
-
-        private static class ValueListIterator implements ListIterator<Integer>  {
-            protected int current = -1;
-            protected int itEnd = 0;
-            // Interval list iterator
-            private ListIterator<Integer> it;
-            private int itBegin = -1;
-            private boolean lastNext = true;
-
-            public ValueListIterator(ListIterator<Integer> listIterator) {
-                this.it = listIterator;
-            }
-
-            public ValueListIterator(ListIterator<Integer> listIterator, int itBegin, int itEnd ) {
-                this.it = listIterator;
-                this.itBegin = itBegin;
-                this.current = itBegin - 1;
-                this.itEnd = itEnd;
-            }
-
-            @Override
-            public boolean hasNext() {
-                return current + 1 < itEnd || it.hasNext();
-            }
-
-            @Override
-            public Integer next() {
-                lastNext = true;
-                if (current + 1 < itEnd) {
-                    return ++current;
-                } else {
-                    current = it.next();
-                    itBegin = current;
-                    itEnd = it.next() + 1;
-                    return current;
-                }
-            }
-
-            @Override
-            public boolean hasPrevious() {
-                return current > itBegin || it.hasPrevious();
-            }
-
-            @Override
-            public Integer previous() {
-                if(current > itBegin && !lastNext) {
-                    return --current;
+                if(index % 2 == 0) {
+                        // from is not in a range, start at the next range
+                        return new ValueListIterator(index, index < rangesLength ? ranges[index] : 0);
                 } else {
-                    if(lastNext) {
-                        lastNext = false;
-                        it.previous();
-                        it.previous();
-                        return current;
-                    } else {
-                        itEnd = it.previous() + 1;
-                        itBegin = it.previous();
-                        current = itEnd - 1;
-                    }
-                    return current;
-                }
-            }
-
-            @Override
-            public int nextIndex() {
-                throw new UnsupportedOperationException("Not supported yet.");
-            }
-
-            @Override
-            public int previousIndex() {
-                throw new UnsupportedOperationException("Not supported yet.");
-            }
-
-            @Override
-            public void set(Integer integer) {
-                throw new UnsupportedOperationException("Not supported yet.");
-            }
-
-            @Override
-            public void add(Integer integer) {
-                throw new UnsupportedOperationException("Not supported yet.");
-            }
-
-            @Override
-            public void remove() {
-                throw new UnsupportedOperationException("It won't be supported because it's not mandatory.");
-            }
+                        // from is in the range beginning at index - 1
+                        return new ValueListIterator(index - 1, from);
+                }
+        }
+
+        private class ValueListIterator implements ListIterator<Integer> {
+                // Index of the range that contains the next value
+                private int rangeIndex;
+                // Value returned by next()
+                private int nextValue;
+
+                public ValueListIterator(int rangeIndex, int nextValue) {
+                        this.rangeIndex = rangeIndex;
+                        this.nextValue = nextValue;
+                }
+
+                @Override
+                public boolean hasNext() {
+                        return rangeIndex < rangesLength;
+                }
+
+                @Override
+                public Integer next() {
+                        if(!hasNext()) {
+                                throw new NoSuchElementException();
+                        }
+                        int value = nextValue;
+                        if(value == ranges[rangeIndex + 1]) {
+                                rangeIndex += 2;
+                                if(rangeIndex < rangesLength) {
+                                        nextValue = ranges[rangeIndex];
+                                }
+                        } else {
+                                nextValue = value + 1;
+                        }
+                        return value;
+                }
+
+                @Override
+                public boolean hasPrevious() {
+                        return (rangeIndex < rangesLength && nextValue > ranges[rangeIndex]) || rangeIndex > 0;
+                }
+
+                @Override
+                public Integer previous() {
+                        if(rangeIndex < rangesLength && nextValue > ranges[rangeIndex]) {
+                                nextValue--;
+                        } else if(rangeIndex > 0) {
+                                rangeIndex -= 2;
+                                nextValue = ranges[rangeIndex + 1];
+                        } else {
+                                throw new NoSuchElementException();
+                        }
+                        return nextValue;
+                }
+
+                @Override
+                public int nextIndex() {
+                        throw new UnsupportedOperationException("Not supported yet.");
+                }
+
+                @Override
+                public int previousIndex() {
+                        throw new UnsupportedOperationException("Not supported yet.");
+                }
+
+                @Override
+                public void set(Integer value) {
+                        throw new UnsupportedOperationException("Not supported yet.");
+                }
+
+                @Override
+                public void add(Integer value) {
+                        throw new UnsupportedOperationException("Not supported yet.");
+                }
+
+                @Override
+                public void remove() {
+                        throw new UnsupportedOperationException("It won't be supported because it's not mandatory.");
+                }
+        }
+
+        /**
+         * Read only list view of the ranges
+         */
+        private class RangeList extends AbstractList<Integer> implements RandomAccess {
+                @Override
+                public Integer get(int index) {
+                        if(index < 0 || index >= rangesLength) {
+                                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + rangesLength);
+                        }
+                        return ranges[index];
+                }
+
+                @Override
+                public int size() {
+                        return rangesLength;
+                }
         }
 
         /**
@@ -531,6 +844,6 @@ public class IntegerUnion implements NumberUnion<Integer> {
                 public int compare(Integer t, Integer t1) {
                         return (t<t1 ? -1 : (t.equals(t1) ? 0 : 1));
                 }
-                
+
         }
 }
@@ -1,12 +1,15 @@
 package org.orbisgis.corejdbc.common;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
 import java.util.SortedSet;
 
 /**
@@ -29,15 +32,23 @@ import java.util.SortedSet;
  *      }
  * }
  *
+ * Ranges are stored in a primitive array, the cardinality is cached and
+ * union, intersection and difference with another LongUnion are done
+ * range by range (see {@link #union}, {@link #intersection}, {@link #difference}).
+ *
  * This class is not thread safe
  *
  * @author Nicolas Fortin
  */
 public class LongUnion implements NumberUnion<Long> {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
+    private static final int DEFAULT_CAPACITY = 8;
 
-    // long intervals ex: 0,15,50,60 for 0 to 15 and 50 to 60    
-    protected List<Long> intervals;
+    // long intervals ex: 0,15,50,60 for 0 to 15 and 50 to 60, only the first rangesLength values are used
+    private long[] ranges;
+    private int rangesLength = 0;
+    // Number of values in this set
+    private long cardinality = 0;
 
     /**
      * Constructor with an initial value
@@ -45,8 +56,7 @@ public class LongUnion implements NumberUnion<Long> {
      */
     public LongUnion(long value) {
         this();
-        intervals.add(value);
-        intervals.add(value);
+        appendRange(value, value);
     }
 
     /**
@@ -61,23 +71,22 @@ public class LongUnion implements NumberUnion<Long> {
         if (valueEnd < valueBegin) {
             throw new IllegalArgumentException("Begin value must be inferior or equal to the end value.");
         }
-        intervals.add(valueBegin);
-        intervals.add(valueEnd);
+        appendRange(valueBegin, valueEnd);
     }
     /**
      * Default constructor
      */
     public LongUnion() {
-        intervals = new ArrayList<Long>();
+        ranges = new long[DEFAULT_CAPACITY];
     }
 
     /**
      * Creator with an initial value
-     * @param externalArray Array of int
+     * @param externalArray Array of long
      */
     public LongUnion(long[] externalArray) {
         this();
-        for(Long val : externalArray) {
+        for(long val : externalArray) {
             internalAdd(val);
         }
     }
@@ -86,7 +95,7 @@ public class LongUnion implements NumberUnion<Long> {
      * @param externalSet
      */
     public LongUnion(LongUnion externalSet) {
-        this.intervals = new ArrayList<Long>(externalSet.intervals);
+        copyExternalLongUnion(externalSet);
     }
 
     /**
@@ -121,18 +130,32 @@ public class LongUnion implements NumberUnion<Long> {
             return false;
         }
         final LongUnion other = (LongUnion) obj;
-        // Intervals is never Null
-        return this.intervals.equals(other.intervals);
+        if(rangesLength != other.rangesLength) {
+            return false;
+        }
+        for(int i = 0; i < rangesLength; i++) {
+            if(ranges[i] != other.ranges[i]) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
+        int hashRanges = 1;
+        for(int i = 0; i < rangesLength; i++) {
+            hashRanges = 31 * hashRanges + (int) (ranges[i] ^ (ranges[i] >>> 32));
+        }
         int hash = 5;
-        hash = 19 * hash + (this.intervals != null ? this.intervals.hashCode() : 0);
+        hash = 19 * hash + hashRanges;
         return hash;
     }
+
     private void copyExternalLongUnion(LongUnion externalSet) {
-        intervals.addAll(externalSet.intervals);
+        ranges = Arrays.copyOf(externalSet.ranges, Math.max(DEFAULT_CAPACITY, externalSet.rangesLength));
+        rangesLength = externalSet.rangesLength;
+        cardinality = externalSet.cardinality;
     }
 
     /**
@@ -142,46 +165,86 @@ public class LongUnion implements NumberUnion<Long> {
      */
     @Override
     public boolean isEmpty() {
-        return intervals.isEmpty();
+        return rangesLength == 0;
     }
 
     @Override
     public String toString() {
-        if(intervals.isEmpty()) {
+        if(rangesLength == 0) {
             return "[]";
         }
         StringBuilder ret = new StringBuilder();
-        Iterator<Long> it = intervals.iterator();
-        while(it.hasNext()) {
+        for(int i = 0; i < rangesLength; i += 2) {
             ret.append(" [");
-            ret.append(it.next());
+            ret.append(ranges[i]);
             ret.append("-");
-            ret.append(it.next()+1);
+            ret.append(ranges[i + 1] + 1);
             ret.append("[");
         }
         return ret.toString();
     }
+
+    /**
+     * Ensure that the internal array can contain the provided number of values
+     * @param length Number of values
+     */
+    private void ensureCapacity(int length) {
+        if(length > ranges.length) {
+            ranges = Arrays.copyOf(ranges, Math.max(length, ranges.length + (ranges.length >> 1)));
+        }
+    }
+
+    /**
+     * Insert count values at the provided index, values are not initialised
+     */
+    private void insertAt(int index, int count) {
+        ensureCapacity(rangesLength + count);
+        System.arraycopy(ranges, index, ranges, index + count, rangesLength - index);
+        rangesLength += count;
+    }
+
+    /**
+     * Remove count values at the provided index
+     */
+    private void removeAt(int index, int count) {
+        System.arraycopy(ranges, index + count, ranges, index, rangesLength - index - count);
+        rangesLength -= count;
+    }
+
+    /**
+     * Add a range after the last range, the range must not overlap or touch the last range
+     */
+    private void appendRange(long begin, long end) {
+        ensureCapacity(rangesLength + 2);
+        ranges[rangesLength++] = begin;
+        ranges[rangesLength++] = end;
+        cardinality += end - begin + 1L;
+    }
+
+    private int search(long value) {
+        return Arrays.binarySearch(ranges, 0, rangesLength, value);
+    }
+
     /**
      * Remove the provided item from the Set
      * @param value
      * @return
      */
     protected final boolean internalRemove(long value) {
-        int index = Collections.binarySearch(intervals, value);
+        int index = search(value);
         if(index>=0) {
-            if(index > 0 && intervals.get(index - 1).equals(value)) {
-                intervals.remove(index-1);
-                intervals.remove(index-1);
-            } else if(index + 1 < intervals.size() && intervals.get(index + 1).equals(value)) {
-                intervals.remove(index);
-                intervals.remove(index);
+            if(index > 0 && ranges[index - 1] == value) {
+                removeAt(index - 1, 2);
+            } else if(index + 1 < rangesLength && ranges[index + 1] == value) {
+                removeAt(index, 2);
             } else {
                 if (index % 2 == 0) {
-                    intervals.set(index,value+1);
+                    ranges[index] = value + 1;
                 } else {
-                    intervals.set(index,value-1);
+                    ranges[index] = value - 1;
                 }
             }
+            cardinality--;
             return true;
         } else {
             index = -index - 1; //retrieve the insertion point
@@ -190,10 +253,12 @@ public class LongUnion implements NumberUnion<Long> {
                 return false;
             } else {
                 //Split in two ranges
-                Long endValue = intervals.get(index);
-                intervals.set(index, value-1);
-                intervals.add(index+1,value+1);
-                intervals.add(index+2,endValue);
+                long endValue = ranges[index];
+                insertAt(index + 1, 2);
+                ranges[index] = value - 1;
+                ranges[index + 1] = value + 1;
+                ranges[index + 2] = endValue;
+                cardinality--;
                 return true;
             }
         }
@@ -201,8 +266,10 @@ public class LongUnion implements NumberUnion<Long> {
 
     @Override
     public boolean remove(Object o) {
-        Long value = (Long) o;
-        return internalRemove(value);
+        if(!(o instanceof Long)) {
+            return false;
+        }
+        return internalRemove((Long) o);
     }
 
     /**
@@ -211,43 +278,51 @@ public class LongUnion implements NumberUnion<Long> {
      * @return True if the value is successfully inserted
      */
     protected final boolean internalAdd(long value) {
-        // Iterate over the value range array and find contiguous value
-        //Find the insertion polong in ranges
-        int index = Collections.binarySearch(intervals, value);
+        // Values are often added in ascending order, append without searching
+        if(rangesLength == 0 || value > ranges[rangesLength - 1]) {
+            if(rangesLength > 0 && ranges[rangesLength - 1] == value - 1) {
+                ranges[rangesLength - 1] = value;
+                cardinality++;
+            } else {
+                appendRange(value, value);
+            }
+            return true;
+        }
+        //Find the insertion point in ranges
+        int index = search(value);
         if (index >= 0) {
             return false;
         }
         index = -index - 1; //retrieve the insertion point
-        // intervals[index] > value
+        // ranges[index] > value
         if (index % 2 == 0) {
             //If index corresponding to begin of a range
-            boolean mergeFirst = index > 0 && intervals.get(index - 1).equals(value - 1);
-            boolean mergeSecond = index < intervals.size() && intervals.get(index).equals(value + 1);
+            boolean mergeFirst = index > 0 && ranges[index - 1] == value - 1;
+            boolean mergeSecond = index < rangesLength && ranges[index] == value + 1;
             if (mergeFirst && mergeSecond) {
                 //Merge two ranges and update the end of the first range
-                Long endNextRange = intervals.get(index + 1);
-                intervals.remove(index);
-                intervals.remove(index);
-                intervals.set(index - 1, endNextRange);
-                return true;
+                long endNextRange = ranges[index + 1];
+                removeAt(index, 2);
+                ranges[index - 1] = endNextRange;
             } else if (mergeFirst) {
                 //Replace the value (merge to the previous range)
-                intervals.set(index - 1, value);
-                return true;
+                ranges[index - 1] = value;
             } else if (mergeSecond) {
                 //Replace the value (merge to the next range)
-                intervals.set(index, value);
-                return true;
+                ranges[index] = value;
+            } else {
+                //New range
+                insertAt(index, 2);
+                ranges[index] = value;
+                ranges[index + 1] = value;
             }
+            cardinality++;
+            return true;
         } else {
             //If index corresponding to the end of a range
             //the provided value is in a range
             return false;
         }
-        //New range
-        intervals.add(index, new Long(value));
-        intervals.add(index,  new Long(value));
-        return true;
     }
 
     @Override
@@ -255,6 +330,25 @@ public class LongUnion implements NumberUnion<Long> {
         return internalAdd(value);
     }
 
+    /**
+     * Add all values of the range [valueBegin-valueEnd].
+     * @param valueBegin Included begin of range
+     * @param valueEnd Included end of range
+     * @return True if this set has been modified
+     */
+    public boolean addRange(long valueBegin, long valueEnd) {
+        if (valueEnd < valueBegin) {
+            throw new IllegalArgumentException("Begin value must be inferior or equal to the end value.");
+        }
+        if(rangesLength == 0 || (valueBegin > ranges[rangesLength - 1] && valueBegin - 1 != ranges[rangesLength - 1])) {
+            appendRange(valueBegin, valueEnd);
+            return true;
+        }
+        long oldCardinality = cardinality;
+        setRanges(union(this, new LongUnion(valueBegin, valueEnd)));
+        return oldCardinality != cardinality;
+    }
+
     @Override
     public Iterator<Long> iterator() {
         return listIterator();
@@ -265,8 +359,40 @@ public class LongUnion implements NumberUnion<Long> {
      *
      * @return intervals ex: 0,0,50,60 for [0] and [50-60]
      */
+    @Override
     public List<Long> getValueRanges() {
-        return Collections.unmodifiableList(intervals);
+        return new RangeList();
+    }
+
+    /**
+     * @return Number of ranges, {@link #getRangeBegin(int)} and {@link #getRangeEnd(int)} are faster than
+     * {@link #getValueRanges()} in order to iterate over ranges as it does not box values.
+     */
+    public int getRangeCount() {
+        return rangesLength / 2;
+    }
+
+    /**
+     * @param rangeIndex Range index [0-getRangeCount()[
+     * @return Included begin of the range
+     */
+    public long getRangeBegin(int rangeIndex) {
+        return ranges[rangeIndex * 2];
+    }
+
+    /**
+     * @param rangeIndex Range index [0-getRangeCount()[
+     * @return Included end of the range
+     */
+    public long getRangeEnd(int rangeIndex) {
+        return ranges[rangeIndex * 2 + 1];
+    }
+
+    /**
+     * @return Number of values in this set, without the {@link Integer#MAX_VALUE} limitation of {@link #size()}
+     */
+    public long getCardinality() {
+        return cardinality;
     }
 
     @Override
@@ -274,45 +400,63 @@ public class LongUnion implements NumberUnion<Long> {
         return new LongComparator();
     }
 
+    /**
+     * @return A copy of values in [e-e1[
+     */
     @Override
     public SortedSet<Long> subSet(Long e, Long e1) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        if(e1 <= e) {
+            return new LongUnion();
+        }
+        return intersection(this, new LongUnion(e, e1 - 1));
     }
 
+    /**
+     * @return A copy of values inferior to e
+     */
     @Override
     public SortedSet<Long> headSet(Long e) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        if(e == Long.MIN_VALUE) {
+            return new LongUnion();
+        }
+        return intersection(this, new LongUnion(Long.MIN_VALUE, e - 1));
     }
 
+    /**
+     * @return A copy of values superior or equal to e
+     */
     @Override
     public SortedSet<Long> tailSet(Long e) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        return intersection(this, new LongUnion(e, Long.MAX_VALUE));
     }
 
     @Override
     public Long first() {
-        return intervals.get(0);
+        if(rangesLength == 0) {
+            throw new NoSuchElementException();
+        }
+        return ranges[0];
     }
 
     @Override
     public Long last() {
-        return intervals.get(intervals.size()-1);
+        if(rangesLength == 0) {
+            throw new NoSuchElementException();
+        }
+        return ranges[rangesLength - 1];
     }
 
     @Override
     public int size() {
-        Iterator<Long> it = intervals.iterator();
-        int count=0;
-        while(it.hasNext()) {
-            count+=-it.next()+(it.next()+1);
-        }
-        return count;
+        return (int) Math.min(cardinality, Integer.MAX_VALUE);
     }
 
     @Override
     public boolean contains(Object o) {
-        Long value = (Long)o;
-        long index = Collections.binarySearch(intervals,value );
+        if(!(o instanceof Long)) {
+            return false;
+        }
+        int index = search((Long) o);
         if(index>=0) {
             return true;
         } else {
@@ -321,13 +465,12 @@ public class LongUnion implements NumberUnion<Long> {
             //value < than an end range
             return index % 2 != 0;
         }
-
     }
 
     @Override
     public Object[] toArray() {
-        long arraySize = size();
-        Object[] values = new Object[size()];
+        int arraySize = size();
+        Object[] values = new Object[arraySize];
         Iterator<Long> it = iterator();
         for(int i = 0; i < arraySize; i++) {
             values[i]=it.next();
@@ -337,16 +480,35 @@ public class LongUnion implements NumberUnion<Long> {
 
     @Override
     public <T> T[] toArray(T[] ts) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        return new ArrayList<Long>(this).toArray(ts);
     }
 
     @Override
     public boolean containsAll(Collection<?> clctn) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        if(clctn instanceof LongUnion) {
+            return difference((LongUnion) clctn, this).isEmpty();
+        }
+        for(Object value : clctn) {
+            if(!contains(value)) {
+                return false;
+            }
+        }
+        return true;
     }
 
+    /**
+     * Add all values of the collection, in O(ranges) if the collection is a LongUnion
+     * @param clctn Values to add
+     * @return True if all values have been added (none of them was in this set)
+     */
     @Override
     public boolean addAll(Collection<? extends Long> clctn) {
+        if(clctn instanceof LongUnion) {
+            LongUnion other = (LongUnion) clctn;
+            long expectedCardinality = cardinality + other.cardinality;
+            setRanges(union(this, other));
+            return cardinality == expectedCardinality;
+        }
         boolean isAllAdded=true;
         for (Iterator<? extends Long> it = clctn.iterator(); it.hasNext();) {
             Long value = it.next();
@@ -357,80 +519,247 @@ public class LongUnion implements NumberUnion<Long> {
         return isAllAdded;
     }
 
+    /**
+     * Keep only the values of the collection, in O(ranges) if the collection is a LongUnion
+     * @param clctn Values to keep
+     * @return True if this set has been modified
+     */
     @Override
     public boolean retainAll(Collection<?> clctn) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        long oldCardinality = cardinality;
+        if(clctn instanceof LongUnion) {
+            setRanges(intersection(this, (LongUnion) clctn));
+        } else {
+            LongUnion retained = new LongUnion();
+            for(Object value : clctn) {
+                if(contains(value)) {
+                    retained.internalAdd((Long) value);
+                }
+            }
+            setRanges(retained);
+        }
+        return oldCardinality != cardinality;
     }
 
+    /**
+     * Remove all values of the collection, in O(ranges) if the collection is a LongUnion
+     * @param clctn Values to remove
+     * @return True if this set has been modified
+     */
     @Override
     public boolean removeAll(Collection<?> clctn) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        long oldCardinality = cardinality;
+        if(clctn instanceof LongUnion) {
+            setRanges(difference(this, (LongUnion) clctn));
+        } else {
+            for(Object value : clctn) {
+                remove(value);
+            }
+        }
+        return oldCardinality != cardinality;
     }
 
     @Override
     public void clear() {
-        intervals.clear();
+        rangesLength = 0;
+        cardinality = 0;
+    }
+
+    private void setRanges(LongUnion other) {
+        ranges = other.ranges;
+        rangesLength = other.rangesLength;
+        cardinality = other.cardinality;
+    }
+
+    /**
+     * Add a range after the last range of the result, merge it with the last range if they touch
+     */
+    private void mergeRange(long begin, long end) {
+        if(rangesLength > 0 && ranges[rangesLength - 1] == begin - 1 && begin != Long.MIN_VALUE) {
+            cardinality += end - ranges[rangesLength - 1];
+            ranges[rangesLength - 1] = end;
+        } else {
+            appendRange(begin, end);
+        }
+    }
+
+    /**
+     * @param a First set
+     * @param b Second set
+     * @return Values in a or in b
+     */
+    public static LongUnion union(LongUnion a, LongUnion b) {
+        LongUnion result = new LongUnion();
+        result.ensureCapacity(a.rangesLength + b.rangesLength);
+        int i = 0;
+        int j = 0;
+        boolean hasCurrent = false;
+        long begin = 0;
+        long end = 0;
+        while(i < a.rangesLength || j < b.rangesLength) {
+            long nextBegin;
+            long nextEnd;
+            if(j >= b.rangesLength || (i < a.rangesLength && a.ranges[i] <= b.ranges[j])) {
+                nextBegin = a.ranges[i];
+                nextEnd = a.ranges[i + 1];
+                i += 2;
+            } else {
+                nextBegin = b.ranges[j];
+                nextEnd = b.ranges[j + 1];
+                j += 2;
+            }
+            if(!hasCurrent) {
+                begin = nextBegin;
+                end = nextEnd;
+                hasCurrent = true;
+            } else if(end == Long.MAX_VALUE || nextBegin <= end + 1) {
+                end = end > nextEnd ? end : nextEnd;
+            } else {
+                result.appendRange(begin, end);
+                begin = nextBegin;
+                end = nextEnd;
+            }
+        }
+        if(hasCurrent) {
+            result.appendRange(begin, end);
+        }
+        return result;
+    }
+
+    /**
+     * @param a First set
+     * @param b Second set
+     * @return Values in a and in b
+     */
+    public static LongUnion intersection(LongUnion a, LongUnion b) {
+        LongUnion result = new LongUnion();
+        int i = 0;
+        int j = 0;
+        while(i < a.rangesLength && j < b.rangesLength) {
+            long begin = a.ranges[i] > b.ranges[j] ? a.ranges[i] : b.ranges[j];
+            long end = a.ranges[i + 1] < b.ranges[j + 1] ? a.ranges[i + 1] : b.ranges[j + 1];
+            if(begin <= end) {
+                result.mergeRange(begin, end);
+            }
+            if(a.ranges[i + 1] < b.ranges[j + 1]) {
+                i += 2;
+            } else {
+                j += 2;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param a First set
+     * @param b Second set
+     * @return Values in a and not in b
+     */
+    public static LongUnion difference(LongUnion a, LongUnion b) {
+        LongUnion result = new LongUnion();
+        int j = 0;
+        for(int i = 0; i < a.rangesLength; i += 2) {
+            long current = a.ranges[i];
+            long end = a.ranges[i + 1];
+            boolean done = false;
+            // Skip ranges of b before the current value
+            while(j < b.rangesLength && b.ranges[j + 1] < current) {
+                j += 2;
+            }
+            while(!done && j < b.rangesLength && b.ranges[j] <= end) {
+                if(b.ranges[j] > current) {
+                    result.mergeRange(current, b.ranges[j] - 1);
+                }
+                if(b.ranges[j + 1] >= end) {
+                    done = true;
+                } else {
+                    current = b.ranges[j + 1] + 1;
+                    j += 2;
+                }
+            }
+            if(!done) {
+                result.mergeRange(current, end);
+            }
+        }
+        return result;
     }
 
     /**
      * @return Two direction iterator
      */
     public ListIterator<Long> listIterator() {
-        return new ValueListIterator(intervals.listIterator());
+        return new ValueListIterator(0, rangesLength > 0 ? ranges[0] : 0);
+    }
+
+    /**
+     * @param from First value returned by next()
+     * @return Two direction iterator, starting at the first value superior or equal to from
+     */
+    public ListIterator<Long> listIterator(long from) {
+        int index = search(from);
+        if(index >= 0) {
+            // from is the begin or the end of a range
+            return new ValueListIterator(index - index % 2, from);
+        }
+        index = -index - 1; //retrieve the insertion point
+        if(index % 2 == 0) {
+            // from is not in a range, start at the next range
+            return new ValueListIterator(index, index < rangesLength ? ranges[index] : 0);
+        } else {
+            // from is in the range beginning at index - 1
+            return new ValueListIterator(index - 1, from);
+        }
     }
 
-    private static class ValueListIterator implements ListIterator<Long>  {
-        protected long current = -1;
-        protected long itEnd = 0;
-        // Interval list iterator
-        private ListIterator<Long> it;
-        private long itBegin = -1;
-        private boolean lastNext = true;
+    private class ValueListIterator implements ListIterator<Long> {
+        // Index of the range that contains the next value
+        private int rangeIndex;
+        // Value returned by next()
+        private long nextValue;
 
-        public ValueListIterator(ListIterator<Long> listIterator) {
-            this.it = listIterator;
+        public ValueListIterator(int rangeIndex, long nextValue) {
+            this.rangeIndex = rangeIndex;
+            this.nextValue = nextValue;
         }
 
         @Override
         public boolean hasNext() {
-            return current + 1 < itEnd || it.hasNext();
+            return rangeIndex < rangesLength;
         }
 
         @Override
         public Long next() {
-            lastNext = true;
-            if (current + 1 < itEnd) {
-                return ++current;
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            long value = nextValue;
+            if(value == ranges[rangeIndex + 1]) {
+                rangeIndex += 2;
+                if(rangeIndex < rangesLength) {
+                    nextValue = ranges[rangeIndex];
+                }
             } else {
-                current = it.next();
-                itBegin = current;
-                itEnd = it.next() + 1;
-                return current;
+                nextValue = value + 1;
             }
+            return value;
         }
 
         @Override
         public boolean hasPrevious() {
-            return current > itBegin || it.hasPrevious();
+            return (rangeIndex < rangesLength && nextValue > ranges[rangeIndex]) || rangeIndex > 0;
         }
 
         @Override
         public Long previous() {
-            if(current > itBegin && !lastNext) {
-                return --current;
+            if(rangeIndex < rangesLength && nextValue > ranges[rangeIndex]) {
+                nextValue--;
+            } else if(rangeIndex > 0) {
+                rangeIndex -= 2;
+                nextValue = ranges[rangeIndex + 1];
             } else {
-                if(lastNext) {
-                    lastNext = false;
-                    it.previous();
-                    it.previous();
-                    return current;
-                } else {
-                    itEnd = it.previous() + 1;
-                    itBegin = it.previous();
-                    current = itEnd - 1;
-                }
-                return current;
+                throw new NoSuchElementException();
             }
+            return nextValue;
         }
 
         @Override
@@ -444,12 +773,12 @@ public class LongUnion implements NumberUnion<Long> {
         }
 
         @Override
-        public void set(Long Long) {
+        public void set(Long value) {
             throw new UnsupportedOperationException("Not supported yet.");
         }
 
         @Override
-        public void add(Long Long) {
+        public void add(Long value) {
             throw new UnsupportedOperationException("Not supported yet.");
         }
 
@@ -459,6 +788,24 @@ public class LongUnion implements NumberUnion<Long> {
         }
     }
 
+    /**
+     * Read only list view of the ranges
+     */
+    private class RangeList extends AbstractList<Long> implements RandomAccess {
+        @Override
+        public Long get(int index) {
+            if(index < 0 || index >= rangesLength) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + rangesLength);
+            }
+            return ranges[index];
+        }
+
+        @Override
+        public int size() {
+            return rangesLength;
+        }
+    }
+
     /**
      * This class converts an interval iterator into a serial iterator.
      * [0,2,5,7] becomes [0,1,2,5,6,7]
@@ -471,4 +818,4 @@ public class LongUnion implements NumberUnion<Long> {
         }
 
     }
-}
\ No newline at end of file
+}
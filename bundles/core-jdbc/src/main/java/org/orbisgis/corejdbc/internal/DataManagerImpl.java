@@ -23,9 +23,12 @@ import java.io.File;
 import java.net.URI;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Implementation of the DataManager service.
@@ -42,6 +45,9 @@ public class DataManagerImpl implements DataManager {
     /** ReversibleRowSet fire row updates to their DataManager  */
     private Map<String, List<TableEditListener>> tableEditionListener = new HashMap<>();
     private Map<StateEvent.DB_STATES, ArrayList<DatabaseProgressionListener>> progressionListenerMap = new HashMap<>();
+    private final UndoLog undoLog = new UndoLog();
+    /** Shadow tables created by undoable edits of this session, dropped on dispose */
+    private final Set<String> shadowTables = Collections.synchronizedSet(new HashSet<String>());
 
     @Override
     public CachedRowSet createCachedRowSet() throws SQLException {
@@ -93,7 +99,60 @@ public class DataManagerImpl implements DataManager {
 
     @Override
     public void dispose() {
+        undoLog.dispose();
+        dropShadowTables();
+    }
+
+    /**
+     * Register a table created by an undoable edit. The table is dropped on {@link #dispose()} if the edit did not
+     * drop it before.
+     * @param table Table identifier
+     */
+    public void addShadowTable(String table) {
+        shadowTables.add(table);
+    }
+
+    /**
+     * @param table Table identifier, the table has been dropped by its edit
+     */
+    public void removeShadowTable(String table) {
+        shadowTables.remove(table);
+    }
+
+    private void dropShadowTables() {
+        List<String> tables;
+        synchronized (shadowTables) {
+            tables = new ArrayList<>(shadowTables);
+            shadowTables.clear();
+        }
+        if(tables.isEmpty() || dataSource == null) {
+            return;
+        }
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement()) {
+            for(String table : tables) {
+                st.execute("DROP TABLE IF EXISTS " + table);
+            }
+        } catch (SQLException ex) {
+            LOGGER.error(ex.getLocalizedMessage(), ex);
+        }
+    }
+
+    /**
+     * @return Storage of the values kept by undoable edits
+     */
+    public UndoLog getUndoLog() {
+        return undoLog;
+    }
 
+    @Override
+    public void setUndoMemoryBudget(long bytes) {
+        undoLog.setMemoryBudget(bytes);
+    }
+
+    @Override
+    public long getUndoMemoryBudget() {
+        return undoLog.getMemoryBudget();
     }
 
     @Override
@@ -185,8 +244,8 @@ public class DataManagerImpl implements DataManager {
     }
 
     public void unsetDataSource(DataSource dataSource) {
-        this.dataSource = null;
         dispose();
+        this.dataSource = null;
     }
 
     @Override
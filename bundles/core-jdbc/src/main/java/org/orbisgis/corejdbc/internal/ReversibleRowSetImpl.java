@@ -33,7 +33,10 @@ import org.h2gis.utilities.TableLocation;
 import org.orbisgis.corejdbc.DataManager;
 import org.orbisgis.corejdbc.TableEditEvent;
 import org.orbisgis.corejdbc.TableEditListener;
+import org.orbisgis.corejdbc.TableUndoableEdit;
 import org.orbisgis.corejdbc.ReversibleRowSet;
+import org.orbisgis.corejdbc.common.LongUnion;
+import org.orbisgis.commons.progress.NullProgressMonitor;
 import org.orbisgis.commons.progress.ProgressMonitor;
 
 import javax.sql.DataSource;
@@ -53,6 +56,10 @@ import java.sql.SQLXML;
 import java.sql.Savepoint;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.SortedSet;
 
 /**
  * Implementation of {@link ReversibleRowSet}
@@ -62,6 +69,8 @@ public class ReversibleRowSetImpl extends ReadRowSetImpl implements ReversibleRo
     private DataManager manager;
     private TableUndoableUpdate[] updateRow = null;
     private TableUndoableInsert insertRow = null;
+    /** Edits done since the last commit, null if auto commit is on */
+    private List<TableUndoableEdit> transaction = null;
 
 
     public ReversibleRowSetImpl(DataSource dataSource, DataManager manager) {
@@ -329,9 +338,8 @@ public class ReversibleRowSetImpl extends ReadRowSetImpl implements ReversibleRo
         }
         insertRow.redo(false);
         cachedRowCount++;
-        manager.fireTableEditHappened(new TableEditEvent(location.toString(isH2), insertRow,
-                TableModelEvent.ALL_COLUMNS, insertRow.getPrimaryKey(), insertRow.getPrimaryKey(),
-                TableModelEvent.INSERT));
+        fireEdit(insertRow, TableModelEvent.ALL_COLUMNS, insertRow.getPrimaryKey(), insertRow.getPrimaryKey(),
+                TableModelEvent.INSERT);
         moveToInsertRow();
     }
 
@@ -342,12 +350,16 @@ public class ReversibleRowSetImpl extends ReadRowSetImpl implements ReversibleRo
         }
         if(updateRow != null) {
             int pkColumnId = cachedColumnNames.get(pk_name);
+            // All the columns of the row are undone in a single step
+            List<TableUndoableEdit> rowEdits = new ArrayList<>();
+            int editColumn = TableModelEvent.ALL_COLUMNS;
+            long pk = getPk();
             for(int updateColumn = 0; updateColumn < updateRow.length; updateColumn++) {
                 TableUndoableUpdate update = updateRow[updateColumn];
                 if(update != null && updateColumn != pkColumnId ) {
                     update.redo(false);
-                    manager.fireTableEditHappened(new TableEditEvent(location.toString(isH2), update, updateColumn,
-                            getPk(), getPk(), TableModelEvent.DELETE));
+                    rowEdits.add(update);
+                    editColumn = updateColumn;
                 }
             }
             if(updateRow[pkColumnId] != null) {
@@ -355,8 +367,9 @@ public class ReversibleRowSetImpl extends ReadRowSetImpl implements ReversibleRo
                 update.redo(false);
                 refreshRow();
                 updateRow = null;
-                manager.fireTableEditHappened(new TableEditEvent(location.toString(isH2), update, pkColumnId, getPk() ,
-                        getPk() , TableModelEvent.DELETE));
+                rowEdits.add(update);
+                editColumn = pkColumnId;
+                pk = getPk();
             } else {
                 updateRow = null;
                 cache.remove(rowId);
@@ -364,6 +377,12 @@ public class ReversibleRowSetImpl extends ReadRowSetImpl implements ReversibleRo
                 currentBatch.clear();
                 currentBatchId = -1;
             }
+            if(rowEdits.size() == 1) {
+                fireEdit(rowEdits.get(0), editColumn, pk, pk, TableModelEvent.DELETE);
+            } else if(!rowEdits.isEmpty()) {
+                fireEdit(new TableUndoableTransaction(rowEdits), TableModelEvent.ALL_COLUMNS, pk, pk,
+                        TableModelEvent.DELETE);
+            }
         }
     }
 
@@ -377,8 +396,86 @@ public class ReversibleRowSetImpl extends ReadRowSetImpl implements ReversibleRo
         deleteEvt.redo(false);
         cachedRowCount--;
         refreshRow();
-        manager.fireTableEditHappened(new TableEditEvent(location.toString(isH2), deleteEvt, TableModelEvent
-                .ALL_COLUMNS, deleteEvt.getPrimaryKey(), deleteEvt.getPrimaryKey(), TableModelEvent.DELETE));
+        fireEdit(deleteEvt, TableModelEvent.ALL_COLUMNS, deleteEvt.getPrimaryKey(), deleteEvt.getPrimaryKey(),
+                TableModelEvent.DELETE);
+    }
+
+    @Override
+    public void deleteRows(SortedSet<Long> primaryKeys) throws SQLException {
+        checkUpdate(0);
+        if(primaryKeys.isEmpty()) {
+            return;
+        }
+        TableUndoableBulkDelete deleteEvt = new TableUndoableBulkDelete(manager, location, pk_name,
+                new LongUnion(primaryKeys), isH2);
+        deleteEvt.redo(false);
+        // Row count and row numbers of the cached batches are no longer valid
+        execute(new NullProgressMonitor());
+        fireEdit(deleteEvt, TableModelEvent.ALL_COLUMNS, primaryKeys.first(), primaryKeys.last(),
+                TableModelEvent.DELETE);
+    }
+
+    @Override
+    public void updateColumn(String columnName, String expression, SortedSet<Long> primaryKeys) throws SQLException {
+        int columnId = findColumn(columnName);
+        checkUpdate(columnId);
+        if(pk_name.equals(getColumnName(columnId))) {
+            throw new SQLException(I18N.tr("Can not edit primary key values"));
+        }
+        if(primaryKeys != null && primaryKeys.isEmpty()) {
+            return;
+        }
+        TableUndoableBulkUpdate updateEvt = new TableUndoableBulkUpdate(manager, location, pk_name,
+                primaryKeys == null ? null : new LongUnion(primaryKeys), getColumnName(columnId), columnId - 1,
+                expression, isH2);
+        updateEvt.redo(false);
+        refreshRow();
+        fireEdit(updateEvt, columnId - 1, primaryKeys == null ? null : primaryKeys.first(),
+                primaryKeys == null ? null : primaryKeys.last(), TableModelEvent.UPDATE);
+    }
+
+    /**
+     * Fire the edit to the table listeners. If auto commit is off, the edit is kept until the transaction ends and
+     * the listeners are only notified of the change.
+     */
+    private void fireEdit(TableUndoableEdit edit, int column, Long firstPk, Long lastPk, int type) {
+        if(transaction != null) {
+            transaction.add(edit);
+            manager.fireTableEditHappened(new TableEditEvent(location.toString(isH2), column, firstPk, lastPk, type));
+        } else {
+            manager.fireTableEditHappened(new TableEditEvent(location.toString(isH2), edit, column, firstPk, lastPk,
+                    type));
+        }
+    }
+
+    @Override
+    public boolean getAutoCommit() throws SQLException {
+        return transaction == null;
+    }
+
+    /**
+     * When auto commit is off, the edits are grouped until {@link #commit()} in order to be undone in a single step.
+     * @param autoCommit False to start a transaction
+     * @throws SQLException
+     */
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        if(autoCommit) {
+            commit();
+            transaction = null;
+        } else if(transaction == null) {
+            transaction = new ArrayList<>();
+        }
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        if(transaction != null && !transaction.isEmpty()) {
+            TableUndoableEdit edit = new TableUndoableTransaction(transaction);
+            transaction = new ArrayList<>();
+            manager.fireTableEditHappened(new TableEditEvent(location.toString(isH2), edit,
+                    TableModelEvent.ALL_COLUMNS, null, null, TableModelEvent.UPDATE));
+        }
     }
 
     @Override
@@ -625,7 +722,19 @@ public class ReversibleRowSetImpl extends ReadRowSetImpl implements ReversibleRo
 
     @Override
     public void rollback() throws SQLException {
-        throw new UnsupportedOperationException("Autocommit is on");
+        if(transaction == null) {
+            throw new UnsupportedOperationException("Autocommit is on");
+        }
+        List<TableUndoableEdit> edits = transaction;
+        transaction = new ArrayList<>();
+        ListIterator<TableUndoableEdit> it = edits.listIterator(edits.size());
+        while(it.hasPrevious()) {
+            TableUndoableEdit edit = it.previous();
+            edit.undo();
+            edit.die();
+        }
+        // Row count may have changed
+        execute(new NullProgressMonitor());
     }
 
     @Override
@@ -0,0 +1,154 @@
+/*
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2012 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc.internal;
+
+import org.h2gis.utilities.TableLocation;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.TableEditEvent;
+import org.orbisgis.corejdbc.common.LongUnion;
+import org.xnap.commons.i18n.I18n;
+import org.xnap.commons.i18n.I18nFactory;
+
+import javax.swing.event.TableModelEvent;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Undoable deletion of a set of rows through JDBC. Rows are removed using primary key range predicates. Before the
+ * first deletion the removed rows are copied into a shadow table, undo inserts them back in a single statement.
+ */
+public class TableUndoableBulkDelete extends TableUndoableShadowEdit {
+    public static final String EDIT_IDENTIFIER = "BULK_DELETE";
+    private static final I18n I18N = I18nFactory.getI18n(TableUndoableBulkDelete.class);
+    private boolean deleted = false;
+
+    /**
+     * @param dataManager DataManager instance
+     * @param tableLocation Table to edit
+     * @param pkName Primary key column name
+     * @param primaryKeys Primary key values of the rows to delete
+     * @param isH2 True if the database is H2
+     */
+    public TableUndoableBulkDelete(DataManager dataManager, TableLocation tableLocation, String pkName,
+                                   LongUnion primaryKeys, boolean isH2) {
+        super(dataManager, tableLocation, pkName, primaryKeys, isH2);
+    }
+
+    protected void doRedo(boolean callListeners) throws SQLException {
+        if(deleted || primaryKeys.isEmpty()) {
+            return;
+        }
+        try(Connection connection = dataManager.getDataSource().getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                if(shadowTable == null) {
+                    createShadowTable(connection, "*");
+                }
+                executeOnRows(connection, "DELETE FROM " + tableLocation.toString(isH2));
+                connection.commit();
+            } catch (SQLException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        deleted = true;
+        if(callListeners) {
+            dataManager.fireTableEditHappened(new TableEditEvent(tableLocation.toString(isH2),
+                    TableModelEvent.ALL_COLUMNS, getFirstPk(), getLastPk(), TableModelEvent.DELETE));
+        }
+    }
+
+    protected void doUndo(boolean callListeners) throws SQLException {
+        if(!deleted || shadowTable == null) {
+            return;
+        }
+        try(Connection connection = dataManager.getDataSource().getConnection();
+            Statement st = connection.createStatement()) {
+            st.execute("INSERT INTO " + tableLocation.toString(isH2) + " SELECT * FROM " +
+                    shadowTable.toString(isH2));
+        }
+        deleted = false;
+        if(callListeners) {
+            dataManager.fireTableEditHappened(new TableEditEvent(tableLocation.toString(isH2),
+                    TableModelEvent.ALL_COLUMNS, getFirstPk(), getLastPk(), TableModelEvent.INSERT));
+        }
+    }
+
+    @Override
+    public void undo() throws SQLException {
+        doUndo(true);
+    }
+
+    public void undo(boolean callListeners) throws SQLException {
+        doUndo(callListeners);
+    }
+
+    @Override
+    public boolean canUndo() {
+        return deleted && shadowTable != null;
+    }
+
+    @Override
+    public void redo() throws SQLException {
+        doRedo(true);
+    }
+
+    public void redo(boolean callListeners) throws SQLException {
+        doRedo(callListeners);
+    }
+
+    @Override
+    public boolean canRedo() {
+        return !deleted;
+    }
+
+    @Override
+    public String getEditIdentifier() {
+        return EDIT_IDENTIFIER;
+    }
+
+    @Override
+    public String getPresentationName() {
+        return I18N.tr("Delete {0} rows", primaryKeys.size());
+    }
+
+    @Override
+    public String getUndoPresentationName() {
+        return I18N.tr("Revert deletion of {0} rows", primaryKeys.size());
+    }
+
+    @Override
+    public String getRedoPresentationName() {
+        return I18N.tr("Delete {0} rows", primaryKeys.size());
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2012 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc.internal;
+
+import org.h2gis.utilities.TableLocation;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.TableEditEvent;
+import org.orbisgis.corejdbc.common.LongUnion;
+import org.xnap.commons.i18n.I18n;
+import org.xnap.commons.i18n.I18nFactory;
+
+import javax.swing.event.TableModelEvent;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Undoable update of a column with an SQL expression, done with one set based statement. Before the first update the
+ * primary key and the column values are copied into a shadow table, after it the computed values are copied into
+ * another column of the shadow table. Undo restores the original values and redo restores the computed values, the
+ * expression is evaluated only once.
+ */
+public class TableUndoableBulkUpdate extends TableUndoableShadowEdit {
+    public static final String EDIT_IDENTIFIER = "BULK_UPDATE";
+    /** Shadow table column of the computed values */
+    private static final String AFTER_IMAGE_COLUMN = "ORBISGIS_AFTER_IMAGE";
+    private static final I18n I18N = I18nFactory.getI18n(TableUndoableBulkUpdate.class);
+    private final String columnName;
+    private final int columnId;
+    private final String expression;
+    private boolean updated = false;
+
+    /**
+     * @param dataManager DataManager instance
+     * @param tableLocation Table to edit
+     * @param pkName Primary key column name
+     * @param primaryKeys Primary key values of the rows to update, null for all rows
+     * @param columnName Updated column
+     * @param columnId Updated column index, used in {@link TableEditEvent}
+     * @param expression SQL expression of the new column value
+     * @param isH2 True if the database is H2
+     */
+    public TableUndoableBulkUpdate(DataManager dataManager, TableLocation tableLocation, String pkName,
+                                   LongUnion primaryKeys, String columnName, int columnId, String expression,
+                                   boolean isH2) {
+        super(dataManager, tableLocation, pkName, primaryKeys, isH2);
+        this.columnName = columnName;
+        this.columnId = columnId;
+        this.expression = expression;
+    }
+
+    protected void doRedo(boolean callListeners) throws SQLException {
+        if(updated) {
+            return;
+        }
+        String column = TableLocation.quoteIdentifier(columnName, isH2);
+        String pk = TableLocation.quoteIdentifier(pkName, isH2);
+        String afterImage = TableLocation.quoteIdentifier(AFTER_IMAGE_COLUMN, isH2);
+        try(Connection connection = dataManager.getDataSource().getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            boolean firstUpdate = shadowTable == null;
+            try {
+                if(firstUpdate) {
+                    // The after image column takes the type of the updated column
+                    createShadowTable(connection, pk + ", " + column + ", " + column + " AS " + afterImage);
+                    try(Statement st = connection.createStatement()) {
+                        st.execute("ALTER TABLE " + shadowTable.toString(isH2) + " ADD PRIMARY KEY(" + pk + ")");
+                    }
+                    executeOnRows(connection, "UPDATE " + tableLocation.toString(isH2) + " SET " + column + " = (" +
+                            expression + ")");
+                    String shadow = shadowTable.toString(isH2);
+                    try(Statement st = connection.createStatement()) {
+                        st.execute("UPDATE " + shadow + " AS S SET " + afterImage + " = (SELECT E." + column +
+                                " FROM " + tableLocation.toString(isH2) + " E WHERE E." + pk + " = S." + pk + ")");
+                    }
+                } else {
+                    restoreFromShadow(connection, afterImage);
+                }
+                connection.commit();
+            } catch (SQLException ex) {
+                connection.rollback();
+                if(firstUpdate) {
+                    // The shadow table does not hold the computed values
+                    dropShadowTable();
+                }
+                throw ex;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        updated = true;
+        fireUpdate(callListeners);
+    }
+
+    protected void doUndo(boolean callListeners) throws SQLException {
+        if(!updated || shadowTable == null) {
+            return;
+        }
+        try(Connection connection = dataManager.getDataSource().getConnection()) {
+            restoreFromShadow(connection, TableLocation.quoteIdentifier(columnName, isH2));
+        }
+        updated = false;
+        fireUpdate(callListeners);
+    }
+
+    /**
+     * Copy a column of the shadow table into the updated column of the edited rows.
+     * @param connection Active connection
+     * @param shadowColumn Quoted column of the shadow table, original or computed values
+     * @throws SQLException
+     */
+    private void restoreFromShadow(Connection connection, String shadowColumn) throws SQLException {
+        String column = TableLocation.quoteIdentifier(columnName, isH2);
+        String pk = TableLocation.quoteIdentifier(pkName, isH2);
+        String shadow = shadowTable.toString(isH2);
+        try(Statement st = connection.createStatement()) {
+            st.execute("UPDATE " + tableLocation.toString(isH2) + " AS E SET " + column + " = (SELECT S." +
+                    shadowColumn + " FROM " + shadow + " S WHERE S." + pk + " = E." + pk + ") WHERE E." + pk +
+                    " IN (SELECT " + pk + " FROM " + shadow + ")");
+        }
+    }
+
+    private void fireUpdate(boolean callListeners) {
+        if(callListeners) {
+            dataManager.fireTableEditHappened(new TableEditEvent(tableLocation.toString(isH2), columnId,
+                    getFirstPk(), getLastPk(), TableModelEvent.UPDATE));
+        }
+    }
+
+    @Override
+    public void undo() throws SQLException {
+        doUndo(true);
+    }
+
+    public void undo(boolean callListeners) throws SQLException {
+        doUndo(callListeners);
+    }
+
+    @Override
+    public boolean canUndo() {
+        return updated && shadowTable != null;
+    }
+
+    @Override
+    public void redo() throws SQLException {
+        doRedo(true);
+    }
+
+    public void redo(boolean callListeners) throws SQLException {
+        doRedo(callListeners);
+    }
+
+    @Override
+    public boolean canRedo() {
+        return !updated;
+    }
+
+    @Override
+    public String getEditIdentifier() {
+        return EDIT_IDENTIFIER;
+    }
+
+    @Override
+    public String getPresentationName() {
+        return I18N.tr("Compute the column {0}", columnName);
+    }
+
+    @Override
+    public String getUndoPresentationName() {
+        return I18N.tr("Revert the computation of the column {0}", columnName);
+    }
+
+    @Override
+    public String getRedoPresentationName() {
+        return I18N.tr("Redo the computation of the column {0}", columnName);
+    }
+}
@@ -60,6 +60,9 @@ public class TableUndoableInsert implements TableUndoableEdit {
     protected final Map<String, Object> newValues;
     protected Long primaryKey = null;
     protected boolean isH2;
+    private final UndoLog undoLog;
+    private String[] storedColumns;
+    private UndoLog.Entry valuesEntry = null;
 
     public TableUndoableInsert(DataManager dataManager, TableLocation tableLocation, String pkName, boolean isH2) {
         this.dataManager = dataManager;
@@ -67,12 +70,57 @@ public class TableUndoableInsert implements TableUndoableEdit {
         this.pkName = pkName;
         this.newValues = new HashMap<>();
         this.isH2 = isH2;
+        this.undoLog = UndoLog.getUndoLog(dataManager);
     }
 
     public void setValue(String column, Object value) {
         newValues.put(column, value);
     }
 
+    /**
+     * @return Row values, read from the undo log if they have been stored
+     * @throws SQLException Values are no longer available
+     */
+    protected Map<String, Object> getValues() throws SQLException {
+        if(valuesEntry == null) {
+            return newValues;
+        }
+        Object[] values = undoLog.read(valuesEntry);
+        if(values == null) {
+            throw new SQLException(I18N.tr("This edit is no longer available"));
+        }
+        Map<String, Object> rowValues = new HashMap<>(storedColumns.length);
+        for(int idColumn = 0; idColumn < storedColumns.length; idColumn++) {
+            rowValues.put(storedColumns[idColumn], values[idColumn]);
+        }
+        return rowValues;
+    }
+
+    /**
+     * Move the row values into the undo log, once the edit has been done.
+     */
+    protected void storeValues() {
+        if(undoLog != null && valuesEntry == null && !newValues.isEmpty()) {
+            storedColumns = new String[newValues.size()];
+            Object[] values = new Object[newValues.size()];
+            int idColumn = 0;
+            for(Map.Entry<String, Object> entry : newValues.entrySet()) {
+                storedColumns[idColumn] = entry.getKey();
+                values[idColumn] = entry.getValue();
+                idColumn++;
+            }
+            valuesEntry = undoLog.store(values);
+            newValues.clear();
+        }
+    }
+
+    /**
+     * @return False if the row values have been released
+     */
+    protected boolean isAvailable() {
+        return valuesEntry == null || !valuesEntry.isReleased();
+    }
+
 
     protected void doUndo(boolean callListeners) throws SQLException {
         if(primaryKey != null) {
@@ -82,6 +130,7 @@ public class TableUndoableInsert implements TableUndoableEdit {
                 st.execute();
                 primaryKey = null;
             }
+            storeValues();
             if(callListeners) {
                 dataManager.fireTableEditHappened(new TableEditEvent(tableLocation.toString(isH2),
                         TableModelEvent.ALL_COLUMNS, null, null, TableModelEvent.DELETE));
@@ -100,7 +149,7 @@ public class TableUndoableInsert implements TableUndoableEdit {
 
     @Override
     public boolean canUndo() {
-        return primaryKey != null;
+        return primaryKey != null && isAvailable();
     }
 
     @Override
@@ -108,11 +157,12 @@ public class TableUndoableInsert implements TableUndoableEdit {
         doRedo(true);
     }
     public void doRedo(boolean callListeners) throws SQLException {
+        Map<String, Object> rowValues = getValues();
         StringBuilder query = new StringBuilder("INSERT INTO ");
         query.append(tableLocation);
-        List<Object> parameters = new ArrayList<>(newValues.size());
+        List<Object> parameters = new ArrayList<>(rowValues.size());
         query.append("(");
-        for(Map.Entry<String, Object> entry : newValues.entrySet()) {
+        for(Map.Entry<String, Object> entry : rowValues.entrySet()) {
             if(!parameters.isEmpty()) {
                 query.append(", ");
             }
@@ -134,7 +184,7 @@ public class TableUndoableInsert implements TableUndoableEdit {
                 st.setObject(idParam + 1, parameters.get(idParam));
             }
             st.execute();
-            Object pk = newValues.get(pkName);
+            Object pk = rowValues.get(pkName);
             if(pk != null) {
                 primaryKey = Long.valueOf(pk.toString());
             } else {
@@ -146,6 +196,7 @@ public class TableUndoableInsert implements TableUndoableEdit {
                 }
             }
         }
+        storeValues();
         if(callListeners) {
             dataManager.fireTableEditHappened(new TableEditEvent(tableLocation.toString(isH2),
                     TableModelEvent.ALL_COLUMNS, primaryKey, primaryKey, TableModelEvent.INSERT));
@@ -158,12 +209,19 @@ public class TableUndoableInsert implements TableUndoableEdit {
 
     @Override
     public boolean canRedo() {
-        return primaryKey == null;
+        return primaryKey == null && isAvailable();
     }
 
     @Override
-    public void die() {
+    public boolean addEdit(TableUndoableEdit edit) {
+        return false;
+    }
 
+    @Override
+    public void die() {
+        if(valuesEntry != null) {
+            undoLog.release(valuesEntry);
+        }
     }
 
     /**
@@ -0,0 +1,177 @@
+/*
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2012 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc.internal;
+
+import org.h2gis.utilities.TableLocation;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.TableUndoableEdit;
+import org.orbisgis.corejdbc.common.LongUnion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Undoable set based edition. The original content of the edited rows is kept in a shadow table of the same
+ * database, the shadow table is dropped when the edit dies. Shadow tables have a unique name, they are global
+ * temporary tables on H2 and are dropped by {@link DataManagerImpl#dispose()} on other databases.
+ */
+public abstract class TableUndoableShadowEdit implements TableUndoableEdit {
+    public static final String SHADOW_TABLE_PREFIX = "ORBISGIS_UNDO_";
+    private static final Logger LOGGER = LoggerFactory.getLogger(TableUndoableShadowEdit.class);
+    protected final DataManager dataManager;
+    protected final TableLocation tableLocation;
+    protected final String pkName;
+    protected final LongUnion primaryKeys;
+    protected final boolean isH2;
+    protected TableLocation shadowTable = null;
+
+    /**
+     * @param dataManager DataManager instance
+     * @param tableLocation Table to edit
+     * @param pkName Primary key column name
+     * @param primaryKeys Primary key values of the edited rows, null for all rows
+     * @param isH2 True if the database is H2
+     */
+    protected TableUndoableShadowEdit(DataManager dataManager, TableLocation tableLocation, String pkName,
+                                      LongUnion primaryKeys, boolean isH2) {
+        this.dataManager = dataManager;
+        this.tableLocation = tableLocation;
+        this.pkName = pkName;
+        this.primaryKeys = primaryKeys == null ? null : new LongUnion(primaryKeys);
+        this.isH2 = isH2;
+    }
+
+    /**
+     * @return Primary key values of edited rows, null if all rows are edited
+     */
+    public LongUnion getPrimaryKeys() {
+        return primaryKeys;
+    }
+
+    /**
+     * @return First edited primary key value, null if all rows are edited
+     */
+    protected Long getFirstPk() {
+        return primaryKeys == null || primaryKeys.isEmpty() ? null : primaryKeys.first();
+    }
+
+    /**
+     * @return Last edited primary key value, null if all rows are edited
+     */
+    protected Long getLastPk() {
+        return primaryKeys == null || primaryKeys.isEmpty() ? null : primaryKeys.last();
+    }
+
+    /**
+     * Copy the edited rows into a new shadow table.
+     * @param connection Active connection
+     * @param columns Columns to copy, the primary key column must be included
+     * @throws SQLException
+     */
+    protected void createShadowTable(Connection connection, String columns) throws SQLException {
+        TableLocation shadow = new TableLocation(tableLocation.getCatalog(), tableLocation.getSchema(),
+                SHADOW_TABLE_PREFIX + UUID.randomUUID().toString().replace("-", "").toUpperCase());
+        String table = tableLocation.toString(isH2);
+        try(Statement st = connection.createStatement()) {
+            st.execute("CREATE " + (isH2 ? "GLOBAL TEMPORARY " : "") + "TABLE " + shadow.toString(isH2) +
+                    " AS SELECT " + columns + " FROM " + table + " WHERE 1 = 0");
+        }
+        shadowTable = shadow;
+        if(dataManager instanceof DataManagerImpl) {
+            ((DataManagerImpl) dataManager).addShadowTable(shadow.toString(isH2));
+        }
+        executeOnRows(connection, "INSERT INTO " + shadow.toString(isH2) + " SELECT " + columns + " FROM " + table);
+    }
+
+    /**
+     * Execute the query on edited rows. If only a set of rows is edited, one statement is executed for each range of
+     * primary key values.
+     * @param connection Active connection
+     * @param query Query without where clause
+     * @throws SQLException
+     */
+    protected void executeOnRows(Connection connection, String query) throws SQLException {
+        if(primaryKeys == null) {
+            try(Statement st = connection.createStatement()) {
+                st.execute(query);
+            }
+        } else {
+            String pk = TableLocation.quoteIdentifier(pkName, isH2);
+            List<Long> ranges = primaryKeys.getValueRanges();
+            try(PreparedStatement st = connection.prepareStatement(query + " WHERE " + pk + " >= ? AND " + pk +
+                    " <= ?")) {
+                for(int idRange = 0; idRange < ranges.size() - 1; idRange += 2) {
+                    st.setLong(1, ranges.get(idRange));
+                    st.setLong(2, ranges.get(idRange + 1));
+                    st.addBatch();
+                }
+                st.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Drop the shadow table
+     */
+    protected void dropShadowTable() {
+        if(shadowTable != null) {
+            try(Connection connection = dataManager.getDataSource().getConnection();
+                Statement st = connection.createStatement()) {
+                st.execute("DROP TABLE IF EXISTS " + shadowTable.toString(isH2));
+                if(dataManager instanceof DataManagerImpl) {
+                    ((DataManagerImpl) dataManager).removeShadowTable(shadowTable.toString(isH2));
+                }
+                shadowTable = null;
+            } catch (SQLException ex) {
+                LOGGER.error(ex.getLocalizedMessage(), ex);
+            }
+        }
+    }
+
+    @Override
+    public boolean addEdit(TableUndoableEdit edit) {
+        return false;
+    }
+
+    @Override
+    public void die() {
+        dropShadowTable();
+    }
+
+    @Override
+    public boolean isSignificant() {
+        return true;
+    }
+}
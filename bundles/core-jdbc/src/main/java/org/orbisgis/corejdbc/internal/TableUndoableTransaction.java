@@ -0,0 +1,139 @@
+/*
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2012 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc.internal;
+
+import org.orbisgis.corejdbc.TableUndoableEdit;
+import org.xnap.commons.i18n.I18n;
+import org.xnap.commons.i18n.I18nFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Group of edits undone and redone as a single step.
+ */
+public class TableUndoableTransaction implements TableUndoableEdit {
+    public static final String EDIT_IDENTIFIER = "TRANSACTION";
+    private static final I18n I18N = I18nFactory.getI18n(TableUndoableTransaction.class);
+    private final List<TableUndoableEdit> edits;
+
+    /**
+     * @param edits Edits in the order they have been done
+     */
+    public TableUndoableTransaction(List<TableUndoableEdit> edits) {
+        this.edits = new ArrayList<>(edits.size());
+        for(TableUndoableEdit edit : edits) {
+            // Compact consecutive edits of the same cell
+            if(this.edits.isEmpty() || !this.edits.get(this.edits.size() - 1).addEdit(edit)) {
+                this.edits.add(edit);
+            }
+        }
+    }
+
+    /**
+     * @return Number of edits in this transaction
+     */
+    public int getEditCount() {
+        return edits.size();
+    }
+
+    @Override
+    public void undo() throws SQLException {
+        ListIterator<TableUndoableEdit> it = edits.listIterator(edits.size());
+        while(it.hasPrevious()) {
+            it.previous().undo();
+        }
+    }
+
+    @Override
+    public boolean canUndo() {
+        for(TableUndoableEdit edit : edits) {
+            if(!edit.canUndo()) {
+                return false;
+            }
+        }
+        return !edits.isEmpty();
+    }
+
+    @Override
+    public void redo() throws SQLException {
+        for(TableUndoableEdit edit : edits) {
+            edit.redo();
+        }
+    }
+
+    @Override
+    public boolean canRedo() {
+        for(TableUndoableEdit edit : edits) {
+            if(!edit.canRedo()) {
+                return false;
+            }
+        }
+        return !edits.isEmpty();
+    }
+
+    @Override
+    public void die() {
+        for(TableUndoableEdit edit : edits) {
+            edit.die();
+        }
+    }
+
+    @Override
+    public boolean addEdit(TableUndoableEdit edit) {
+        return false;
+    }
+
+    @Override
+    public boolean isSignificant() {
+        return true;
+    }
+
+    @Override
+    public String getEditIdentifier() {
+        return EDIT_IDENTIFIER;
+    }
+
+    @Override
+    public String getPresentationName() {
+        return I18N.tr("Edition of {0} values", edits.size());
+    }
+
+    @Override
+    public String getUndoPresentationName() {
+        return I18N.tr("Revert the edition of {0} values", edits.size());
+    }
+
+    @Override
+    public String getRedoPresentationName() {
+        return I18N.tr("Redo the edition of {0} values", edits.size());
+    }
+}
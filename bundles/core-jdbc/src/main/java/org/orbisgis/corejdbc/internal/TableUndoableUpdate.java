@@ -42,7 +42,9 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.TreeSet;
 
 /**
@@ -52,15 +54,22 @@ import java.util.TreeSet;
 public class TableUndoableUpdate implements TableUndoableEdit {
     public static final String EDIT_IDENTIFIER = "UPDATE";
     private static final I18n I18N = I18nFactory.getI18n(TableUndoableUpdate.class);
+    private static final int OLD_VALUE = 0;
+    private static final int NEW_VALUE = 1;
     private final DataManager dataManager;
     private boolean isH2;
     private final TableLocation tableLocation;
     private final String pkName;
     private final long rowIdentifier;
     private final String columnName;
-    private final Object oldValue;
-    private final Object newValue;
+    private final UndoLog undoLog;
+    /** Old and new values, used if there is no undo log */
+    private Object[] values;
+    private UndoLog.Entry valuesEntry = null;
     private final ReversibleRowSet reversibleRowSet;
+    private TableUndoableUpdate mergedInto = null;
+    /** Edits merged into this one, they may still be registered in another undo history */
+    private List<TableUndoableUpdate> mergedEdits = null;
 
 
     public TableUndoableUpdate(DataManager dataManager,boolean isH2, TableLocation tableLocation, String pkName, long rowIdentifier,
@@ -71,9 +80,32 @@ public class TableUndoableUpdate implements TableUndoableEdit {
         this.pkName = pkName;
         this.rowIdentifier = rowIdentifier;
         this.columnName = columnName;
-        this.oldValue = oldValue;
-        this.newValue = newValue;
         this.reversibleRowSet = reversibleRowSet;
+        this.undoLog = UndoLog.getUndoLog(dataManager);
+        setValues(new Object[]{oldValue, newValue});
+    }
+
+    private void setValues(Object[] newValues) {
+        if(undoLog != null) {
+            if(valuesEntry != null) {
+                undoLog.release(valuesEntry);
+            }
+            valuesEntry = undoLog.store(newValues);
+        } else {
+            values = newValues;
+        }
+    }
+
+    private Object[] getValues() throws SQLException {
+        if(undoLog != null) {
+            Object[] storedValues = undoLog.read(valuesEntry);
+            if(storedValues == null) {
+                throw new SQLException(I18N.tr("This edit is no longer available"));
+            }
+            return storedValues;
+        } else {
+            return values;
+        }
     }
 
     @Override
@@ -82,16 +114,17 @@ public class TableUndoableUpdate implements TableUndoableEdit {
     }
 
     public void undo(boolean callListeners) throws SQLException {
+        Object[] editValues = getValues();
         if(pkName.equals(columnName)) {
-            doUpdate((Long)newValue, oldValue, callListeners);
+            doUpdate((Long)editValues[NEW_VALUE], editValues[OLD_VALUE], callListeners);
         } else {
-            doUpdate(rowIdentifier, oldValue, callListeners);
+            doUpdate(rowIdentifier, editValues[OLD_VALUE], callListeners);
         }
     }
 
     @Override
     public boolean canUndo() {
-        return true;
+        return valuesEntry == null || !valuesEntry.isReleased();
     }
 
     private void doUpdate(Long pk, Object value, boolean callListeners) throws SQLException {
@@ -121,17 +154,58 @@ public class TableUndoableUpdate implements TableUndoableEdit {
 
 
     public void redo(boolean callListeners) throws SQLException {
-        doUpdate(rowIdentifier, newValue, callListeners);
+        doUpdate(rowIdentifier, getValues()[NEW_VALUE], callListeners);
     }
 
     @Override
     public boolean canRedo() {
+        return canUndo();
+    }
+
+    @Override
+    public boolean addEdit(TableUndoableEdit edit) {
+        if(!(edit instanceof TableUndoableUpdate)) {
+            return false;
+        }
+        TableUndoableUpdate next = (TableUndoableUpdate) edit;
+        if(next.mergedInto == this) {
+            // Already merged, the same edit is shared by several undo histories
+            return true;
+        }
+        if(next.mergedInto != null || !next.canUndo() || pkName.equals(columnName) ||
+                !columnName.equals(next.columnName) || rowIdentifier != next.rowIdentifier ||
+                !tableLocation.toString(isH2).equals(next.tableLocation.toString(isH2))) {
+            return false;
+        }
+        // Keep the original value of this edit and the last value of the following edit
+        try {
+            Object[] editValues = getValues();
+            Object[] nextValues = next.getValues();
+            setValues(new Object[]{editValues[OLD_VALUE], nextValues[NEW_VALUE]});
+        } catch (SQLException ex) {
+            return false;
+        }
+        // The merged edit stays available, another undo history whose last edit differs may register it.
+        // It dies with this edit, if it did not die before.
+        next.mergedInto = this;
+        if(mergedEdits == null) {
+            mergedEdits = new ArrayList<>();
+        }
+        mergedEdits.add(next);
         return true;
     }
 
     @Override
     public void die() {
-
+        if(valuesEntry != null) {
+            undoLog.release(valuesEntry);
+        }
+        if(mergedEdits != null) {
+            for(TableUndoableUpdate mergedEdit : mergedEdits) {
+                mergedEdit.die();
+            }
+            mergedEdits = null;
+        }
     }
 
     @Override
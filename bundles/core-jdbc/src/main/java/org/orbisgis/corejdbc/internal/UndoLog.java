@@ -0,0 +1,404 @@
+/*
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2012 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc.internal;
+
+import com.vividsolutions.jts.geom.Geometry;
+import org.orbisgis.corejdbc.DataManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Storage of the values kept by the undoable edits. Values stay in memory until the memory budget is exceeded, then
+ * the oldest values are appended to a local temporary file. The file is private to this instance, it is deleted on
+ * {@link #dispose()} or when the application exits. When most of the file is made of released values, the remaining
+ * values are copied into a new file.
+ * Values that cannot be serialized always stay in memory.
+ */
+public class UndoLog {
+    public static final long DEFAULT_MEMORY_BUDGET = 32 * 1024 * 1024;
+    private static final String SPILL_FILE_PREFIX = "orbisgis_undo";
+    private static final Logger LOGGER = LoggerFactory.getLogger(UndoLog.class);
+    private static final long OBJECT_SIZE = 16;
+    /** The spill file is not compacted below this size */
+    private static final long MIN_COMPACT_SIZE = 1024 * 1024;
+    private final LinkedHashMap<Long, Entry> inMemory = new LinkedHashMap<>();
+    /** Entries that cannot be serialized, they are not candidates for the spill file */
+    private final LinkedHashMap<Long, Entry> pinned = new LinkedHashMap<>();
+    /** Entries stored in the spill file and not released, in file order */
+    private final LinkedHashMap<Long, Entry> spilled = new LinkedHashMap<>();
+    private long memoryBudget = DEFAULT_MEMORY_BUDGET;
+    private long memoryUsage = 0;
+    private long nextId = 0;
+    private File spillFilePath = null;
+    private RandomAccessFile spillFile = null;
+    /** Size of the values stored in the spill file and not released */
+    private long spilledLength = 0;
+
+    /**
+     * @param dataManager DataManager instance
+     * @return The undo log of this DataManager, null if the values have to stay in the edits
+     */
+    public static UndoLog getUndoLog(DataManager dataManager) {
+        if(dataManager instanceof DataManagerImpl) {
+            return ((DataManagerImpl) dataManager).getUndoLog();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * @return Maximum estimated size in bytes of values kept in memory
+     */
+    public synchronized long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * @param memoryBudget Maximum estimated size in bytes of values kept in memory
+     */
+    public synchronized void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        spill();
+    }
+
+    /**
+     * @return Estimated size in bytes of values kept in memory
+     */
+    public synchronized long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    /**
+     * @return Number of entries kept in memory
+     */
+    public synchronized int getInMemoryCount() {
+        return inMemory.size() + pinned.size();
+    }
+
+    /**
+     * @return Number of entries stored in the spill file
+     */
+    public synchronized int getSpilledCount() {
+        return spilled.size();
+    }
+
+    /**
+     * @return Size in bytes of the spill file, 0 if there is no spill file
+     */
+    synchronized long getSpillFileLength() {
+        try {
+            return spillFile == null ? 0 : spillFile.length();
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Store values
+     * @param values Values, the array must not be modified afterwards
+     * @return Entry to use in order to read the values
+     */
+    public synchronized Entry store(Object[] values) {
+        long size = OBJECT_SIZE;
+        for(Object value : values) {
+            size += estimateSize(value);
+        }
+        Entry entry = new Entry(nextId++, values, size);
+        inMemory.put(entry.id, entry);
+        memoryUsage += size;
+        spill();
+        return entry;
+    }
+
+    /**
+     * @param entry Stored entry
+     * @return Values of this entry or null if the entry has been released
+     * @throws SQLException Values cannot be read from the spill file
+     */
+    public synchronized Object[] read(Entry entry) throws SQLException {
+        if(entry.released || entry.values != null) {
+            return entry.values;
+        }
+        if(spillFile == null) {
+            throw new SQLException("Undo values have been lost");
+        }
+        byte[] data = new byte[entry.length];
+        try {
+            spillFile.seek(entry.offset);
+            spillFile.readFully(data);
+        } catch (IOException ex) {
+            throw new SQLException(ex);
+        }
+        try(ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return (Object[]) in.readObject();
+        } catch (IOException | ClassNotFoundException ex) {
+            throw new SQLException(ex);
+        }
+    }
+
+    /**
+     * Free the resources of the entry
+     * @param entry Stored entry
+     */
+    public synchronized void release(Entry entry) {
+        if(entry.released) {
+            return;
+        }
+        entry.released = true;
+        if(inMemory.remove(entry.id) != null || pinned.remove(entry.id) != null) {
+            memoryUsage -= entry.size;
+        } else if(spilled.remove(entry.id) != null) {
+            spilledLength -= entry.length;
+            reclaim();
+        }
+        entry.values = null;
+    }
+
+    /**
+     * Release all entries and delete the spill file
+     */
+    public synchronized void dispose() {
+        for(Entry entry : inMemory.values()) {
+            entry.released = true;
+            entry.values = null;
+        }
+        for(Entry entry : pinned.values()) {
+            entry.released = true;
+            entry.values = null;
+        }
+        for(Entry entry : spilled.values()) {
+            entry.released = true;
+        }
+        inMemory.clear();
+        pinned.clear();
+        spilled.clear();
+        memoryUsage = 0;
+        spilledLength = 0;
+        if(spillFile != null) {
+            try {
+                spillFile.close();
+            } catch (IOException ex) {
+                LOGGER.error(ex.getLocalizedMessage(), ex);
+            }
+            if(!spillFilePath.delete()) {
+                LOGGER.debug("Cannot delete " + spillFilePath);
+            }
+            spillFile = null;
+            spillFilePath = null;
+        }
+    }
+
+    /**
+     * Reclaim the disk space of the released values. The file is emptied when it does not contain values anymore, and
+     * compacted when the released values take more than half of it.
+     */
+    private void reclaim() {
+        if(spillFile == null) {
+            return;
+        }
+        try {
+            if(spilled.isEmpty()) {
+                spillFile.setLength(0);
+            } else {
+                long fileLength = spillFile.length();
+                if(fileLength >= MIN_COMPACT_SIZE && spilledLength < fileLength / 2) {
+                    compact();
+                }
+            }
+        } catch (IOException ex) {
+            LOGGER.error(ex.getLocalizedMessage(), ex);
+        }
+    }
+
+    /**
+     * Copy the values that are not released into a new spill file, then replace the current file.
+     * @throws IOException The new file cannot be written, the current file is kept
+     */
+    private void compact() throws IOException {
+        File newFilePath = File.createTempFile(SPILL_FILE_PREFIX, ".bin");
+        newFilePath.deleteOnExit();
+        long[] newOffsets = new long[spilled.size()];
+        try(RandomAccessFile newFile = new RandomAccessFile(newFilePath, "rw")) {
+            int i = 0;
+            long newOffset = 0;
+            for(Entry entry : spilled.values()) {
+                byte[] data = new byte[entry.length];
+                spillFile.seek(entry.offset);
+                spillFile.readFully(data);
+                newFile.write(data);
+                newOffsets[i++] = newOffset;
+                newOffset += data.length;
+            }
+        } catch (IOException ex) {
+            if(!newFilePath.delete()) {
+                LOGGER.debug("Cannot delete " + newFilePath);
+            }
+            throw ex;
+        }
+        spillFile.close();
+        if(!spillFilePath.delete()) {
+            LOGGER.debug("Cannot delete " + spillFilePath);
+        }
+        spillFilePath = newFilePath;
+        spillFile = new RandomAccessFile(spillFilePath, "rw");
+        int i = 0;
+        for(Entry entry : spilled.values()) {
+            entry.offset = newOffsets[i++];
+        }
+    }
+
+    /**
+     * Move the oldest entries into the spill file until the memory usage fit in the budget. The values of all moved
+     * entries are written at once at the end of the file. The entries that cannot be serialized are pinned in memory.
+     */
+    private void spill() {
+        if(memoryUsage <= memoryBudget) {
+            return;
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        List<Entry> toSpill = new ArrayList<>();
+        long remainingUsage = memoryUsage;
+        Iterator<Entry> it = inMemory.values().iterator();
+        while(remainingUsage > memoryBudget && it.hasNext()) {
+            Entry entry = it.next();
+            byte[] data = serialize(entry.values);
+            if(data != null) {
+                entry.offset = buffer.size();
+                entry.length = data.length;
+                buffer.write(data, 0, data.length);
+                toSpill.add(entry);
+                remainingUsage -= entry.size;
+            } else {
+                // Do not try to serialize it again on the next spill
+                it.remove();
+                pinned.put(entry.id, entry);
+            }
+        }
+        if(toSpill.isEmpty()) {
+            return;
+        }
+        long fileOffset;
+        try {
+            if(spillFile == null) {
+                spillFilePath = File.createTempFile(SPILL_FILE_PREFIX, ".bin");
+                spillFilePath.deleteOnExit();
+                spillFile = new RandomAccessFile(spillFilePath, "rw");
+            }
+            fileOffset = spillFile.length();
+            spillFile.seek(fileOffset);
+            spillFile.write(buffer.toByteArray());
+        } catch (IOException ex) {
+            LOGGER.error(ex.getLocalizedMessage(), ex);
+            for(Entry entry : toSpill) {
+                entry.offset = -1;
+            }
+            return;
+        }
+        for(Entry entry : toSpill) {
+            entry.offset += fileOffset;
+            entry.values = null;
+            inMemory.remove(entry.id);
+            memoryUsage -= entry.size;
+            spilled.put(entry.id, entry);
+            spilledLength += entry.length;
+        }
+    }
+
+    /**
+     * @param values Values to serialize
+     * @return Serialized values, null if some values can not be serialized and must stay in memory
+     */
+    private static byte[] serialize(Object[] values) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try(ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+            objectOut.writeObject(values);
+        } catch (IOException ex) {
+            return null;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @param value Value
+     * @return Approximate heap size of the value
+     */
+    private static long estimateSize(Object value) {
+        if(value == null) {
+            return 0;
+        } else if(value instanceof Geometry) {
+            // Coordinate instance and the reference to it
+            return OBJECT_SIZE * 4 + ((Geometry) value).getNumPoints() * 40;
+        } else if(value instanceof CharSequence) {
+            return OBJECT_SIZE * 3 + ((CharSequence) value).length() * 2;
+        } else if(value instanceof byte[]) {
+            return OBJECT_SIZE + ((byte[]) value).length;
+        } else {
+            return OBJECT_SIZE * 2;
+        }
+    }
+
+    /**
+     * Values stored in the undo log.
+     */
+    public static class Entry {
+        private final long id;
+        private final long size;
+        private Object[] values;
+        private boolean released = false;
+        /** Location of the values in the spill file, -1 if the values are in memory */
+        private long offset = -1;
+        private int length = 0;
+
+        private Entry(long id, Object[] values, long size) {
+            this.id = id;
+            this.values = values;
+            this.size = size;
+        }
+
+        /**
+         * @return True if the values are no longer available
+         */
+        public boolean isReleased() {
+            return released;
+        }
+    }
+}
@@ -318,4 +318,38 @@ public class JDBCUtilityTest {
             }
         }
     }
+
+    @Test
+    public void testTableCreateFromManyPKRanges() throws SQLException {
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS RANGETABLE, RANGETABLE_SEL, RANGETABLE_SEL2");
+            st.execute("CREATE TABLE RANGETABLE (pk bigint primary key, \"vals\" integer)");
+            st.execute("INSERT INTO RANGETABLE SELECT X, X * 2 FROM SYSTEM_RANGE(1, 1000)");
+            // Odd rows, more ranges than a single query condition can hold
+            LongUnion oddRows = new LongUnion();
+            for(long pk = 1; pk <= 1000; pk += 2) {
+                oddRows.add(pk);
+            }
+            assertEquals(null, CreateTable.getRangeCondition("pk", oddRows));
+            CreateTable.createTableFromRowPkSelection(dataSource, "RANGETABLE", oddRows, "RANGETABLE_SEL",
+                    new NullProgressMonitor());
+            try(ResultSet rs = st.executeQuery("SELECT COUNT(*), SUM(pk) FROM RANGETABLE_SEL")) {
+                assertTrue(rs.next());
+                assertEquals(500, rs.getInt(1));
+                assertEquals(250000, rs.getLong(2));
+            }
+            // Two ranges
+            LongUnion twoRanges = new LongUnion(10, 109);
+            twoRanges.addAll(new LongUnion(500, 549));
+            assertEquals("(pk BETWEEN 10 AND 109 OR pk BETWEEN 500 AND 549)",
+                    CreateTable.getRangeCondition("pk", twoRanges));
+            CreateTable.createTableFromRowPkSelection(dataSource, "RANGETABLE", twoRanges, "RANGETABLE_SEL2",
+                    new NullProgressMonitor());
+            try(ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM RANGETABLE_SEL2")) {
+                assertTrue(rs.next());
+                assertEquals(150, rs.getInt(1));
+            }
+            st.execute("DROP TABLE RANGETABLE, RANGETABLE_SEL, RANGETABLE_SEL2");
+        }
+    }
 }
@@ -33,6 +33,7 @@ import org.h2gis.utilities.SFSUtilities;
 import org.h2gis.utilities.TableLocation;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.orbisgis.corejdbc.common.LongUnion;
 import org.orbisgis.corejdbc.internal.DataManagerImpl;
 import org.orbisgis.corejdbc.internal.ReadRowSetImpl;
 import org.orbisgis.commons.progress.NullProgressMonitor;
@@ -583,6 +584,258 @@ public class RowSetTest {
 
 
 
+    @Test
+    public void testUndoRedoUpdateColumn() throws SQLException {
+        DataManager factory = new DataManagerImpl(dataSource);
+        try (
+                Connection connection = dataSource.getConnection();
+                Statement st = connection.createStatement();
+                ReversibleRowSet rs = factory.createReversibleRowSet()) {
+            st.execute("drop table if exists test");
+            st.execute("create table test (id integer primary key, flt float) as select x, x from system_range(1, 100)");
+            ListenerList listenerList = new ListenerList();
+            factory.addTableEditListener("TEST", listenerList, false);
+            rs.setCommand("SELECT * FROM TEST");
+            rs.execute();
+            // Update a range of rows
+            rs.updateColumn("FLT", "FLT * 2 + ID", new LongUnion(10, 19));
+            assertEquals(1, listenerList.eventList.size());
+            assertEquals(10l, (long)listenerList.eventList.get(0).getFirstRowPK());
+            assertEquals(19l, (long)listenerList.eventList.get(0).getLastRowPK());
+            try(ResultSet rs2 = st.executeQuery("SELECT SUM(FLT) FROM TEST")) {
+                assertTrue(rs2.next());
+                assertEquals(5050 + 2 * 145, rs2.getDouble(1), 1e-6);
+            }
+            rs.absolute(15);
+            assertEquals(45., rs.getDouble("FLT"), 1e-6);
+            // Undo
+            listenerList.eventList.get(0).getUndoableEdit().undo();
+            try(ResultSet rs2 = st.executeQuery("SELECT SUM(FLT) FROM TEST")) {
+                assertTrue(rs2.next());
+                assertEquals(5050, rs2.getDouble(1), 1e-6);
+            }
+            // Redo
+            listenerList.eventList.get(0).getUndoableEdit().redo();
+            try(ResultSet rs2 = st.executeQuery("SELECT FLT FROM TEST WHERE ID = 15")) {
+                assertTrue(rs2.next());
+                assertEquals(45., rs2.getDouble(1), 1e-6);
+            }
+            listenerList.eventList.get(0).getUndoableEdit().die();
+            // Update all rows
+            rs.updateColumn("FLT", "0", null);
+            try(ResultSet rs2 = st.executeQuery("SELECT SUM(FLT) FROM TEST")) {
+                assertTrue(rs2.next());
+                assertEquals(0, rs2.getDouble(1), 1e-6);
+            }
+            listenerList.eventList.get(1).getUndoableEdit().undo();
+            try(ResultSet rs2 = st.executeQuery("SELECT SUM(FLT) FROM TEST")) {
+                assertTrue(rs2.next());
+                assertEquals(5050 + 2 * 145, rs2.getDouble(1), 1e-6);
+            }
+            // The shadow table of the alive edit is dropped with the DataManager
+            String countShadow = "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME LIKE 'ORBISGIS_UNDO_%'";
+            try(ResultSet rs2 = st.executeQuery(countShadow)) {
+                assertTrue(rs2.next());
+                assertEquals(1, rs2.getInt(1));
+            }
+            factory.dispose();
+            try(ResultSet rs2 = st.executeQuery(countShadow)) {
+                assertTrue(rs2.next());
+                assertEquals(0, rs2.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    public void testRedoUpdateColumnRestoresValues() throws SQLException {
+        DataManager factory = new DataManagerImpl(dataSource);
+        try (
+                Connection connection = dataSource.getConnection();
+                Statement st = connection.createStatement();
+                ReversibleRowSet rs = factory.createReversibleRowSet()) {
+            st.execute("drop table if exists test");
+            st.execute("create table test (id integer primary key, flt float) as select x, x from system_range(1, 100)");
+            ListenerList listenerList = new ListenerList();
+            factory.addTableEditListener("TEST", listenerList, false);
+            rs.setCommand("SELECT * FROM TEST");
+            rs.execute();
+            rs.updateColumn("FLT", "RAND()", null);
+            double computedSum;
+            try(ResultSet rs2 = st.executeQuery("SELECT SUM(FLT) FROM TEST")) {
+                assertTrue(rs2.next());
+                computedSum = rs2.getDouble(1);
+            }
+            listenerList.eventList.get(0).getUndoableEdit().undo();
+            try(ResultSet rs2 = st.executeQuery("SELECT SUM(FLT) FROM TEST")) {
+                assertTrue(rs2.next());
+                assertEquals(5050, rs2.getDouble(1), 1e-6);
+            }
+            // Redo restores the computed values, the expression is not evaluated again
+            listenerList.eventList.get(0).getUndoableEdit().redo();
+            try(ResultSet rs2 = st.executeQuery("SELECT SUM(FLT) FROM TEST")) {
+                assertTrue(rs2.next());
+                assertEquals(computedSum, rs2.getDouble(1), 1e-9);
+            }
+            listenerList.eventList.get(0).getUndoableEdit().die();
+            factory.dispose();
+        }
+    }
+
+    @Test
+    public void testMergeCellEdition() throws SQLException {
+        DataManagerImpl factory = new DataManagerImpl(dataSource);
+        try (
+                Connection connection = dataSource.getConnection();
+                Statement st = connection.createStatement();
+                ReversibleRowSet rs = factory.createReversibleRowSet()) {
+            st.execute("drop table if exists test");
+            st.execute("create table test (id integer primary key, str varchar(30))");
+            st.execute("insert into test values (1, 'a'), (2, 'b')");
+            ListenerList listenerList = new ListenerList();
+            factory.addTableEditListener("TEST", listenerList, false);
+            rs.setCommand("SELECT * FROM TEST");
+            rs.execute();
+            rs.absolute(1);
+            rs.updateString("str", "c");
+            rs.updateRow();
+            rs.absolute(1);
+            rs.updateString("str", "d");
+            rs.updateRow();
+            rs.absolute(2);
+            rs.updateString("str", "e");
+            rs.updateRow();
+            assertEquals(3, listenerList.eventList.size());
+            TableUndoableEdit first = listenerList.eventList.get(0).getUndoableEdit();
+            // Same cell, edits are merged
+            assertTrue(first.addEdit(listenerList.eventList.get(1).getUndoableEdit()));
+            // Another row
+            assertFalse(first.addEdit(listenerList.eventList.get(2).getUndoableEdit()));
+            listenerList.eventList.get(2).getUndoableEdit().undo();
+            first.undo();
+            try(ResultSet rs2 = st.executeQuery("SELECT STR FROM TEST ORDER BY ID")) {
+                assertTrue(rs2.next());
+                assertEquals("a", rs2.getString(1));
+                assertTrue(rs2.next());
+                assertEquals("b", rs2.getString(1));
+            }
+            first.redo();
+            try(ResultSet rs2 = st.executeQuery("SELECT STR FROM TEST WHERE ID = 1")) {
+                assertTrue(rs2.next());
+                assertEquals("d", rs2.getString(1));
+            }
+            // Another undo history whose last edit differs keeps the merged edit, it must still be available
+            TableUndoableEdit merged = listenerList.eventList.get(1).getUndoableEdit();
+            assertFalse(listenerList.eventList.get(2).getUndoableEdit().addEdit(merged));
+            assertTrue(merged.canUndo());
+            merged.undo();
+            try(ResultSet rs2 = st.executeQuery("SELECT STR FROM TEST WHERE ID = 1")) {
+                assertTrue(rs2.next());
+                assertEquals("c", rs2.getString(1));
+            }
+            // The merged edit dies with the edit that absorbed it
+            first.die();
+            assertFalse(merged.canUndo());
+            listenerList.eventList.get(2).getUndoableEdit().die();
+            assertEquals(0, factory.getUndoLog().getMemoryUsage());
+        }
+    }
+
+    @Test
+    public void testTransactionEdition() throws SQLException {
+        DataManagerImpl factory = new DataManagerImpl(dataSource);
+        try (
+                Connection connection = dataSource.getConnection();
+                Statement st = connection.createStatement();
+                ReversibleRowSet rs = factory.createReversibleRowSet()) {
+            st.execute("drop table if exists test");
+            st.execute("create table test (id integer primary key, str varchar(30))");
+            st.execute("insert into test values (1, 'a'), (2, 'b')");
+            ListenerList listenerList = new ListenerList();
+            factory.addTableEditListener("TEST", listenerList, false);
+            rs.setCommand("SELECT * FROM TEST");
+            rs.execute();
+            rs.setAutoCommit(false);
+            rs.absolute(1);
+            rs.updateString("str", "c");
+            rs.updateRow();
+            rs.absolute(2);
+            rs.updateString("str", "d");
+            rs.updateRow();
+            rs.moveToInsertRow();
+            rs.updateInt("id", 3);
+            rs.updateString("str", "e");
+            rs.insertRow();
+            rs.moveToCurrentRow();
+            // Edits are kept until commit
+            assertTrue(listenerList.eventList.isEmpty());
+            rs.commit();
+            assertEquals(1, listenerList.eventList.size());
+            // The three edits are undone at once
+            listenerList.eventList.get(0).getUndoableEdit().undo();
+            try(ResultSet rs2 = st.executeQuery("SELECT STR FROM TEST ORDER BY ID")) {
+                assertTrue(rs2.next());
+                assertEquals("a", rs2.getString(1));
+                assertTrue(rs2.next());
+                assertEquals("b", rs2.getString(1));
+                assertFalse(rs2.next());
+            }
+            // Rollback revert the edits of the current transaction
+            rs.execute();
+            rs.absolute(1);
+            rs.updateString("str", "f");
+            rs.updateRow();
+            rs.rollback();
+            rs.setAutoCommit(true);
+            assertEquals(1, listenerList.eventList.size());
+            try(ResultSet rs2 = st.executeQuery("SELECT STR FROM TEST WHERE ID = 1")) {
+                assertTrue(rs2.next());
+                assertEquals("a", rs2.getString(1));
+            }
+        }
+    }
+
+    @Test
+    public void testUndoLogSpill() throws SQLException {
+        DataManagerImpl factory = new DataManagerImpl(dataSource);
+        try (
+                Connection connection = dataSource.getConnection();
+                Statement st = connection.createStatement();
+                ReversibleRowSet rs = factory.createReversibleRowSet()) {
+            st.execute("drop table if exists test");
+            st.execute("create table test (id integer primary key, str varchar(30)) as select x, 'v' || x from" +
+                    " system_range(1, 20)");
+            ListenerList listenerList = new ListenerList();
+            factory.addTableEditListener("TEST", listenerList, false);
+            // Only the last edits stay in memory
+            factory.setUndoMemoryBudget(200);
+            rs.setCommand("SELECT * FROM TEST");
+            rs.execute();
+            for(int row = 1; row <= 20; row++) {
+                rs.absolute(row);
+                rs.updateString("str", "new");
+                rs.updateRow();
+            }
+            assertEquals(20, listenerList.eventList.size());
+            assertTrue(factory.getUndoLog().getMemoryUsage() <= 200);
+            assertTrue(factory.getUndoLog().getInMemoryCount() < 20);
+            assertEquals(20, factory.getUndoLog().getInMemoryCount() + factory.getUndoLog().getSpilledCount());
+            // Undo read spilled values
+            for(int idEvent = listenerList.eventList.size() - 1; idEvent >= 0; idEvent--) {
+                listenerList.eventList.get(idEvent).getUndoableEdit().undo();
+            }
+            try(ResultSet rs2 = st.executeQuery("SELECT COUNT(*) FROM TEST WHERE STR = 'v' || ID")) {
+                assertTrue(rs2.next());
+                assertEquals(20, rs2.getInt(1));
+            }
+            for(TableEditEvent event : listenerList.eventList) {
+                event.getUndoableEdit().die();
+            }
+            assertEquals(0, factory.getUndoLog().getMemoryUsage());
+            assertEquals(0, factory.getUndoLog().getSpilledCount());
+            factory.dispose();
+        }
+    }
+
     @Test
     public void testRowSetRedoUndoEdition() throws SQLException {
         DataManager factory = new DataManagerImpl(dataSource);
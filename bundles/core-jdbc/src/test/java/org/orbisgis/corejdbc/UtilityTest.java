@@ -41,8 +41,10 @@ import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -93,4 +95,39 @@ public class UtilityTest {
             }
         }
     }
+
+    @Test
+    public void testPrintResultSetByChunks() throws SQLException {
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement()) {
+            final List<String> chunks = new ArrayList<>();
+            ReadTable.ResultSetPrinter printer = new ReadTable.ResultSetPrinter() {
+                @Override
+                public void print(String chunk) {
+                    chunks.add(chunk);
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return false;
+                }
+            };
+            try(ResultSet rs = st.executeQuery("SELECT X FROM SYSTEM_RANGE(1, 25)")) {
+                assertEquals(10, ReadTable.printResultSet(rs, 30, 10, 4, true, false, printer));
+            }
+            // Header and 4 rows, 4 rows, 2 rows
+            assertEquals(3, chunks.size());
+            assertEquals("X(BIGINT) \n1 \n2 \n3 \n4 ", chunks.get(0));
+            assertEquals("5 \n6 \n7 \n8 ", chunks.get(1));
+            assertEquals("9 \n10 ", chunks.get(2));
+            // Same lines as resultSetToString
+            StringBuilder lines = new StringBuilder();
+            for(String chunk : chunks) {
+                lines.append(chunk).append("\n");
+            }
+            try(ResultSet rs = st.executeQuery("SELECT X FROM SYSTEM_RANGE(1, 25)")) {
+                assertEquals(lines.toString(), ReadTable.resultSetToString(rs, 30, 10, true, false));
+            }
+        }
+    }
 }
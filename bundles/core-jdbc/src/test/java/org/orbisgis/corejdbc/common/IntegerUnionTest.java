@@ -287,4 +287,55 @@ public class IntegerUnionTest {
 
             assertArrayEquals(new Integer[] {46}, iteratorToList(iu.listIterator(46)));
         }
+
+        @Test
+        public void testAddRange() {
+            IntegerUnion iu = new IntegerUnion(Arrays.asList(5, 10, 11, 12, 13, 45, 46));
+            assertTrue(iu.addRange(14, 20));
+            check(iu, new Integer[]{5, 5, 10, 20, 45, 46});
+            assertFalse(iu.addRange(11, 15));
+            assertTrue(iu.addRange(0, 50));
+            check(iu, new Integer[]{0, 50});
+            assertEquals(51, iu.size());
+            assertEquals(1, iu.getRangeCount());
+            assertEquals(0, iu.getRangeBegin(0));
+            assertEquals(50, iu.getRangeEnd(0));
+        }
+
+        @Test
+        public void testSetAlgebra() {
+            IntegerUnion a = new IntegerUnion(Arrays.asList(1, 2, 3, 4, 10, 11, 12, 20));
+            IntegerUnion b = new IntegerUnion(Arrays.asList(3, 4, 5, 11, 20, 21));
+            check(IntegerUnion.union(a, b), new Integer[]{1, 5, 10, 12, 20, 21});
+            check(IntegerUnion.intersection(a, b), new Integer[]{3, 4, 11, 11, 20, 20});
+            check(IntegerUnion.difference(a, b), new Integer[]{1, 2, 10, 10, 12, 12});
+            check(IntegerUnion.difference(b, a), new Integer[]{5, 5, 21, 21});
+
+            IntegerUnion c = new IntegerUnion(a);
+            assertTrue(c.removeAll(b));
+            assertEquals(4, c.size());
+            assertFalse(c.removeAll(b));
+            assertTrue(c.retainAll(new IntegerUnion(0, 9)));
+            check(c, new Integer[]{1, 2});
+            assertFalse(c.addAll(a));
+            assertEquals(a, c);
+            assertEquals(a.hashCode(), c.hashCode());
+            assertTrue(a.containsAll(c));
+            assertFalse(a.containsAll(b));
+            // Generic collections
+            c.removeAll(Arrays.asList(2, 3, 11));
+            check(c, new Integer[]{1, 1, 4, 4, 10, 10, 12, 12, 20, 20});
+            c.retainAll(new HashSet<Integer>(Arrays.asList(1, 12, 30)));
+            check(c, new Integer[]{1, 1, 12, 12});
+        }
+
+        @Test
+        public void testSubSets() {
+            IntegerUnion iu = new IntegerUnion(Arrays.asList(5, 10, 11, 12, 13, 45, 46));
+            assertArrayEquals(new Integer[] {5, 10, 11}, iu.headSet(12).toArray());
+            assertArrayEquals(new Integer[] {11, 12, 13}, iu.subSet(11, 45).toArray());
+            assertArrayEquals(new Integer[] {}, iu.subSet(20, 30).toArray(new Integer[0]));
+            assertEquals(Integer.valueOf(5), iu.first());
+            assertEquals(Integer.valueOf(46), iu.last());
+        }
 }
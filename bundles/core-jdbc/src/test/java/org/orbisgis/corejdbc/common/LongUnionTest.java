@@ -0,0 +1,87 @@
+/*
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information. 
+ * 
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ * 
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ * 
+ * This file is part of OrbisGIS.
+ * 
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test of LongUnion
+ */
+public class LongUnionTest {
+
+    @Test
+    public void testSymmetricDifference() {
+        LongUnion selection = new LongUnion(Arrays.asList(1L, 2L, 3L, 10L));
+        LongUnion picked = new LongUnion(Arrays.asList(3L, 4L, 10L, 11L));
+        LongUnion toggled = LongUnion.union(LongUnion.difference(selection, picked),
+                LongUnion.difference(picked, selection));
+        assertArrayEquals(new Long[]{1L, 2L, 4L, 11L}, toggled.toArray());
+        assertEquals(4, toggled.size());
+    }
+
+    @Test
+    public void testExtremeValues() {
+        LongUnion lu = new LongUnion(Long.MAX_VALUE - 2, Long.MAX_VALUE);
+        assertTrue(lu.addRange(Long.MIN_VALUE, Long.MIN_VALUE + 1));
+        assertFalse(lu.addAll(new LongUnion(Long.MAX_VALUE - 5, Long.MAX_VALUE)));
+        assertEquals(8, lu.getCardinality());
+        assertEquals(2, lu.getRangeCount());
+        assertEquals(Long.valueOf(Long.MAX_VALUE), lu.last());
+        LongUnion all = new LongUnion(Long.MIN_VALUE, Long.MAX_VALUE);
+        all.removeAll(new LongUnion(0));
+        assertEquals(-1, all.getRangeEnd(0));
+        assertEquals(1, all.getRangeBegin(1));
+    }
+
+    @Test
+    public void testListIterator() {
+        LongUnion lu = new LongUnion(Arrays.asList(5L, 10L, 11L, 45L));
+        List<Long> model = new ArrayList<>(lu);
+        ListIterator<Long> it = lu.listIterator();
+        ListIterator<Long> modelIt = model.listIterator();
+        assertEquals(modelIt.next(), it.next());
+        assertEquals(modelIt.next(), it.next());
+        assertEquals(modelIt.previous(), it.previous());
+        assertEquals(modelIt.previous(), it.previous());
+        assertFalse(it.hasPrevious());
+        it = lu.listIterator(11);
+        assertEquals(Long.valueOf(11), it.next());
+        assertEquals(Long.valueOf(45), it.next());
+        assertFalse(it.hasNext());
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2012 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc.internal;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Check the spill file of the undo log.
+ */
+public class UndoLogTest {
+
+    @Test
+    public void testNotSerializable() throws Exception {
+        UndoLog undoLog = new UndoLog();
+        undoLog.setMemoryBudget(0);
+        try {
+            AtomicInteger writeCount = new AtomicInteger();
+            Unserializable value = new Unserializable(writeCount);
+            UndoLog.Entry pinnedEntry = undoLog.store(new Object[]{value});
+            for (int i = 0; i < 100; i++) {
+                undoLog.store(new Object[]{i, "value" + i});
+            }
+            // The serialization has been tried once, the value stays in memory
+            assertEquals(1, writeCount.get());
+            assertEquals(1, undoLog.getInMemoryCount());
+            assertEquals(100, undoLog.getSpilledCount());
+            assertSame(value, undoLog.read(pinnedEntry)[0]);
+            undoLog.release(pinnedEntry);
+            assertEquals(0, undoLog.getInMemoryCount());
+            assertEquals(0, undoLog.getMemoryUsage());
+        } finally {
+            undoLog.dispose();
+        }
+    }
+
+    @Test
+    public void testCompact() throws Exception {
+        UndoLog undoLog = new UndoLog();
+        undoLog.setMemoryBudget(0);
+        try {
+            List<UndoLog.Entry> entries = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                entries.add(undoLog.store(new Object[]{createValue(i)}));
+            }
+            assertEquals(200, undoLog.getSpilledCount());
+            long fullLength = undoLog.getSpillFileLength();
+            assertTrue(fullLength > 200 * 10000);
+            // Release the oldest values, the file is compacted
+            for (int i = 0; i < 150; i++) {
+                undoLog.release(entries.get(i));
+            }
+            assertEquals(50, undoLog.getSpilledCount());
+            assertTrue(undoLog.getSpillFileLength() < fullLength / 2);
+            // The remaining values are still readable
+            for (int i = 150; i < 200; i++) {
+                assertArrayEquals(createValue(i), (byte[]) undoLog.read(entries.get(i))[0]);
+            }
+            // New values are appended to the compacted file
+            UndoLog.Entry last = undoLog.store(new Object[]{createValue(200)});
+            assertArrayEquals(createValue(200), (byte[]) undoLog.read(last)[0]);
+            assertArrayEquals(createValue(199), (byte[]) undoLog.read(entries.get(199))[0]);
+            for (int i = 150; i < 200; i++) {
+                undoLog.release(entries.get(i));
+            }
+            undoLog.release(last);
+            assertEquals(0, undoLog.getSpilledCount());
+            assertEquals(0, undoLog.getSpillFileLength());
+        } finally {
+            undoLog.dispose();
+        }
+    }
+
+    private static byte[] createValue(int seed) {
+        byte[] value = new byte[10000];
+        Arrays.fill(value, (byte) seed);
+        value[0] = (byte) (seed >> 8);
+        return value;
+    }
+
+    /**
+     * Value that counts the serialization attempts
+     */
+    private static class Unserializable implements Serializable {
+        private final transient AtomicInteger writeCount;
+
+        private Unserializable(AtomicInteger writeCount) {
+            this.writeCount = writeCount;
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            writeCount.incrementAndGet();
+            throw new NotSerializableException(Unserializable.class.getName());
+        }
+    }
+}
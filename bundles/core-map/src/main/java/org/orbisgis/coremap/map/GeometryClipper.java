@@ -0,0 +1,291 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.map;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateList;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryCollection;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.Puntal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fast clipping of lines and polygons against a rectangle. It is used to drop the parts of huge geometries that
+ * are far from the viewport before their conversion into Java2D shapes.
+ *
+ * Lines are cut into several parts, polygon rings are clipped with the Sutherland-Hodgman algorithm. The new
+ * vertices and edges lie on the clip rectangle, so the rectangle must be large enough to keep them (and the
+ * stroke joins or caps drawn on them) out of sight. Points are never clipped.
+ */
+public final class GeometryClipper {
+        private static final int LEFT = 0;
+        private static final int RIGHT = 1;
+        private static final int BOTTOM = 2;
+        private static final int TOP = 3;
+
+        private GeometryClipper() {
+        }
+
+        /**
+         * Clip the provided geometry.
+         * @param geom Geometry to clip
+         * @param clipEnvelope Clip rectangle
+         * @return The same instance if the geometry is inside the rectangle, null if there is nothing left
+         * after the clipping, or the clipped geometry.
+         */
+        public static Geometry clip(Geometry geom, Envelope clipEnvelope) {
+                if (geom == null || geom.isEmpty() || clipEnvelope.contains(geom.getEnvelopeInternal())) {
+                        return geom;
+                }
+                if (geom instanceof Puntal) {
+                        return geom;
+                }
+                if (!clipEnvelope.intersects(geom.getEnvelopeInternal())) {
+                        return null;
+                }
+                GeometryFactory factory = geom.getFactory();
+                if (geom instanceof LineString) {
+                        List<Coordinate[]> parts = clipLine(((LineString) geom).getCoordinates(), clipEnvelope);
+                        if (parts.isEmpty()) {
+                                return null;
+                        } else if (parts.size() == 1) {
+                                return factory.createLineString(parts.get(0));
+                        } else {
+                                LineString[] lines = new LineString[parts.size()];
+                                for (int i = 0; i < lines.length; i++) {
+                                        lines[i] = factory.createLineString(parts.get(i));
+                                }
+                                return factory.createMultiLineString(lines);
+                        }
+                } else if (geom instanceof Polygon) {
+                        return clipPolygon((Polygon) geom, clipEnvelope);
+                } else if (geom instanceof GeometryCollection) {
+                        List<Geometry> clippedGeometries = new ArrayList<Geometry>(geom.getNumGeometries());
+                        for (int i = 0; i < geom.getNumGeometries(); i++) {
+                                Geometry clipped = clip(geom.getGeometryN(i), clipEnvelope);
+                                if (clipped != null) {
+                                        clippedGeometries.add(clipped);
+                                }
+                        }
+                        if (clippedGeometries.isEmpty()) {
+                                return null;
+                        }
+                        return factory.buildGeometry(clippedGeometries);
+                }
+                return geom;
+        }
+
+        private static Polygon clipPolygon(Polygon polygon, Envelope clipEnvelope) {
+                GeometryFactory factory = polygon.getFactory();
+                Coordinate[] shell = clipRing(polygon.getExteriorRing().getCoordinates(), clipEnvelope);
+                if (shell == null) {
+                        return null;
+                }
+                List<LinearRing> holes = new ArrayList<LinearRing>(polygon.getNumInteriorRing());
+                for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+                        LineString hole = polygon.getInteriorRingN(i);
+                        if (clipEnvelope.contains(hole.getEnvelopeInternal())) {
+                                holes.add(factory.createLinearRing(hole.getCoordinateSequence()));
+                        } else if (clipEnvelope.intersects(hole.getEnvelopeInternal())) {
+                                Coordinate[] clippedHole = clipRing(hole.getCoordinates(), clipEnvelope);
+                                if (clippedHole != null) {
+                                        holes.add(factory.createLinearRing(clippedHole));
+                                }
+                        }
+                }
+                return factory.createPolygon(factory.createLinearRing(shell),
+                        holes.toArray(new LinearRing[holes.size()]));
+        }
+
+        /**
+         * Cut a line by the clip rectangle (Liang-Barsky on each segment).
+         * @param coordinates Line vertices
+         * @param env Clip rectangle
+         * @return Visible parts of the line
+         */
+        private static List<Coordinate[]> clipLine(Coordinate[] coordinates, Envelope env) {
+                List<Coordinate[]> parts = new ArrayList<Coordinate[]>();
+                CoordinateList current = null;
+                double[] range = new double[2];
+                for (int i = 0; i < coordinates.length - 1; i++) {
+                        Coordinate a = coordinates[i];
+                        Coordinate b = coordinates[i + 1];
+                        if (!clipSegment(a, b, env, range)) {
+                                current = addPart(parts, current);
+                                continue;
+                        }
+                        if (current == null || range[0] > 0) {
+                                current = addPart(parts, current);
+                                current = new CoordinateList();
+                                current.add(range[0] > 0 ? interpolate(a, b, range[0]) : a, false);
+                        }
+                        current.add(range[1] < 1 ? interpolate(a, b, range[1]) : b, false);
+                        if (range[1] < 1) {
+                                current = addPart(parts, current);
+                        }
+                }
+                addPart(parts, current);
+                return parts;
+        }
+
+        private static CoordinateList addPart(List<Coordinate[]> parts, CoordinateList part) {
+                if (part != null && part.size() >= 2) {
+                        parts.add(part.toCoordinateArray());
+                }
+                return null;
+        }
+
+        /**
+         * Liang-Barsky segment clipping.
+         * @param a Segment begin
+         * @param b Segment end
+         * @param env Clip rectangle
+         * @param range Output, visible part of the segment [t0, t1] with t in [0, 1]
+         * @return False if the segment is not visible
+         */
+        private static boolean clipSegment(Coordinate a, Coordinate b, Envelope env, double[] range) {
+                double dx = b.x - a.x;
+                double dy = b.y - a.y;
+                range[0] = 0;
+                range[1] = 1;
+                return clipTest(-dx, a.x - env.getMinX(), range) && clipTest(dx, env.getMaxX() - a.x, range)
+                        && clipTest(-dy, a.y - env.getMinY(), range) && clipTest(dy, env.getMaxY() - a.y, range);
+        }
+
+        private static boolean clipTest(double p, double q, double[] range) {
+                if (p == 0) {
+                        // Parallel to this edge
+                        return q >= 0;
+                }
+                double r = q / p;
+                if (p < 0) {
+                        if (r > range[1]) {
+                                return false;
+                        } else if (r > range[0]) {
+                                range[0] = r;
+                        }
+                } else {
+                        if (r < range[0]) {
+                                return false;
+                        } else if (r < range[1]) {
+                                range[1] = r;
+                        }
+                }
+                return true;
+        }
+
+        private static Coordinate interpolate(Coordinate a, Coordinate b, double t) {
+                return new Coordinate(a.x + t * (b.x - a.x), a.y + t * (b.y - a.y));
+        }
+
+        /**
+         * Sutherland-Hodgman clipping of a ring.
+         * @param ring Closed ring
+         * @param env Clip rectangle
+         * @return Closed clipped ring or null if the ring is not visible
+         */
+        private static Coordinate[] clipRing(Coordinate[] ring, Envelope env) {
+                List<Coordinate> points = new ArrayList<Coordinate>(ring.length);
+                for (int i = 0; i < ring.length - 1; i++) {
+                        points.add(ring[i]);
+                }
+                for (int edge = LEFT; edge <= TOP && !points.isEmpty(); edge++) {
+                        points = clipRingEdge(points, edge, env);
+                }
+                CoordinateList clipped = new CoordinateList();
+                for (Coordinate point : points) {
+                        clipped.add(point, false);
+                }
+                clipped.closeRing();
+                if (clipped.size() < 4) {
+                        return null;
+                }
+                return clipped.toCoordinateArray();
+        }
+
+        private static List<Coordinate> clipRingEdge(List<Coordinate> points, int edge, Envelope env) {
+                List<Coordinate> out = new ArrayList<Coordinate>(points.size() + 4);
+                Coordinate previous = points.get(points.size() - 1);
+                boolean previousInside = isInside(previous, edge, env);
+                for (Coordinate point : points) {
+                        boolean inside = isInside(point, edge, env);
+                        if (inside != previousInside) {
+                                out.add(intersection(previous, point, edge, env));
+                        }
+                        if (inside) {
+                                out.add(point);
+                        }
+                        previous = point;
+                        previousInside = inside;
+                }
+                return out;
+        }
+
+        private static boolean isInside(Coordinate point, int edge, Envelope env) {
+                switch (edge) {
+                        case LEFT:
+                                return point.x >= env.getMinX();
+                        case RIGHT:
+                                return point.x <= env.getMaxX();
+                        case BOTTOM:
+                                return point.y >= env.getMinY();
+                        default:
+                                return point.y <= env.getMaxY();
+                }
+        }
+
+        private static Coordinate intersection(Coordinate a, Coordinate b, int edge, Envelope env) {
+                double bound;
+                switch (edge) {
+                        case LEFT:
+                                bound = env.getMinX();
+                                break;
+                        case RIGHT:
+                                bound = env.getMaxX();
+                                break;
+                        case BOTTOM:
+                                bound = env.getMinY();
+                                break;
+                        default:
+                                bound = env.getMaxY();
+                }
+                if (edge == LEFT || edge == RIGHT) {
+                        return new Coordinate(bound, a.y + (bound - a.x) * (b.y - a.y) / (b.x - a.x));
+                } else {
+                        return new Coordinate(a.x + (bound - a.y) * (b.x - a.x) / (b.y - a.y), bound);
+                }
+        }
+}
@@ -496,6 +496,28 @@ public class MapTransform implements PointTransformation {
                 return getShapeWriter().toShape(geom);
         }
 
+        /**
+         * Gets the AWT {@link Shape} of the part of {@code geom} near the viewport. The parts farther than the
+         * viewport size from the visible extent are removed before the conversion, see {@link GeometryClipper}.
+         * The new edges are out of sight, so the result is visually the same as long as the drawing does not
+         * depend on the whole geometry.
+         * @param geom The geometry we want to draw.
+         * @param generalize If true we'll perform generalization
+         * @return An AWT Shape instance, null if the geometry is far from the viewport.
+         */
+        public Shape getClippedShape(Geometry geom, boolean generalize) {
+                if (adjustedExtent.isNull()) {
+                        return getShape(geom, generalize);
+                }
+                Envelope clipEnvelope = new Envelope(adjustedExtent);
+                clipEnvelope.expandBy(Math.max(adjustedExtent.getWidth(), adjustedExtent.getHeight()));
+                Geometry clipped = GeometryClipper.clip(geom, clipEnvelope);
+                if (clipped == null) {
+                        return null;
+                }
+                return getShape(clipped, generalize);
+        }
+
         public void redraw() {
                 for (TransformListener listener : listeners) {
                         listener.extentChanged(this.adjustedExtent, this);
@@ -47,23 +47,37 @@ import javax.sql.DataSource;
 import java.beans.EventHandler;
 import java.beans.PropertyChangeListener;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Standard select * from mytable query without cache or index.
+ * If the columns read by the renderer are provided, only these columns are fetched.
  * @author Nicolas Fortin
  */
 @Component
-public class DefaultResultSetProviderFactory implements ResultSetProviderFactory {
+public class DefaultResultSetProviderFactory implements ProjectedResultSetProviderFactory {
     private static final int FETCH_SIZE = 300;
     private static final I18n I18N = I18nFactory.getI18n(DefaultResultSetProviderFactory.class);
 
     @Override
     public DefaultResultSetProvider getResultSetProvider(ILayer layer,String[] extraFields, ProgressMonitor pm) {
-        return new DefaultResultSetProvider(layer.getDataManager().getDataSource(),extraFields, layer);
+        return getResultSetProvider(layer, null, extraFields, pm);
+    }
+
+    @Override
+    public DefaultResultSetProvider getResultSetProvider(ILayer layer, Set<String> fields, String[] extraFields,
+                                                         ProgressMonitor pm) {
+        return new DefaultResultSetProvider(layer.getDataManager().getDataSource(), fields, extraFields, layer);
     }
 
     @Override
@@ -82,10 +96,12 @@ public class DefaultResultSetProviderFactory implements ResultSetProviderFactory
         private static final Logger LOGGER = LoggerFactory.getLogger(DefaultResultSetProvider.class);
         private String pkName = "";
         private final String[] extraFields;
+        private final Set<String> fields;
 
-        private DefaultResultSetProvider(DataSource dataSource,String[] extraFields, ILayer layer) {
+        private DefaultResultSetProvider(DataSource dataSource, Set<String> fields, String[] extraFields, ILayer layer) {
             this.dataSource = dataSource;
             this.layer = layer;
+            this.fields = fields;
             this.extraFields = extraFields;
             try(Connection conn = dataSource.getConnection()) {
                 pkName = MetaData.getPkName(conn, layer.getTableReference(), true);
@@ -128,6 +144,11 @@ public class DefaultResultSetProviderFactory implements ResultSetProviderFactory
             StringBuilder computedField = new StringBuilder("select " + pkName + ",*");
             if(!rasterFields.isEmpty() && !JDBCUtilities.isH2DataBase(connection.getMetaData())) {
                 computedField= new StringBuilder("select " + pkName + ","+geometryField+"::BYTEA "+geometryField);
+            } else {
+                String projectedFields = getProjectedFields(connection, geometryField);
+                if(projectedFields != null) {
+                    computedField = new StringBuilder("select " + pkName + "," + projectedFields);
+                }
             }
             if(extraFields.length != 0) {
                 for (String extraField : extraFields) {
@@ -145,6 +166,57 @@ public class DefaultResultSetProviderFactory implements ResultSetProviderFactory
             return computedField.toString();
         }
 
+        /**
+         * Resolve the columns read by the renderer against the table columns.
+         * @param connection Active connection
+         * @param geometryField Geometry column, always fetched
+         * @return Quoted columns separated by comma, in the table order, or null if all columns must be fetched
+         * @throws SQLException
+         */
+        private String getProjectedFields(Connection connection, String geometryField) throws SQLException {
+            if(fields == null) {
+                return null;
+            }
+            DatabaseMetaData meta = connection.getMetaData();
+            boolean isH2 = JDBCUtilities.isH2DataBase(meta);
+            TableLocation table = TableLocation.parse(layer.getTableReference(), isH2);
+            // Upper case column name to table column name
+            Map<String, String> tableColumns = new HashMap<>();
+            List<String> columnOrder = new ArrayList<>();
+            try(ResultSet rs = meta.getColumns(table.getCatalog(), table.getSchema(), table.getTable(), null)) {
+                while(rs.next()) {
+                    String columnName = rs.getString("COLUMN_NAME");
+                    tableColumns.put(columnName.toUpperCase(Locale.ROOT), columnName);
+                    columnOrder.add(columnName);
+                }
+            }
+            if(tableColumns.isEmpty()) {
+                return null;
+            }
+            Set<String> requiredColumns = new HashSet<>();
+            requiredColumns.add(geometryField.toUpperCase(Locale.ROOT));
+            for(String field : fields) {
+                if(field == null) {
+                    continue;
+                }
+                String key = field.toUpperCase(Locale.ROOT);
+                if(!tableColumns.containsKey(key)) {
+                    // Expression or unknown column, let the database resolve it with all columns
+                    return null;
+                }
+                requiredColumns.add(key);
+            }
+            StringBuilder projection = new StringBuilder();
+            for(String column : columnOrder) {
+                if(requiredColumns.contains(column.toUpperCase(Locale.ROOT))) {
+                    if(projection.length() > 0) {
+                        projection.append(",");
+                    }
+                    projection.append(TableLocation.quoteIdentifier(column, isH2));
+                }
+            }
+            return projection.toString();
+        }
 
         private PreparedStatement createStatement(Connection connection) throws SQLException {
                 return connection.prepareStatement(getQuery(connection, true),
@@ -0,0 +1,172 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import org.h2gis.utilities.SpatialResultSet;
+import org.orbisgis.commons.progress.ProgressMonitor;
+
+import javax.sql.DataSource;
+import java.beans.EventHandler;
+import java.beans.PropertyChangeListener;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Bin the features of a layer on a grid aligned with the image pixels. The binning is done by the database
+ * (H2GIS or PostGIS) so only one row per grid cell is transferred to the renderer.
+ *
+ * Cells are indexed from the upper left corner of the extent, the cell (0, 0) covers the pixels [0, cellSize[.
+ */
+public class GridAggregation {
+    /** Column of the cell column index in the density query */
+    public static final String CELL_X = "CELL_X";
+    /** Column of the cell row index in the density query */
+    public static final String CELL_Y = "CELL_Y";
+    /** Column of the feature count in the density query */
+    public static final String CELL_COUNT = "CELL_COUNT";
+    private final String tableReference;
+    private final String pkName;
+    private final String geometryField;
+    private final Envelope extent;
+    private final double cellWorldSize;
+
+    /**
+     * @param tableReference Table identifier, ready to be used in a query
+     * @param pkName Primary key column
+     * @param geometryField Geometry column, ready to be used in a query
+     * @param extent Drawn extent
+     * @param cellWorldSize Cell size in extent unit
+     */
+    public GridAggregation(String tableReference, String pkName, String geometryField, Envelope extent,
+                           double cellWorldSize) {
+        this.tableReference = tableReference;
+        this.pkName = pkName;
+        this.geometryField = geometryField;
+        this.extent = extent;
+        this.cellWorldSize = cellWorldSize;
+    }
+
+    /**
+     * @return SQL expression of the cell column index of a feature
+     */
+    public String getCellXExpression() {
+        return "FLOOR((ST_XMIN(" + geometryField + ") - " + extent.getMinX() + ") / " + cellWorldSize + ")";
+    }
+
+    /**
+     * @return SQL expression of the cell row index of a feature
+     */
+    public String getCellYExpression() {
+        return "FLOOR((" + extent.getMaxY() + " - ST_YMIN(" + geometryField + ")) / " + cellWorldSize + ")";
+    }
+
+    /**
+     * The representative of a cell is the feature with the smallest primary key.
+     * @return Query of the primary key and the geometry of one feature per cell, the parameter is the extent
+     * geometry.
+     */
+    public String getRepresentativeQuery() {
+        return "SELECT " + pkName + ", " + geometryField + " FROM " + tableReference + " WHERE " + pkName +
+                " IN (SELECT MIN(" + pkName + ") FROM " + tableReference + " WHERE " + geometryField + " && ?" +
+                " GROUP BY " + getCellXExpression() + ", " + getCellYExpression() + ")";
+    }
+
+    /**
+     * @return Query of the cell indexes and feature count of each non empty cell, the parameter is the extent
+     * geometry.
+     */
+    public String getDensityQuery() {
+        return "SELECT " + getCellXExpression() + " " + CELL_X + ", " + getCellYExpression() + " " + CELL_Y +
+                ", COUNT(*) " + CELL_COUNT + " FROM " + tableReference + " WHERE " + geometryField + " && ?" +
+                " GROUP BY " + getCellXExpression() + ", " + getCellYExpression();
+    }
+
+    /**
+     * @param dataSource Layer data source
+     * @return Provider of one representative feature per cell
+     */
+    public ResultSetProviderFactory.ResultSetProvider getRepresentativeProvider(DataSource dataSource) {
+        return new AggregationResultSetProvider(dataSource, getRepresentativeQuery());
+    }
+
+    /**
+     * @param dataSource Layer data source
+     * @return Provider of the feature count per cell
+     */
+    public ResultSetProviderFactory.ResultSetProvider getDensityProvider(DataSource dataSource) {
+        return new AggregationResultSetProvider(dataSource, getDensityQuery());
+    }
+
+    private class AggregationResultSetProvider implements ResultSetProviderFactory.ResultSetProvider {
+        private final DataSource dataSource;
+        private final String query;
+        private Connection connection;
+        private PreparedStatement st;
+        private PropertyChangeListener cancelListener;
+        private ProgressMonitor pm;
+
+        private AggregationResultSetProvider(DataSource dataSource, String query) {
+            this.dataSource = dataSource;
+            this.query = query;
+        }
+
+        @Override
+        public SpatialResultSet execute(ProgressMonitor pm, Envelope envelope) throws SQLException {
+            this.pm = pm;
+            connection = dataSource.getConnection();
+            st = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            cancelListener = EventHandler.create(PropertyChangeListener.class, st, "cancel");
+            pm.addPropertyChangeListener(ProgressMonitor.PROP_CANCEL, cancelListener);
+            st.setObject(1, new GeometryFactory().toGeometry(envelope));
+            return st.executeQuery().unwrap(SpatialResultSet.class);
+        }
+
+        @Override
+        public String getPkName() {
+            return pkName;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if(cancelListener != null) {
+                pm.removePropertyChangeListener(cancelListener);
+            }
+            if(st != null) {
+                st.close();
+            }
+            if(connection != null) {
+                connection.close();
+            }
+        }
+    }
+}
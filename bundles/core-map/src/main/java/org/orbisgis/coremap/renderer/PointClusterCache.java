@@ -0,0 +1,158 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer;
+
+import org.orbisgis.commons.progress.NullProgressMonitor;
+import org.orbisgis.coremap.layerModel.ILayer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Keep the point cluster hierarchy of the drawn layers. A hierarchy is built in the background the first time it
+ * is requested, the renderer draws the layer without clustering until {@link #PROP_INDEX_READY} is fired.
+ */
+public class PointClusterCache {
+    /** Fired with the table reference when a cluster hierarchy can be used */
+    public static final String PROP_INDEX_READY = "indexReady";
+    private static final Logger LOGGER = LoggerFactory.getLogger(PointClusterCache.class);
+    private final ConcurrentMap<String, PointClusterIndex> indexes = new ConcurrentHashMap<>();
+    private final PropertyChangeSupport propertyChangeSupport = new PropertyChangeSupport(this);
+    private Executor executor;
+
+    /**
+     * @param executor Executor of the hierarchy builds, a new thread is used for each build if null
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @param layer Drawn layer
+     * @return The cluster hierarchy of the layer table, null if it is not built yet or if the layer is not a point
+     * layer.
+     */
+    public PointClusterIndex getIndex(ILayer layer) {
+        if (layer.getDataManager() == null || layer.getDataManager().getDataSource() == null ||
+                layer.getTableReference().isEmpty()) {
+            return null;
+        }
+        PointClusterIndex index = indexes.get(layer.getTableReference());
+        if (index == null) {
+            index = new PointClusterIndex(layer.getDataManager().getDataSource(), layer.getTableReference());
+            if (indexes.putIfAbsent(layer.getTableReference(), index) == null) {
+                Runnable build = new BuildIndex(index);
+                if (executor != null) {
+                    executor.execute(build);
+                } else {
+                    new Thread(build, "PointClusterIndex").start();
+                }
+            }
+            return null;
+        }
+        return index.isBuilt() ? index : null;
+    }
+
+    /**
+     * Drop the hierarchy of a table, it will be built again on the next request.
+     * @param tableReference Table identifier
+     */
+    public void removeIndex(String tableReference) {
+        PointClusterIndex index = indexes.remove(tableReference);
+        if (index != null) {
+            dispose(index);
+        }
+    }
+
+    /**
+     * Drop all the hierarchies.
+     */
+    public void clear() {
+        List<PointClusterIndex> removed = new ArrayList<>(indexes.values());
+        indexes.clear();
+        for (PointClusterIndex index : removed) {
+            dispose(index);
+        }
+    }
+
+    private static void dispose(PointClusterIndex index) {
+        try {
+            index.dispose();
+        } catch (SQLException ex) {
+            LOGGER.error(ex.getLocalizedMessage(), ex);
+        }
+    }
+
+    /**
+     * @param listener Listener of {@link #PROP_INDEX_READY}
+     */
+    public void addPropertyChangeListener(PropertyChangeListener listener) {
+        propertyChangeSupport.addPropertyChangeListener(listener);
+    }
+
+    /**
+     * @param listener Listener to remove
+     */
+    public void removePropertyChangeListener(PropertyChangeListener listener) {
+        propertyChangeSupport.removePropertyChangeListener(listener);
+    }
+
+    private class BuildIndex implements Runnable {
+        private final PointClusterIndex index;
+
+        private BuildIndex(PointClusterIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            try {
+                index.build(new NullProgressMonitor());
+            } catch (SQLException ex) {
+                // Not a point table, the index stays unbuilt and the layer is drawn without clustering
+                LOGGER.debug(ex.getLocalizedMessage(), ex);
+                return;
+            }
+            if (indexes.get(index.getTableReference()) == index) {
+                propertyChangeSupport.firePropertyChange(PROP_INDEX_READY, null, index.getTableReference());
+            } else {
+                // Removed while building
+                dispose(index);
+            }
+        }
+    }
+}
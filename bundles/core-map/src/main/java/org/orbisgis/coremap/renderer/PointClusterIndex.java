@@ -0,0 +1,317 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer;
+
+import com.vividsolutions.jts.geom.Envelope;
+import org.h2gis.utilities.GeometryTypeCodes;
+import org.h2gis.utilities.JDBCUtilities;
+import org.h2gis.utilities.SFSUtilities;
+import org.h2gis.utilities.SpatialResultSet;
+import org.h2gis.utilities.TableLocation;
+import org.orbisgis.commons.progress.ProgressMonitor;
+import org.xnap.commons.i18n.I18n;
+import org.xnap.commons.i18n.I18nFactory;
+
+import javax.sql.DataSource;
+import java.beans.EventHandler;
+import java.beans.PropertyChangeListener;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hierarchy of point clusters stored in a temporary table of the point table database. The level {@code L} bins
+ * the points on a grid of {@code 2^L x 2^L} cells covering the table extent. The finest level is computed from the
+ * points and each coarser level is computed from the previous one, so the whole hierarchy costs about two
+ * aggregations of the point table (H2GIS and PostGIS).
+ *
+ * A cluster row gives the centroid of the cell points in the {@link #CLUSTER_COUNT} weighted average sense and the
+ * number of points. The symbolizers read the count through a value reference on {@link #CLUSTER_COUNT}.
+ *
+ * The temporary table has a unique name and lives in a connection kept open by this index until {@link #dispose()},
+ * so the hierarchy is never visible to the other sessions and does not survive a crash. This connection is used by
+ * one cluster query at a time: a query holds it from {@link ResultSetProviderFactory.ResultSetProvider#execute} to
+ * {@link ResultSetProviderFactory.ResultSetProvider#close()}, concurrent renderings wait for it and
+ * {@link #dispose()} waits for the running query.
+ */
+public class PointClusterIndex {
+    /** Column of the number of points in a cluster */
+    public static final String CLUSTER_COUNT = "CLUSTER_COUNT";
+    /** Column of the cluster identifier, unique in a level */
+    public static final String CLUSTER_ID = "CLUSTER_ID";
+    /** Finest level of the hierarchy */
+    public static final int MAX_LEVEL = 16;
+    private static final String INDEX_TABLE_PREFIX = "ORBISGIS_CLUSTER_";
+    private static final I18n I18N = I18nFactory.getI18n(PointClusterIndex.class);
+    private final DataSource dataSource;
+    private final String tableReference;
+    private String indexTable;
+    /** Session of the temporary table */
+    private Connection connection;
+    /** Held while the session is used or replaced */
+    private final ReentrantLock sessionLock = new ReentrantLock();
+    private double minX;
+    private double minY;
+    private double side;
+    private volatile boolean built = false;
+
+    /**
+     * @param dataSource Data source of the point table
+     * @param tableReference Point table identifier
+     */
+    public PointClusterIndex(DataSource dataSource, String tableReference) {
+        this.dataSource = dataSource;
+        this.tableReference = tableReference;
+    }
+
+    /**
+     * @return Point table identifier
+     */
+    public String getTableReference() {
+        return tableReference;
+    }
+
+    /**
+     * @return True if the hierarchy can be queried
+     */
+    public boolean isBuilt() {
+        return built;
+    }
+
+    /**
+     * Compute the cluster hierarchy, the previous one is dropped.
+     * @param pm Progress monitor
+     * @throws SQLException If the table is not a point table or the build fails
+     */
+    public void build(ProgressMonitor pm) throws SQLException {
+        dispose();
+        ProgressMonitor buildProgress = pm.startTask(I18N.tr("Build the point clusters of {0}", tableReference),
+                MAX_LEVEL + 3);
+        Connection session = dataSource.getConnection();
+        try (Statement st = session.createStatement()) {
+            PropertyChangeListener cancelListener = EventHandler.create(PropertyChangeListener.class, st, "cancel");
+            buildProgress.addPropertyChangeListener(ProgressMonitor.PROP_CANCEL, cancelListener);
+            try {
+                boolean isH2 = JDBCUtilities.isH2DataBase(session.getMetaData());
+                TableLocation table = TableLocation.parse(tableReference, isH2);
+                List<String> geometryFields = SFSUtilities.getGeometryFields(session, table);
+                if (geometryFields.isEmpty()) {
+                    throw new SQLException(I18N.tr("Table {0} does not contains geometry fields", tableReference));
+                }
+                int geometryType = SFSUtilities.getGeometryType(session, table, geometryFields.get(0));
+                if (geometryType != GeometryTypeCodes.POINT && geometryType != GeometryTypeCodes.MULTIPOINT) {
+                    throw new SQLException(I18N.tr("Table {0} is not a point table", tableReference));
+                }
+                String geometry = TableLocation.quoteIdentifier(geometryFields.get(0), isH2);
+                String source = table.toString(isH2);
+                // Temporary tables can not be created in the schema of the point table on PostgreSQL
+                String uniqueName = INDEX_TABLE_PREFIX + UUID.randomUUID().toString().replace("-", "").toUpperCase();
+                String target = TableLocation.quoteIdentifier(uniqueName, isH2);
+                double minX;
+                double minY;
+                double side;
+                try (ResultSet rs = st.executeQuery("SELECT MIN(ST_XMIN(" + geometry + ")), MIN(ST_YMIN(" +
+                        geometry + ")), MAX(ST_XMAX(" + geometry + ")), MAX(ST_YMAX(" + geometry + ")) FROM " +
+                        source)) {
+                    rs.next();
+                    minX = rs.getDouble(1);
+                    minY = rs.getDouble(2);
+                    side = Math.max(rs.getDouble(3) - minX, rs.getDouble(4) - minY);
+                    if (!(side > 0)) {
+                        side = 1;
+                    }
+                }
+                buildProgress.endTask();
+                st.execute("CREATE LOCAL TEMPORARY TABLE " + target + "(LVL INTEGER, CX BIGINT, CY BIGINT, X DOUBLE PRECISION, " +
+                        "Y DOUBLE PRECISION, " + CLUSTER_COUNT + " BIGINT)");
+                int lastCell = (1 << MAX_LEVEL) - 1;
+                double cell = side / (1 << MAX_LEVEL);
+                // The points on the upper bound of the extent are kept in the last cell
+                st.execute("INSERT INTO " + target + " SELECT " + MAX_LEVEL + ", CX, CY, AVG(X), AVG(Y), COUNT(*)" +
+                        " FROM (SELECT LEAST(FLOOR((X - " + minX + ") / " + cell + "), " + lastCell + ") CX," +
+                        " LEAST(FLOOR((Y - " + minY + ") / " + cell + "), " + lastCell + ") CY, X, Y FROM (SELECT ST_X(C) X, ST_Y(C) Y FROM (SELECT ST_CENTROID(" + geometry +
+                        ") C FROM " + source + " WHERE " + geometry + " IS NOT NULL) CENTROIDS) COORDINATES) CELLS" +
+                        " GROUP BY CX, CY");
+                buildProgress.endTask();
+                st.execute("CREATE INDEX " + TableLocation.quoteIdentifier(uniqueName + "_LVL", isH2) + " ON " +
+                        target + "(LVL, CY, CX)");
+                buildProgress.endTask();
+                for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+                    if (buildProgress.isCancelled()) {
+                        throw new SQLException(I18N.tr("Canceled by user"));
+                    }
+                    st.execute("INSERT INTO " + target + " SELECT " + level + ", CX / 2, CY / 2, SUM(X * " +
+                            CLUSTER_COUNT + ") / SUM(" + CLUSTER_COUNT + "), SUM(Y * " + CLUSTER_COUNT + ") / SUM(" +
+                            CLUSTER_COUNT + "), SUM(" + CLUSTER_COUNT + ") FROM " + target + " WHERE LVL = " +
+                            (level + 1) + " GROUP BY CX / 2, CY / 2");
+                    buildProgress.endTask();
+                }
+                sessionLock.lock();
+                try {
+                    this.minX = minX;
+                    this.minY = minY;
+                    this.side = side;
+                    indexTable = target;
+                    connection = session;
+                    built = true;
+                } finally {
+                    sessionLock.unlock();
+                }
+            } finally {
+                buildProgress.removePropertyChangeListener(cancelListener);
+            }
+        } finally {
+            sessionLock.lock();
+            boolean kept = connection == session;
+            sessionLock.unlock();
+            if (!kept) {
+                // Build failed, the temporary table is dropped with its session
+                session.close();
+            }
+        }
+    }
+
+    /**
+     * Drop the cluster table and close its session, once the running cluster query is closed.
+     * @throws SQLException
+     */
+    public void dispose() throws SQLException {
+        sessionLock.lock();
+        try {
+            built = false;
+            if (connection != null) {
+                try (Connection session = connection;
+                     Statement st = session.createStatement()) {
+                    // The session may be kept by a connection pool
+                    st.execute("DROP TABLE IF EXISTS " + indexTable);
+                } finally {
+                    connection = null;
+                    indexTable = null;
+                }
+            }
+        } finally {
+            sessionLock.unlock();
+        }
+    }
+
+    /**
+     * @param cellSize Minimal cluster cell size, in extent unit
+     * @return The finest level where the cells are larger than the provided size, -1 if the finest level cells are
+     * still larger, in that case the points should be drawn without clustering.
+     */
+    public int getLevel(double cellSize) {
+        if (!(cellSize > 0)) {
+            return -1;
+        }
+        int level = (int) Math.floor(Math.log(side / cellSize) / Math.log(2));
+        if (level > MAX_LEVEL) {
+            return -1;
+        }
+        return Math.max(0, level);
+    }
+
+    /**
+     * @param level Hierarchy level, see {@link #getLevel(double)}
+     * @return Provider of the clusters of this level in the requested envelope. The columns are
+     * {@link #CLUSTER_ID}, the cluster centroid and {@link #CLUSTER_COUNT}. The provider must be closed by the thread
+     * that executed it.
+     */
+    public ResultSetProviderFactory.ResultSetProvider getResultSetProvider(int level) {
+        return new ClusterResultSetProvider(level);
+    }
+
+    private class ClusterResultSetProvider implements ResultSetProviderFactory.ResultSetProvider {
+        private final int level;
+        private PreparedStatement st;
+        private PropertyChangeListener cancelListener;
+        private ProgressMonitor pm;
+        private boolean locked = false;
+
+        private ClusterResultSetProvider(int level) {
+            this.level = level;
+        }
+
+        @Override
+        public SpatialResultSet execute(ProgressMonitor pm, Envelope envelope) throws SQLException {
+            if (!locked) {
+                // Released on close, the session can not be disposed while the result set is read
+                sessionLock.lock();
+                locked = true;
+            }
+            Connection session = connection;
+            if (!built || session == null) {
+                throw new SQLException(I18N.tr("The point clusters of {0} are not available", tableReference));
+            }
+            this.pm = pm;
+            long cellCount = 1L << level;
+            double cell = side / cellCount;
+            // The symbols of the clusters next to the envelope may overlap it
+            st = session.prepareStatement("SELECT CY * " + (cellCount + 1) + " + CX " + CLUSTER_ID +
+                    ", ST_MAKEPOINT(X, Y) THE_GEOM, " + CLUSTER_COUNT + " FROM " + indexTable +
+                    " WHERE LVL = ? AND CY BETWEEN ? AND ? AND CX BETWEEN ? AND ?",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            cancelListener = EventHandler.create(PropertyChangeListener.class, st, "cancel");
+            pm.addPropertyChangeListener(ProgressMonitor.PROP_CANCEL, cancelListener);
+            st.setInt(1, level);
+            st.setLong(2, (long) Math.floor((envelope.getMinY() - minY) / cell) - 1);
+            st.setLong(3, (long) Math.floor((envelope.getMaxY() - minY) / cell) + 1);
+            st.setLong(4, (long) Math.floor((envelope.getMinX() - minX) / cell) - 1);
+            st.setLong(5, (long) Math.floor((envelope.getMaxX() - minX) / cell) + 1);
+            return st.executeQuery().unwrap(SpatialResultSet.class);
+        }
+
+        @Override
+        public String getPkName() {
+            return CLUSTER_ID;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (cancelListener != null) {
+                pm.removePropertyChangeListener(cancelListener);
+            }
+            try {
+                // The session is closed by dispose
+                if (st != null) {
+                    st.close();
+                }
+            } finally {
+                if (locked) {
+                    locked = false;
+                    sessionLock.unlock();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer;
+
+import org.orbisgis.commons.progress.ProgressMonitor;
+import org.orbisgis.coremap.layerModel.ILayer;
+
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * Result set provider factory able to fetch only the columns read by the renderer. The renderer falls back to
+ * {@link ResultSetProviderFactory#getResultSetProvider(ILayer, String[], ProgressMonitor)} with the factories that
+ * do not implement this interface.
+ */
+public interface ProjectedResultSetProviderFactory extends ResultSetProviderFactory {
+
+    /**
+     * @param layer Layer to be requested
+     * @param fields Columns read by the renderer, the primary key and the geometry are always returned. If null
+     *               all columns are returned.
+     * @param extraFields Additional field to returns
+     * @param pm ProgressMonitor allows to display the process and cancel it.
+     * @return Object that query the database.
+     * @throws java.sql.SQLException
+     */
+    ResultSetProvider getResultSetProvider(ILayer layer, Set<String> fields, String[] extraFields,
+                                           ProgressMonitor pm) throws SQLException;
+}
@@ -32,6 +32,8 @@ import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.Polygon;
+import org.h2gis.utilities.GeometryTypeCodes;
+import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.RasterMetaData;
 import org.h2gis.utilities.SFSUtilities;
 import org.h2gis.utilities.SpatialResultSet;
@@ -39,15 +41,18 @@ import org.h2gis.utilities.SpatialResultSetMetaData;
 import org.h2gis.utilities.TableLocation;
 import org.orbisgis.commons.progress.NullProgressMonitor;
 import org.orbisgis.commons.progress.ProgressMonitor;
+import org.orbisgis.corejdbc.MetaData;
 import org.orbisgis.corejdbc.ReadRowSet;
 import org.orbisgis.coremap.layerModel.ILayer;
 import org.orbisgis.coremap.layerModel.LayerException;
 import org.orbisgis.coremap.map.MapTransform;
+import org.orbisgis.coremap.renderer.se.PointSymbolizer;
 import org.orbisgis.coremap.renderer.se.Rule;
 import org.orbisgis.coremap.renderer.se.Style;
 import org.orbisgis.coremap.renderer.se.Symbolizer;
 import org.orbisgis.coremap.renderer.se.VectorSymbolizer;
 import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
+import org.orbisgis.coremap.renderer.se.visitors.FeaturesVisitor;
 import org.orbisgis.coremap.stream.GeoStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -76,6 +81,9 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -94,7 +102,29 @@ public abstract class Renderer {
         static final int BATCH_SIZE = 1000;
         private static final Logger LOGGER = LoggerFactory.getLogger(Renderer.class);
         private static final I18n I18N = I18nFactory.getI18n(Renderer.class);
+        private static final int DEFAULT_DENSITY_CELL_SIZE = 4;
         private ResultSetProviderFactory rsProvider = null;
+        private PointAggregation pointAggregation = PointAggregation.NONE;
+        private int densityCellSize = DEFAULT_DENSITY_CELL_SIZE;
+        private static final int DEFAULT_CLUSTER_CELL_SIZE = 64;
+        private PointClusterCache pointClusterCache = null;
+        private int clusterCellSize = DEFAULT_CLUSTER_CELL_SIZE;
+        private ScreenHitIndex screenHitIndex = null;
+
+        /**
+         * Drawing mode of the point layers. The aggregation is done by the database on a grid aligned with the
+         * image pixels, see {@link GridAggregation}.
+         */
+        public enum PointAggregation {
+                /** Draw all the features */
+                NONE,
+                /** Draw one feature per pixel of the POINT layers when the style does not depend on the feature
+                 * attributes and the layer has no selection. The result is the same as drawing all the features only
+                 * if the point symbols are opaque, this mode is opt-in. */
+                REPRESENTATIVE,
+                /** Draw the feature density per cell instead of the layer styles */
+                DENSITY
+        }
 
         /**
          * Change the way this renderer gather the table content of a layer.
@@ -104,6 +134,79 @@ public abstract class Renderer {
             this.rsProvider = rsProvider;
         }
 
+        /**
+         * @return Drawing mode of the point layers
+         */
+        public PointAggregation getPointAggregation() {
+                return pointAggregation;
+        }
+
+        /**
+         * @param pointAggregation Drawing mode of the point layers
+         */
+        public void setPointAggregation(PointAggregation pointAggregation) {
+                this.pointAggregation = pointAggregation;
+        }
+
+        /**
+         * @return Cell size in pixels of the {@link PointAggregation#DENSITY} mode
+         */
+        public int getDensityCellSize() {
+                return densityCellSize;
+        }
+
+        /**
+         * @param densityCellSize Cell size in pixels of the {@link PointAggregation#DENSITY} mode
+         */
+        public void setDensityCellSize(int densityCellSize) {
+                this.densityCellSize = Math.max(1, densityCellSize);
+        }
+
+        /**
+         * The point layers whose style references {@link PointClusterIndex#CLUSTER_COUNT} are drawn with one
+         * symbol per cluster, using the hierarchies of this cache. Without cache or while the hierarchy is built,
+         * each point is drawn with a cluster count of 1.
+         * @param pointClusterCache Cluster hierarchies, null to disable clustering
+         */
+        public void setPointClusterCache(PointClusterCache pointClusterCache) {
+                this.pointClusterCache = pointClusterCache;
+        }
+
+        /**
+         * @return Cluster hierarchies, null if clustering is disabled
+         */
+        public PointClusterCache getPointClusterCache() {
+                return pointClusterCache;
+        }
+
+        /**
+         * @param screenHitIndex Index that records the drawn features, null to disable the recording
+         */
+        public void setScreenHitIndex(ScreenHitIndex screenHitIndex) {
+                this.screenHitIndex = screenHitIndex;
+        }
+
+        /**
+         * @return Index that records the drawn features, null if the recording is disabled
+         */
+        public ScreenHitIndex getScreenHitIndex() {
+                return screenHitIndex;
+        }
+
+        /**
+         * @return Minimal size in pixels of the cluster cells
+         */
+        public int getClusterCellSize() {
+                return clusterCellSize;
+        }
+
+        /**
+         * @param clusterCellSize Minimal size in pixels of the cluster cells
+         */
+        public void setClusterCellSize(int clusterCellSize) {
+                this.clusterCellSize = Math.max(1, clusterCellSize);
+        }
+
     /**
          * This method shall returns a graphics2D for each symbolizers in the list.
          * This is useful to make the diff bw pdf purpose and image purpose
@@ -171,15 +274,170 @@ public abstract class Renderer {
                 ProgressMonitor pm) throws SQLException {
                 Envelope extent = mt.getAdjustedExtent();
                 int layerCount = 0;
+                GridAggregation aggregation = createGridAggregation(mt, layer);
+                if (aggregation != null && pointAggregation == PointAggregation.DENSITY) {
+                        return drawDensity(g2, mt, layer, aggregation, pm);
+                }
+                ScreenHitIndex.LayerHits hits = screenHitIndex != null ? screenHitIndex.beginLayer() : null;
                 List<Style> styles = layer.getStyles();
                 for(Style style : styles){
-                        layerCount +=drawStyle(style, g2, mt, layer, pm, extent);
+                        layerCount +=drawStyle(style, g2, mt, layer, pm, extent, aggregation, hits);
+                }
+                if (hits != null) {
+                        if (pm.isCancelled()) {
+                                hits.invalidate();
+                        }
+                        screenHitIndex.endLayer(layer, hits);
                 }
                 return layerCount;
         }        
 
+        /**
+         * @param mt Drawing parameters
+         * @param layer Drawn layer
+         * @return The grid binning of the layer points, null if the point aggregation is disabled or if the layer
+         * is not made of points.
+         * @throws SQLException
+         */
+        private GridAggregation createGridAggregation(MapTransform mt, ILayer layer) throws SQLException {
+                if (pointAggregation == PointAggregation.NONE || layer.getDataManager() == null
+                        || layer.getDataManager().getDataSource() == null || mt.getWidth() == 0
+                        || mt.getAdjustedExtent().isNull()) {
+                        return null;
+                }
+                try (Connection connection = layer.getDataManager().getDataSource().getConnection()) {
+                        boolean isH2 = JDBCUtilities.isH2DataBase(connection.getMetaData());
+                        TableLocation table = TableLocation.parse(layer.getTableReference(), isH2);
+                        List<String> geometryFields = SFSUtilities.getGeometryFields(connection, table);
+                        if (geometryFields.isEmpty()) {
+                                return null;
+                        }
+                        int geometryType = SFSUtilities.getGeometryType(connection, table, geometryFields.get(0));
+                        if (geometryType != GeometryTypeCodes.POINT && geometryType != GeometryTypeCodes.MULTIPOINT) {
+                                return null;
+                        }
+                        // A cell keeps one row, the other members of a MULTIPOINT would not be drawn
+                        if (pointAggregation == PointAggregation.REPRESENTATIVE
+                                && geometryType != GeometryTypeCodes.POINT) {
+                                return null;
+                        }
+                        // The H2 row identifier can be used, but not the PostgreSQL one
+                        String pkName = MetaData.getPkName(connection, layer.getTableReference(), isH2);
+                        if (pkName.isEmpty()) {
+                                return null;
+                        }
+                        int cellSize = pointAggregation == PointAggregation.DENSITY ? densityCellSize : 1;
+                        double pixelSize = mt.getAdjustedExtent().getWidth() / mt.getWidth();
+                        return new GridAggregation(table.toString(isH2), pkName,
+                                TableLocation.quoteIdentifier(geometryFields.get(0), isH2), mt.getAdjustedExtent(),
+                                cellSize * pixelSize);
+                }
+        }
+
+        /**
+         * Draw the number of points per cell, from translucent yellow to red using a logarithmic scale.
+         * @return The number of drawn cells
+         */
+        private int drawDensity(Graphics2D g2, MapTransform mt, ILayer layer, GridAggregation aggregation,
+                                ProgressMonitor pm) throws SQLException {
+                List<long[]> cells = new ArrayList<long[]>();
+                long maxCount = 1;
+                beginLayer(layer.getName());
+                try (ResultSetProviderFactory.ResultSetProvider provider =
+                             aggregation.getDensityProvider(layer.getDataManager().getDataSource());
+                     ResultSet rs = provider.execute(pm, mt.getAdjustedExtent())) {
+                        while (rs.next() && !pm.isCancelled()) {
+                                long count = rs.getLong(GridAggregation.CELL_COUNT);
+                                cells.add(new long[]{rs.getLong(GridAggregation.CELL_X),
+                                        rs.getLong(GridAggregation.CELL_Y), count});
+                                maxCount = Math.max(maxCount, count);
+                        }
+                } catch (SQLException ex) {
+                        if (pm.isCancelled()) {
+                                return 0;
+                        }
+                        throw ex;
+                }
+                double logMax = Math.log1p(maxCount);
+                for (long[] cell : cells) {
+                        double ratio = Math.log1p(cell[2]) / logMax;
+                        g2.setColor(new Color(255, (int) (255 * (1 - ratio)), 0, (int) (96 + 159 * ratio)));
+                        g2.fillRect((int) cell[0] * densityCellSize, (int) cell[1] * densityCellSize,
+                                densityCellSize, densityCellSize);
+                }
+                endLayer(layer.getName());
+                return cells.size();
+        }
+
+        /**
+         * @param mt Drawing parameters
+         * @param layer Drawn layer
+         * @return Provider of the layer clusters at the current scale, null if the layer cannot be drawn with
+         * clusters.
+         */
+        private ResultSetProviderFactory.ResultSetProvider getClusterProvider(MapTransform mt, ILayer layer) {
+                if (pointClusterCache == null || mt.getWidth() == 0) {
+                        return null;
+                }
+                PointClusterIndex index = pointClusterCache.getIndex(layer);
+                if (index == null) {
+                        return null;
+                }
+                int level = index.getLevel(clusterCellSize * mt.getAdjustedExtent().getWidth() / mt.getWidth());
+                return level < 0 ? null : index.getResultSetProvider(level);
+        }
+
+        /**
+         * @param fields Fields referenced by the style, the cluster count is removed from this set
+         * @return True if the style references the cluster count
+         */
+        private static boolean removeClusterCount(Set<String> fields) {
+                Iterator<String> it = fields.iterator();
+                while (it.hasNext()) {
+                        if (PointClusterIndex.CLUSTER_COUNT.equalsIgnoreCase(it.next())) {
+                                it.remove();
+                                return true;
+                        }
+                }
+                return false;
+        }
+
+        /**
+         * @param rules Active rules
+         * @return True if the rules only contain point symbolizers
+         */
+        private static boolean isPointSymbolizerOnly(List<Rule> rules) {
+                for (Rule rule : rules) {
+                        for (Symbolizer symbolizer : rule.getCompositeSymbolizer().getSymbolizerList()) {
+                                if (!(symbolizer instanceof PointSymbolizer)) {
+                                        return false;
+                                }
+                        }
+                }
+                return true;
+        }
+
+        /**
+         * @param factory Result set provider factory
+         * @param layer Layer to be requested
+         * @param fields Columns read by the renderer
+         * @param extraFields Additional field to returns
+         * @param pm Progress monitor
+         * @return Provider of the given columns if the factory supports the projection, of all columns otherwise
+         * @throws SQLException
+         */
+        private static ResultSetProviderFactory.ResultSetProvider getResultSetProvider(ResultSetProviderFactory factory,
+                ILayer layer, Set<String> fields, String[] extraFields, ProgressMonitor pm) throws SQLException {
+                if (factory instanceof ProjectedResultSetProviderFactory) {
+                        return ((ProjectedResultSetProviderFactory) factory).getResultSetProvider(layer, fields,
+                                extraFields, pm);
+                }
+                return factory.getResultSetProvider(layer, extraFields, pm);
+        }
+
         private int drawStyle(Style style, Graphics2D g2,MapTransform mt, ILayer layer,
-                              ProgressMonitor pm, Envelope extent) throws SQLException {
+                              ProgressMonitor pm, Envelope extent, GridAggregation aggregation,
+                              ScreenHitIndex.LayerHits hits) throws SQLException {
             int layerCount = 0;
             LinkedList<Symbolizer> symbs = new LinkedList<Symbolizer>();
             ResultSetProviderFactory layerDataFactory = rsProvider;
@@ -203,13 +461,39 @@ public abstract class Renderer {
                 // And now, features will be rendered
                 // Get a graphics for each symbolizer
                 initGraphics2D(symbs, g2, mt);
+                // Fetch only the columns used by the active rules
+                Set<String> fields = getRequiredFields(rList);
+                // The cluster count is not a column of the layer table
+                boolean clusterStyle = removeClusterCount(fields);
+                String[] extraFields = new String[0];
+                if (clusterStyle) {
+                        extraFields = new String[]{"1 " + PointClusterIndex.CLUSTER_COUNT};
+                }
+                // One feature per pixel gives the same drawing if all features are drawn the same way
+                boolean drawRepresentatives = aggregation != null && !clusterStyle && fields.isEmpty()
+                        && selectedRows.isEmpty() && isPointSymbolizerOnly(rList);
                 ProgressMonitor rulesProgress = pm.startTask(rList.size());
                 for (Rule r : rList) {
                     beginLayer(r.getName());
-                    try(ResultSetProviderFactory.ResultSetProvider resultSetProvider = layerDataFactory.getResultSetProvider(layer, new String[0],rulesProgress)) {
+                    ResultSetProviderFactory.ResultSetProvider clusterProvider = clusterStyle && fields.isEmpty() ?
+                            getClusterProvider(mt, layer) : null;
+                    // Cluster identifiers are not table rows
+                    boolean drawClusters = clusterProvider != null;
+                    // All the rules read the same rows, only the first reading is recorded
+                    boolean recordHits = hits != null && !hits.isFilled();
+                    if (recordHits && (drawClusters || drawRepresentatives)) {
+                            hits.invalidate();
+                    }
+                    try(ResultSetProviderFactory.ResultSetProvider resultSetProvider = drawClusters ? clusterProvider :
+                            drawRepresentatives ?
+                            aggregation.getRepresentativeProvider(layer.getDataManager().getDataSource()) :
+                            getResultSetProvider(layerDataFactory, layer, fields, extraFields, rulesProgress)) {
                         try(SpatialResultSet rs = resultSetProvider.execute(rulesProgress, extent)) {
                             int pkColumn = rs.findColumn(resultSetProvider.getPkName());
                             int fieldID = rs.getMetaData().unwrap(SpatialResultSetMetaData.class).getFirstGeometryFieldIndex();
+                            if (recordHits && fieldID < 0) {
+                                    hits.invalidate();
+                            }
                             ProgressMonitor rowSetProgress;
                             // Read row count for progress monitor
                             if(rs instanceof ReadRowSet) {
@@ -231,7 +515,10 @@ public abstract class Renderer {
                                 //doesn't intersect the current mapcontext area.
                                 if (theGeom == null || theGeom.getEnvelopeInternal().intersects(extent)) {
                                     long row = rs.getLong(pkColumn);
-                                    boolean selected = selectedRows.contains(row);
+                                    boolean selected = !drawClusters && selectedRows.contains(row);
+                                    if (recordHits && theGeom != null) {
+                                            hits.add(row, theGeom);
+                                    }
 
                                     beginFeature(row, rs);
 
@@ -244,9 +531,19 @@ public abstract class Renderer {
                                 }
                                 rowSetProgress.endTask();
                             }
+                            if (recordHits) {
+                                    if (rulesProgress.isCancelled()) {
+                                            hits.invalidate();
+                                    } else {
+                                            hits.setFilled();
+                                    }
+                            }
                             endLayer(r.getName());
                         }
                     } catch (SQLException ex) {
+                        if (hits != null) {
+                            hits.invalidate();
+                        }
                         if(!rulesProgress.isCancelled()) {
                             printEx(ex, layer, g2);
                         }
@@ -254,14 +551,41 @@ public abstract class Renderer {
                     rulesProgress.endTask();
                 }
                 disposeLayer(g2);
-            } catch (ParameterException ex) {
-                printEx(ex, layer, g2);
-            } catch (IOException ex) {
+            } catch (ParameterException | IOException ex) {
+                if (hits != null) {
+                    hits.invalidate();
+                }
                 printEx(ex, layer, g2);
             }
             return layerCount;
         }
 
+        /**
+         * Gets the columns that have to be fetched in order to draw the provided rules. The primary key and the
+         * geometry columns are always fetched. Override this method if {@link #beginFeature(long, java.sql.ResultSet)}
+         * reads other columns.
+         * @param rules Active rules of a style
+         * @return Column names, the case is not significant
+         */
+        protected Set<String> getRequiredFields(Collection<Rule> rules) {
+                return getReferencedFields(rules);
+        }
+
+        /**
+         * Gets the columns referenced by the rules symbolizers and labels.
+         * @param rules Rules to analyse
+         * @return Column names found in the {@link org.orbisgis.coremap.renderer.se.parameter.ValueReference} nodes
+         */
+        public static Set<String> getReferencedFields(Collection<Rule> rules) {
+                Set<String> fields = new HashSet<String>();
+                FeaturesVisitor featuresVisitor = new FeaturesVisitor();
+                for (Rule rule : rules) {
+                        featuresVisitor.visitSymbolizerNode(rule);
+                        fields.addAll(featuresVisitor.getResult());
+                }
+                return fields;
+        }
+
         private boolean drawFeature(Symbolizer s, Geometry geom, ResultSet rs,
                         long rowIdentifier, Envelope extent, boolean selected,
                         MapTransform mt) throws ParameterException,
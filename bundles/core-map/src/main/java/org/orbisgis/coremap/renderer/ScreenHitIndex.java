@@ -0,0 +1,346 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKBReader;
+import com.vividsolutions.jts.io.WKBWriter;
+import org.orbisgis.coremap.layerModel.ILayer;
+import org.orbisgis.coremap.map.MapTransform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pixel bounds of the features drawn by a {@link Renderer}, layer by layer. Clicks and small rectangles on the
+ * drawn image are answered from memory: the pixel bounds, indexed in a STR tree when the layer is kept, give the
+ * candidates and the kept geometries give the exact answer. The geometries are kept as 2D WKB, about 16 bytes per coordinate, and are only decoded for the
+ * candidates.
+ *
+ * A layer is answered only if all its features in the drawn extent have been read, and if the geometries fit in
+ * the coordinate budget. Otherwise {@link #query(ILayer, Geometry, boolean)} returns null and the database has to
+ * be queried.
+ */
+public class ScreenHitIndex {
+    /** Default maximum number of kept coordinates, all layers included (about 16 MB) */
+    public static final long DEFAULT_MAX_COORDINATES = 1000000;
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScreenHitIndex.class);
+    private final Envelope extent;
+    private final AffineTransform transform;
+    private final int width;
+    private final int height;
+    private final long maxCoordinates;
+    private long coordinates = 0;
+    private final Map<ILayer, LayerHits> layers = new IdentityHashMap<>();
+
+    /**
+     * @param mt Drawing parameters, the index is valid while they do not change
+     */
+    public ScreenHitIndex(MapTransform mt) {
+        this(mt, DEFAULT_MAX_COORDINATES);
+    }
+
+    /**
+     * @param mt Drawing parameters, the index is valid while they do not change
+     * @param maxCoordinates Maximum number of kept coordinates
+     */
+    public ScreenHitIndex(MapTransform mt, long maxCoordinates) {
+        this.extent = new Envelope(mt.getAdjustedExtent());
+        this.transform = new AffineTransform(mt.getAffineTransform());
+        this.width = mt.getWidth();
+        this.height = mt.getHeight();
+        this.maxCoordinates = maxCoordinates;
+    }
+
+    /**
+     * @param mt Current drawing parameters
+     * @return True if the index matches the image drawn with these parameters
+     */
+    public boolean isValid(MapTransform mt) {
+        return width == mt.getWidth() && height == mt.getHeight() && extent.equals(mt.getAdjustedExtent());
+    }
+
+    /**
+     * @return Recorder of the features of a layer
+     */
+    public LayerHits beginLayer() {
+        return new LayerHits(this);
+    }
+
+    /**
+     * Keep the recorded features of the layer if the layer has been completely read.
+     * @param layer Drawn layer
+     * @param hits Recorded features
+     */
+    public synchronized void endLayer(ILayer layer, LayerHits hits) {
+        if (hits.isValid() && hits.isFilled()) {
+            hits.trim();
+            layers.put(layer, hits);
+        } else {
+            coordinates -= hits.coordinates;
+        }
+    }
+
+    /**
+     * @param layer Layer
+     * @return True if the features of this layer can be queried
+     */
+    public synchronized boolean contains(ILayer layer) {
+        return layers.containsKey(layer);
+    }
+
+    /**
+     * @param layer Queried layer
+     * @param selection Selection geometry
+     * @param contains True to keep the geometries contained in the selection, false to keep the geometries that
+     * intersect it
+     * @return Primary keys of the matching features, null if the database has to be queried
+     */
+    public synchronized Set<Long> query(ILayer layer, Geometry selection, boolean contains) {
+        LayerHits hits = layers.get(layer);
+        Envelope selectionEnvelope = selection.getEnvelopeInternal();
+        if (hits == null || !extent.contains(selectionEnvelope)) {
+            return null;
+        }
+        int[] bounds = toPixel(selectionEnvelope);
+        Set<Long> result = new HashSet<>();
+        WKBReader reader = new WKBReader();
+        List<?> candidates = hits.tree.query(new Envelope(bounds[0], bounds[2], bounds[1], bounds[3]));
+        for (Object candidate : candidates) {
+            int i = (Integer) candidate;
+            Geometry geometry = read(reader, hits.geometries[i]);
+            if (geometry == null) {
+                return null;
+            }
+            if (contains ? selection.contains(geometry) : selection.intersects(geometry)) {
+                result.add(hits.pk[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The kept layers
+     */
+    public synchronized List<ILayer> getLayers() {
+        return new ArrayList<>(layers.keySet());
+    }
+
+    /**
+     * @param layer Layer
+     * @return Number of kept coordinates of this layer, 0 if the layer is not kept
+     */
+    public synchronized long getCoordinateCount(ILayer layer) {
+        LayerHits hits = layers.get(layer);
+        return hits == null ? 0 : hits.coordinates;
+    }
+
+    /**
+     * Visit the recorded features of all the kept layers.
+     * @param visitor Feature visitor
+     */
+    public synchronized void visitFeatures(FeatureVisitor visitor) {
+        for (ILayer layer : layers.keySet()) {
+            visitFeatures(layer, visitor);
+        }
+    }
+
+    /**
+     * Visit the recorded features of a layer, nothing is visited if the layer is not kept.
+     * @param layer Layer
+     * @param visitor Feature visitor
+     */
+    public synchronized void visitFeatures(ILayer layer, FeatureVisitor visitor) {
+        LayerHits hits = layers.get(layer);
+        if (hits == null) {
+            return;
+        }
+        WKBReader reader = new WKBReader();
+        for (int i = 0; i < hits.size; i++) {
+            Geometry geometry = read(reader, hits.geometries[i]);
+            if (geometry != null) {
+                visitor.visit(layer, hits.pk[i], geometry);
+            }
+        }
+    }
+
+    private static Geometry read(WKBReader reader, byte[] wkb) {
+        try {
+            return reader.read(wkb);
+        } catch (ParseException ex) {
+            LOGGER.error(ex.getLocalizedMessage(), ex);
+            return null;
+        }
+    }
+
+    /**
+     * @param envelope Envelope in extent unit
+     * @return Pixel bounds minX, minY, maxX, maxY, rounded outward
+     */
+    private int[] toPixel(Envelope envelope) {
+        Point2D lower = transform.transform(new Point2D.Double(envelope.getMinX(), envelope.getMinY()), null);
+        Point2D upper = transform.transform(new Point2D.Double(envelope.getMaxX(), envelope.getMaxY()), null);
+        return new int[]{(int) Math.floor(Math.min(lower.getX(), upper.getX())),
+                (int) Math.floor(Math.min(lower.getY(), upper.getY())),
+                (int) Math.ceil(Math.max(lower.getX(), upper.getX())),
+                (int) Math.ceil(Math.max(lower.getY(), upper.getY()))};
+    }
+
+    private synchronized boolean reserve(int count) {
+        if (coordinates + count > maxCoordinates) {
+            return false;
+        }
+        coordinates += count;
+        return true;
+    }
+
+    /**
+     * Receive the recorded features, see {@link #visitFeatures(FeatureVisitor)}.
+     */
+    public interface FeatureVisitor {
+        /**
+         * @param layer Drawn layer
+         * @param pk Feature primary key
+         * @param geometry Drawn geometry
+         */
+        void visit(ILayer layer, long pk, Geometry geometry);
+    }
+
+    /**
+     * Features recorded while drawing a layer.
+     */
+    public static final class LayerHits {
+        private static final int INITIAL_CAPACITY = 64;
+        private final ScreenHitIndex index;
+        private long[] pk = new long[INITIAL_CAPACITY];
+        private int[] bounds = new int[INITIAL_CAPACITY * 4];
+        private byte[][] geometries = new byte[INITIAL_CAPACITY][];
+        private final WKBWriter writer = new WKBWriter();
+        private STRtree tree;
+        private int size = 0;
+        private long coordinates = 0;
+        private boolean valid = true;
+        private boolean filled = false;
+
+        private LayerHits(ScreenHitIndex index) {
+            this.index = index;
+        }
+
+        /**
+         * @param row Feature primary key
+         * @param geometry Drawn geometry
+         */
+        public void add(long row, Geometry geometry) {
+            // Empty geometries are not drawn and have no WKB representation
+            if (!valid || geometry.isEmpty()) {
+                return;
+            }
+            int count = geometry.getNumPoints();
+            if (!index.reserve(count)) {
+                invalidate();
+                return;
+            }
+            coordinates += count;
+            if (size == pk.length) {
+                int capacity = size * 2;
+                pk = Arrays.copyOf(pk, capacity);
+                bounds = Arrays.copyOf(bounds, capacity * 4);
+                geometries = Arrays.copyOf(geometries, capacity);
+            }
+            int[] pixels = index.toPixel(geometry.getEnvelopeInternal());
+            System.arraycopy(pixels, 0, bounds, size * 4, 4);
+            pk[size] = row;
+            geometries[size] = writer.write(geometry);
+            size++;
+        }
+
+        /**
+         * Some features of the layer are not read, the layer will not be queried from memory.
+         */
+        public void invalidate() {
+            if (valid) {
+                valid = false;
+                pk = null;
+                bounds = null;
+                geometries = null;
+                size = 0;
+            }
+        }
+
+        /**
+         * @return False if some features of the layer are not read
+         */
+        public boolean isValid() {
+            return valid;
+        }
+
+        /**
+         * All the features of the layer in the drawn extent have been read.
+         */
+        public void setFilled() {
+            filled = true;
+        }
+
+        /**
+         * @return True if the features are read, the following readings do not need to be recorded
+         */
+        public boolean isFilled() {
+            return filled;
+        }
+
+        /**
+         * Index the pixel bounds, the layer is complete and will only be queried.
+         */
+        private void trim() {
+            pk = Arrays.copyOf(pk, size);
+            geometries = Arrays.copyOf(geometries, size);
+            tree = new STRtree();
+            for (int i = 0; i < size; i++) {
+                int offset = i * 4;
+                tree.insert(new Envelope(bounds[offset], bounds[offset + 2], bounds[offset + 1], bounds[offset + 3]),
+                        i);
+            }
+            tree.build();
+            // The bounds are in the tree
+            bounds = null;
+        }
+    }
+}
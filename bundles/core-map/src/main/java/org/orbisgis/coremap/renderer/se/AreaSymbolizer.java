@@ -215,8 +215,14 @@ public final class AreaSymbolizer extends VectorSymbolizer implements FillNode,
                 throws ParameterException, IOException, SQLException {
 
                 List<Shape> shapes = new LinkedList<Shape>();
-                shapes.add(mt.getShape(the_geom, true));
                 Map<String,Object> map = getFeaturesMap(rs, fid);
+                // Drop the parts far from the viewport if it does not change the drawing
+                if (getTranslate() == null && (fill == null || fill.isClipSafe(map))
+                        && (stroke == null || stroke.isClipSafe(map))) {
+                        shapes.add(mt.getClippedShape(the_geom, true));
+                } else {
+                        shapes.add(mt.getShape(the_geom, true));
+                }
                 for (Shape shp : shapes) {
                         if (this.getTranslate() != null) {
                                 shp = getTranslate().getAffineTransform(map, getUom(), mt,
@@ -167,7 +167,13 @@ public final class LineSymbolizer extends VectorSymbolizer implements StrokeNode
                 throws ParameterException, IOException, SQLException {
                 if (stroke != null) {
                         Map<String,Object> map = getFeaturesMap(rs, fid);
-                        Shape shp = mt.getShape(the_geom, true);
+                        // Drop the parts far from the viewport if it does not change the drawing
+                        Shape shp;
+                        if (stroke.isClipSafe(map)) {
+                                shp = mt.getClippedShape(the_geom, true);
+                        } else {
+                                shp = mt.getShape(the_geom, true);
+                        }
                         double offset = 0.0;
                         if (perpendicularOffset != null) {
                                 offset = Uom.toPixel(perpendicularOffset.getValue(rs, fid),
@@ -113,6 +113,17 @@ public abstract class Fill extends AbstractSymbolizerNode implements UomNode {
     public abstract void draw(Graphics2D g2, Map<String,Object> map, Shape shp,
             boolean selected, MapTransform mt) throws ParameterException, IOException;
 
+    /**
+     * A fill is clip safe if filling a shape cut to the viewport gives the same result than filling the whole
+     * shape, i.e. the pattern does not depend on the shape bounds.
+     * @param map Feature values
+     * @return True if the shape can be clipped before the drawing
+     * @throws ParameterException
+     */
+    public boolean isClipSafe(Map<String,Object> map) throws ParameterException {
+        return false;
+    }
+
 
     /**
      * Return a Paint that correspond to the SE Fill type.
@@ -185,6 +185,14 @@ public final class GraphicFill extends Fill {
         }
     }
 
+    /**
+     * The texture is anchored to the image origin, not to the shape bounds.
+     */
+    @Override
+    public boolean isClipSafe(Map<String,Object> map) {
+        return true;
+    }
+
     /**
      * Create a new TexturePaint according to this GraphicFill
      * 
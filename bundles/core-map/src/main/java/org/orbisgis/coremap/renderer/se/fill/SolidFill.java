@@ -208,6 +208,11 @@ public final class SolidFill extends Fill {
 		g2.fill(shp);
 	}
 
+	@Override
+	public boolean isClipSafe(Map<String,Object> map) {
+		return true;
+	}
+
 	@Override
 	public String toString() {
 		return "Color: " + color + " alpha: " + opacity;
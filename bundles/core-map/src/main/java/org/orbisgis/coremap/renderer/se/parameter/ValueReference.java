@@ -28,6 +28,7 @@
  */
 package org.orbisgis.coremap.renderer.se.parameter;
 
+import java.lang.ref.WeakReference;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -56,6 +57,8 @@ public abstract class ValueReference extends AbstractSymbolizerNode implements S
         
 	private String fieldName;
 	private int fieldId;
+	// Result set where fieldId has been found, the column order depends on the query
+	private WeakReference<ResultSet> fieldIdResultSet = new WeakReference<ResultSet>(null);
 	private ArrayList<PropertyNameListener> listeners;
 
         /**
@@ -153,8 +156,9 @@ public abstract class ValueReference extends AbstractSymbolizerNode implements S
      * @throws java.sql.SQLException
      */
     public Object getFieldValue(ResultSet sds, long fid) throws SQLException {
-        if (this.fieldId == -1) {
+        if (this.fieldId == -1 || fieldIdResultSet.get() != sds) {
             this.fieldId = getFieldIndexFromLabel(sds, fieldName);
+            fieldIdResultSet = new WeakReference<ResultSet>(sds);
         }
         return sds.getObject(fieldId);
     }
@@ -226,6 +226,12 @@ public final class PenStroke extends Stroke implements FillNode {
         return Double.POSITIVE_INFINITY;
     }
 
+    @Override
+    public boolean isClipSafe(Map<String,Object> map) throws ParameterException {
+        boolean dashed = dashArray != null && !dashArray.getValue(map).trim().isEmpty();
+        return !dashed && (fill == null || fill.isClipSafe(map));
+    }
+
     @Override
     public Double getNaturalLengthForCompound(Map<String,Object> map,
             Shape shp, MapTransform mt) throws ParameterException, IOException {
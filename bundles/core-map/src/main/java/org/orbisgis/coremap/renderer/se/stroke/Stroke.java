@@ -162,6 +162,18 @@ public abstract class Stroke extends AbstractSymbolizerNode implements UomNode {
     public abstract void draw(Graphics2D g2, Map<String,Object> map, Shape shp,
             boolean selected, MapTransform mt, double offset) throws ParameterException, IOException;
 
+    /**
+     * A stroke is clip safe if drawing a line cut to the viewport gives the same result than drawing the whole
+     * line, i.e. the drawing does not depend on the line length or origin (dashes, graphics or labels along the
+     * line).
+     * @param map Feature values
+     * @return True if the line can be clipped before the drawing
+     * @throws ParameterException
+     */
+    public boolean isClipSafe(Map<String,Object> map) throws ParameterException {
+        return false;
+    }
+
     /**
      * Get a JAXB representation of this {@code Label}
      * @return
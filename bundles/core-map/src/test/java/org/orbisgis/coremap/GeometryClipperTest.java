@@ -0,0 +1,99 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.io.WKTReader;
+import org.junit.Test;
+import org.orbisgis.coremap.map.GeometryClipper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test of GeometryClipper
+ */
+public class GeometryClipperTest {
+        private static final Envelope CLIP = new Envelope(0, 10, 0, 10);
+
+        private static Geometry read(String wkt) throws Exception {
+                return new WKTReader().read(wkt);
+        }
+
+        private static void assertGeometry(String expected, Geometry result) throws Exception {
+                // Clipped rings may start on another vertex
+                Geometry expectedGeometry = read(expected).norm();
+                assertTrue(result + " != " + expected, expectedGeometry.equalsExact(result.norm(), 1e-9));
+        }
+
+        @Test
+        public void testInside() throws Exception {
+                Geometry geom = read("LINESTRING(1 1, 5 5, 9 1)");
+                assertSame(geom, GeometryClipper.clip(geom, CLIP));
+                Geometry point = read("POINT(50 50)");
+                assertSame(point, GeometryClipper.clip(point, CLIP));
+                assertNull(GeometryClipper.clip(read("LINESTRING(20 20, 30 30)"), CLIP));
+        }
+
+        @Test
+        public void testLine() throws Exception {
+                assertGeometry("LINESTRING(0 5, 10 5)", GeometryClipper.clip(read("LINESTRING(-100 5, 100 5)"), CLIP));
+                assertGeometry("MULTILINESTRING((0 5, 5 5, 5 10), (6 10, 6 5, 10 5))",
+                        GeometryClipper.clip(read("LINESTRING(-5 5, 5 5, 5 20, 6 20, 6 5, 20 5)"), CLIP));
+                // Segment crossing the clip rectangle corner
+                assertGeometry("LINESTRING(0 0, 10 10)", GeometryClipper.clip(read("LINESTRING(-5 -5, 15 15)"), CLIP));
+        }
+
+        @Test
+        public void testPolygon() throws Exception {
+                assertGeometry("POLYGON((0 0, 10 0, 10 10, 0 10, 0 0))",
+                        GeometryClipper.clip(read("POLYGON((-100 -100, 100 -100, 100 100, -100 100, -100 -100))"), CLIP));
+                // Holes inside, crossing and outside the clip rectangle
+                Geometry clipped = GeometryClipper.clip(read("POLYGON((-100 -100, 100 -100, 100 100, -100 100, -100 -100)," +
+                        "(2 2, 2 4, 4 4, 4 2, 2 2), (8 2, 8 4, 12 4, 12 2, 8 2), (20 20, 20 30, 30 30, 30 20, 20 20))"), CLIP);
+                assertGeometry("POLYGON((0 0, 10 0, 10 10, 0 10, 0 0), (2 2, 2 4, 4 4, 4 2, 2 2)," +
+                        "(8 2, 8 4, 10 4, 10 2, 8 2))", clipped);
+                // Same area as the JTS intersection
+                Geometry geom = read("POLYGON((-5 5, 5 -5, 15 5, 5 15, -5 5))");
+                assertEquals(geom.intersection(new GeometryFactory().toGeometry(CLIP))
+                        .getArea(), GeometryClipper.clip(geom, CLIP).getArea(), 1e-9);
+                assertNull(GeometryClipper.clip(read("POLYGON((11 -5, 20 -5, 20 20, 11 20, 11 -5))"), CLIP));
+        }
+
+        @Test
+        public void testCollection() throws Exception {
+                assertGeometry("MULTIPOLYGON(((0 0, 5 0, 5 5, 0 5, 0 0)), ((6 6, 10 6, 10 10, 6 10, 6 6)))",
+                        GeometryClipper.clip(read("MULTIPOLYGON(((-5 -5, 5 -5, 5 5, -5 5, -5 -5))," +
+                                "((6 6, 20 6, 20 20, 6 20, 6 6)), ((30 30, 40 30, 40 40, 30 30)))"), CLIP));
+        }
+}
@@ -0,0 +1,129 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer;
+
+import com.vividsolutions.jts.geom.Envelope;
+import org.h2gis.h2spatial.ut.SpatialH2UT;
+import org.h2gis.h2spatialext.CreateSpatialExtension;
+import org.h2gis.utilities.SFSUtilities;
+import org.h2gis.utilities.SpatialResultSet;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orbisgis.commons.progress.NullProgressMonitor;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.internal.DataManagerImpl;
+import org.orbisgis.coremap.layerModel.ILayer;
+import org.orbisgis.coremap.layerModel.MapContext;
+import org.orbisgis.coremap.layerModel.OwsMapContext;
+import org.orbisgis.coremap.renderer.se.Style;
+import org.orbisgis.coremap.renderer.se.SymbolizerTest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests of {@link DefaultResultSetProviderFactory} column projection.
+ *
+ * The layer table WIDE holds a hundred VARCHAR columns that are not referenced by the style. The render query must
+ * only fetch the primary key, the geometry and the fields returned by {@link Renderer#getReferencedFields}, and fall
+ * back to all the columns when the field set is unknown or references a missing column.
+ */
+public class DefaultResultSetProviderFactoryTest {
+    private static Connection connection;
+    private static DataManager dataManager;
+
+    @BeforeClass
+    public static void tearUpClass() throws Exception {
+        DataSource dataSource = SFSUtilities.wrapSpatialDataSource(SpatialH2UT.createDataSource(
+                DefaultResultSetProviderFactoryTest.class.getSimpleName(), false));
+        connection = dataSource.getConnection();
+        CreateSpatialExtension.initSpatialExtension(connection);
+        dataManager = new DataManagerImpl(dataSource);
+        StringBuilder columns = new StringBuilder("PK SERIAL PRIMARY KEY, THE_GEOM POINT, PTOT99 INTEGER");
+        for(int i = 0; i < 100; i++) {
+            columns.append(", C").append(i).append(" VARCHAR");
+        }
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS WIDE");
+            st.execute("CREATE TABLE WIDE(" + columns + ")");
+            st.execute("INSERT INTO WIDE(THE_GEOM, PTOT99) VALUES ('POINT(1 1)', 12)");
+        }
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        connection.close();
+        dataManager.dispose();
+    }
+
+    private static List<String> getQueryColumns(ILayer layer, Set<String> fields) throws Exception {
+        List<String> columns = new ArrayList<>();
+        try(ResultSetProviderFactory.ResultSetProvider provider = new DefaultResultSetProviderFactory()
+                .getResultSetProvider(layer, fields, new String[0], new NullProgressMonitor())) {
+            try(SpatialResultSet rs = provider.execute(new NullProgressMonitor(), new Envelope(0, 2, 0, 2))) {
+                ResultSetMetaData meta = rs.getMetaData();
+                for(int i = 1; i <= meta.getColumnCount(); i++) {
+                    columns.add(meta.getColumnName(i));
+                }
+                rs.next();
+                assertEquals(12, rs.getInt("PTOT99"));
+            }
+        }
+        return columns;
+    }
+
+    @Test
+    public void testProjectedColumns() throws Exception {
+        Style style = new Style(null, SymbolizerTest.class.getResource("symbol_prop_canton_interpol_lin.se").getFile());
+        Set<String> fields = Renderer.getReferencedFields(style.getRules());
+        assertEquals(Collections.singleton("PTOT99"), fields);
+        MapContext mc = new OwsMapContext(dataManager);
+        mc.open(new NullProgressMonitor());
+        ILayer layer = mc.createLayer("WIDE");
+        assertEquals(Arrays.asList("PK", "THE_GEOM", "PTOT99"), getQueryColumns(layer, fields));
+        // Column names are not case sensitive in styles
+        assertEquals(Arrays.asList("PK", "THE_GEOM", "PTOT99"), getQueryColumns(layer,
+                new HashSet<>(Arrays.asList("ptot99"))));
+        // Unknown column, fetch all columns
+        assertEquals(3 + 100 + 1, getQueryColumns(layer, new HashSet<>(Arrays.asList("PTOT99", "MISSING"))).size());
+        // No projection
+        assertEquals(3 + 100 + 1, getQueryColumns(layer, null).size());
+    }
+}
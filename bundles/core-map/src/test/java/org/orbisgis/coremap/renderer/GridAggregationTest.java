@@ -0,0 +1,110 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer;
+
+import com.vividsolutions.jts.geom.Envelope;
+import org.h2gis.h2spatial.ut.SpatialH2UT;
+import org.h2gis.h2spatialext.CreateSpatialExtension;
+import org.h2gis.utilities.SFSUtilities;
+import org.h2gis.utilities.SpatialResultSet;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orbisgis.commons.progress.NullProgressMonitor;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Check the grid binning done by the database.
+ */
+public class GridAggregationTest {
+    private static Connection connection;
+    private static DataSource dataSource;
+
+    @BeforeClass
+    public static void tearUpClass() throws Exception {
+        dataSource = SFSUtilities.wrapSpatialDataSource(SpatialH2UT.createDataSource(
+                GridAggregationTest.class.getSimpleName(), false));
+        connection = dataSource.getConnection();
+        CreateSpatialExtension.initSpatialExtension(connection);
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS DENSE");
+            st.execute("CREATE TABLE DENSE(PK SERIAL PRIMARY KEY, THE_GEOM POINT)");
+            // Three points in the upper left cell, one in the lower right cell and one outside the extent
+            st.execute("INSERT INTO DENSE(THE_GEOM) VALUES ('POINT(0.5 9.5)'), ('POINT(1 9)'), ('POINT(1.5 8.5)')," +
+                    " ('POINT(9 1)'), ('POINT(20 20)')");
+        }
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void testDensity() throws Exception {
+        GridAggregation aggregation = new GridAggregation("DENSE", "PK", "THE_GEOM", new Envelope(0, 10, 0, 10), 5);
+        Map<String, Long> counts = new HashMap<>();
+        try(ResultSetProviderFactory.ResultSetProvider provider = aggregation.getDensityProvider(dataSource);
+            SpatialResultSet rs = provider.execute(new NullProgressMonitor(), new Envelope(0, 10, 0, 10))) {
+            while(rs.next()) {
+                counts.put(rs.getInt(GridAggregation.CELL_X) + " " + rs.getInt(GridAggregation.CELL_Y),
+                        rs.getLong(GridAggregation.CELL_COUNT));
+            }
+        }
+        assertEquals(2, counts.size());
+        assertEquals(3L, (long) counts.get("0 0"));
+        assertEquals(1L, (long) counts.get("1 1"));
+    }
+
+    @Test
+    public void testRepresentative() throws Exception {
+        GridAggregation aggregation = new GridAggregation("DENSE", "PK", "THE_GEOM", new Envelope(0, 10, 0, 10), 5);
+        Set<Integer> pk = new HashSet<>();
+        try(ResultSetProviderFactory.ResultSetProvider provider = aggregation.getRepresentativeProvider(dataSource);
+            SpatialResultSet rs = provider.execute(new NullProgressMonitor(), new Envelope(0, 10, 0, 10))) {
+            while(rs.next()) {
+                assertTrue(rs.getGeometry() != null);
+                pk.add(rs.getInt("PK"));
+            }
+        }
+        assertEquals(2, pk.size());
+        assertTrue(pk.contains(1));
+        assertTrue(pk.contains(4));
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Point;
+import org.h2gis.h2spatial.ut.SpatialH2UT;
+import org.h2gis.h2spatialext.CreateSpatialExtension;
+import org.h2gis.utilities.SFSUtilities;
+import org.h2gis.utilities.SpatialResultSet;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orbisgis.commons.progress.NullProgressMonitor;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Check the point cluster hierarchy.
+ */
+public class PointClusterIndexTest {
+    private static Connection connection;
+    private static DataSource dataSource;
+
+    @BeforeClass
+    public static void tearUpClass() throws Exception {
+        dataSource = SFSUtilities.wrapSpatialDataSource(SpatialH2UT.createDataSource(
+                PointClusterIndexTest.class.getSimpleName(), false));
+        connection = dataSource.getConnection();
+        CreateSpatialExtension.initSpatialExtension(connection);
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS PTS, LINES, ORBISGIS_CLUSTER_PTS");
+            // User table that looks like a cluster table
+            st.execute("CREATE TABLE ORBISGIS_CLUSTER_PTS(ID INTEGER)");
+            st.execute("CREATE TABLE PTS(PK SERIAL PRIMARY KEY, THE_GEOM POINT)");
+            // Two groups of points at the opposite corners of the extent
+            st.execute("INSERT INTO PTS(THE_GEOM) VALUES ('POINT(0 0)'), ('POINT(1 1)'), ('POINT(2 2)')," +
+                    " ('POINT(99 99)'), ('POINT(100 100)')");
+            st.execute("CREATE TABLE LINES(PK SERIAL PRIMARY KEY, THE_GEOM LINESTRING)");
+            st.execute("INSERT INTO LINES(THE_GEOM) VALUES ('LINESTRING(0 0, 1 1)')");
+        }
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        connection.close();
+    }
+
+    private static int countClusterTables() throws SQLException {
+        try(Statement st = connection.createStatement();
+            ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES" +
+                    " WHERE TABLE_NAME LIKE 'ORBISGIS_CLUSTER_%'")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static long sumCount(PointClusterIndex index, int level, Envelope envelope) throws SQLException {
+        long count = 0;
+        try(ResultSetProviderFactory.ResultSetProvider provider = index.getResultSetProvider(level);
+            SpatialResultSet rs = provider.execute(new NullProgressMonitor(), envelope)) {
+            while(rs.next()) {
+                count += rs.getLong(PointClusterIndex.CLUSTER_COUNT);
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testHierarchy() throws Exception {
+        PointClusterIndex index = new PointClusterIndex(dataSource, "PTS");
+        assertFalse(index.isBuilt());
+        index.build(new NullProgressMonitor());
+        assertTrue(index.isBuilt());
+        // The hierarchy is a temporary table of another session, the user table is kept
+        assertEquals(1, countClusterTables());
+        try {
+            // Whole extent in one cell
+            try(ResultSetProviderFactory.ResultSetProvider provider = index.getResultSetProvider(0);
+                SpatialResultSet rs = provider.execute(new NullProgressMonitor(), new Envelope(0, 100, 0, 100))) {
+                assertTrue(rs.next());
+                assertEquals(5, rs.getLong(PointClusterIndex.CLUSTER_COUNT));
+                Point centroid = (Point) rs.getGeometry();
+                assertEquals(40.4, centroid.getX(), 1e-9);
+                assertEquals(40.4, centroid.getY(), 1e-9);
+                assertFalse(rs.next());
+            }
+            // Every level keeps all the points
+            for(int level = 0; level <= PointClusterIndex.MAX_LEVEL; level++) {
+                assertEquals(5, sumCount(index, level, new Envelope(0, 100, 0, 100)));
+            }
+            // Only the cells next to the lower left corner
+            assertEquals(3, sumCount(index, 4, new Envelope(0, 5, 0, 5)));
+        } finally {
+            index.dispose();
+        }
+        assertFalse(index.isBuilt());
+        assertEquals(1, countClusterTables());
+    }
+
+    @Test
+    public void testLevel() throws Exception {
+        PointClusterIndex index = new PointClusterIndex(dataSource, "PTS");
+        index.build(new NullProgressMonitor());
+        try {
+            assertEquals(0, index.getLevel(200));
+            assertEquals(1, index.getLevel(50));
+            assertEquals(3, index.getLevel(10));
+            assertEquals(-1, index.getLevel(1e-4));
+        } finally {
+            index.dispose();
+        }
+    }
+
+    @Test
+    public void testDisposeWaitsForQuery() throws Exception {
+        final PointClusterIndex index = new PointClusterIndex(dataSource, "PTS");
+        index.build(new NullProgressMonitor());
+        Thread disposeThread;
+        try(ResultSetProviderFactory.ResultSetProvider provider = index.getResultSetProvider(0);
+            SpatialResultSet rs = provider.execute(new NullProgressMonitor(), new Envelope(0, 100, 0, 100))) {
+            disposeThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        index.dispose();
+                    } catch (SQLException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
+            });
+            disposeThread.start();
+            disposeThread.join(200);
+            // The session is kept until the cluster query is closed
+            assertTrue(disposeThread.isAlive());
+            assertTrue(index.isBuilt());
+            assertTrue(rs.next());
+            assertEquals(5, rs.getLong(PointClusterIndex.CLUSTER_COUNT));
+        }
+        disposeThread.join(5000);
+        assertFalse(disposeThread.isAlive());
+        assertFalse(index.isBuilt());
+    }
+
+    @Test(expected = SQLException.class)
+    public void testNotPoint() throws Exception {
+        new PointClusterIndex(dataSource, "LINES").build(new NullProgressMonitor());
+    }
+}
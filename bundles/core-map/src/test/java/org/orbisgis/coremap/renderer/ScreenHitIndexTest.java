@@ -0,0 +1,165 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.io.WKTReader;
+import org.junit.Test;
+import org.orbisgis.coremap.layerModel.ILayer;
+import org.orbisgis.coremap.layerModel.Layer;
+import org.orbisgis.coremap.map.MapTransform;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Check the queries of the features recorded while drawing.
+ */
+public class ScreenHitIndexTest {
+
+    private static MapTransform createMapTransform() {
+        MapTransform mt = new MapTransform();
+        mt.setImage(new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB));
+        mt.setExtent(new Envelope(0, 100, 0, 100));
+        return mt;
+    }
+
+    private static Geometry rect(double minX, double minY, double maxX, double maxY) {
+        return new GeometryFactory().toGeometry(new Envelope(minX, maxX, minY, maxY));
+    }
+
+    @Test
+    public void testQuery() throws Exception {
+        MapTransform mt = createMapTransform();
+        ILayer layer = new Layer("lines", "LINES", null);
+        ScreenHitIndex index = new ScreenHitIndex(mt);
+        ScreenHitIndex.LayerHits hits = index.beginLayer();
+        WKTReader reader = new WKTReader();
+        hits.add(1, reader.read("LINESTRING(10 10, 20 20)"));
+        // The envelope of this line contains the selection but not the line
+        hits.add(2, reader.read("LINESTRING(50 10, 90 10, 90 50)"));
+        hits.add(3, reader.read("POINT(85 15)"));
+        hits.setFilled();
+        index.endLayer(layer, hits);
+        assertTrue(index.contains(layer));
+        assertTrue(index.isValid(mt));
+        assertEquals(new HashSet<>(Arrays.asList(1L)), index.query(layer, rect(14, 14, 16, 16), false));
+        assertEquals(new HashSet<>(Arrays.asList(3L)), index.query(layer, rect(80, 14, 86, 20), false));
+        assertEquals(new HashSet<>(Arrays.asList(2L, 3L)), index.query(layer, rect(40, 0, 95, 60), true));
+        assertEquals(Collections.<Long>emptySet(), index.query(layer, rect(60, 60, 70, 70), false));
+        // Outside of the drawn extent
+        assertNull(index.query(layer, rect(90, 90, 110, 110), false));
+        // Unknown layer
+        assertNull(index.query(new Layer("other", "OTHER", null), rect(14, 14, 16, 16), false));
+        // The kept geometries are the drawn ones
+        final Map<Long, Geometry> visited = new HashMap<>();
+        index.visitFeatures(new ScreenHitIndex.FeatureVisitor() {
+            @Override
+            public void visit(ILayer layer, long pk, Geometry geometry) {
+                visited.put(pk, geometry);
+            }
+        });
+        assertEquals(3, visited.size());
+        assertTrue(visited.get(2L).equalsExact(reader.read("LINESTRING(50 10, 90 10, 90 50)")));
+        // The map has moved
+        mt.setExtent(new Envelope(0, 200, 0, 200));
+        assertFalse(index.isValid(mt));
+    }
+
+    @Test
+    public void testQueryManyFeatures() throws Exception {
+        MapTransform mt = createMapTransform();
+        ILayer layer = new Layer("points", "POINTS", null);
+        ScreenHitIndex index = new ScreenHitIndex(mt);
+        ScreenHitIndex.LayerHits hits = index.beginLayer();
+        GeometryFactory factory = new GeometryFactory();
+        // One point every half pixel
+        long pk = 0;
+        for (int x = 0; x < 200; x++) {
+            for (int y = 0; y < 200; y++) {
+                hits.add(pk++, factory.toGeometry(new Envelope(x / 2. + 0.25, x / 2. + 0.25, y / 2. + 0.25,
+                        y / 2. + 0.25)));
+            }
+        }
+        hits.setFilled();
+        index.endLayer(layer, hits);
+        assertTrue(index.contains(layer));
+        // Point (30.25, 40.25) is x = 60, y = 80
+        assertEquals(new HashSet<>(Arrays.asList(60L * 200 + 80)), index.query(layer, rect(30.2, 40.2, 30.3, 40.3),
+                false));
+        assertEquals(16, index.query(layer, rect(10, 10, 12, 12), true).size());
+        assertEquals(200 * 200, index.query(layer, rect(0, 0, 100, 100), true).size());
+    }
+
+    @Test
+    public void testIncompleteLayer() throws Exception {
+        MapTransform mt = createMapTransform();
+        ILayer layer = new Layer("points", "POINTS", null);
+        ScreenHitIndex index = new ScreenHitIndex(mt);
+        ScreenHitIndex.LayerHits hits = index.beginLayer();
+        hits.add(1, new WKTReader().read("POINT(10 10)"));
+        // Drawing canceled
+        index.endLayer(layer, hits);
+        assertFalse(index.contains(layer));
+    }
+
+    @Test
+    public void testCoordinateBudget() throws Exception {
+        MapTransform mt = createMapTransform();
+        ILayer layer = new Layer("lines", "LINES", null);
+        ScreenHitIndex index = new ScreenHitIndex(mt, 3);
+        ScreenHitIndex.LayerHits hits = index.beginLayer();
+        WKTReader reader = new WKTReader();
+        hits.add(1, reader.read("LINESTRING(10 10, 20 20)"));
+        hits.add(2, reader.read("LINESTRING(50 10, 90 10)"));
+        hits.setFilled();
+        assertFalse(hits.isValid());
+        index.endLayer(layer, hits);
+        assertFalse(index.contains(layer));
+        // The budget is released
+        ScreenHitIndex.LayerHits points = index.beginLayer();
+        points.add(1, reader.read("POINT(10 10)"));
+        points.add(2, reader.read("POINT(20 10)"));
+        points.add(3, reader.read("POINT(30 10)"));
+        points.setFilled();
+        index.endLayer(layer, points);
+        assertTrue(index.contains(layer));
+    }
+}
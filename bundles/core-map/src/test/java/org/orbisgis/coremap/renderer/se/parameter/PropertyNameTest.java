@@ -29,8 +29,14 @@
 package org.orbisgis.coremap.renderer.se.parameter;
 
 import java.io.File;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.h2gis.h2spatial.ut.SpatialH2UT;
 import org.h2gis.h2spatialext.CreateSpatialExtension;
@@ -114,6 +120,83 @@ public class PropertyNameTest {
             getConnection().createStatement().execute("DROP TABLE landcover2000");
         }
     }
-    
 
+    /**
+     * The column index is read once per result set, the result set is not kept by the attribute.
+     * @throws Exception
+     */
+    @Test
+    public void testColumnIndexCache() throws Exception {
+        AtomicInteger metaDataCount = new AtomicInteger();
+        StringParameter string = new StringAttribute("type");
+        ResultSet rs = createResultSet(metaDataCount, "pk", "type");
+        assertEquals("type1", string.getValue(rs, 1));
+        assertEquals("type2", string.getValue(rs, 2));
+        assertEquals(1, metaDataCount.get());
+        // Another result set with another column order
+        ResultSet projected = createResultSet(metaDataCount, "type", "pk");
+        assertEquals("type3", string.getValue(projected, 3));
+        assertEquals(2, metaDataCount.get());
+        // The replaced result set can be collected
+        WeakReference<ResultSet> rsReference = new WeakReference<>(rs);
+        rs = null;
+        for (int i = 0; i < 50 && rsReference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(rsReference.get());
+        // As well as the last read result set
+        WeakReference<ResultSet> projectedReference = new WeakReference<>(projected);
+        projected = null;
+        for (int i = 0; i < 50 && projectedReference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(projectedReference.get());
+    }
+
+    /**
+     * @param metaDataCount Incremented on each meta data request
+     * @param columns Column names, the value of a column is its name followed by the row number
+     * @return Result set stub
+     */
+    private static ResultSet createResultSet(final AtomicInteger metaDataCount, final String... columns) {
+        final ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+                PropertyNameTest.class.getClassLoader(), new Class[]{ResultSetMetaData.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        switch (method.getName()) {
+                            case "getColumnCount":
+                                return columns.length;
+                            case "getColumnName":
+                                return columns[(Integer) args[0] - 1];
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+                });
+        return (ResultSet) Proxy.newProxyInstance(PropertyNameTest.class.getClassLoader(),
+                new Class[]{ResultSet.class}, new InvocationHandler() {
+                    private int row = 0;
+
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        switch (method.getName()) {
+                            case "getMetaData":
+                                metaDataCount.incrementAndGet();
+                                return metaData;
+                            case "getRow":
+                                return row;
+                            case "absolute":
+                                row = (Integer) args[0];
+                                return true;
+                            case "getObject":
+                                return columns[(Integer) args[0] - 1] + row;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+                });
+    }
 }
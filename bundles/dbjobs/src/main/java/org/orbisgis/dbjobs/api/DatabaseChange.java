@@ -0,0 +1,218 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.dbjobs.api;
+
+import org.h2gis.utilities.TableLocation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Database objects altered by one or more database events. Used by database views in order to refresh only
+ * the tables or schemas that have been changed instead of reading the whole database structure.
+ */
+public class DatabaseChange {
+    // Identifier, optionally quoted and qualified
+    private static final String IDENTIFIER = "((?:\"[^\"]*\"|`[^`]*`|[^\\s(;,\"`])+)";
+    private static final Pattern DDL_PATTERN = Pattern.compile("^\\s*(create|drop|alter)\\s+" +
+            "(?:(?:or\\s+replace|force|cached|memory|global|local|temp|temporary|linked|external|spatial|unique|hash" +
+            "|unlogged)\\s+)*(table|view|schema|index)\\s+(?:if\\s+(?:not\\s+)?exists\\s+)?" + IDENTIFIER,
+            Pattern.CASE_INSENSITIVE);
+    // DDL that cannot change the table list
+    private static final Pattern IGNORED_DDL_PATTERN = Pattern.compile("^\\s*(create|drop|alter)\\s+" +
+            "(?:or\\s+replace\\s+)?(?:force\\s+)?(alias|sequence|trigger|user|role|constant|aggregate|function)\\s",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern RENAME_PATTERN = Pattern.compile("\\srename\\s+to\\s+" + IDENTIFIER,
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern INDEX_TABLE_PATTERN = Pattern.compile("(?:^|\\s)on\\s+" + IDENTIFIER,
+            Pattern.CASE_INSENSITIVE);
+    private boolean fullReload = false;
+    private final List<TableLocation> tables = new ArrayList<>();
+    private final Set<String> schemas = new HashSet<>();
+
+    /**
+     * @return A change that require the reading of the whole table list
+     */
+    public static DatabaseChange fullReload() {
+        DatabaseChange change = new DatabaseChange();
+        change.fullReload = true;
+        return change;
+    }
+
+    /**
+     * Read the altered objects from a DDL statement.
+     * @param sql SQL statement
+     * @param isH2 True if the database is H2, used for identifier case
+     * @return Database change, full reload if the statement is not understood
+     */
+    public static DatabaseChange fromStatement(String sql, boolean isH2) {
+        DatabaseChange change = new DatabaseChange();
+        if(sql == null) {
+            change.fullReload = true;
+            return change;
+        }
+        if(IGNORED_DDL_PATTERN.matcher(sql).find()) {
+            return change;
+        }
+        Matcher matcher = DDL_PATTERN.matcher(sql);
+        if(!matcher.find() || sql.substring(matcher.end()).trim().startsWith(",")) {
+            // Unknown statement or multiple objects
+            change.fullReload = true;
+            return change;
+        }
+        String command = matcher.group(1).toLowerCase();
+        String entity = matcher.group(2).toLowerCase();
+        String identifier = matcher.group(3);
+        switch (entity) {
+            case "schema":
+                change.schemas.add(parseSchema(identifier, isH2));
+                if("alter".equals(command)) {
+                    Matcher rename = RENAME_PATTERN.matcher(sql);
+                    if(rename.find()) {
+                        change.schemas.add(parseSchema(rename.group(1), isH2));
+                    }
+                }
+                break;
+            case "index":
+                // Only the create statement reference the table
+                if("create".equals(command)) {
+                    Matcher onTable = INDEX_TABLE_PATTERN.matcher(sql.substring(matcher.start(3)));
+                    if(onTable.find()) {
+                        change.tables.add(TableLocation.parse(onTable.group(1), isH2));
+                    }
+                }
+                break;
+            default:
+                TableLocation location = TableLocation.parse(identifier, isH2);
+                change.tables.add(location);
+                if("alter".equals(command)) {
+                    Matcher rename = RENAME_PATTERN.matcher(sql);
+                    if(rename.find()) {
+                        TableLocation newLocation = TableLocation.parse(rename.group(1), isH2);
+                        if(newLocation.getSchema().isEmpty()) {
+                            // Table stay in the same schema
+                            newLocation = new TableLocation(location.getCatalog(), location.getSchema(),
+                                    newLocation.getTable());
+                        }
+                        change.tables.add(newLocation);
+                    }
+                }
+        }
+        return change;
+    }
+
+    /**
+     * Read the altered objects from a {@link DatabaseView#onDatabaseUpdate(String, String...)} call.
+     * @param entity One of {@link org.orbisgis.dbjobs.api.DatabaseView.DB_ENTITY}
+     * @param identifier Entity identifiers
+     * @param isH2 True if the database is H2, used for identifier case
+     * @return Database change, full reload if the entity is unknown
+     */
+    public static DatabaseChange fromDatabaseView(String entity, String[] identifier, boolean isH2) {
+        DatabaseChange change = new DatabaseChange();
+        DatabaseView.DB_ENTITY dbEntity;
+        try {
+            dbEntity = DatabaseView.DB_ENTITY.valueOf(entity);
+        } catch (IllegalArgumentException | NullPointerException ex) {
+            change.fullReload = true;
+            return change;
+        }
+        for(String id : identifier) {
+            if(dbEntity == DatabaseView.DB_ENTITY.SCHEMA) {
+                change.schemas.add(parseSchema(id, isH2));
+            } else {
+                // Index and column updates are given with the table identifier
+                change.tables.add(TableLocation.parse(id, isH2));
+            }
+        }
+        return change;
+    }
+
+    private static String parseSchema(String identifier, boolean isH2) {
+        // A single identifier is parsed as a table name
+        return TableLocation.parse(identifier, isH2).getTable();
+    }
+
+    /**
+     * Merge the other change into this one.
+     * @param other Other change
+     */
+    public void merge(DatabaseChange other) {
+        fullReload |= other.fullReload;
+        if(!fullReload) {
+            tables.addAll(other.tables);
+            schemas.addAll(other.schemas);
+        } else {
+            tables.clear();
+            schemas.clear();
+        }
+    }
+
+    /**
+     * Remove all changes
+     */
+    public void clear() {
+        fullReload = false;
+        tables.clear();
+        schemas.clear();
+    }
+
+    /**
+     * @return True if the whole table list has to be read
+     */
+    public boolean isFullReload() {
+        return fullReload;
+    }
+
+    /**
+     * @return True if there is nothing to refresh
+     */
+    public boolean isEmpty() {
+        return !fullReload && tables.isEmpty() && schemas.isEmpty();
+    }
+
+    /**
+     * @return Altered tables, the schema is empty if not specified
+     */
+    public List<TableLocation> getTables() {
+        return Collections.unmodifiableList(tables);
+    }
+
+    /**
+     * @return Altered schemas, all tables in this schemas has to be refreshed
+     */
+    public Set<String> getSchemas() {
+        return Collections.unmodifiableSet(schemas);
+    }
+}
@@ -32,12 +32,20 @@ import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.sql.DataSource;
 
 import org.apache.commons.io.FilenameUtils;
 import org.h2gis.h2spatialapi.DriverFunction;
+import org.orbisgis.commons.progress.ProgressMonitor;
 import org.orbisgis.commons.progress.SwingWorkerPM;
 import org.orbisgis.corejdbc.H2GISProgressMonitor;
 import org.orbisgis.dbjobs.api.DriverFunctionContainer;
@@ -49,16 +57,16 @@ import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
 /**
- * Export a table into a local file.
+ * Export tables into local files.
+ * Exports run concurrently, each one with its own connection.
  */
 public class ExportInFileOperation extends SwingWorkerPM {
 
         private static final I18n I18N = I18nFactory.getI18n(ExportInFileOperation.class);
         private static final Logger LOGGER = LoggerFactory.getLogger(ExportInFileOperation.class);
-        private File savedFile;
-        private String sourceName;
-        private DriverFunction driverFunction;
+        private List<TableExport> exports;
         private DataSource dataSource;
+        private int maxConcurrency = Runtime.getRuntime().availableProcessors();
 
         /**
          * This class is used to export a source on disk.
@@ -67,25 +75,72 @@ public class ExportInFileOperation extends SwingWorkerPM {
          * @param savedFile Destination
          */
         public ExportInFileOperation(String sourceName, File savedFile, DriverFunction driverFunction, DataSource dataSource) {
-                this.sourceName = sourceName;
-                this.savedFile = savedFile;
-                this.driverFunction = driverFunction;
+                this(Collections.singletonList(new TableExport(sourceName, savedFile, driverFunction)), dataSource);
+        }
+
+        /**
+         * This class is used to export sources on disk.
+         *
+         * @param exports Tables and destination files
+         * @param dataSource Data source
+         */
+        public ExportInFileOperation(List<TableExport> exports, DataSource dataSource) {
+                this.exports = new ArrayList<>(exports);
                 this.dataSource = dataSource;
                 setTaskName(I18N.tr("Save the source in a file."));
         }
 
+    /**
+     * @param maxConcurrency Maximum number of files written at the same time, default to the number of processors
+     */
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+    }
+
     @Override
     protected Object doInBackground() throws Exception {
-        try(Connection connection = dataSource.getConnection()) {
-            driverFunction.exportTable(connection, sourceName , savedFile, new H2GISProgressMonitor(this.getProgressMonitor()));
-        } catch (SQLException | IOException ex) {
-            LOGGER.error(I18N.tr("Cannot create the file"), ex);
-        }
+        long deb = System.currentTimeMillis();
+        int done = exportTables(getProgressMonitor());
+        LOGGER.info(I18N.tr("{0} file(s) saved in {1} sec", done, (System.currentTimeMillis() - deb) / 1000d));
         return null;
     }
 
+    /**
+     * Export all tables
+     * @param progressMonitor Progress, one step for each export
+     * @return Number of written files
+     * @throws InterruptedException Thread interrupted while waiting exports
+     */
+    public int exportTables(ProgressMonitor progressMonitor) throws InterruptedException {
+        if(exports.isEmpty()) {
+            return 0;
+        }
+        ProgressMonitor filePm = progressMonitor.startTask(exports.size());
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(maxConcurrency, exports.size()));
+        int done = 0;
+        try {
+            List<Future<Boolean>> results = new ArrayList<>(exports.size());
+            for(TableExport export : exports) {
+                results.add(executorService.submit(new ExportTask(dataSource, export, filePm)));
+            }
+            for(int idExport = 0; idExport < exports.size(); idExport++) {
+                try {
+                    if(results.get(idExport).get()) {
+                        done++;
+                    }
+                } catch (ExecutionException ex) {
+                    LOGGER.error(I18N.tr("Cannot create the file {0}", exports.get(idExport).getFile().getName()),
+                            ex.getCause());
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        return done;
+    }
 
     public static ExportInFileOperation saveInfile(DataSource dataSource, List<String> tables, DriverFunctionContainer driverFunctionContainer) {
+        List<TableExport> exports = new ArrayList<>(tables.size());
         for (String source : tables) {
             final SaveFilePanel outfilePanel = new SaveFilePanel(
                     "Geocatalog.SaveInFile",
@@ -98,11 +153,87 @@ public class ExportInFileOperation extends SwingWorkerPM {
             outfilePanel.loadState();
             if (UIFactory.showDialog(outfilePanel, true, true)) {
                 final File savedFile = outfilePanel.getSelectedFile().getAbsoluteFile();
-                return new ExportInFileOperation(source, savedFile,
+                exports.add(new TableExport(source, savedFile,
                         driverFunctionContainer.getExportDriverFromExt(FilenameUtils.getExtension(savedFile.getName()),
-                                DriverFunction.IMPORT_DRIVER_TYPE.COPY), dataSource);
+                                DriverFunction.IMPORT_DRIVER_TYPE.COPY)));
             }
         }
-        return null;
+        if(exports.isEmpty()) {
+            return null;
+        }
+        return new ExportInFileOperation(exports, dataSource);
+    }
+
+    /**
+     * A table to write in a file.
+     */
+    public static class TableExport {
+        private final String sourceName;
+        private final File file;
+        private final DriverFunction driverFunction;
+
+        /**
+         * @param sourceName Table identifier
+         * @param file Destination
+         * @param driverFunction Export driver
+         */
+        public TableExport(String sourceName, File file, DriverFunction driverFunction) {
+            this.sourceName = sourceName;
+            this.file = file;
+            this.driverFunction = driverFunction;
+        }
+
+        /**
+         * @return Table identifier
+         */
+        public String getSourceName() {
+            return sourceName;
+        }
+
+        /**
+         * @return Destination
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * @return Export driver
+         */
+        public DriverFunction getDriverFunction() {
+            return driverFunction;
+        }
+    }
+
+    /**
+     * Export a single table using its own connection.
+     */
+    private static class ExportTask implements Callable<Boolean> {
+        private final DataSource dataSource;
+        private final TableExport export;
+        private final ProgressMonitor progressMonitor;
+
+        public ExportTask(DataSource dataSource, TableExport export, ProgressMonitor progressMonitor) {
+            this.dataSource = dataSource;
+            this.export = export;
+            this.progressMonitor = progressMonitor;
+        }
+
+        @Override
+        public Boolean call() throws SQLException, IOException {
+            if(progressMonitor.isCancelled()) {
+                return false;
+            }
+            if(export.getDriverFunction() == null) {
+                LOGGER.error(I18N.tr("No driver found for {0} extension",
+                        FilenameUtils.getExtension(export.getFile().getName())));
+                return false;
+            }
+            try(Connection connection = dataSource.getConnection()) {
+                export.getDriverFunction().exportTable(connection, export.getSourceName(), export.getFile(),
+                        new H2GISProgressMonitor(progressMonitor));
+            }
+            return !progressMonitor.isCancelled();
+        }
     }
 }
@@ -30,6 +30,7 @@ package org.orbisgis.dbjobs.jobs;
 import org.apache.commons.io.FilenameUtils;
 import org.h2gis.h2spatialapi.DriverFunction;
 import org.h2gis.utilities.JDBCUtilities;
+import org.h2gis.utilities.SFSUtilities;
 import org.h2gis.utilities.TableLocation;
 import org.orbisgis.commons.progress.SwingWorkerPM;
 import org.orbisgis.corejdbc.DataManager;
@@ -42,14 +43,32 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
+
+import javax.sql.DataSource;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
- * This job load a bunch of files into a DataSource
+ * This job load a bunch of files into a DataSource.
+ * Files are imported in parallel, each file on its own connection. Table names are chosen before the import
+ * using the file order, then spatial indexes of copied tables are created once all files are imported.
  * @author Nicolas Fortin
  */
 public class ImportFiles extends SwingWorkerPM {
@@ -62,6 +81,8 @@ public class ImportFiles extends SwingWorkerPM {
     private DataManager dataManager;
     private DriverFunction.IMPORT_DRIVER_TYPE driverType;
     private String schema;
+    private int maxConcurrency = Runtime.getRuntime().availableProcessors();
+    private boolean createSpatialIndex = true;
 
     /**
      * Import file into database into the default schema
@@ -100,39 +121,261 @@ public class ImportFiles extends SwingWorkerPM {
         setTaskName(I18N.tr("Import file"));
     }
 
+    /**
+     * @param maxConcurrency Maximum number of files imported at the same time, default to the number of processors
+     */
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+    }
+
+    /**
+     * @param createSpatialIndex If true, spatial index are created on geometry fields of copied tables
+     */
+    public void setCreateSpatialIndex(boolean createSpatialIndex) {
+        this.createSpatialIndex = createSpatialIndex;
+    }
+
     @Override
     protected Object doInBackground() throws Exception {
         long deb = System.currentTimeMillis();
-        try(Connection connection = dataManager.getDataSource().getConnection()) {
-            ProgressMonitor filePm = this.getProgressMonitor().startTask(files.size());
-            boolean isH2 = JDBCUtilities.isH2DataBase(connection.getMetaData());
-            for(File file : files) {
-                String ext = FilenameUtils.getExtension(file.getName());
-                DriverFunction driverFunction = driverFunctionContainer.getImportDriverFromExt(ext, driverType);
-                if(driverFunction != null) {
-                    String tableNameTest = TableLocation.capsIdentifier(FileUtils.getNameFromURI(file.toURI()), isH2);
-                    if(tableNameTest == null) {
-                        tableNameTest = FileUtils.getNameFromURI(file.toURI());
-                    }
-                    String tableName = dataManager.findUniqueTableName(new TableLocation("", schema ,tableNameTest)
-                            .toString(isH2));
-                    driverFunction.importFile(connection, tableName ,file, new H2GISProgressMonitor(filePm));
-                } else {
-                    LOGGER.error(I18N.tr("No driver found for {0} extension", ext));
-                }
-            }
+        List<String> importedTables = new ArrayList<>();
+        try {
+            importedTables = importFiles(this.getProgressMonitor());
         } catch (SQLException ex) {
             LOGGER.error(I18N.tr("Cannot import the file"), ex);
             // Print additional information
             while((ex = ex.getNextException()) != null) {
                 LOGGER.error(ex.getLocalizedMessage());
             }
-        } catch (IOException ex) {
-            LOGGER.error(I18N.tr("Cannot import the file"), ex);
         }
         LOGGER.info(I18N.tr("Importation done in {0} sec", (System.currentTimeMillis() - deb) / 1000d));
-        dbView.onDatabaseUpdate(DatabaseView.DB_ENTITY.SCHEMA.name(), "PUBLIC");
+        if(!importedTables.isEmpty()) {
+            dbView.onDatabaseUpdate(DatabaseView.DB_ENTITY.TABLE.name(),
+                    importedTables.toArray(new String[importedTables.size()]));
+        }
         return null;
     }
-}
 
+    /**
+     * Import all files
+     * @param progressMonitor Progress, one step for each file
+     * @return Identifier of imported tables, in the order of the files
+     * @throws SQLException Table names cannot be read
+     * @throws InterruptedException Thread interrupted while waiting imports
+     */
+    public List<String> importFiles(ProgressMonitor progressMonitor) throws SQLException, InterruptedException {
+        DataSource dataSource = dataManager.getDataSource();
+        boolean isH2;
+        try(Connection connection = dataSource.getConnection()) {
+            isH2 = JDBCUtilities.isH2DataBase(connection.getMetaData());
+        }
+        // Table names are reserved before the import, then the names do not depend on the import order
+        List<FileImport> fileImports = new ArrayList<>(files.size());
+        Set<String> reservedNames = new HashSet<>();
+        for(File file : files) {
+            String ext = FilenameUtils.getExtension(file.getName());
+            DriverFunction driverFunction = driverFunctionContainer.getImportDriverFromExt(ext, driverType);
+            if(driverFunction != null) {
+                String tableNameTest = TableLocation.capsIdentifier(FileUtils.getNameFromURI(file.toURI()), isH2);
+                if(tableNameTest == null) {
+                    tableNameTest = FileUtils.getNameFromURI(file.toURI());
+                }
+                fileImports.add(new FileImport(file, driverFunction, findUniqueTableName(new TableLocation("", schema,
+                        tableNameTest), reservedNames, isH2)));
+            } else {
+                LOGGER.error(I18N.tr("No driver found for {0} extension", ext));
+            }
+        }
+        List<String> importedTables = new ArrayList<>(fileImports.size());
+        if(fileImports.isEmpty()) {
+            return importedTables;
+        }
+        ProgressMonitor filePm = progressMonitor.startTask(fileImports.size());
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(maxConcurrency, fileImports.size()));
+        List<Future<Boolean>> results = new ArrayList<>(fileImports.size());
+        // Cancel the pending imports and interrupt the running ones as soon as the user cancel the job
+        PropertyChangeListener cancelListener = new CancelFutures(results);
+        progressMonitor.addPropertyChangeListener(ProgressMonitor.PROP_CANCEL, cancelListener);
+        try {
+            // Each file has its own child monitor, concurrent imports do not share the same progression
+            for(FileImport fileImport : fileImports) {
+                Future<Boolean> future = executorService.submit(new ImportTask(dataSource, fileImport,
+                        filePm.startTask(1)));
+                synchronized (results) {
+                    results.add(future);
+                }
+            }
+            if(progressMonitor.isCancelled()) {
+                cancelListener.propertyChange(null);
+            }
+            for(int idFile = 0; idFile < fileImports.size(); idFile++) {
+                FileImport fileImport = fileImports.get(idFile);
+                try {
+                    if(results.get(idFile).get()) {
+                        importedTables.add(fileImport.getTableName());
+                    }
+                } catch (CancellationException ex) {
+                    LOGGER.info(I18N.tr("Import of the file {0} cancelled", fileImport.getFile().getName()));
+                } catch (ExecutionException ex) {
+                    LOGGER.error(I18N.tr("Cannot import the file {0}", fileImport.getFile().getName()), ex.getCause());
+                    if(ex.getCause() instanceof SQLException) {
+                        SQLException sqlEx = (SQLException) ex.getCause();
+                        while((sqlEx = sqlEx.getNextException()) != null) {
+                            LOGGER.error(sqlEx.getLocalizedMessage());
+                        }
+                    }
+                }
+            }
+        } finally {
+            progressMonitor.removePropertyChangeListener(cancelListener);
+            executorService.shutdownNow();
+        }
+        if(createSpatialIndex && driverType == DriverFunction.IMPORT_DRIVER_TYPE.COPY && !importedTables.isEmpty()
+                && !progressMonitor.isCancelled()) {
+            createSpatialIndexes(dataSource, importedTables, isH2);
+        }
+        return importedTables;
+    }
+
+    /**
+     * @param location Table to create
+     * @param reservedNames Table names already taken by this job
+     * @param isH2 True if H2 database
+     * @return A table name that does not exists in the database and in reserved names
+     * @throws SQLException
+     */
+    private String findUniqueTableName(TableLocation location, Set<String> reservedNames, boolean isH2)
+            throws SQLException {
+        String tableName = dataManager.findUniqueTableName(location.toString(isH2));
+        int offset = 0;
+        while(!reservedNames.add(tableName)) {
+            tableName = dataManager.findUniqueTableName(new TableLocation(location.getCatalog(),
+                    location.getSchema(), location.getTable() + "_" + ++offset).toString(isH2));
+        }
+        return tableName;
+    }
+
+    /**
+     * Create the spatial index of the geometry fields, in a single batch
+     * @param dataSource Data source
+     * @param tables Imported tables
+     * @param isH2 True if H2 database
+     */
+    private static void createSpatialIndexes(DataSource dataSource, List<String> tables, boolean isH2) {
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement()) {
+            DatabaseMetaData meta = connection.getMetaData();
+            int indexCount = 0;
+            for(String table : tables) {
+                TableLocation location = TableLocation.parse(table, isH2);
+                Set<String> indexedFields = new HashSet<>();
+                try(ResultSet rs = meta.getIndexInfo(location.getCatalog(null), location.getSchema(null),
+                        location.getTable(), false, true)) {
+                    while(rs.next()) {
+                        indexedFields.add(rs.getString("COLUMN_NAME"));
+                    }
+                }
+                for(String field : SFSUtilities.getGeometryFields(connection, location)) {
+                    if(!indexedFields.contains(field)) {
+                        if(isH2) {
+                            st.addBatch("CREATE SPATIAL INDEX ON " + location.toString(true) + "(" +
+                                    TableLocation.quoteIdentifier(field, true) + ")");
+                        } else {
+                            st.addBatch("CREATE INDEX ON " + location.toString(false) + " USING GIST(" +
+                                    TableLocation.quoteIdentifier(field, false) + ")");
+                        }
+                        indexCount++;
+                    }
+                }
+            }
+            if(indexCount > 0) {
+                long deb = System.currentTimeMillis();
+                st.executeBatch();
+                LOGGER.info(I18N.tr("{0} spatial index created in {1} sec", indexCount,
+                        (System.currentTimeMillis() - deb) / 1000d));
+            }
+        } catch (SQLException ex) {
+            LOGGER.error(I18N.tr("Cannot create the spatial index of imported tables"), ex);
+        }
+    }
+
+    /**
+     * File to import with the destination table
+     */
+    private static class FileImport {
+        private final File file;
+        private final DriverFunction driverFunction;
+        private final String tableName;
+
+        public FileImport(File file, DriverFunction driverFunction, String tableName) {
+            this.file = file;
+            this.driverFunction = driverFunction;
+            this.tableName = tableName;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public DriverFunction getDriverFunction() {
+            return driverFunction;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+    }
+
+    /**
+     * Cancel the import futures when the job is cancelled
+     */
+    private static class CancelFutures implements PropertyChangeListener {
+        private final List<Future<Boolean>> futures;
+
+        public CancelFutures(List<Future<Boolean>> futures) {
+            this.futures = futures;
+        }
+
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            synchronized (futures) {
+                for(Future<Boolean> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Import a single file using its own connection and its own progress monitor
+     */
+    private static class ImportTask implements Callable<Boolean> {
+        private final DataSource dataSource;
+        private final FileImport fileImport;
+        private final ProgressMonitor progressMonitor;
+
+        public ImportTask(DataSource dataSource, FileImport fileImport, ProgressMonitor progressMonitor) {
+            this.dataSource = dataSource;
+            this.fileImport = fileImport;
+            this.progressMonitor = progressMonitor;
+        }
+
+        @Override
+        public Boolean call() throws SQLException, IOException {
+            if(progressMonitor.isCancelled()) {
+                return false;
+            }
+            long deb = System.currentTimeMillis();
+            try(Connection connection = dataSource.getConnection()) {
+                fileImport.getDriverFunction().importFile(connection, fileImport.getTableName(), fileImport.getFile(),
+                        new H2GISProgressMonitor(progressMonitor));
+            } finally {
+                // Count the whole file in the parent progression, even if the driver did not complete its task
+                progressMonitor.progressTo(progressMonitor.getEnd());
+            }
+            LOGGER.info(I18N.tr("{0} imported in {1} sec", fileImport.getFile().getName(),
+                    (System.currentTimeMillis() - deb) / 1000d));
+            return !progressMonitor.isCancelled();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.dbjobs.api;
+
+import org.h2gis.utilities.TableLocation;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Parsing of DDL statements by {@link DatabaseChange}
+ */
+public class DatabaseChangeTest {
+
+    private static void assertTable(String schema, String table, TableLocation location) {
+        assertEquals(schema, location.getSchema());
+        assertEquals(table, location.getTable());
+    }
+
+    @Test
+    public void testCreateDropTable() {
+        DatabaseChange change = DatabaseChange.fromStatement("CREATE TABLE myschema.test(id integer)", true);
+        assertFalse(change.isFullReload());
+        assertEquals(1, change.getTables().size());
+        assertTable("MYSCHEMA", "TEST", change.getTables().get(0));
+        change = DatabaseChange.fromStatement("drop table if exists test", true);
+        assertEquals(1, change.getTables().size());
+        assertTable("", "TEST", change.getTables().get(0));
+        change = DatabaseChange.fromStatement("CREATE OR REPLACE FORCE VIEW v AS SELECT 1", true);
+        assertTable("", "V", change.getTables().get(0));
+        change = DatabaseChange.fromStatement("CREATE TABLE \"My Table\"(id integer)", true);
+        assertTable("", "My Table", change.getTables().get(0));
+        // Identifier case of PostgreSQL
+        change = DatabaseChange.fromStatement("create table Test(id integer)", false);
+        assertTable("", "test", change.getTables().get(0));
+    }
+
+    @Test
+    public void testRenameTable() {
+        DatabaseChange change = DatabaseChange.fromStatement("ALTER TABLE myschema.a RENAME TO b", true);
+        assertEquals(2, change.getTables().size());
+        assertTable("MYSCHEMA", "A", change.getTables().get(0));
+        // The renamed table stays in the same schema
+        assertTable("MYSCHEMA", "B", change.getTables().get(1));
+        change = DatabaseChange.fromStatement("ALTER TABLE a ADD COLUMN b integer", true);
+        assertEquals(1, change.getTables().size());
+        assertTable("", "A", change.getTables().get(0));
+    }
+
+    @Test
+    public void testIndex() {
+        DatabaseChange change = DatabaseChange.fromStatement("CREATE INDEX idx ON myschema.t(the_geom)", true);
+        assertEquals(1, change.getTables().size());
+        assertTable("MYSCHEMA", "T", change.getTables().get(0));
+        change = DatabaseChange.fromStatement("CREATE SPATIAL INDEX ON t(the_geom)", true);
+        assertEquals(1, change.getTables().size());
+        assertTable("", "T", change.getTables().get(0));
+        // The table of a dropped index is unknown
+        assertTrue(DatabaseChange.fromStatement("DROP INDEX idx", true).isEmpty());
+    }
+
+    @Test
+    public void testSchema() {
+        DatabaseChange change = DatabaseChange.fromStatement("CREATE SCHEMA myschema", true);
+        assertEquals(new HashSet<>(Arrays.asList("MYSCHEMA")), change.getSchemas());
+        assertTrue(change.getTables().isEmpty());
+        change = DatabaseChange.fromStatement("ALTER SCHEMA s1 RENAME TO s2", true);
+        assertEquals(new HashSet<>(Arrays.asList("S1", "S2")), change.getSchemas());
+    }
+
+    @Test
+    public void testIgnoredAndUnknownStatements() {
+        assertTrue(DatabaseChange.fromStatement("CREATE ALIAS f FOR \"java.lang.Math.abs\"", true).isEmpty());
+        assertTrue(DatabaseChange.fromStatement("DROP SEQUENCE seq", true).isEmpty());
+        assertTrue(DatabaseChange.fromStatement("CREATE DOMAIN d AS integer", true).isFullReload());
+        assertTrue(DatabaseChange.fromStatement(null, true).isFullReload());
+        // Several tables are dropped at once
+        assertTrue(DatabaseChange.fromStatement("DROP TABLE a, b", true).isFullReload());
+    }
+
+    @Test
+    public void testFromDatabaseView() {
+        DatabaseChange change = DatabaseChange.fromDatabaseView(DatabaseView.DB_ENTITY.SCHEMA.name(),
+                new String[]{"myschema"}, true);
+        assertEquals(new HashSet<>(Arrays.asList("MYSCHEMA")), change.getSchemas());
+        change = DatabaseChange.fromDatabaseView(DatabaseView.DB_ENTITY.COLUMN.name(), new String[]{"s.a", "b"}, true);
+        assertEquals(2, change.getTables().size());
+        assertTable("S", "A", change.getTables().get(0));
+        assertTable("", "B", change.getTables().get(1));
+        assertTrue(DatabaseChange.fromDatabaseView("UNKNOWN", new String[0], true).isFullReload());
+    }
+
+    @Test
+    public void testMerge() {
+        DatabaseChange change = new DatabaseChange();
+        assertTrue(change.isEmpty());
+        change.merge(DatabaseChange.fromStatement("CREATE TABLE a(id integer)", true));
+        change.merge(DatabaseChange.fromStatement("CREATE SCHEMA s", true));
+        assertEquals(1, change.getTables().size());
+        assertEquals(1, change.getSchemas().size());
+        // A full reload replaces the other changes
+        change.merge(DatabaseChange.fullReload());
+        assertTrue(change.isFullReload());
+        assertTrue(change.getTables().isEmpty());
+        change.merge(DatabaseChange.fromStatement("CREATE TABLE b(id integer)", true));
+        assertTrue(change.getTables().isEmpty());
+        change.clear();
+        assertTrue(change.isEmpty());
+    }
+}
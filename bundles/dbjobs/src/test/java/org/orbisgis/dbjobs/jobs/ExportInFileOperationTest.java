@@ -0,0 +1,121 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.dbjobs.jobs;
+
+import org.h2gis.drivers.shp.SHPDriverFunction;
+import org.h2gis.h2spatial.ut.SpatialH2UT;
+import org.h2gis.h2spatialapi.DriverFunction;
+import org.h2gis.h2spatialapi.EmptyProgressVisitor;
+import org.h2gis.h2spatialext.CreateSpatialExtension;
+import org.h2gis.utilities.SFSUtilities;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.orbisgis.commons.progress.RootProgressMonitor;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Export tables in files with {@link ExportInFileOperation}
+ */
+public class ExportInFileOperationTest {
+    private static DataSource dataSource;
+    private static final int TABLE_COUNT = 4;
+    private static final int ROW_COUNT = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void tearUp() throws Exception {
+        dataSource = SFSUtilities.wrapSpatialDataSource(SpatialH2UT.createDataSource(ExportInFileOperationTest.class.getSimpleName(), false));
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement()) {
+            CreateSpatialExtension.initSpatialExtension(connection);
+            for(int i = 0; i < TABLE_COUNT; i++) {
+                st.execute("CREATE TABLE PTS" + i + "(id integer primary key, the_geom POINT)");
+                st.execute("INSERT INTO PTS" + i + " SELECT X, ST_MakePoint(X, X) FROM SYSTEM_RANGE(1, " + ROW_COUNT + ")");
+            }
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement()) {
+            for(int i = 0; i < TABLE_COUNT; i++) {
+                st.execute("DROP TABLE PTS" + i);
+            }
+        }
+    }
+
+    /**
+     * @param file Shape file
+     * @return Number of rows in the file
+     */
+    private static int countRows(File file) throws Exception {
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS CHECK_FILE");
+            new SHPDriverFunction().importFile(connection, "CHECK_FILE", file, new EmptyProgressVisitor());
+            try(ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM CHECK_FILE")) {
+                assertTrue(rs.next());
+                return rs.getInt(1);
+            } finally {
+                st.execute("DROP TABLE CHECK_FILE");
+            }
+        }
+    }
+
+    @Test
+    public void testParallelExport() throws Exception {
+        DriverFunction driver = new SHPDriverFunction();
+        List<ExportInFileOperation.TableExport> exports = new ArrayList<>(TABLE_COUNT);
+        for(int i = 0; i < TABLE_COUNT; i++) {
+            exports.add(new ExportInFileOperation.TableExport("PTS" + i, folder.newFile("pts" + i + ".shp"), driver));
+        }
+        ExportInFileOperation exportOperation = new ExportInFileOperation(exports, dataSource);
+        exportOperation.setMaxConcurrency(2);
+        assertEquals(TABLE_COUNT, exportOperation.exportTables(new RootProgressMonitor(1)));
+        for(ExportInFileOperation.TableExport export : exports) {
+            assertEquals(ROW_COUNT, countRows(export.getFile()));
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.dbjobs.jobs;
+
+import org.h2gis.drivers.shp.SHPDriverFunction;
+import org.h2gis.h2spatial.ut.SpatialH2UT;
+import org.h2gis.h2spatialapi.DriverFunction;
+import org.h2gis.h2spatialapi.EmptyProgressVisitor;
+import org.h2gis.h2spatialext.CreateSpatialExtension;
+import org.h2gis.utilities.SFSUtilities;
+import org.h2gis.utilities.TableLocation;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.orbisgis.commons.progress.RootProgressMonitor;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.internal.DataManagerImpl;
+import org.orbisgis.dbjobs.api.DatabaseView;
+import org.orbisgis.dbjobs.api.DriverFunctionContainer;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Import generated files with {@link ImportFiles}
+ */
+public class ImportFilesTest {
+    private static DataSource dataSource;
+    private static final int FILE_COUNT = 8;
+    private static final int ROW_COUNT = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void tearUp() throws Exception {
+        dataSource = SFSUtilities.wrapSpatialDataSource(SpatialH2UT.createDataSource(ImportFilesTest.class.getSimpleName(), false));
+        try(Connection connection = dataSource.getConnection()) {
+            CreateSpatialExtension.initSpatialExtension(connection);
+        }
+    }
+
+    /**
+     * Export a point table into shape files
+     * @param fileNames File path relative to the temporary folder
+     * @return Generated files
+     */
+    private List<File> generateFiles(String... fileNames) throws Exception {
+        SHPDriverFunction driver = new SHPDriverFunction();
+        List<File> files = new ArrayList<>(fileNames.length);
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS SRC_PTS");
+            st.execute("CREATE TABLE SRC_PTS(id integer primary key, the_geom POINT)");
+            st.execute("INSERT INTO SRC_PTS SELECT X, ST_MakePoint(X, X) FROM SYSTEM_RANGE(1, " + ROW_COUNT + ")");
+            for(String fileName : fileNames) {
+                File file = new File(folder.getRoot(), fileName);
+                assertTrue(file.getParentFile().exists() || file.getParentFile().mkdirs());
+                driver.exportTable(connection, "SRC_PTS", file, new EmptyProgressVisitor());
+                files.add(file);
+            }
+            st.execute("DROP TABLE SRC_PTS");
+        }
+        return files;
+    }
+
+    @Test
+    public void testParallelImport() throws Exception {
+        String[] fileNames = new String[FILE_COUNT];
+        for(int i = 0; i < FILE_COUNT; i++) {
+            fileNames[i] = "parallel" + i + ".shp";
+        }
+        List<File> files = generateFiles(fileNames);
+        DataManager dataManager = new DataManagerImpl(dataSource);
+        ImportFiles importFiles = new ImportFiles(new NullDatabaseView(), new ShapeDriverContainer(), files,
+                dataManager, DriverFunction.IMPORT_DRIVER_TYPE.COPY);
+        importFiles.setMaxConcurrency(4);
+        List<String> tables = importFiles.importFiles(new RootProgressMonitor(1));
+        assertEquals(FILE_COUNT, tables.size());
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement()) {
+            for (int i = 0; i < FILE_COUNT; i++) {
+                assertEquals("PARALLEL" + i, TableLocation.parse(tables.get(i), true).getTable());
+                try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + tables.get(i))) {
+                    assertTrue(rs.next());
+                    assertEquals(ROW_COUNT, rs.getInt(1));
+                }
+                // Spatial index has been created after the import
+                try (ResultSet rs = connection.getMetaData().getIndexInfo(null, "PUBLIC",
+                        TableLocation.parse(tables.get(i), true).getTable(), false, true)) {
+                    boolean hasGeomIndex = false;
+                    while(rs.next()) {
+                        hasGeomIndex |= "THE_GEOM".equals(rs.getString("COLUMN_NAME"));
+                    }
+                    assertTrue(hasGeomIndex);
+                }
+                st.execute("DROP TABLE " + tables.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testDeterministicTableName() throws Exception {
+        List<File> files = generateFiles("a/samename.shp", "b/samename.shp", "c/samename.shp");
+        DataManager dataManager = new DataManagerImpl(dataSource);
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS SAMENAME");
+            st.execute("CREATE TABLE SAMENAME(id integer)");
+            ImportFiles importFiles = new ImportFiles(new NullDatabaseView(), new ShapeDriverContainer(), files,
+                    dataManager, DriverFunction.IMPORT_DRIVER_TYPE.COPY);
+            List<String> tables = importFiles.importFiles(new RootProgressMonitor(1));
+            List<String> tableNames = new ArrayList<>(tables.size());
+            for(String table : tables) {
+                tableNames.add(TableLocation.parse(table, true).getTable());
+            }
+            assertEquals(Arrays.asList("SAMENAME_1", "SAMENAME_2", "SAMENAME_3"), tableNames);
+            for(String table : tables) {
+                st.execute("DROP TABLE " + table);
+            }
+            st.execute("DROP TABLE SAMENAME");
+        }
+    }
+
+    @Test
+    public void testCancelledImport() throws Exception {
+        List<File> files = generateFiles("cancelled.shp");
+        DataManager dataManager = new DataManagerImpl(dataSource);
+        ImportFiles importFiles = new ImportFiles(new NullDatabaseView(), new ShapeDriverContainer(), files,
+                dataManager, DriverFunction.IMPORT_DRIVER_TYPE.COPY);
+        RootProgressMonitor pm = new RootProgressMonitor(1);
+        pm.setCancelled(true);
+        assertTrue(importFiles.importFiles(pm).isEmpty());
+        assertTrue(!dataManager.isTableExists("CANCELLED"));
+    }
+
+    private static class NullDatabaseView implements DatabaseView {
+        @Override
+        public void onDatabaseUpdate(String entity, String... identifier) {
+        }
+    }
+
+    /**
+     * Provide only the shape file driver
+     */
+    private static class ShapeDriverContainer implements DriverFunctionContainer {
+        private final DriverFunction shpDriver = new SHPDriverFunction();
+
+        @Override
+        public void addDriverFunction(DriverFunction driverFunction) {
+        }
+
+        @Override
+        public void removeDriverFunction(DriverFunction driverFunction) {
+        }
+
+        @Override
+        public List<DriverFunction> getDriverFunctionList() {
+            return Collections.singletonList(shpDriver);
+        }
+
+        @Override
+        public DriverFunction getExportDriverFromExt(String ext, DriverFunction.IMPORT_DRIVER_TYPE type) {
+            return "shp".equalsIgnoreCase(ext) ? shpDriver : null;
+        }
+
+        @Override
+        public DriverFunction getImportDriverFromExt(String ext, DriverFunction.IMPORT_DRIVER_TYPE type) {
+            return "shp".equalsIgnoreCase(ext) && type == shpDriver.getImportDriverType() ? shpDriver : null;
+        }
+
+        @Override
+        public void addFilesFromFolder(DatabaseView dbView, DriverFunction.IMPORT_DRIVER_TYPE type) {
+        }
+
+        @Override
+        public void importFile(DatabaseView dbView, DriverFunction.IMPORT_DRIVER_TYPE type) {
+        }
+
+        @Override
+        public void addFilesFromFolder(DatabaseView dbView, DriverFunction.IMPORT_DRIVER_TYPE type, String schema) {
+        }
+
+        @Override
+        public void importFile(DatabaseView dbView, DriverFunction.IMPORT_DRIVER_TYPE type, String schema) {
+        }
+    }
+}
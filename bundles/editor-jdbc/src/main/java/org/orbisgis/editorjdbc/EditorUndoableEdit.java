@@ -87,9 +87,15 @@ public class EditorUndoableEdit implements UndoableEdit {
         tableUndoableEdit.die();
     }
 
+    /**
+     * Consecutive edits of the same value are merged in order to compact the undo history.
+     * @param undoableEdit Edit done after this one
+     * @return True if the edit has been absorbed
+     */
     @Override
     public boolean addEdit(UndoableEdit undoableEdit) {
-        return false;
+        return undoableEdit instanceof EditorUndoableEdit &&
+                tableUndoableEdit.addEdit(((EditorUndoableEdit) undoableEdit).tableUndoableEdit);
     }
 
     @Override
@@ -41,22 +41,20 @@ import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.Collection;
-import java.util.Iterator;
 import java.util.List;
 import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 
 /**
- * Delete rows using Primary keys
+ * Delete rows using Primary keys. If a {@link ReversibleRowSet} is provided the deletion can be undone.
  * @author Nicolas Fortin
  */
 public class DeleteSelectedRows extends SwingWorkerPM {
     private final LongUnion rowPkToDelete;
     private final String tableName;
     private final DataSource dataSource;
+    private final ReversibleRowSet reversibleRowSet;
     private final static I18n I18N = I18nFactory.getI18n(DeleteSelectedRows.class);
     private final static long TRY_LOCK_TIME  = 10;
 
@@ -64,11 +62,29 @@ public class DeleteSelectedRows extends SwingWorkerPM {
         this.rowPkToDelete = new LongUnion(rowPkToDelete);
         this.tableName = tableName;
         this.dataSource = dataSource;
+        this.reversibleRowSet = null;
+        setTaskName(I18N.tr("Delete selected rows"));
+    }
+
+    /**
+     * Undoable deletion
+     * @param rowPkToDelete Primary key values
+     * @param reversibleRowSet Row set of the edited table
+     */
+    public DeleteSelectedRows(SortedSet<Long> rowPkToDelete, ReversibleRowSet reversibleRowSet) {
+        this.rowPkToDelete = new LongUnion(rowPkToDelete);
+        this.tableName = reversibleRowSet.getTable();
+        this.dataSource = null;
+        this.reversibleRowSet = reversibleRowSet;
         setTaskName(I18N.tr("Delete selected rows"));
     }
 
     @Override
-    protected Object doInBackground() throws SQLException {
+    protected Object doInBackground() throws SQLException, InterruptedException {
+        if(reversibleRowSet != null) {
+            deleteUsingRowSet(reversibleRowSet, rowPkToDelete);
+            return null;
+        }
         try(Connection connection = dataSource.getConnection()) {
             boolean isH2 = JDBCUtilities.isH2DataBase(connection.getMetaData());
             int columnId = JDBCUtilities.getIntegerPrimaryKey(connection, tableName);
@@ -94,16 +110,18 @@ public class DeleteSelectedRows extends SwingWorkerPM {
         return null;
     }
 
+    /**
+     * Delete rows using range predicates on primary key. The deletion is recorded as a single undoable edit.
+     * @param reversibleRowSet Row set of the edited table
+     * @param rowPkToDelete Primary key values
+     * @throws SQLException
+     * @throws InterruptedException
+     */
     public static void deleteUsingRowSet(ReversibleRowSet reversibleRowSet, SortedSet<Long> rowPkToDelete) throws SQLException, InterruptedException {
-        TreeSet<Integer> rowNumberToDelete = new TreeSet<>(reversibleRowSet.getRowNumberFromRowPk(rowPkToDelete));
         Lock lock = reversibleRowSet.getReadLock();
         if(lock.tryLock(TRY_LOCK_TIME, TimeUnit.SECONDS)) {
             try {
-                // Rows must be deleted in descending order in order to not introduce shift
-                for (int rowNumber : rowNumberToDelete.descendingSet()) {
-                    reversibleRowSet.absolute(rowNumber);
-                    reversibleRowSet.deleteRow();
-                }
+                reversibleRowSet.deleteRows(rowPkToDelete);
             } finally {
                 lock.unlock();
             }
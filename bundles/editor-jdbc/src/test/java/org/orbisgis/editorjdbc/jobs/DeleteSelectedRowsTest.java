@@ -35,6 +35,8 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.orbisgis.corejdbc.DataManager;
 import org.orbisgis.corejdbc.ReversibleRowSet;
+import org.orbisgis.corejdbc.TableEditEvent;
+import org.orbisgis.corejdbc.TableEditListener;
 import org.orbisgis.corejdbc.common.LongUnion;
 import org.orbisgis.corejdbc.internal.DataManagerImpl;
 import org.orbisgis.corejdbc.internal.ReversibleRowSetImpl;
@@ -44,6 +46,8 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -60,7 +64,7 @@ public class DeleteSelectedRowsTest {
     }
 
     @Test
-    public void testDelete() throws SQLException {
+    public void testDelete() throws SQLException, InterruptedException {
         try(Connection connection = dataSource.getConnection();
             Statement st = connection.createStatement()) {
             st.execute("DROP TABLE IF EXISTS \"MY TABLE\"");
@@ -103,4 +107,67 @@ public class DeleteSelectedRowsTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testUndoDeleteWithRowSet() throws SQLException, InterruptedException {
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS \"MY TABLE\"");
+            st.execute("CREATE TABLE \"MY TABLE\"(PK INTEGER PRIMARY KEY, VAL VARCHAR) AS SELECT X, 'V' || X FROM SYSTEM_RANGE(1,50);");
+            // Drop two ranges of rows
+            LongUnion pkToDelete = new LongUnion(5, 10);
+            pkToDelete.addRange(20, 40);
+            DataManager dataManager = new DataManagerImpl(dataSource);
+            EventList eventList = new EventList();
+            dataManager.addTableEditListener("\"MY TABLE\"", eventList, false);
+            try(ReversibleRowSet reversibleRowSet = dataManager.createReversibleRowSet()) {
+                reversibleRowSet.setCommand("SELECT * FROM \"MY TABLE\"");
+                reversibleRowSet.execute();
+                DeleteSelectedRows.deleteUsingRowSet(reversibleRowSet, pkToDelete);
+                assertEquals(23, reversibleRowSet.getRowCount());
+            }
+            // A single event hold the whole deletion
+            assertEquals(1, eventList.eventList.size());
+            TableEditEvent event = eventList.eventList.get(0);
+            assertEquals(5L, (long)event.getFirstRowPK());
+            assertEquals(40L, (long)event.getLastRowPK());
+            try(ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM \"MY TABLE\"")) {
+                assertTrue(rs.next());
+                assertEquals(23, rs.getInt(1));
+            }
+            // Undo restore all rows with their values
+            event.getUndoableEdit().undo();
+            try(ResultSet rs = st.executeQuery("SELECT PK, VAL FROM \"MY TABLE\" ORDER BY PK")) {
+                for(long expectedPk : new LongUnion(1,50)) {
+                    assertTrue(rs.next());
+                    assertEquals(expectedPk, rs.getLong(1));
+                    assertEquals("V" + expectedPk, rs.getString(2));
+                }
+                assertFalse(rs.next());
+            }
+            // Redo delete the rows again
+            event.getUndoableEdit().redo();
+            try(ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM \"MY TABLE\" WHERE PK BETWEEN 5 AND 40")) {
+                assertTrue(rs.next());
+                assertEquals(9, rs.getInt(1));
+            }
+            // The shadow table is removed when the edit is discarded
+            event.getUndoableEdit().die();
+            try(ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME LIKE 'ORBISGIS_UNDO_%'")) {
+                assertTrue(rs.next());
+                assertEquals(0, rs.getInt(1));
+            }
+        }
+    }
+
+    private static class EventList implements TableEditListener {
+        private List<TableEditEvent> eventList = new ArrayList<>();
+
+        @Override
+        public void tableChange(TableEditEvent event) {
+            if(event.getUndoableEdit() != null) {
+                eventList.add(event);
+            }
+        }
+    }
+}
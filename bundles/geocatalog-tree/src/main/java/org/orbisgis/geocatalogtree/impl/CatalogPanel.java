@@ -40,15 +40,17 @@ import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Enumeration;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.JComponent;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
@@ -72,6 +74,7 @@ import org.jooq.impl.DSL;
 import org.orbisgis.corejdbc.DataManager;
 import org.orbisgis.corejdbc.DatabaseProgressionListener;
 import org.orbisgis.corejdbc.StateEvent;
+import org.orbisgis.dbjobs.api.DatabaseChange;
 import org.orbisgis.dbjobs.api.DatabaseView;
 import org.orbisgis.dbjobs.api.DriverFunctionContainer;
 import org.orbisgis.dbjobs.jobs.DropTable;
@@ -124,7 +127,10 @@ public class CatalogPanel extends JPanel implements DockingPanel, TreeWillExpand
     private DataManager dataManager;
     private Map<String, Set<TreeNodeFactory>> treeNodeFactories = new HashMap<>();
     private TreeNodeFactoryImpl defaultTreeNodeFactory;
-    private AtomicBoolean loadingNodeChildren = new AtomicBoolean(false);
+    /** Nodes waiting for the loading of their children, with the recursive flag. Guarded by itself */
+    private final Map<GeoCatalogTreeNode, Boolean> pendingNodes = new LinkedHashMap<>();
+    /** True if a ReadDB worker is processing pendingNodes. Guarded by pendingNodes */
+    private boolean loadingNodeChildren = false;
     private ExecutorService executorService;
     private DriverFunctionContainer driverFunctionContainer;
     private Boolean isH2;
@@ -222,27 +228,149 @@ public class CatalogPanel extends JPanel implements DockingPanel, TreeWillExpand
 
     @Override
     public void onDatabaseUpdate(String entity, String... identifier) {
-        Set<String> identifiers = new HashSet<>(Arrays.asList(identifier));
-        try {
-            switch (DB_ENTITY.valueOf(entity)) {
-                case TABLE:
-                    Enumeration<TreePath> paths = dbTree.getExpandedDescendants(new TreePath(defaultTreeModel.getRoot()));
-                    List<GeoCatalogTreeNode> nodeToUpdate = new ArrayList<>(dbTree.getRowCount());
-                    while(paths != null && paths.hasMoreElements()) {
-                        GeoCatalogTreeNode node = (GeoCatalogTreeNode)paths.nextElement().getLastPathComponent();
-                        if(node != null) {
-                            if(identifiers.contains(node.getNodeIdentifier())) {
-                                nodeToUpdate.add(node);
-                            }
+        onDatabaseChange(DatabaseChange.fromDatabaseView(entity, identifier, isH2()));
+    }
+
+    /**
+     * Reload the loaded nodes related to the altered database objects. Other nodes keep their children.
+     * @param change Altered database objects
+     */
+    public void onDatabaseChange(final DatabaseChange change) {
+        if(change.isEmpty() || defaultTreeModel == null) {
+            return;
+        }
+        if(!SwingUtilities.isEventDispatchThread()) {
+            // Tree nodes are read in the swing event thread
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    onDatabaseChange(change);
+                }
+            });
+            return;
+        }
+        GeoCatalogTreeNode root = (GeoCatalogTreeNode) defaultTreeModel.getRoot();
+        if(change.isFullReload()) {
+            loadNodeChildren(Collections.singletonList(root), true);
+            return;
+        }
+        Set<GeoCatalogTreeNode> nodesToUpdate = new LinkedHashSet<>();
+        for(String schema : change.getSchemas()) {
+            List<GeoCatalogTreeNode> schemaNodes = findSchemaNodes(root, schema);
+            if(schemaNodes.isEmpty()) {
+                // New schema, update the schema list
+                nodesToUpdate.addAll(findSchemaParentNodes(root));
+            }
+            for(GeoCatalogTreeNode schemaNode : schemaNodes) {
+                nodesToUpdate.add(schemaNode.getParent());
+                if(schemaNode.getChildCount() > 0) {
+                    nodesToUpdate.add(schemaNode);
+                }
+            }
+        }
+        for(TableLocation table : change.getTables()) {
+            String schema = table.getSchema().isEmpty() ? defaultTreeNodeFactory.getDefaultSchema() : table.getSchema();
+            String tableIdentifier = new TableLocation(null, schema, table.getTable()).toString(isH2());
+            for(GeoCatalogTreeNode schemaNode : findSchemaNodes(root, schema)) {
+                if(schemaNode.getChildCount() == 0) {
+                    // Tables not loaded
+                    continue;
+                }
+                nodesToUpdate.add(schemaNode);
+                GeoCatalogTreeNode tableNode = schemaNode.getChildrenIdentifier().get(tableIdentifier);
+                if(tableNode != null) {
+                    // Update loaded columns and indexes
+                    for(GeoCatalogTreeNode tableChild : tableNode.getChildrenIdentifier().values()) {
+                        if(tableChild.getChildCount() > 0) {
+                            nodesToUpdate.add(tableChild);
                         }
                     }
-                    if(!nodeToUpdate.isEmpty() && loadingNodeChildren.compareAndSet(false, true)) {
-                        execute(new ReadDB(this, nodeToUpdate, loadingNodeChildren));
-                    }
-                    break;
+                }
+            }
+        }
+        loadNodeChildren(nodesToUpdate, false);
+    }
+
+    /**
+     * @param node Search root
+     * @param schema Schema name
+     * @return Loaded schema nodes with this name
+     */
+    private static List<GeoCatalogTreeNode> findSchemaNodes(GeoCatalogTreeNode node, String schema) {
+        List<GeoCatalogTreeNode> schemaNodes = new ArrayList<>(1);
+        for(GeoCatalogTreeNode schemaParent : findSchemaParentNodes(node)) {
+            GeoCatalogTreeNode schemaNode = schemaParent.getChildrenIdentifier().get(schema);
+            if(schemaNode != null && GeoCatalogTreeNode.NODE_SCHEMA.equals(schemaNode.getNodeType())) {
+                schemaNodes.add(schemaNode);
+            }
+        }
+        return schemaNodes;
+    }
+
+    /**
+     * @param node Search root
+     * @return Loaded catalog nodes
+     */
+    private static List<GeoCatalogTreeNode> findSchemaParentNodes(GeoCatalogTreeNode node) {
+        if(GeoCatalogTreeNode.NODE_CATALOG.equals(node.getNodeType())) {
+            return Collections.singletonList(node);
+        }
+        List<GeoCatalogTreeNode> catalogs = new ArrayList<>();
+        if(GeoCatalogTreeNode.NODE_DATABASE.equals(node.getNodeType())) {
+            for(GeoCatalogTreeNode child : node.getChildrenIdentifier().values()) {
+                catalogs.addAll(findSchemaParentNodes(child));
+            }
+        }
+        return catalogs;
+    }
+
+    /**
+     * Load the children of the nodes in a background thread. Nodes are loaded one after the other, in the
+     * order of the requests.
+     * @param nodes Nodes to load
+     * @param recursive If true, already loaded children are updated too.
+     */
+    private void loadNodeChildren(Collection<GeoCatalogTreeNode> nodes, boolean recursive) {
+        if(nodes.isEmpty()) {
+            return;
+        }
+        synchronized (pendingNodes) {
+            for(GeoCatalogTreeNode node : nodes) {
+                Boolean pendingRecursive = pendingNodes.get(node);
+                pendingNodes.put(node, recursive || (pendingRecursive != null && pendingRecursive));
+            }
+            if(loadingNodeChildren) {
+                // The running worker will load the nodes
+                return;
+            }
+            loadingNodeChildren = true;
+        }
+        execute(new ReadDB(this));
+    }
+
+    /**
+     * Called when the loading worker is stopped before the end of the pending nodes
+     */
+    private void stopLoadingNodeChildren() {
+        synchronized (pendingNodes) {
+            loadingNodeChildren = false;
+        }
+    }
+
+    /**
+     * @return The next node to load, or null if there is no more node to load
+     */
+    private Map.Entry<GeoCatalogTreeNode, Boolean> nextPendingNode() {
+        synchronized (pendingNodes) {
+            Iterator<Map.Entry<GeoCatalogTreeNode, Boolean>> it = pendingNodes.entrySet().iterator();
+            if(it.hasNext()) {
+                Map.Entry<GeoCatalogTreeNode, Boolean> next = it.next();
+                it.remove();
+                return next;
+            } else {
+                loadingNodeChildren = false;
+                return null;
             }
-        } catch (IllegalArgumentException ex) {
-            // Db entity not managed by CatalogPanel
         }
     }
 
@@ -554,29 +682,22 @@ public class CatalogPanel extends JPanel implements DockingPanel, TreeWillExpand
 
     @Override
     public void progressionUpdate(StateEvent state) {
-        // Refresh root node
-        if(state.isUpdateDatabaseStructure() && loadingNodeChildren.compareAndSet(false, true)) {
-            execute(new ReadDB(this, (GeoCatalogTreeNode) defaultTreeModel.getRoot(), loadingNodeChildren));
+        if(state.isUpdateDatabaseStructure()) {
+            onDatabaseChange(DatabaseChange.fromStatement(state.getName(), isH2()));
         }
     }
 
     @Override
     public void refreshSourceList() {
-        if(loadingNodeChildren.compareAndSet(false, true)) {
-            if (!dbTree.isSelectionEmpty()) {
-                List<GeoCatalogTreeNode> nodeToRefresh = new ArrayList<>(dbTree.getSelectionCount());
-                for (GeoCatalogTreeNode treeNode : new TreeSelectionIterable<>(dbTree.getSelectionPaths(), GeoCatalogTreeNode.class)) {
-                    nodeToRefresh.add(treeNode);
-                }
-                if(nodeToRefresh.isEmpty()) {
-                    loadingNodeChildren.set(false);
-                } else {
-                    execute(new ReadDB(this, nodeToRefresh, loadingNodeChildren));
-                }
-            } else {
-                // Refresh root node
-                execute(new ReadDB(this, (GeoCatalogTreeNode) defaultTreeModel.getRoot(), loadingNodeChildren));
+        if (!dbTree.isSelectionEmpty()) {
+            List<GeoCatalogTreeNode> nodeToRefresh = new ArrayList<>(dbTree.getSelectionCount());
+            for (GeoCatalogTreeNode treeNode : new TreeSelectionIterable<>(dbTree.getSelectionPaths(), GeoCatalogTreeNode.class)) {
+                nodeToRefresh.add(treeNode);
             }
+            loadNodeChildren(nodeToRefresh, true);
+        } else {
+            // Refresh root node
+            loadNodeChildren(Collections.singletonList((GeoCatalogTreeNode) defaultTreeModel.getRoot()), true);
         }
     }
 
@@ -663,8 +784,7 @@ public class CatalogPanel extends JPanel implements DockingPanel, TreeWillExpand
         Object lastPathComp = event.getPath().getLastPathComponent();
         if(lastPathComp instanceof GeoCatalogTreeNode && ((GeoCatalogTreeNode) lastPathComp).getChildCount() == 0) {
             GeoCatalogTreeNode node = (GeoCatalogTreeNode)lastPathComp;
-            loadingNodeChildren.set(true);
-            new ReadDB(this, node, loadingNodeChildren).execute();
+            loadNodeChildren(Collections.singletonList(node), false);
         }
     }
 
@@ -673,11 +793,24 @@ public class CatalogPanel extends JPanel implements DockingPanel, TreeWillExpand
      * @param node Parent node
      */
     public void updateNode(GeoCatalogTreeNode node) {
+        updateNode(node, true);
+    }
+
+    /**
+     * Load children of this node
+     * @param node Parent node
+     * @param recursive If true, already loaded children are updated too.
+     */
+    public void updateNode(GeoCatalogTreeNode node, boolean recursive) {
         Set<TreeNodeFactory> factorySet = treeNodeFactories.get(node.getNodeType());
         if(factorySet != null) {
             try(Connection connection = dataManager.getDataSource().getConnection()) {
                 for (TreeNodeFactory factory : factorySet) {
-                    factory.updateChildren(node, connection, dbTree);
+                    if(factory instanceof TreeNodeFactoryImpl) {
+                        ((TreeNodeFactoryImpl) factory).updateChildren(node, connection, dbTree, recursive);
+                    } else {
+                        factory.updateChildren(node, connection, dbTree);
+                    }
                 }
             } catch (SQLException ex) {
                 LOGGER.error(ex.getLocalizedMessage(), ex);
@@ -719,27 +852,22 @@ public class CatalogPanel extends JPanel implements DockingPanel, TreeWillExpand
         return dbTree;
     }
 
+    /**
+     * Load the pending nodes of the catalog panel, a busy node is shown while loading nodes without children.
+     */
     private static class ReadDB extends  SwingWorker {
         private CatalogPanel catalogPanel;
-        private List<GeoCatalogTreeNode> nodes;
-        private AtomicBoolean loadingNodeChildren;
 
-        public ReadDB(CatalogPanel catalogPanel, List<GeoCatalogTreeNode> nodes, AtomicBoolean loadingNodeChildren) {
+        public ReadDB(CatalogPanel catalogPanel) {
             this.catalogPanel = catalogPanel;
-            this.nodes = nodes;
-            this.loadingNodeChildren = loadingNodeChildren;
-        }
-
-        public ReadDB(CatalogPanel catalogPanel, GeoCatalogTreeNode node, AtomicBoolean loadingNodeChildren) {
-            this.catalogPanel = catalogPanel;
-            this.nodes = Arrays.asList(node);
-            this.loadingNodeChildren = loadingNodeChildren;
         }
 
         @Override
         protected Object doInBackground() throws Exception {
+            Map.Entry<GeoCatalogTreeNode, Boolean> next = null;
             try {
-                for (GeoCatalogTreeNode node : nodes) {
+                while ((next = catalogPanel.nextPendingNode()) != null) {
+                    GeoCatalogTreeNode node = next.getKey();
                     TreeNodeBusy nodeBusy = null;
                     try {
                         if (node.getAllowsChildren() && node.getChildCount() == 0) {
@@ -750,7 +878,9 @@ public class CatalogPanel extends JPanel implements DockingPanel, TreeWillExpand
                             SwingUtilities.invokeAndWait(new InsertBusyNode(treeModel, nodeBusy, node));
                             nodeBusy.setDoAnimation(true);
                         }
-                        catalogPanel.updateNode(node);
+                        catalogPanel.updateNode(node, next.getValue());
+                    } catch (Exception ex) {
+                        LOGGER.error(ex.getLocalizedMessage(), ex);
                     } finally {
                         if (nodeBusy != null) {
                             nodeBusy.setDoAnimation(false);
@@ -758,7 +888,10 @@ public class CatalogPanel extends JPanel implements DockingPanel, TreeWillExpand
                     }
                 }
             } finally {
-                loadingNodeChildren.set(false);
+                if(next != null) {
+                    // Stopped by an unexpected error, let the next request start a new worker
+                    catalogPanel.stopLoadingNodeChildren();
+                }
             }
             return null;
         }
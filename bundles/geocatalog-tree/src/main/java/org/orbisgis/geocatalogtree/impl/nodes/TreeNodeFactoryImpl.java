@@ -32,14 +32,9 @@ import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.SFSUtilities;
 import org.h2gis.utilities.TableLocation;
 import org.jooq.Catalog;
-import org.jooq.DataType;
-import org.jooq.Field;
 import org.jooq.Meta;
 import org.jooq.QueryPart;
 import org.jooq.Schema;
-import org.jooq.Table;
-import org.jooq.TableField;
-import org.jooq.UniqueKey;
 import org.jooq.impl.DSL;
 import org.orbisgis.corejdbc.DataManager;
 import org.orbisgis.editorjdbc.TransferableSource;
@@ -64,12 +59,14 @@ import java.awt.datatransfer.Transferable;
 import java.beans.PropertyVetoException;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -83,6 +80,11 @@ import static org.orbisgis.geocatalogtree.api.GeoCatalogTreeNode.*;
 public class TreeNodeFactoryImpl implements TreeNodeFactory {
     private static Logger LOGGER = LoggerFactory.getLogger(TreeNodeFactoryImpl.class);
     private static I18n I18N = I18nFactory.getI18n(TreeNodeFactoryImpl.class);
+    /** Maximum number of nodes inserted in the tree model in a single swing event */
+    static final int INSERT_PAGE_SIZE = 200;
+    /** Table types shown in the tree, indexes and sequences returned by some drivers are excluded */
+    private static final String[] TABLE_TYPES = new String[] {"TABLE", "VIEW", "SYSTEM TABLE", "SYSTEM_TABLE",
+            "SYSTEM VIEW", "SYSTEM_VIEW", "MATERIALIZED VIEW", "FOREIGN TABLE", "TABLE LINK", "EXTERNAL"};
     private DataManager dataManager;
     private boolean isH2 = false;
     private String defaultSchema = "PUBLIC";
@@ -108,9 +110,29 @@ public class TreeNodeFactoryImpl implements TreeNodeFactory {
         return new String[]{NODE_DATABASE, NODE_CATALOG, NODE_SCHEMA, NODE_TABLE, NODE_COLUMNS, NODE_INDEXES};
     }
 
+    /**
+     * @return Default schema of the database connection
+     */
+    public String getDefaultSchema() {
+        return defaultSchema;
+    }
+
     @Override
     public void updateChildren(GeoCatalogTreeNode parent, Connection connection, JTree jTree) throws SQLException {
-        updateChildren(parent, getJooqQueryPart(connection,null, parent),connection, jTree);
+        updateChildren(parent, connection, jTree, true);
+    }
+
+    /**
+     * Add/Remove children of parent.
+     * @param parent Parent node.
+     * @param connection Active connection, do not close it.
+     * @param jTree JTree instance
+     * @param recursive If true, already loaded children are updated too.
+     * @throws SQLException
+     */
+    public void updateChildren(GeoCatalogTreeNode parent, Connection connection, JTree jTree, boolean recursive)
+            throws SQLException {
+        updateChildren(parent, getJooqQueryPart(connection,null, parent),connection, jTree, recursive);
     }
 
 
@@ -131,7 +153,9 @@ public class TreeNodeFactoryImpl implements TreeNodeFactory {
                 case NODE_SCHEMA:
                     return ((Catalog) parentQueryPart).getSchema(treeNode.getNodeIdentifier());
                 case NODE_TABLE:
-                    return ((Schema) parentQueryPart).getTable(TableLocation.parse(treeNode.getNodeIdentifier()).getTable());
+                    // Table metadata is read using the node identifier, fetching the jOOQ table would read the
+                    // metadata of all the tables of the schema
+                    return parentQueryPart;
                 case NODE_COLUMNS:
                     return parentQueryPart;
                 case NODE_INDEXES:
@@ -173,10 +197,12 @@ public class TreeNodeFactoryImpl implements TreeNodeFactory {
                 allNodesQueryPart.add(parentQueryPart);
                 break;
             case NODE_COLUMNS:
-                loadFields((Table)parentQueryPart, allNodes, allNodesQueryPart, connection);
+                loadFields(getTableLocation(parent.getParent()), parentQueryPart, allNodes, allNodesQueryPart,
+                        connection);
                 break;
             case NODE_INDEXES:
-                loadIndexes((Table)parentQueryPart, allNodes, allNodesQueryPart, connection);
+                loadIndexes(getTableLocation(parent.getParent()), parentQueryPart, allNodes, allNodesQueryPart,
+                        connection);
                 break;
         }
     }
@@ -190,6 +216,20 @@ public class TreeNodeFactoryImpl implements TreeNodeFactory {
      * @throws SQLException
      */
     public void updateChildren(GeoCatalogTreeNode parent, QueryPart parentQueryPart,Connection connection, JTree jTree) throws SQLException {
+        updateChildren(parent, parentQueryPart, connection, jTree, true);
+    }
+
+    /**
+     * Load sub-nodes
+     * @param parent Parent node to fill or update
+     * @param parentQueryPart Parent node JOOQ instance
+     * @param connection Active connection
+     * @param jTree JTree that will receive items
+     * @param recursive If true, already loaded children are updated too.
+     * @throws SQLException
+     */
+    public void updateChildren(GeoCatalogTreeNode parent, QueryPart parentQueryPart,Connection connection, JTree
+            jTree, boolean recursive) throws SQLException {
         DefaultTreeModel treeModel = (DefaultTreeModel)jTree.getModel();
         if(parent.getNodeType().isEmpty()) {
             loadDatabase(DSL.using(connection).meta(), treeModel);
@@ -211,11 +251,11 @@ public class TreeNodeFactoryImpl implements TreeNodeFactory {
                     oldNodes.remove(node.getNodeIdentifier());
                     // Update the node if it contains at least one child
                     TreePath existingNodePath = new TreePath(((DefaultTreeModel) jTree.getModel()).getPathToRoot(existingNode));
-                    if (existingNode.getChildCount() > 0 || jTree.isExpanded(existingNodePath)) {
+                    if (recursive && (existingNode.getChildCount() > 0 || jTree.isExpanded(existingNodePath))) {
                         TreeNodeFactory treeNodeFactory = existingNode.getFactory();
                         if (treeNodeFactory instanceof TreeNodeFactoryImpl) {
                             TreeNodeFactoryImpl childFactory = (TreeNodeFactoryImpl) treeNodeFactory;
-                            childFactory.updateChildren(existingNode, nodeQueryPart, connection, jTree);
+                            childFactory.updateChildren(existingNode, nodeQueryPart, connection, jTree, true);
                         } else if (treeNodeFactory != null) {
                             treeNodeFactory.updateChildren(node, connection, jTree);
                         }
@@ -239,7 +279,75 @@ public class TreeNodeFactoryImpl implements TreeNodeFactory {
                 }
             }
         }
-        SwingUtilities.invokeLater(new TreeModelOperation(treeModel, nodeToInsert,nodesToRemove, parent));
+        for(Runnable operation : createModelOperations(treeModel, nodeToInsert, nodesToRemove, parent)) {
+            SwingUtilities.invokeLater(operation);
+        }
+    }
+
+    /**
+     * Split the tree model update by pages in order to keep the swing event thread responsive with large schemas.
+     * Nodes are removed by the first page.
+     * @param treeModel Tree model
+     * @param nodeToInsert New children of parent
+     * @param nodesToRemove Children of parent to remove
+     * @param parent Parent node
+     * @return Operations to run on the swing event thread, in order
+     */
+    static List<Runnable> createModelOperations(DefaultTreeModel treeModel, List<MutableTreeNode> nodeToInsert,
+                                                List<MutableTreeNode> nodesToRemove, GeoCatalogTreeNode parent) {
+        List<Runnable> operations = new ArrayList<>(nodeToInsert.size() / INSERT_PAGE_SIZE + 1);
+        int pageStart = 0;
+        do {
+            int pageEnd = Math.min(nodeToInsert.size(), pageStart + INSERT_PAGE_SIZE);
+            operations.add(new TreeModelOperation(treeModel,
+                    new ArrayList<>(nodeToInsert.subList(pageStart, pageEnd)),
+                    pageStart == 0 ? nodesToRemove : new ArrayList<MutableTreeNode>(), parent));
+            pageStart = pageEnd;
+        } while (pageStart < nodeToInsert.size());
+        return operations;
+    }
+
+    /**
+     * @param tableNode Table node
+     * @return Table location of the node
+     */
+    private TableLocation getTableLocation(GeoCatalogTreeNode tableNode) {
+        return TableLocation.parse(tableNode.getNodeIdentifier(), isH2);
+    }
+
+    /**
+     * @param identifier Schema or table name
+     * @param escape {@link java.sql.DatabaseMetaData#getSearchStringEscape()}
+     * @return Metadata search pattern that match only the identifier
+     */
+    private static String toSearchPattern(String identifier, String escape) {
+        if(identifier == null || escape == null || escape.isEmpty()) {
+            return identifier;
+        }
+        return identifier.replace(escape, escape + escape).replace("_", escape + "_").replace("%", escape + "%");
+    }
+
+    /**
+     * @param connection Active connection
+     * @param schema Schema name
+     * @return Name of the tables of the schema that contain geometry fields or null if geometry_columns is not
+     * available.
+     */
+    private Set<String> getGeometryTables(Connection connection, String schema) {
+        try(PreparedStatement st = connection.prepareStatement("SELECT F_TABLE_NAME FROM " + defaultSchema +
+                ".geometry_columns WHERE F_TABLE_SCHEMA = ?")) {
+            st.setString(1, schema);
+            Set<String> tables = new HashSet<>();
+            try(ResultSet rs = st.executeQuery()) {
+                while(rs.next()) {
+                    tables.add(rs.getString(1));
+                }
+            }
+            return tables;
+        } catch (SQLException ex) {
+            LOGGER.debug(ex.getLocalizedMessage(), ex);
+            return null;
+        }
     }
 
     protected boolean isNodeMadeByThis(GeoCatalogTreeNode node) {
@@ -297,74 +405,115 @@ public class TreeNodeFactoryImpl implements TreeNodeFactory {
 
     private void loadTable(Schema schema, List<GeoCatalogTreeNodeImpl> nodes, List<QueryPart> nodesQueryPart, Connection connection) throws SQLException {
         if(schema != null) {
-            for (Table table : schema.getTables()) {
-                // Check if the table is a geo table
-                TableLocation identifier = new TableLocation(null, schema
-                        .getName(), table.getName());
-                boolean hasGeoField = !SFSUtilities.getGeometryFields(connection, identifier).isEmpty();
-                if (hasGeoField) {
-                    nodes.add(new GeoCatalogTreeNodeImpl(this, NODE_TABLE, identifier.toString(isH2), GeocatalogIcon
-                            .getIcon("geofile"), GeocatalogIcon.getIcon("geofile")).setLabel(table.getName()).set
-                            (GeoCatalogTreeNode.PROP_SPATIAL_TABLE, true));
-                } else {
-                    nodes.add(new GeoCatalogTreeNodeImpl(this, NODE_TABLE, identifier.toString(isH2), GeocatalogIcon
-                            .getIcon("flatfile"), GeocatalogIcon.getIcon("flatfile")).setLabel(table.getName()).set
-                            (GeoCatalogTreeNode.PROP_SPATIAL_TABLE, false));
+            // Read geometry tables in a single query
+            Set<String> geoTables = getGeometryTables(connection, schema.getName());
+            DatabaseMetaData meta = connection.getMetaData();
+            try(ResultSet rs = meta.getTables(null, toSearchPattern(schema.getName(), meta.getSearchStringEscape()),
+                    null, TABLE_TYPES)) {
+                while (rs.next()) {
+                    String tableName = rs.getString("TABLE_NAME");
+                    if(!schema.getName().equals(rs.getString("TABLE_SCHEM"))) {
+                        continue;
+                    }
+                    // Check if the table is a geo table
+                    TableLocation identifier = new TableLocation(null, schema.getName(), tableName);
+                    boolean hasGeoField = geoTables != null ? geoTables.contains(tableName) :
+                            !SFSUtilities.getGeometryFields(connection, identifier).isEmpty();
+                    if (hasGeoField) {
+                        nodes.add(new GeoCatalogTreeNodeImpl(this, NODE_TABLE, identifier.toString(isH2), GeocatalogIcon
+                                .getIcon("geofile"), GeocatalogIcon.getIcon("geofile")).setLabel(tableName).set
+                                (GeoCatalogTreeNode.PROP_SPATIAL_TABLE, true));
+                    } else {
+                        nodes.add(new GeoCatalogTreeNodeImpl(this, NODE_TABLE, identifier.toString(isH2), GeocatalogIcon
+                                .getIcon("flatfile"), GeocatalogIcon.getIcon("flatfile")).setLabel(tableName).set
+                                (GeoCatalogTreeNode.PROP_SPATIAL_TABLE, false));
+                    }
+                    nodesQueryPart.add(schema);
                 }
-                nodesQueryPart.add(table);
             }
         }
     }
-    private void loadFields(Table table, List<GeoCatalogTreeNodeImpl> nodes, List<QueryPart> nodesQueryPart, Connection connection) throws SQLException {
-        if(table != null) {
-            // Fetch PK for icon
-            Set<String> pkFieldNames = new HashSet<>();
-            UniqueKey pk = table.getPrimaryKey();
-            if(pk != null) {
-                List<TableField> fields = pk.getFields();
-                for(TableField field : fields) {
-                    pkFieldNames.add(field.getName());
-                }
+
+    /**
+     * @param sqlType {@link java.sql.Types}
+     * @param spatial True if the column is a geometry column
+     * @return Icon of the column node
+     */
+    private static ImageIcon getColumnIcon(int sqlType, boolean spatial) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.DOUBLE:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return GeocatalogIcon.getIcon("field_num");
+            case Types.BOOLEAN:
+            case Types.BIT:
+                return GeocatalogIcon.getIcon("field_bool");
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+                return GeocatalogIcon.getIcon("field_text");
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                return GeocatalogIcon.getIcon("field_date");
+            default:
+                return spatial ? GeocatalogIcon.getIcon("field_geom") : GeocatalogIcon.getIcon("column");
+        }
+    }
+
+    private void loadFields(TableLocation table, QueryPart tableQueryPart, List<GeoCatalogTreeNodeImpl> nodes,
+                            List<QueryPart> nodesQueryPart, Connection connection) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        // Fetch PK for icon
+        Set<String> pkFieldNames = new HashSet<>();
+        try(ResultSet rs = meta.getPrimaryKeys(null, table.getSchema(), table.getTable())) {
+            while(rs.next()) {
+                pkFieldNames.add(rs.getString("COLUMN_NAME"));
             }
-            // Fetch geometry fields
-            Set<String> spatialFields = new HashSet<>(SFSUtilities.getGeometryFields(connection, new TableLocation
-                    (table.getSchema().getName(), table.getName())));
-            for(Field field : table.fields()) {
+        }
+        // Fetch geometry fields
+        Set<String> spatialFields = new HashSet<>(SFSUtilities.getGeometryFields(connection, table));
+        String escape = meta.getSearchStringEscape();
+        try(ResultSet rs = meta.getColumns(null, toSearchPattern(table.getSchema(), escape),
+                toSearchPattern(table.getTable(), escape), null)) {
+            while(rs.next()) {
+                if(!table.getTable().equals(rs.getString("TABLE_NAME")) ||
+                        !table.getSchema().equals(rs.getString("TABLE_SCHEM"))) {
+                    continue;
+                }
+                String fieldName = rs.getString("COLUMN_NAME");
+                String typeName = rs.getString("TYPE_NAME");
                 GeoCatalogTreeNodeImpl fieldNode;
-                if(pkFieldNames.contains(field.getName())) {
-                    fieldNode = new GeoCatalogTreeNodeImpl(this, NODE_COLUMN, field.getName(), GeocatalogIcon.getIcon("key"));
+                if(pkFieldNames.contains(fieldName)) {
+                    fieldNode = new GeoCatalogTreeNodeImpl(this, NODE_COLUMN, fieldName, GeocatalogIcon.getIcon("key"));
                 } else {
-                    ImageIcon icon;
-                    DataType dataType = field.getDataType();
-                    if(dataType.isNumeric()) {
-                        icon = GeocatalogIcon.getIcon("field_num");
-                    } else if(dataType.getSQLType() == Types.BOOLEAN) {
-                        icon = GeocatalogIcon.getIcon("field_bool");
-                    } else if(dataType.isString()) {
-                        icon = GeocatalogIcon.getIcon("field_text");
-                    } else if(dataType.isDateTime()) {
-                        icon = GeocatalogIcon.getIcon("field_date");
-                    } else if(spatialFields.contains(field.getName())) {
-                        icon = GeocatalogIcon.getIcon("field_geom");
-                    } else{
-                        icon = GeocatalogIcon.getIcon("column");
-                    }
-                    fieldNode = new GeoCatalogTreeNodeImpl(this, NODE_COLUMN, field.getName(), icon);
+                    fieldNode = new GeoCatalogTreeNodeImpl(this, NODE_COLUMN, fieldName,
+                            getColumnIcon(rs.getInt("DATA_TYPE"), spatialFields.contains(fieldName)));
                 }
-                fieldNode.set(GeoCatalogTreeNode.PROP_COLUMN_SPATIAL, spatialFields.contains(field.getName()));
-                fieldNode.set(GeoCatalogTreeNode.PROP_COLUMN_TYPE_NAME, field.getDataType().getTypeName());
+                fieldNode.set(GeoCatalogTreeNode.PROP_COLUMN_SPATIAL, spatialFields.contains(fieldName));
+                fieldNode.set(GeoCatalogTreeNode.PROP_COLUMN_TYPE_NAME, typeName == null ? "" : typeName.toLowerCase());
                 fieldNode.setAllowsChildren(false);
                 nodes.add(fieldNode);
-                nodesQueryPart.add(field);
+                nodesQueryPart.add(tableQueryPart);
             }
         }
     }
 
-    private void loadIndexes(Table table, List<GeoCatalogTreeNodeImpl> nodes, List<QueryPart> nodesQueryPart,
-                             Connection connection) throws SQLException {
-        if (table != null) {
+    private void loadIndexes(TableLocation tableLocation, QueryPart tableQueryPart, List<GeoCatalogTreeNodeImpl> nodes,
+                             List<QueryPart> nodesQueryPart, Connection connection) throws SQLException {
+        if (tableLocation != null) {
             // Fetch all index
-            TableLocation tableLocation = new TableLocation(table.getSchema().getName(), table.getName());
             List<String> spatialFields = SFSUtilities.getGeometryFields(connection, tableLocation);
             // Fetch
             DatabaseMetaData databaseMetaData = connection.getMetaData();
@@ -387,7 +536,7 @@ public class TreeNodeFactoryImpl implements TreeNodeFactory {
                         }
                         nodes.add(new GeoCatalogTreeNodeImpl(this, GeoCatalogTreeNode
                                 .NODE_INDEX, new TableLocation(tableLocation.getSchema(), indexName).toString(isH2), leafIcon).setLabel(label.toString()));
-                        nodesQueryPart.add(table);
+                        nodesQueryPart.add(tableQueryPart);
                     }
                 }
             }
@@ -475,24 +624,37 @@ public class TreeNodeFactoryImpl implements TreeNodeFactory {
             for(MutableTreeNode node : nodesToRemove) {
                 defaultTreeModel.removeNodeFromParent(node);
             }
+            if(newChildren.isEmpty()) {
+                return;
+            }
+            // Insert all nodes then fire a single event
             if(parent.isChildrenSorted()) {
                 // Insert alphabetically
                 List<String> modelNodes = new ArrayList<>(parent.getChildCount() + newChildren.size());
                 for (int nodeId = 0; nodeId < parent.getChildCount(); nodeId++) {
                     modelNodes.add(parent.getChildAt(nodeId).toString());
                 }
-                while (!newChildren.isEmpty()) {
-                    MutableTreeNode nodeToInsert = newChildren.remove(0);
+                for(MutableTreeNode nodeToInsert : newChildren) {
                     int index = Collections.binarySearch(modelNodes, nodeToInsert.toString());
                     index = index >= 0 ? index : (-(index) - 1);
-                    defaultTreeModel.insertNodeInto(nodeToInsert, parent, index);
+                    parent.insert(nodeToInsert, index);
                     modelNodes.add(index, nodeToInsert.toString());
                 }
             } else {
                 for(MutableTreeNode nodeToInsert : newChildren) {
-                    defaultTreeModel.insertNodeInto(nodeToInsert, parent, parent.getChildCount());
+                    parent.insert(nodeToInsert, parent.getChildCount());
+                }
+            }
+            Set<MutableTreeNode> inserted = Collections.newSetFromMap(new IdentityHashMap<MutableTreeNode, Boolean>());
+            inserted.addAll(newChildren);
+            int[] insertedIndices = new int[newChildren.size()];
+            int insertedCount = 0;
+            for (int nodeId = 0; nodeId < parent.getChildCount() && insertedCount < insertedIndices.length; nodeId++) {
+                if(inserted.contains(parent.getChildAt(nodeId))) {
+                    insertedIndices[insertedCount++] = nodeId;
                 }
             }
+            defaultTreeModel.nodesWereInserted(parent, insertedIndices);
         }
     }
 }
@@ -0,0 +1,173 @@
+/*
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2012 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.geocatalogtree.impl.nodes;
+
+import org.junit.Test;
+import org.orbisgis.geocatalogtree.api.GeoCatalogTreeNode;
+import org.orbisgis.geocatalogtree.api.GeoCatalogTreeNodeImpl;
+
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.MutableTreeNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the insertion of tree nodes by pages.
+ */
+public class TreeNodeFactoryImplTest {
+
+    private static List<MutableTreeNode> createNodes(List<String> names) {
+        List<MutableTreeNode> nodes = new ArrayList<>(names.size());
+        for(String name : names) {
+            nodes.add(new GeoCatalogTreeNodeImpl(null, GeoCatalogTreeNode.NODE_TABLE, name));
+        }
+        return nodes;
+    }
+
+    private static List<String> createNames(int count) {
+        List<String> names = new ArrayList<>(count);
+        for(int i = 0; i < count; i++) {
+            names.add(String.format("TABLE%04d", i));
+        }
+        return names;
+    }
+
+    @Test
+    public void testPagedSortedInsertion() {
+        GeoCatalogTreeNodeImpl parent = new GeoCatalogTreeNodeImpl(null, GeoCatalogTreeNode.NODE_SCHEMA, "PUBLIC")
+                .setSortChildren(true);
+        DefaultTreeModel treeModel = new DefaultTreeModel(parent);
+        // Existing children, one of them is removed
+        List<MutableTreeNode> oldNodes = createNodes(Collections.singletonList("OLD"));
+        MutableTreeNode kept = new GeoCatalogTreeNodeImpl(null, GeoCatalogTreeNode.NODE_TABLE, "TABLE0100A");
+        treeModel.insertNodeInto(oldNodes.get(0), parent, 0);
+        treeModel.insertNodeInto(kept, parent, 1);
+        int count = TreeNodeFactoryImpl.INSERT_PAGE_SIZE * 2 + 50;
+        List<String> names = createNames(count);
+        Collections.shuffle(names, new Random(42));
+        List<MutableTreeNode> nodeToInsert = createNodes(names);
+        InsertListener listener = new InsertListener();
+        treeModel.addTreeModelListener(listener);
+        List<Runnable> operations = TreeNodeFactoryImpl.createModelOperations(treeModel, nodeToInsert, oldNodes,
+                parent);
+        assertEquals(3, operations.size());
+        for(Runnable operation : operations) {
+            operation.run();
+        }
+        // Removed once, a single event by page
+        assertEquals(1, listener.removed);
+        assertEquals(3, listener.insertEvents);
+        assertEquals(count, listener.inserted);
+        assertEquals(count + 1, parent.getChildCount());
+        for(int i = 1; i < parent.getChildCount(); i++) {
+            assertTrue(parent.getChildAt(i - 1).toString().compareTo(parent.getChildAt(i).toString()) < 0);
+        }
+        assertSame(kept, parent.getChildAt(101));
+    }
+
+    @Test
+    public void testPagedUnsortedInsertion() {
+        GeoCatalogTreeNodeImpl parent = new GeoCatalogTreeNodeImpl(null, GeoCatalogTreeNode.NODE_TABLE, "TABLE")
+                .setSortChildren(false);
+        DefaultTreeModel treeModel = new DefaultTreeModel(parent);
+        int count = TreeNodeFactoryImpl.INSERT_PAGE_SIZE + 1;
+        List<String> names = createNames(count);
+        Collections.reverse(names);
+        List<MutableTreeNode> nodeToInsert = createNodes(names);
+        InsertListener listener = new InsertListener();
+        treeModel.addTreeModelListener(listener);
+        List<Runnable> operations = TreeNodeFactoryImpl.createModelOperations(treeModel, nodeToInsert,
+                new ArrayList<MutableTreeNode>(), parent);
+        assertEquals(2, operations.size());
+        for(Runnable operation : operations) {
+            operation.run();
+        }
+        assertEquals(2, listener.insertEvents);
+        // Parsed order is kept
+        for(int i = 0; i < count; i++) {
+            assertSame(nodeToInsert.get(i), parent.getChildAt(i));
+        }
+    }
+
+    @Test
+    public void testEmptyInsertion() {
+        GeoCatalogTreeNodeImpl parent = new GeoCatalogTreeNodeImpl(null, GeoCatalogTreeNode.NODE_SCHEMA, "PUBLIC")
+                .setSortChildren(true);
+        DefaultTreeModel treeModel = new DefaultTreeModel(parent);
+        List<MutableTreeNode> oldNodes = createNodes(Collections.singletonList("OLD"));
+        treeModel.insertNodeInto(oldNodes.get(0), parent, 0);
+        InsertListener listener = new InsertListener();
+        treeModel.addTreeModelListener(listener);
+        List<Runnable> operations = TreeNodeFactoryImpl.createModelOperations(treeModel,
+                new ArrayList<MutableTreeNode>(), oldNodes, parent);
+        assertEquals(1, operations.size());
+        operations.get(0).run();
+        assertEquals(1, listener.removed);
+        assertEquals(0, listener.insertEvents);
+        assertEquals(0, parent.getChildCount());
+    }
+
+    private static class InsertListener implements TreeModelListener {
+        private int insertEvents = 0;
+        private int inserted = 0;
+        private int removed = 0;
+
+        @Override
+        public void treeNodesChanged(TreeModelEvent e) {
+        }
+
+        @Override
+        public void treeNodesInserted(TreeModelEvent e) {
+            insertEvents++;
+            inserted += e.getChildIndices().length;
+            // Indices are sorted and point to the inserted children
+            for(int i = 0; i < e.getChildIndices().length; i++) {
+                assertSame(e.getChildren()[i], ((MutableTreeNode) e.getTreePath().getLastPathComponent())
+                        .getChildAt(e.getChildIndices()[i]));
+            }
+        }
+
+        @Override
+        public void treeNodesRemoved(TreeModelEvent e) {
+            removed += e.getChildIndices().length;
+        }
+
+        @Override
+        public void treeStructureChanged(TreeModelEvent e) {
+        }
+    }
+}
@@ -480,7 +480,7 @@ public class Catalog extends JPanel implements DockingPanel, TitleActionBar, Pop
 
         @Override
         public void onDatabaseUpdate(String entity, String... identifier) {
-            refreshSourceList();
+            sourceListContent.onDatabaseUpdate(entity, identifier);
         }
 
         public void refreshSourceList() {
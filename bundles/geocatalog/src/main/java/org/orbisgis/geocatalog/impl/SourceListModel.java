@@ -29,7 +29,10 @@
 package org.orbisgis.geocatalog.impl;
 
 import java.sql.Connection;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -38,9 +41,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.sql.DataSource;
 import javax.swing.*;
@@ -49,6 +54,7 @@ import org.h2gis.utilities.JDBCUtilities;
 import org.orbisgis.corejdbc.DataManager;
 import org.orbisgis.corejdbc.DatabaseProgressionListener;
 import org.orbisgis.corejdbc.StateEvent;
+import org.orbisgis.dbjobs.api.DatabaseChange;
 import org.orbisgis.geocatalog.impl.filters.IFilter;
 import org.orbisgis.geocatalog.impl.filters.TableSystemFilter;
 import org.orbisgis.sif.common.ContainerItemProperties;
@@ -70,8 +76,12 @@ public class SourceListModel extends AbstractListModel<ContainerItemProperties>
     private static final Logger LOGGER = LoggerFactory.getLogger(SourceListModel.class);
     private static final long serialVersionUID = 1L;
     private static final String[] SHOWN_TABLE_TYPES = new String[]{"TABLE", "SYSTEM TABLE","LINKED TABLE","VIEW", "EXTERNAL"};
-    /** Non filtered tables */
-    private List<Map<IFilter.ATTRIBUTES, String>> allTables = new ArrayList<>();
+    /** Database events received during this delay (ms) are merged into a single refresh */
+    private static final int REFRESH_DELAY = 250;
+    /** Maximum delay (ms) between the first event of a burst and the refresh */
+    private static final int MAX_REFRESH_DELAY = 2000;
+    /** Non filtered tables, by full table location */
+    private Map<String, Map<IFilter.ATTRIBUTES, String>> allTables = new HashMap<>();
     /** Filtered tables */
     private ContainerItemProperties[] sourceList = new ContainerItemProperties[0];/*!< Sources */
     private List<IFilter> filters = new ArrayList<>(); /*!< Active filters */
@@ -79,6 +89,11 @@ public class SourceListModel extends AbstractListModel<ContainerItemProperties>
     private AtomicBoolean awaitingRefresh=new AtomicBoolean(false); /*!< If true a swing runnable
          * is pending to refresh the content of SourceListModel*/
     private boolean updateWhileAwaitingRefresh = false;
+    /** Changes not yet read from the database, guarded by itself */
+    private final DatabaseChange pendingChange = new DatabaseChange();
+    /** Time of the first pending change, guarded by pendingChange */
+    private long firstPendingChangeTime = 0;
+    private final Timer refreshTimer = new Timer(REFRESH_DELAY, new RefreshTimerListener(this));
     private DataSource dataSource;
     private CatalogComparator catalogComparator = new CatalogComparator();
     private boolean isH2;
@@ -104,19 +119,30 @@ public class SourceListModel extends AbstractListModel<ContainerItemProperties>
         } catch (SQLException ex) {
             LOGGER.error(ex.getLocalizedMessage(), ex);
         }
+        refreshTimer.setRepeats(false);
         //Install database listeners
         dataManager.addDatabaseProgressionListener(this, StateEvent.DB_STATES.STATE_STATEMENT_END);
-        //Call readDatabase when a SourceManager fire an event
-        onDataManagerChange();
+        //Read the whole table list
+        addPendingChange(DatabaseChange.fullReload());
+        launchRefresh();
     }
 
     @Override
     public void progressionUpdate(StateEvent state) {
         if (state.isUpdateDatabaseStructure()) {
-            onDataManagerChange();
+            onDatabaseChange(DatabaseChange.fromStatement(state.getName(), isH2));
         }
     }
 
+    /**
+     * Refresh only the given entities
+     * @param entity Type of database entity may be one of {@link org.orbisgis.dbjobs.api.DatabaseView.DB_ENTITY}
+     * @param identifier Entity identifiers
+     */
+    public void onDatabaseUpdate(String entity, String... identifier) {
+        onDatabaseChange(DatabaseChange.fromDatabaseView(entity, identifier, isH2));
+    }
+
     /**
      * Install listener(s) on SourceManager
      */
@@ -124,11 +150,57 @@ public class SourceListModel extends AbstractListModel<ContainerItemProperties>
         // TODO, set a timer that hash table list
     }
     /**
-     * The DataManager fire a DataSourceEvent
+     * Read the whole table list.
      * Swing will update the list later.
-     * This method is called by the EventSource listener
      */
     public void onDataManagerChange() {
+        onDatabaseChange(DatabaseChange.fullReload());
+    }
+
+    /**
+     * Add the change to the pending refresh. Changes are merged until the end of a burst of events, a continuous
+     * burst does not postpone the refresh more than {@link #MAX_REFRESH_DELAY}.
+     * @param change Altered database objects
+     */
+    public void onDatabaseChange(DatabaseChange change) {
+        if(!change.isEmpty()) {
+            long elapsed = addPendingChange(change);
+            refreshTimer.setInitialDelay((int) Math.max(0, Math.min(REFRESH_DELAY, MAX_REFRESH_DELAY - elapsed)));
+            refreshTimer.restart();
+        }
+    }
+
+    /**
+     * @param change Altered database objects
+     * @return Time elapsed since the first pending change, in ms
+     */
+    private long addPendingChange(DatabaseChange change) {
+        synchronized (pendingChange) {
+            long now = System.currentTimeMillis();
+            if(pendingChange.isEmpty()) {
+                firstPendingChangeTime = now;
+            }
+            pendingChange.merge(change);
+            return now - firstPendingChangeTime;
+        }
+    }
+
+    /**
+     * @return Pending changes, cleared by this call
+     */
+    private DatabaseChange takePendingChange() {
+        DatabaseChange change = new DatabaseChange();
+        synchronized (pendingChange) {
+            change.merge(pendingChange);
+            pendingChange.clear();
+        }
+        return change;
+    }
+
+    /**
+     * Read the pending changes in a background thread
+     */
+    private void launchRefresh() {
         //This is useless to invoke a refresh thread because
         //The content will be refresh is coming soon fired by another ReadDataManagerOnSwingThread
         if(!awaitingRefresh.getAndSet(true)) {
@@ -138,6 +210,22 @@ public class SourceListModel extends AbstractListModel<ContainerItemProperties>
             updateWhileAwaitingRefresh = true;
         }
     }
+
+    /**
+     * Launch the refresh at the end of the debounce delay
+     */
+    private static class RefreshTimerListener implements ActionListener {
+        private final SourceListModel model;
+
+        private RefreshTimerListener(SourceListModel model) {
+            this.model = model;
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            model.launchRefresh();
+        }
+    }
     /**
      * Refresh the JList on the swing thread
      */
@@ -150,7 +238,7 @@ public class SourceListModel extends AbstractListModel<ContainerItemProperties>
 
         @Override
         protected Boolean doInBackground() throws Exception {
-            model.readDatabase();
+            model.readDatabase(model.takePendingChange());
             return true;
         }
 
@@ -162,16 +250,16 @@ public class SourceListModel extends AbstractListModel<ContainerItemProperties>
             // An update occurs during fetching tables
             if(model.updateWhileAwaitingRefresh) {
                 model.updateWhileAwaitingRefresh = false;
-                model.onDataManagerChange();
+                model.launchRefresh();
             }
         }
     }
 
     /**
-     * TODO stop timers
+     * Stop the pending refresh
      */
     public void dispose() {
-
+        refreshTimer.stop();
     }
 
     /**
@@ -219,7 +307,7 @@ public class SourceListModel extends AbstractListModel<ContainerItemProperties>
             }
         }
         List<CatalogSourceItem> newModel = new LinkedList<>();
-        for(Map<IFilter.ATTRIBUTES, String> tableAttr : allTables) {
+        for(Map<IFilter.ATTRIBUTES, String> tableAttr : allTables.values()) {
             boolean accepts = true;
             TableLocation location = TableLocation.parse(tableAttr.get(IFilter.ATTRIBUTES.LOCATION), isH2);
             for(IFilter filter : filters) {
@@ -233,18 +321,59 @@ public class SourceListModel extends AbstractListModel<ContainerItemProperties>
             }
         }
         Collections.sort(newModel, catalogComparator);
-        int oldLength = sourceList.length;
-        sourceList = new ContainerItemProperties[0];
-        fireIntervalRemoved(this, 0, oldLength);
-        sourceList = newModel.toArray(new ContainerItemProperties[newModel.size()]);
-        fireIntervalAdded(this, 0, this.sourceList.length);
+        ContainerItemProperties[] oldList = sourceList;
+        ContainerItemProperties[] newList = newModel.toArray(new ContainerItemProperties[newModel.size()]);
+        // Fire events only for the range of items that differ between the two sorted lists
+        int minLength = Math.min(oldList.length, newList.length);
+        int prefix = 0;
+        while(prefix < minLength && isSameItem(oldList[prefix], newList[prefix])) {
+            prefix++;
+        }
+        int suffix = 0;
+        while(suffix < minLength - prefix &&
+                isSameItem(oldList[oldList.length - 1 - suffix], newList[newList.length - 1 - suffix])) {
+            suffix++;
+        }
+        int oldEnd = oldList.length - suffix;
+        int newEnd = newList.length - suffix;
+        int changedEnd = Math.min(oldEnd, newEnd);
+        sourceList = newList;
+        if(changedEnd > prefix) {
+            fireContentsChanged(this, prefix, changedEnd - 1);
+        }
+        if(oldEnd > changedEnd) {
+            fireIntervalRemoved(this, changedEnd, oldEnd - 1);
+        } else if(newEnd > changedEnd) {
+            fireIntervalAdded(this, changedEnd, newEnd - 1);
+        }
+    }
+
+    private static boolean isSameItem(ContainerItemProperties oldItem, ContainerItemProperties newItem) {
+        if(!oldItem.equals(newItem) || !oldItem.getLabel().equals(newItem.getLabel())) {
+            return false;
+        }
+        if(oldItem instanceof CatalogSourceItem && newItem instanceof CatalogSourceItem) {
+            return ((CatalogSourceItem) oldItem).getSourceIconName()
+                    .equals(((CatalogSourceItem) newItem).getSourceIconName());
+        }
+        return true;
     }
 
     /**
-     * Read the table list in the database
+     * Read the whole table list in the database
      */
     protected void readDatabase() {
-        List<Map<IFilter.ATTRIBUTES, String>> newTables = new ArrayList<>(allTables.size());
+        readDatabase(DatabaseChange.fullReload());
+    }
+
+    /**
+     * Read the tables altered by the change, other tables keep their previous state.
+     * @param change Altered database objects
+     */
+    protected void readDatabase(DatabaseChange change) {
+        if(change.isEmpty()) {
+            return;
+        }
         try (Connection connection = dataSource.getConnection()) {
             final String defaultCatalog = connection.getCatalog();
             String defaultSchema = "PUBLIC";
@@ -256,74 +385,28 @@ public class SourceListModel extends AbstractListModel<ContainerItemProperties>
                 // Driver has been compiled with JAVA 6, or is not implemented
             }
             catalogComparator.setDefaultSchema(defaultSchema);
-            // Fetch Geometry tables
-            Map<String,String> tableGeometry = new HashMap<>();
-            try(Statement st = connection.createStatement();
-                ResultSet rs = st.executeQuery("SELECT * FROM "+defaultSchema+".geometry_columns")) {
-                    while(rs.next()) {
-                        tableGeometry.put(new TableLocation(rs.getString("F_TABLE_CATALOG"),
-                                rs.getString("F_TABLE_SCHEMA"), rs.getString("F_TABLE_NAME")).toString(), rs.getString("TYPE"));
+            Map<String, Map<IFilter.ATTRIBUTES, String>> newTables;
+            if(change.isFullReload()) {
+                newTables = new HashMap<>(allTables.size());
+                readTables(connection, defaultCatalog, defaultSchema, null, null, newTables);
+            } else {
+                // Keep the previous snapshot, remove then read again the altered tables
+                newTables = new HashMap<>(allTables);
+                Iterator<Map<IFilter.ATTRIBUTES, String>> it = newTables.values().iterator();
+                while(it.hasNext()) {
+                    if(isAltered(it.next(), change, defaultSchema)) {
+                        it.remove();
                     }
-            } catch (SQLException ex) {
-                LOGGER.warn(I18N.tr("Geometry columns information of tables are not available"), ex);
-            }
-            // Fetch raster table
-            Map<String,String> tableRaster = new HashMap<>();
-            try(Statement st = connection.createStatement();
-                ResultSet rs = st.executeQuery("SELECT * FROM " + defaultSchema + ".raster_columns")) {
-                while(rs.next()) {
-                    tableRaster.put(new TableLocation(rs.getString("R_TABLE_CATALOG"),
-                            rs.getString("R_TABLE_SCHEMA"), rs.getString("R_TABLE_NAME")).toString(), "raster");
                 }
-            } catch (SQLException ex) {
-                LOGGER.warn(I18N.tr("Raster columns information of tables are not available"), ex);
-            }
-            // Fetch all tables
-            try(ResultSet rs = connection.getMetaData().getTables(null, null, null, SHOWN_TABLE_TYPES)) {
-                while(rs.next()) {
-                    Map<IFilter.ATTRIBUTES, String> tableAttr = new HashMap<>(IFilter.ATTRIBUTES.values().length);
-                    TableLocation location = new TableLocation(rs);
-                    if(location.getCatalog().isEmpty()) {
-                        // PostGIS return empty catalog on metadata
-                        location = new TableLocation(defaultCatalog, location.getSchema(), location.getTable());
-                    }
-                    // Make Label
-                    StringBuilder label = new StringBuilder(addQuotesIfNecessary(location.getTable()));
-                    if(!location.getSchema().isEmpty() && !location.getSchema().equalsIgnoreCase(defaultSchema)) {
-                        label.insert(0, ".");
-                        label.insert(0, addQuotesIfNecessary(location.getSchema()));
-                    }
-                    if(!location.getCatalog().isEmpty() && !location.getCatalog().equalsIgnoreCase(defaultCatalog)) {
-                        label.insert(0, ".");
-                        label.insert(0, addQuotesIfNecessary(location.getCatalog()));
-                    }
-                    // Shortcut location for H2 database
-                    TableLocation shortLocation;
-                    if(isH2) {
-                        shortLocation = new TableLocation("",
-                                location.getSchema().equals(defaultSchema) ? "" : location.getSchema(),
-                                location.getTable());
-                    } else {
-                        shortLocation = new TableLocation(location.getCatalog().equalsIgnoreCase(defaultCatalog) ?
-                                "" : location.getCatalog(),
-                                location.getCatalog().equalsIgnoreCase(defaultCatalog) &&
-                                        location.getSchema().equalsIgnoreCase(defaultSchema) ? "" : location.getSchema(),
-                                location.getTable());
-                    }
-                    tableAttr.put(IFilter.ATTRIBUTES.LOCATION, shortLocation.toString(isH2));
-                    tableAttr.put(IFilter.ATTRIBUTES.LABEL, label.toString());
-                    for(IFilter.ATTRIBUTES attribute : IFilter.ATTRIBUTES.values()) {
-                        putAttribute(tableAttr, attribute, rs);
-                    }
-                    String type = tableGeometry.get(location.toString());
-                    if(type != null) {
-                        tableAttr.put(IFilter.ATTRIBUTES.GEOMETRY_TYPE, type);
-                    }
-                    String rasterType = tableRaster.get(location.toString());
-                    if(rasterType != null) {
-                        tableAttr.put(IFilter.ATTRIBUTES.RASTER_TYPE, rasterType);
+                Set<String> schemas = change.getSchemas();
+                for(String schema : schemas) {
+                    readTables(connection, defaultCatalog, defaultSchema, schema, null, newTables);
+                }
+                for(TableLocation table : change.getTables()) {
+                    String schema = table.getSchema().isEmpty() ? defaultSchema : table.getSchema();
+                    if(!schemas.contains(schema)) {
+                        readTables(connection, defaultCatalog, defaultSchema, schema, table.getTable(), newTables);
                     }
-                    newTables.add(tableAttr);
                 }
             }
             allTables = newTables;
@@ -332,6 +415,150 @@ public class SourceListModel extends AbstractListModel<ContainerItemProperties>
         }
     }
 
+    /**
+     * @param tableAttr Table attributes
+     * @param change Altered database objects
+     * @param defaultSchema Default schema of the connection
+     * @return True if the table is part of the change
+     */
+    private static boolean isAltered(Map<IFilter.ATTRIBUTES, String> tableAttr, DatabaseChange change,
+                                     String defaultSchema) {
+        String schema = tableAttr.get(IFilter.ATTRIBUTES.TABLE_SCHEM);
+        if(change.getSchemas().contains(schema)) {
+            return true;
+        }
+        for(TableLocation table : change.getTables()) {
+            String tableSchema = table.getSchema().isEmpty() ? defaultSchema : table.getSchema();
+            if(tableSchema.equals(schema) && table.getTable().equals(tableAttr.get(IFilter.ATTRIBUTES.TABLE_NAME))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Escape search pattern characters
+     * @param identifier Identifier
+     * @param escape Escape string
+     * @return Metadata search pattern that match only the identifier
+     */
+    private static String toSearchPattern(String identifier, String escape) {
+        if(identifier == null || escape == null || escape.isEmpty()) {
+            return identifier;
+        }
+        return identifier.replace(escape, escape + escape).replace("_", escape + "_").replace("%", escape + "%");
+    }
+
+    /**
+     * Read tables metadata
+     * @param connection Active connection
+     * @param defaultCatalog Connection catalog
+     * @param defaultSchema Connection schema
+     * @param schema Schema filter, null for all schemas
+     * @param table Table name filter, null for all tables
+     * @param tables Tables attributes, by full location
+     * @throws SQLException
+     */
+    private void readTables(Connection connection, String defaultCatalog, String defaultSchema, String schema,
+                            String table, Map<String, Map<IFilter.ATTRIBUTES, String>> tables) throws SQLException {
+        StringBuilder where = new StringBuilder();
+        List<String> whereValues = new ArrayList<>(2);
+        if(schema != null) {
+            where.append(" WHERE %s_TABLE_SCHEMA = ?");
+            whereValues.add(schema);
+            if(table != null) {
+                where.append(" AND %s_TABLE_NAME = ?");
+                whereValues.add(table);
+            }
+        }
+        // Fetch Geometry tables
+        Map<String,String> tableGeometry = new HashMap<>();
+        try(PreparedStatement st = connection.prepareStatement("SELECT * FROM "+defaultSchema+".geometry_columns" +
+                String.format(where.toString(), "F", "F"))) {
+            for(int i = 0; i < whereValues.size(); i++) {
+                st.setString(i + 1, whereValues.get(i));
+            }
+            try(ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    tableGeometry.put(new TableLocation(rs.getString("F_TABLE_CATALOG"),
+                            rs.getString("F_TABLE_SCHEMA"), rs.getString("F_TABLE_NAME")).toString(), rs.getString("TYPE"));
+                }
+            }
+        } catch (SQLException ex) {
+            LOGGER.warn(I18N.tr("Geometry columns information of tables are not available"), ex);
+        }
+        // Fetch raster table
+        Map<String,String> tableRaster = new HashMap<>();
+        try(PreparedStatement st = connection.prepareStatement("SELECT * FROM " + defaultSchema + ".raster_columns" +
+                String.format(where.toString(), "R", "R"))) {
+            for(int i = 0; i < whereValues.size(); i++) {
+                st.setString(i + 1, whereValues.get(i));
+            }
+            try(ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    tableRaster.put(new TableLocation(rs.getString("R_TABLE_CATALOG"),
+                            rs.getString("R_TABLE_SCHEMA"), rs.getString("R_TABLE_NAME")).toString(), "raster");
+                }
+            }
+        } catch (SQLException ex) {
+            LOGGER.warn(I18N.tr("Raster columns information of tables are not available"), ex);
+        }
+        // Fetch tables
+        DatabaseMetaData meta = connection.getMetaData();
+        String escape = meta.getSearchStringEscape();
+        try(ResultSet rs = meta.getTables(null, toSearchPattern(schema, escape), toSearchPattern(table, escape),
+                SHOWN_TABLE_TYPES)) {
+            while(rs.next()) {
+                Map<IFilter.ATTRIBUTES, String> tableAttr = new HashMap<>(IFilter.ATTRIBUTES.values().length);
+                TableLocation location = new TableLocation(rs);
+                if(location.getCatalog().isEmpty()) {
+                    // PostGIS return empty catalog on metadata
+                    location = new TableLocation(defaultCatalog, location.getSchema(), location.getTable());
+                }
+                // Make Label
+                StringBuilder label = new StringBuilder(addQuotesIfNecessary(location.getTable()));
+                if(!location.getSchema().isEmpty() && !location.getSchema().equalsIgnoreCase(defaultSchema)) {
+                    label.insert(0, ".");
+                    label.insert(0, addQuotesIfNecessary(location.getSchema()));
+                }
+                if(!location.getCatalog().isEmpty() && !location.getCatalog().equalsIgnoreCase(defaultCatalog)) {
+                    label.insert(0, ".");
+                    label.insert(0, addQuotesIfNecessary(location.getCatalog()));
+                }
+                // Shortcut location for H2 database
+                TableLocation shortLocation;
+                if(isH2) {
+                    shortLocation = new TableLocation("",
+                            location.getSchema().equals(defaultSchema) ? "" : location.getSchema(),
+                            location.getTable());
+                } else {
+                    shortLocation = new TableLocation(location.getCatalog().equalsIgnoreCase(defaultCatalog) ?
+                            "" : location.getCatalog(),
+                            location.getCatalog().equalsIgnoreCase(defaultCatalog) &&
+                                    location.getSchema().equalsIgnoreCase(defaultSchema) ? "" : location.getSchema(),
+                            location.getTable());
+                }
+                tableAttr.put(IFilter.ATTRIBUTES.LOCATION, shortLocation.toString(isH2));
+                tableAttr.put(IFilter.ATTRIBUTES.LABEL, label.toString());
+                for(IFilter.ATTRIBUTES attribute : IFilter.ATTRIBUTES.values()) {
+                    putAttribute(tableAttr, attribute, rs);
+                }
+                // Used to match the table with database changes
+                tableAttr.put(IFilter.ATTRIBUTES.TABLE_SCHEM, location.getSchema());
+                tableAttr.put(IFilter.ATTRIBUTES.TABLE_NAME, location.getTable());
+                String type = tableGeometry.get(location.toString());
+                if(type != null) {
+                    tableAttr.put(IFilter.ATTRIBUTES.GEOMETRY_TYPE, type);
+                }
+                String rasterType = tableRaster.get(location.toString());
+                if(rasterType != null) {
+                    tableAttr.put(IFilter.ATTRIBUTES.RASTER_TYPE, rasterType);
+                }
+                tables.put(location.toString(), tableAttr);
+            }
+        }
+    }
+
     private void putAttribute(Map<IFilter.ATTRIBUTES, String> tableAttr, IFilter.ATTRIBUTES attribute, ResultSet rs) {
         try {
             String columnName = attribute.toString().toLowerCase();
@@ -0,0 +1,220 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.logpanel;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Fixed capacity ring of log lines. When the ring is full the oldest line is overwritten.
+ * Each line keeps an absolute index, that is not changed when older lines are dropped.
+ */
+public class LogRingBuffer {
+    private Line[] lines;
+    // Position of the oldest line in the array
+    private int start = 0;
+    private int size = 0;
+    // Absolute index of the oldest line
+    private long firstIndex = 0;
+    private long droppedCount = 0;
+
+    /**
+     * @param capacity Maximum number of lines
+     */
+    public LogRingBuffer(int capacity) {
+        lines = new Line[Math.max(1, capacity)];
+    }
+
+    /**
+     * Add a line, the oldest line is dropped if the ring is full
+     * @param line New line
+     */
+    public synchronized void add(Line line) {
+        if(size == lines.length) {
+            lines[start] = line;
+            start = (start + 1) % lines.length;
+            firstIndex++;
+            droppedCount++;
+        } else {
+            lines[(start + size) % lines.length] = line;
+            size++;
+        }
+    }
+
+    /**
+     * @param index Index from the oldest line
+     * @return The line
+     */
+    public synchronized Line get(int index) {
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return lines[(start + index) % lines.length];
+    }
+
+    /**
+     * @param absoluteIndex Absolute index of the line
+     * @return The line, null if it has been dropped
+     */
+    public synchronized Line getAbsolute(long absoluteIndex) {
+        if(absoluteIndex < firstIndex || absoluteIndex >= firstIndex + size) {
+            return null;
+        }
+        return get((int)(absoluteIndex - firstIndex));
+    }
+
+    /**
+     * @return Number of lines
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return Maximum number of lines
+     */
+    public synchronized int getCapacity() {
+        return lines.length;
+    }
+
+    /**
+     * Change the maximum number of lines, the oldest lines are dropped if the new capacity is lower
+     * @param capacity Maximum number of lines
+     */
+    public synchronized void setCapacity(int capacity) {
+        Line[] newLines = new Line[Math.max(1, capacity)];
+        int kept = Math.min(size, newLines.length);
+        int dropped = size - kept;
+        for(int i = 0; i < kept; i++) {
+            newLines[i] = lines[(start + dropped + i) % lines.length];
+        }
+        lines = newLines;
+        start = 0;
+        size = kept;
+        firstIndex += dropped;
+        droppedCount += dropped;
+    }
+
+    /**
+     * @return Absolute index of the oldest line
+     */
+    public synchronized long getFirstIndex() {
+        return firstIndex;
+    }
+
+    /**
+     * @return Absolute index following the newest line
+     */
+    public synchronized long getEndIndex() {
+        return firstIndex + size;
+    }
+
+    /**
+     * @return Number of lines dropped because the ring was full
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Remove all lines, absolute indexes continue to grow
+     */
+    public synchronized void clear() {
+        for(int i = 0; i < size; i++) {
+            lines[(start + i) % lines.length] = null;
+        }
+        firstIndex += size;
+        start = 0;
+        size = 0;
+    }
+
+    /**
+     * @param text Text to find, case insensitive
+     * @param beginIndex Included absolute index to begin the search
+     * @param endIndex Excluded absolute index to end the search
+     * @return Absolute indexes of the lines that contain the text
+     */
+    public synchronized List<Long> filter(String text, long beginIndex, long endIndex) {
+        String lowerText = text.toLowerCase(Locale.getDefault());
+        List<Long> found = new ArrayList<>();
+        for(long index = Math.max(beginIndex, firstIndex); index < Math.min(endIndex, firstIndex + size); index++) {
+            if(getAbsolute(index).contains(lowerText)) {
+                found.add(index);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Log line with its color
+     */
+    public static class Line {
+        private final String text;
+        private final Color color;
+        // Lower case text for case insensitive search, computed on first search
+        private String lowerText;
+
+        public Line(String text, Color color) {
+            this.text = text;
+            this.color = color;
+        }
+
+        /**
+         * @return Line text
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * @return Line color
+         */
+        public Color getColor() {
+            return color;
+        }
+
+        /**
+         * @param lowerCaseText Lower case text
+         * @return True if this line contains the text, case insensitive
+         */
+        public boolean contains(String lowerCaseText) {
+            if(lowerText == null) {
+                lowerText = text.toLowerCase(Locale.getDefault());
+            }
+            return lowerText.contains(lowerCaseText);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+}
@@ -151,8 +151,17 @@ public class MainOutputPanel extends JPanel implements MainLogFrame {
     }
 
     @Override
+    public String getLogText(int index) {
+        return ((OutputPanel)tabbedPane.getComponentAt(index)).getText();
+    }
+
+    @Override
+    @Deprecated
     public JTextPane getLogTextPane(int index) {
-        return ((OutputPanel)tabbedPane.getTabComponentAt(index)).getTextPane();
+        JTextPane textPane = new JTextPane();
+        textPane.setText(getLogText(index));
+        textPane.setEditable(false);
+        return textPane;
     }
 
     @Override
@@ -29,66 +29,118 @@
 package org.orbisgis.logpanel;
 
 import java.awt.*;
+import java.awt.datatransfer.StringSelection;
 import java.awt.event.ActionListener;
 import java.beans.EventHandler;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import javax.swing.*;
-import javax.swing.text.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import org.orbisgis.sif.common.MenuCommonFunctions;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
+/**
+ * Show log lines kept in a {@link LogRingBuffer}. The list only renders the visible lines, and the view is updated
+ * once for all the lines printed in the same Swing event.
+ */
 public class OutputPanel extends JPanel {
-        //Root logger, for gui logger error
-        private static final Logger LOGGER = LoggerFactory.getLogger(OutputPanel.class);
         private static final I18n I18N = I18nFactory.getI18n(OutputPanel.class);
         private static final long serialVersionUID = 1L;
-        private static final int DEFAULT_MAX_CHARACTERS = 200000;
-	    private int maxCharacters = DEFAULT_MAX_CHARACTERS;
-        private JTextPane textPane;
+        private static final int DEFAULT_MAX_LINES = 10000;
+        // Longer lines are cut in the view, the whole line is kept for copy
+        private static final int MAX_SHOWN_LINE_LENGTH = 2000;
+        private LogRingBuffer ring;
+        private LogListModel listModel = new LogListModel();
+        private JList<LogRingBuffer.Line> logList;
+        private JTextField filterField;
         private Color defaultColor=Color.black;
-        
-        //Current text Attribute for insertion, change whith style update        
-        private AttributeSet aset;
-        private Color lastColor = defaultColor;
-        
+        private boolean viewUpdateScheduled = false;
+        private int maxLineLength = 0;
+        // Line length used to compute the cell width
+        private int cellLineLength = -1;
+
         /**
-         * Constructor with maxChar parameters
-         * @param viewName
-         * @param viewLabel
-         * @param maxCharacters 
+         * Constructor with maxLines parameters
+         * @param maxLines Maximum number of lines kept
          */
-        public OutputPanel(int maxCharacters) {
-            this();
-            this.maxCharacters = maxCharacters;
+        public OutputPanel(int maxLines) {
+            ring = new LogRingBuffer(maxLines);
+            init();
         }
 
         public OutputPanel() {
-                changeAttribute(lastColor); //Init attribute
-                this.setLayout(new BorderLayout());
-                textPane = new JTextPane();
-                textPane.setEditable(false);
-                textPane.setComponentPopupMenu(makePopupMenu());
-                this.add(new JScrollPane(textPane), BorderLayout.CENTER);
+            this(DEFAULT_MAX_LINES);
+        }
 
+        private void init() {
+                this.setLayout(new BorderLayout());
+                logList = new JList<>(listModel);
+                logList.setCellRenderer(new LogLineRenderer());
+                logList.setComponentPopupMenu(makePopupMenu());
+                this.add(new JScrollPane(logList), BorderLayout.CENTER);
+                // Filter
+                JPanel filterPanel = new JPanel(new BorderLayout());
+                filterPanel.add(new JLabel(I18N.tr("Filter")), BorderLayout.WEST);
+                filterField = new JTextField();
+                filterField.getDocument().addDocumentListener(EventHandler.create(DocumentListener.class, this,
+                        "onFilterChange"));
+                filterPanel.add(filterField, BorderLayout.CENTER);
+                this.add(filterPanel, BorderLayout.NORTH);
+                resetFont();
                 this.addPropertyChangeListener("UI",
                         EventHandler.create(PropertyChangeListener.class, this, "resetFont"));
         }
 
 
         public void resetFont() {
-            final Font currFont = textPane.getFont();
-            textPane.setFont(new Font(Font.MONOSPACED, currFont.getStyle(), currFont.getSize()));
+            if(logList == null) {
+                return;
+            }
+            final Font currFont = logList.getFont();
+            logList.setFont(new Font(Font.MONOSPACED, currFont.getStyle(), currFont.getSize()));
+            // Fixed cell size, the list does not have to measure each line
+            FontMetrics metrics = logList.getFontMetrics(logList.getFont());
+            logList.setFixedCellHeight(metrics.getHeight());
+            updateCellWidth();
+        }
+
+        private void updateCellWidth() {
+            FontMetrics metrics = logList.getFontMetrics(logList.getFont());
+            cellLineLength = Math.min(maxLineLength, MAX_SHOWN_LINE_LENGTH);
+            logList.setFixedCellWidth(metrics.charWidth('W') * (cellLineLength + 2));
         }
 
-    /**
-         * Get the internal text pane
-         * @return internal text pane
+        /**
+         * Get the internal list
+         * @return internal list of log lines
+         */
+        public JList<LogRingBuffer.Line> getLogList() {
+                return logList;
+        }
+
+        /**
+         * @return Lines kept by this panel
          */
-        public JTextPane getTextPane() {
-                return textPane;
+        public LogRingBuffer getLogRingBuffer() {
+            return ring;
+        }
+
+        /**
+         * @return All the lines kept by this panel
+         */
+        public String getText() {
+            StringBuilder sb = new StringBuilder();
+            for(int i = 0; i < ring.size(); i++) {
+                if(i > 0) {
+                    sb.append("\n");
+                }
+                sb.append(ring.get(i).getText());
+            }
+            return sb.toString();
         }
 
         /**
@@ -103,6 +155,11 @@ public class OutputPanel extends JPanel {
             copyItem.addActionListener(EventHandler.create(ActionListener.class, this, "onMenuCopy"));
             MenuCommonFunctions.setMnemonic(copyItem);
             rootMenu.add(copyItem);
+            //Menu->Find
+            JMenuItem findItem = new JMenuItem(I18N.tr("&Find.."));
+            findItem.addActionListener(EventHandler.create(ActionListener.class, this, "onMenuFind"));
+            MenuCommonFunctions.setMnemonic(findItem);
+            rootMenu.add(findItem);
             //Menu->Clear
             JMenuItem clearItem = new JMenuItem(I18N.tr("Clea&r"));
             clearItem.addActionListener(EventHandler.create(ActionListener.class, this, "onMenuClear"));
@@ -115,8 +172,67 @@ public class OutputPanel extends JPanel {
          * The user click on copy menu item
          */
         public void onMenuCopy() {
-            textPane.copy();
+            StringBuilder sb = new StringBuilder();
+            for(LogRingBuffer.Line line : logList.getSelectedValuesList()) {
+                if(sb.length() > 0) {
+                    sb.append("\n");
+                }
+                sb.append(line.getText());
+            }
+            if(sb.length() > 0) {
+                Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(sb.toString()), null);
+            }
+        }
+
+        /**
+         * The user click on find menu item
+         */
+        public void onMenuFind() {
+            String text = JOptionPane.showInputDialog(this, I18N.tr("Find"), I18N.tr("Find"),
+                    JOptionPane.QUESTION_MESSAGE);
+            if(text != null && !text.isEmpty()) {
+                if(findNext(text) == -1) {
+                    JOptionPane.showMessageDialog(this, I18N.tr("{0} not found", text));
+                }
+            }
+        }
+
+        /**
+         * Select the next shown line that contains the text, from the selected line. The search restarts from the
+         * first line when the end is reached.
+         * @param text Text to find, case insensitive
+         * @return Index of the selected line in the list, -1 if not found
+         */
+        public int findNext(String text) {
+            String lowerText = text.toLowerCase(Locale.getDefault());
+            int size = listModel.getSize();
+            int begin = logList.getSelectedIndex() + 1;
+            for(int i = 0; i < size; i++) {
+                int index = (begin + i) % size;
+                if(listModel.getElementAt(index).contains(lowerText)) {
+                    logList.setSelectedIndex(index);
+                    logList.ensureIndexIsVisible(index);
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * The filter text has been changed
+         */
+        public void onFilterChange() {
+            setFilter(filterField.getText());
+        }
+
+        /**
+         * Show only the lines that contain the text
+         * @param text Text to find, case insensitive, null or empty to show all lines
+         */
+        public void setFilter(String text) {
+            listModel.setFilter(text == null || text.isEmpty() ? null : text);
         }
+
         /**
          * Update the color used by print functions
          * @param defaultColor 
@@ -127,29 +243,26 @@ public class OutputPanel extends JPanel {
         
         /**
          * 
-         * @return The maximum characters shown in the document
+         * @return The maximum lines kept
          */
-        public int getMaxCharacters() {
-            return maxCharacters;
+        public int getMaxLines() {
+            return ring.getCapacity();
         }
         /**
          * 
-         * @param maxCharacters The maximum characters shown in the document
-         */
-        public void setMaxCharacters(int maxCharacters) {
-            this.maxCharacters = maxCharacters;
-            try{
-                removeAdditionnalCharacters();
-            } catch (BadLocationException e) {
-                LOGGER.error("orbisgis.view.output.CannotShowLogMessage", e);
-            }
+         * @param maxLines The maximum lines kept
+         */
+        public void setMaxLines(int maxLines) {
+            ring.setCapacity(maxLines);
+            scheduleViewUpdate();
         }
         
         /**
          * The user click on clear text button
          */
         public void onMenuClear() {
-            textPane.setText(null);
+            ring.clear();
+            scheduleViewUpdate();
         }
 
         /**
@@ -175,41 +288,156 @@ public class OutputPanel extends JPanel {
 	public void print(String text) {
 		print(text, defaultColor);
 	}
+
         /**
-         * Remove characters that exceed the limitation maxCharacter
+         * Add the provided text with the provided color, each line of the text is a new line of the panel.
+         * Must be called on the swing thread.
+         * @param text The text, a leading and a trailing carriage return are ignored
+         * @param color The color used to show the text 
          */
-        private void removeAdditionnalCharacters() throws BadLocationException {
-                if(maxCharacters > 0) {
-                    int len = textPane.getDocument().getLength();
-                    if (len > maxCharacters) 			{
-                            textPane.getDocument().remove(0, len - maxCharacters);
-                    }                    
+	public void print(String text, Color color) {
+                int begin = text.startsWith("\n") ? 1 : 0;
+                int end = text.endsWith("\n") && text.length() > begin ? text.length() - 1 : text.length();
+                for(String line : text.substring(begin, end).split("\n", -1)) {
+                    ring.add(new LogRingBuffer.Line(line, color));
+                    maxLineLength = Math.max(maxLineLength, line.length());
                 }
+                scheduleViewUpdate();
+	}
+
+        /**
+         * Update the list once all the messages of the current swing event have been printed
+         */
+        private void scheduleViewUpdate() {
+            if(!viewUpdateScheduled) {
+                viewUpdateScheduled = true;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        viewUpdateScheduled = false;
+                        updateView();
+                    }
+                });
+            }
         }
-        
-        private void changeAttribute(Color color) {
-            lastColor = color;
-            StyleContext sc = StyleContext.getDefaultStyleContext();
-            aset = sc.addAttribute(SimpleAttributeSet.EMPTY,
-                            StyleConstants.Foreground, color);            
+
+        private void updateView() {
+            // Follow the new lines only if the last line was visible
+            int lastIndex = listModel.getSize() - 1;
+            boolean followEnd = lastIndex < 0 || logList.getLastVisibleIndex() >= lastIndex - 1;
+            listModel.update();
+            if(Math.min(maxLineLength, MAX_SHOWN_LINE_LENGTH) > cellLineLength) {
+                updateCellWidth();
+            }
+            if(followEnd && listModel.getSize() > 0) {
+                logList.ensureIndexIsVisible(listModel.getSize() - 1);
+            }
         }
+
         /**
-         * Add the provided text with the provided color to the GUI document
-         * @param text The text that will be added without adding a carriage return
-         * @param color The color used to show the text 
+         * List model on the ring buffer, with an optional filter.
          */
-	public void print(String text, Color color) {
-                if(!color.equals(lastColor)) {
-                    changeAttribute(color);
+        private class LogListModel extends AbstractListModel<LogRingBuffer.Line> {
+            private static final long serialVersionUID = 1L;
+            // Absolute indexes range of the lines known by the list
+            private long shownFirst = 0;
+            private long shownEnd = 0;
+            // Lower case filter, null if all lines are shown
+            private String filter = null;
+            // Absolute index of the filtered lines
+            private List<Long> filtered = new ArrayList<>();
+
+            @Override
+            public int getSize() {
+                return filter == null ? (int)(shownEnd - shownFirst) : filtered.size();
+            }
+
+            @Override
+            public LogRingBuffer.Line getElementAt(int index) {
+                LogRingBuffer.Line line = ring.getAbsolute(filter == null ? shownFirst + index : filtered.get(index));
+                // The line may have been dropped before the update of the list
+                return line != null ? line : new LogRingBuffer.Line("", defaultColor);
+            }
+
+            /**
+             * Apply a new filter
+             * @param text Text to find, null to show all lines
+             */
+            public void setFilter(String text) {
+                int oldSize = getSize();
+                if(oldSize > 0) {
+                    filter = null;
+                    shownFirst = shownEnd;
+                    filtered.clear();
+                    fireIntervalRemoved(this, 0, oldSize - 1);
                 }
-		int len = textPane.getDocument().getLength();
-		try {
-			textPane.setCaretPosition(len);
-			textPane.getDocument().insertString(len, text, aset);
-                        removeAdditionnalCharacters();
-		} catch (BadLocationException e) {
-			LOGGER.error(I18N.tr("Cannot show the log message"), e);
-		}
-		textPane.setCaretPosition(textPane.getDocument().getLength());
-	}
+                filter = text == null ? null : text.toLowerCase(Locale.getDefault());
+                shownFirst = ring.getFirstIndex();
+                shownEnd = shownFirst;
+                update();
+            }
+
+            /**
+             * Read the lines added and removed from the ring since the last update
+             */
+            public void update() {
+                long first = ring.getFirstIndex();
+                long end = ring.getEndIndex();
+                if(filter == null) {
+                    int removed = (int)(Math.min(first, shownEnd) - shownFirst);
+                    if(removed > 0) {
+                        shownFirst += removed;
+                        fireIntervalRemoved(this, 0, removed - 1);
+                    }
+                    // After a clear, the ring may begin after the last shown line
+                    shownFirst = Math.max(shownFirst, first);
+                    shownEnd = Math.max(shownEnd, shownFirst);
+                    int oldSize = getSize();
+                    shownEnd = end;
+                    if(getSize() > oldSize) {
+                        fireIntervalAdded(this, oldSize, getSize() - 1);
+                    }
+                } else {
+                    int removed = 0;
+                    while(removed < filtered.size() && filtered.get(removed) < first) {
+                        removed++;
+                    }
+                    if(removed > 0) {
+                        filtered.subList(0, removed).clear();
+                        fireIntervalRemoved(this, 0, removed - 1);
+                    }
+                    int oldSize = filtered.size();
+                    filtered.addAll(ring.filter(filter, Math.max(shownEnd, first), end));
+                    shownFirst = first;
+                    shownEnd = end;
+                    if(filtered.size() > oldSize) {
+                        fireIntervalAdded(this, oldSize, filtered.size() - 1);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Render a log line with its color
+         */
+        private static class LogLineRenderer extends DefaultListCellRenderer {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected,
+                                                          boolean cellHasFocus) {
+                LogRingBuffer.Line line = (LogRingBuffer.Line) value;
+                String text = line.getText();
+                if(text.length() > MAX_SHOWN_LINE_LENGTH) {
+                    text = text.substring(0, MAX_SHOWN_LINE_LENGTH) + "...";
+                }
+                // An empty label would have no height
+                super.getListCellRendererComponent(list, text.isEmpty() ? " " : text, index, isSelected,
+                        cellHasFocus);
+                if(!isSelected) {
+                    setForeground(line.getColor());
+                }
+                return this;
+            }
+        }
 }
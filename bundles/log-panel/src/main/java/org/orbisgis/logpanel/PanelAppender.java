@@ -29,19 +29,28 @@
 package org.orbisgis.logpanel;
 
 import java.awt.Color;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
-import javax.swing.SwingUtilities;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.Timer;
 import org.orbisgis.commons.events.EventException;
 import org.orbisgis.commons.events.Listener;
 import org.orbisgis.commons.events.ListenerContainer;
 import org.osgi.service.log.LogEntry;
 import org.osgi.service.log.LogListener;
 import org.osgi.service.log.LogService;
+import org.xnap.commons.i18n.I18n;
+import org.xnap.commons.i18n.I18nFactory;
 
 /**
  * A LOG4J Appender connected with the LogPanel.
+ * Log entries are kept in a bounded queue, the oldest entries are dropped when the panel can not follow. The queue
+ * is pushed to the panel at most once per {@link #FLUSH_INTERVAL}.
  */
 public class PanelAppender implements LogListener {
     public interface ShowMessageListener extends Listener<ShowMessageEventData> {
@@ -49,6 +58,11 @@ public class PanelAppender implements LogListener {
     }
     //New duplicata message is ignored if the time interval is lower than this constant value.
     public static final int SAME_MESSAGE_IGNORE_INTERVAL = 500; //ms
+    //Minimal interval between two updates of the gui
+    public static final int FLUSH_INTERVAL = 40; //ms
+    //Maximum number of log entries waiting for the gui
+    public static final int QUEUE_CAPACITY = 10000;
+    private static final I18n I18N = I18nFactory.getI18n(PanelAppender.class);
     public static final Color COLOR_ERROR = Color.RED;
     public static final Color COLOR_WARNING = Color.ORANGE.darker();
     public static final Color COLOR_DEBUG = Color.BLUE;
@@ -62,8 +76,12 @@ public class PanelAppender implements LogListener {
     private int levelMaxFilter;
     
     //Messages are stored here before being pushed in the gui
-    private Queue<LogEntry> leQueue = new LinkedList<>();
-    private AtomicBoolean processingQueue=new AtomicBoolean(false); /*!< If true a swing runnable */
+    private BlockingQueue<LogEntry> leQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private AtomicBoolean processingQueue=new AtomicBoolean(false); /*!< If true a gui update is scheduled */
+    //Entries dropped since the last gui update
+    private AtomicLong droppedEntries = new AtomicLong(0);
+    private AtomicLong totalDroppedEntries = new AtomicLong(0);
+    private Timer flushTimer;
     
     private ListenerContainer<ShowMessageEventData> messageEvent = new ListenerContainer<ShowMessageEventData>();
 
@@ -109,16 +127,31 @@ public class PanelAppender implements LogListener {
         this.guiPanel = guiPanel;
         this.levelMinFilter = levelMinFilter;
         this.levelMaxFilter = levelMaxFilter;
+        flushTimer = new Timer(FLUSH_INTERVAL, new ShowMessage());
+        flushTimer.setRepeats(false);
+    }
+
+    /**
+     * @return Number of log entries dropped because the gui could not follow
+     */
+    public long getDroppedEntriesCount() {
+        return totalDroppedEntries.get();
     }
 
 
     @Override
     public void logged(LogEntry entry) {
         if(entry.getLevel() >= levelMinFilter && entry.getLevel() <= levelMaxFilter) {
-            leQueue.add(entry);
-            // Show the application when Swing will be ready
+            // Drop the oldest entries if the queue is full
+            while (!leQueue.offer(entry)) {
+                if (leQueue.poll() != null) {
+                    droppedEntries.incrementAndGet();
+                    totalDroppedEntries.incrementAndGet();
+                }
+            }
+            // Show the messages at the next gui update
             if (!processingQueue.getAndSet(true)) {
-                SwingUtilities.invokeLater(new ShowMessage());
+                flushTimer.restart();
             }
         }
     }
@@ -139,35 +172,40 @@ public class PanelAppender implements LogListener {
    /**
     * Push awaiting messages to the gui
     */ 
-   private class ShowMessage implements Runnable {
+   private class ShowMessage implements ActionListener {
        /**
         * Push awaiting messages to the gui
         */
         @Override
-        public void run(){
-            try {
-                while(!leQueue.isEmpty()) {
-                    LogEntry le = leQueue.poll();
-                    if(le.getMessage() != null) {
-                        int messageHash = le.getMessage().hashCode();
-                        if(messageHash!=lastMessageHash ||
-                            le.getTime()-lastMessageTime > SAME_MESSAGE_IGNORE_INTERVAL) {
-                            lastMessageHash = messageHash;
-                            lastMessageTime = le.getTime();
-                            //Update the color if the level change
-                            if(le.getLevel() != lastLevel) {
-                                lastLevel = le.getLevel();
-                                lastLevelColor = getLevelColor(lastLevel);
-                                guiPanel.setDefaultColor(lastLevelColor);
-                            }
-                            String message = "\n"+le.getMessage();
-                            guiPanel.print(message);
-                            firePrintMessage(message,lastLevelColor);
+        public void actionPerformed(ActionEvent actionEvent){
+            // Entries logged from now will schedule a new update
+            processingQueue.set(false);
+            List<LogEntry> entries = new ArrayList<>(leQueue.size());
+            leQueue.drainTo(entries);
+            long dropped = droppedEntries.getAndSet(0);
+            if(dropped > 0) {
+                String message = "\n" + I18N.tr("{0} log messages have been dropped", dropped);
+                guiPanel.print(message, COLOR_WARNING);
+                firePrintMessage(message, COLOR_WARNING);
+            }
+            for(LogEntry le : entries) {
+                if(le.getMessage() != null) {
+                    int messageHash = le.getMessage().hashCode();
+                    if(messageHash!=lastMessageHash ||
+                        le.getTime()-lastMessageTime > SAME_MESSAGE_IGNORE_INTERVAL) {
+                        lastMessageHash = messageHash;
+                        lastMessageTime = le.getTime();
+                        //Update the color if the level change
+                        if(le.getLevel() != lastLevel) {
+                            lastLevel = le.getLevel();
+                            lastLevelColor = getLevelColor(lastLevel);
+                            guiPanel.setDefaultColor(lastLevelColor);
                         }
+                        String message = "\n"+le.getMessage();
+                        guiPanel.print(message);
+                        firePrintMessage(message,lastLevelColor);
                     }
                 }
-            } finally {
-                processingQueue.set(false);                
             }
         }
     }
@@ -7,10 +7,20 @@ import javax.swing.JTextPane;
  * @author Nicolas Fortin
  */
 public interface MainLogFrame {
+    /**
+     * Retrieve the lines kept by a logging tab
+     * @param index Tab index
+     * @return Log text
+     */
+    String getLogText(int index);
+
     /**
      * Retrieve text pane
-     * @return Text pane instance
+     * @param index Tab index
+     * @return A read-only text pane that contains a copy of the log text, it is not updated with the new lines
+     * @deprecated The log is no longer shown in a text pane, use {@link #getLogText(int)}
      */
+    @Deprecated
     JTextPane getLogTextPane(int index);
 
     /**
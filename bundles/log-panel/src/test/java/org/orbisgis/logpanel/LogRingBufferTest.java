@@ -0,0 +1,134 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.logpanel;
+
+import org.junit.Test;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit test of {@link LogRingBuffer}
+ */
+public class LogRingBufferTest {
+
+    private static void addLines(LogRingBuffer buffer, int begin, int end) {
+        for(int i = begin; i < end; i++) {
+            buffer.add(new LogRingBuffer.Line("line " + i, Color.BLACK));
+        }
+    }
+
+    @Test
+    public void testDropOldestLines() {
+        LogRingBuffer buffer = new LogRingBuffer(5);
+        addLines(buffer, 0, 3);
+        assertEquals(3, buffer.size());
+        assertEquals(0, buffer.getDroppedCount());
+        addLines(buffer, 3, 12);
+        assertEquals(5, buffer.size());
+        assertEquals(7, buffer.getDroppedCount());
+        assertEquals(7, buffer.getFirstIndex());
+        assertEquals(12, buffer.getEndIndex());
+        for(int i = 0; i < buffer.size(); i++) {
+            assertEquals("line " + (i + 7), buffer.get(i).getText());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        LogRingBuffer buffer = new LogRingBuffer(5);
+        addLines(buffer, 0, 2);
+        buffer.get(2);
+    }
+
+    @Test
+    public void testAbsoluteIndex() {
+        LogRingBuffer buffer = new LogRingBuffer(4);
+        addLines(buffer, 0, 10);
+        // Dropped lines
+        assertNull(buffer.getAbsolute(5));
+        assertEquals("line 6", buffer.getAbsolute(6).getText());
+        assertEquals("line 9", buffer.getAbsolute(9).getText());
+        // Not added yet
+        assertNull(buffer.getAbsolute(10));
+        // Absolute indexes continue to grow after clear
+        buffer.clear();
+        assertEquals(0, buffer.size());
+        assertEquals(10, buffer.getFirstIndex());
+        assertEquals(10, buffer.getEndIndex());
+        assertEquals(6, buffer.getDroppedCount());
+        addLines(buffer, 10, 12);
+        assertNull(buffer.getAbsolute(9));
+        assertEquals("line 10", buffer.getAbsolute(10).getText());
+        assertEquals("line 11", buffer.get(1).getText());
+    }
+
+    @Test
+    public void testSetCapacity() {
+        LogRingBuffer buffer = new LogRingBuffer(5);
+        addLines(buffer, 0, 8);
+        // Lower capacity, the oldest lines are dropped
+        buffer.setCapacity(2);
+        assertEquals(2, buffer.getCapacity());
+        assertEquals(2, buffer.size());
+        assertEquals(6, buffer.getFirstIndex());
+        assertEquals(8, buffer.getEndIndex());
+        assertEquals(6, buffer.getDroppedCount());
+        assertEquals("line 6", buffer.get(0).getText());
+        assertEquals("line 7", buffer.get(1).getText());
+        // Greater capacity, lines are kept
+        buffer.setCapacity(4);
+        assertEquals(2, buffer.size());
+        addLines(buffer, 8, 11);
+        assertEquals(4, buffer.size());
+        assertEquals(7, buffer.getFirstIndex());
+        assertEquals(7, buffer.getDroppedCount());
+        assertEquals("line 7", buffer.getAbsolute(7).getText());
+        assertEquals("line 10", buffer.get(3).getText());
+        // Capacity is at least one line
+        buffer.setCapacity(0);
+        assertEquals(1, buffer.getCapacity());
+        assertEquals("line 10", buffer.get(0).getText());
+        assertEquals(10, buffer.getFirstIndex());
+    }
+
+    @Test
+    public void testFilter() {
+        LogRingBuffer buffer = new LogRingBuffer(10);
+        addLines(buffer, 0, 15);
+        buffer.add(new LogRingBuffer.Line("ERROR Line", Color.RED));
+        // Lines 0 to 5 are dropped
+        assertEquals(Arrays.asList(10L, 11L, 12L, 13L, 14L), buffer.filter("LINE 1", 0, 15));
+        assertEquals(Arrays.asList(12L, 13L), buffer.filter("line 1", 12, 14));
+        assertEquals(Arrays.asList(15L), buffer.filter("error", 0, Long.MAX_VALUE));
+    }
+}
@@ -34,6 +34,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -45,7 +46,7 @@ import org.orbisgis.corejdbc.MetaData;
 import org.orbisgis.corejdbc.ReadRowSet;
 import org.orbisgis.coremap.layerModel.ILayer;
 import org.orbisgis.coremap.renderer.DefaultResultSetProviderFactory;
-import org.orbisgis.coremap.renderer.ResultSetProviderFactory;
+import org.orbisgis.coremap.renderer.ProjectedResultSetProviderFactory;
 import org.orbisgis.commons.progress.ProgressMonitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,7 +57,7 @@ import org.xnap.commons.i18n.I18nFactory;
  * Use and keep ReadRowSet instance instead of native ResultSet.
  * @author Nicolas Fortin
  */
-public class CachedResultSetContainer implements ResultSetProviderFactory {
+public class CachedResultSetContainer implements ProjectedResultSetProviderFactory {
     private final Map<String, ReadRowSet> cache = new HashMap<>();
     private static final int LOCK_TIMEOUT = 10;
     private static final int FETCH_SIZE = 50;
@@ -76,6 +77,12 @@ public class CachedResultSetContainer implements ResultSetProviderFactory {
 
     @Override
     public ResultSetProvider getResultSetProvider(ILayer layer,String[] extraFields, ProgressMonitor pm) throws SQLException {
+        return getResultSetProvider(layer, null, extraFields, pm);
+    }
+
+    @Override
+    public ResultSetProvider getResultSetProvider(ILayer layer, Set<String> fields, String[] extraFields,
+                                                  ProgressMonitor pm) throws SQLException {
         try {
             if(lock.tryLock(WAIT_FOR_INITIALISATION_TIMEOUT, TimeUnit.MILLISECONDS)) {
                 boolean isH2;
@@ -88,17 +95,19 @@ public class CachedResultSetContainer implements ResultSetProviderFactory {
                 }
                 if(!isH2) {
                     // Always use cursor with PostGIS
-                    return defaultFactory.getResultSetProvider(layer, extraFields ,pm);
+                    return defaultFactory.getResultSetProvider(layer, fields, extraFields ,pm);
                 }
                 ReadRowSet readRowSet = cache.get(tableRef);
                 DefaultResultSetProviderFactory.DefaultResultSetProvider defaultResultSetProvider =
-                        defaultFactory.getResultSetProvider(layer,extraFields, pm);
+                        defaultFactory.getResultSetProvider(layer, fields, extraFields, pm);
                 if (readRowSet == null) {
                     readRowSet = layer.getDataManager().createReadRowSet();
                     // If the used PK is hidden (because it is system pk)
                     if(integerPK.isEmpty() || extraFields.length > 0) {
                         try(Connection connection = layer.getDataManager().getDataSource().getConnection()) {
-                            readRowSet.setCommand(defaultResultSetProvider.getQuery(connection, false));
+                            // The cached row set is shared by all styles, it keeps all columns
+                            readRowSet.setCommand(defaultFactory.getResultSetProvider(layer, extraFields, pm)
+                                    .getQuery(connection, false));
                         }
                     }
                     readRowSet.setFetchSize(FETCH_SIZE);
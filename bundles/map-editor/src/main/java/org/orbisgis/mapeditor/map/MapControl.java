@@ -44,6 +44,8 @@ import org.orbisgis.coremap.map.MapTransform;
 import org.orbisgis.coremap.map.TransformListener;
 import org.orbisgis.coremap.renderer.DefaultResultSetProviderFactory;
 import org.orbisgis.coremap.renderer.ImageRenderer;
+import org.orbisgis.coremap.renderer.PointClusterCache;
+import org.orbisgis.coremap.renderer.ScreenHitIndex;
 import org.orbisgis.coremap.renderer.Renderer;
 import org.orbisgis.coremap.renderer.ResultSetProviderFactory;
 import org.orbisgis.mapeditor.map.tool.Automaton;
@@ -95,6 +97,7 @@ public class MapControl extends JComponent implements ContainerListener {
         private static final long serialVersionUID = 1L;
         private AtomicBoolean awaitingDrawing=new AtomicBoolean(false); /*!< A drawing process is currently requested, it is useless to request another */
     private ExecutorService executorService;
+    private PointClusterCache pointClusterCache = new PointClusterCache();
 
     /** The map will draw the last generated image without querying the data. */
 	public static final int UPDATED = 0;
@@ -119,6 +122,8 @@ public class MapControl extends JComponent implements ContainerListener {
 
 	private boolean showCoordinates = true;
 
+	private Renderer.PointAggregation pointAggregation = Renderer.PointAggregation.NONE;
+
 
 	TransformListener element;
 
@@ -145,6 +150,7 @@ public class MapControl extends JComponent implements ContainerListener {
 
     public void setExecutorService(ExecutorService executorService) {
         this.executorService = executorService;
+        pointClusterCache.setExecutor(executorService);
     }
 
     private void execute(SwingWorker swingWorker) {
@@ -192,6 +198,9 @@ public class MapControl extends JComponent implements ContainerListener {
 
         //Component event invalidate the picture
         this.addComponentListener(EventHandler.create(ComponentListener.class, this, "invalidateImage"));
+        // Draw the clusters as soon as they are available
+        pointClusterCache.addPropertyChangeListener(EventHandler.create(PropertyChangeListener.class, this,
+                "invalidateImage"));
         // Add editable element listen transform event
         if (element != null) {
             mapTransform.addTransformListener(element);
@@ -232,6 +241,9 @@ public class MapControl extends JComponent implements ContainerListener {
         if(resultSetProviderFactory instanceof  CachedResultSetContainer) {
             ((CachedResultSetContainer) resultSetProviderFactory).clearCache();
         }
+        if(toolManager != null) {
+            toolManager.setScreenHitIndex(null);
+        }
         for(ILayer layer : getMapContext().getLayers()) {
             layer.clearCache();
         }
@@ -404,9 +416,18 @@ public class MapControl extends JComponent implements ContainerListener {
                 beginDrawing = System.currentTimeMillis();
                 renderer = new ImageRenderer();
                 renderer.setRsProvider(resultSetProviderFactory);
+                renderer.setPointAggregation(mapControl.getPointAggregation());
+                renderer.setPointClusterCache(mapControl.pointClusterCache);
+                ScreenHitIndex screenHitIndex = new ScreenHitIndex(mapControl.getMapTransform());
+                renderer.setScreenHitIndex(screenHitIndex);
                 updateViewTime.start();
                 rendererImage = mapControl.getMapTransform().getImage();
                 renderer.draw(mapControl.getMapTransform(), mapContext.getLayerModel(), this.getProgressMonitor());
+                // Answer the identify and selection tools from the drawn features, only the completely drawn
+                // layers are in the index
+                if(mapControl.toolManager != null) {
+                    mapControl.toolManager.setScreenHitIndex(screenHitIndex);
+                }
                 LOGGER.info(I18N.tr("Rendering done in {0} seconds", (System.currentTimeMillis() - beginDrawing) /
                         1000.0));
             } catch (Exception ex) {
@@ -488,6 +509,7 @@ public class MapControl extends JComponent implements ContainerListener {
                 if(!layerTable.isEmpty() && TableLocation.parse(layerTable).equals(tableName)) {
                     layer.setSelection(new HashSet<Long>());
                     layer.clearCache();
+                    mapControl.pointClusterCache.removeIndex(layerTable);
                     // The trigger may be lost
                     mapControl.addLayerListenerRecursively(layer, this);
                     break;
@@ -586,6 +608,7 @@ public class MapControl extends JComponent implements ContainerListener {
 		 * if (drawer != null) { drawer.cancel(); }
 		 */
             clearCache();
+            pointClusterCache.clear();
             if(toolManager!=null) {
                 toolManager.freeResources();
                 toolManager = null;
@@ -602,6 +625,24 @@ public class MapControl extends JComponent implements ContainerListener {
 		return showCoordinates;
 	}
 
+        /**
+         * @return Drawing mode of the point layers
+         */
+        public Renderer.PointAggregation getPointAggregation() {
+                return pointAggregation;
+        }
+
+        /**
+         * Change the drawing mode of the point layers and draw the map again.
+         * @param pointAggregation Drawing mode of the point layers
+         */
+        public void setPointAggregation(Renderer.PointAggregation pointAggregation) {
+                if(this.pointAggregation != pointAggregation) {
+                        this.pointAggregation = pointAggregation;
+                        invalidateImage();
+                }
+        }
+
 	@Override
 	public void componentAdded(ContainerEvent e) {
 
@@ -85,6 +85,7 @@ import org.orbisgis.coremap.layerModel.MapContext;
 import org.orbisgis.coremap.map.MapTransform;
 import org.orbisgis.coremap.map.TransformListener;
 import org.orbisgis.coremap.process.ZoomToSelection;
+import org.orbisgis.coremap.renderer.Renderer;
 import org.orbisgis.coremap.renderer.ResultSetProviderFactory;
 import org.orbisgis.editorjdbc.jobs.CreateSourceFromSelection;
 import org.orbisgis.mapeditor.map.ext.MapEditorAction;
@@ -576,6 +577,27 @@ public class MapEditor extends JPanel implements TransformListener, MapEditorExt
         actions.addAction(new ActionAutomaton(MapEditorAction.A_PICK_COORDINATES, new PickCoordinatesPointTool(),this)
                 .setParent(MapEditorAction.A_DRAWING_GROUP));
 
+        // Drawing of the dense point layers
+        actions.addAction(new DefaultAction(MapEditorAction.A_POINT_AGGREGATION_GROUP,
+                I18N.tr("Point layers drawing")).setMenuGroup(true));
+        actions.addAction(new DefaultAction(MapEditorAction.A_POINT_AGGREGATION_NONE, I18N.tr("Draw all the points"),
+                null, EventHandler.create(ActionListener.class, this, "onDrawAllPoints"))
+                .setToolTipText(I18N.tr("Draw every point of the point layers"))
+                .setParent(MapEditorAction.A_POINT_AGGREGATION_GROUP)
+                .setButtonGroup(MapEditorAction.TOGGLE_GROUP_POINT_AGGREGATION).setSelected(true));
+        actions.addAction(new DefaultAction(MapEditorAction.A_POINT_AGGREGATION_REPRESENTATIVE,
+                I18N.tr("Draw one point per pixel"), null,
+                EventHandler.create(ActionListener.class, this, "onDrawRepresentativePoints"))
+                .setToolTipText(I18N.tr("Faster on dense layers, the rendering is the same with opaque symbols"))
+                .setParent(MapEditorAction.A_POINT_AGGREGATION_GROUP)
+                .setButtonGroup(MapEditorAction.TOGGLE_GROUP_POINT_AGGREGATION));
+        actions.addAction(new DefaultAction(MapEditorAction.A_POINT_AGGREGATION_DENSITY,
+                I18N.tr("Draw the point density"), null,
+                EventHandler.create(ActionListener.class, this, "onDrawPointDensity"))
+                .setToolTipText(I18N.tr("Draw the number of points by cell instead of the layer styles"))
+                .setParent(MapEditorAction.A_POINT_AGGREGATION_GROUP)
+                .setButtonGroup(MapEditorAction.TOGGLE_GROUP_POINT_AGGREGATION));
+
         // Maps manager
         actions.addAction(new DefaultAction(MapEditorAction.A_MAP_TREE, I18N.tr("Maps manager"),
                 MapEditorIcons.getIcon("map_manager"),
@@ -609,6 +631,27 @@ public class MapEditor extends JPanel implements TransformListener, MapEditorExt
         mapControl.invalidateImage();
     }
 
+    /**
+     * User select the drawing of all the points
+     */
+    public void onDrawAllPoints() {
+        mapControl.setPointAggregation(Renderer.PointAggregation.NONE);
+    }
+
+    /**
+     * User select the drawing of one point per pixel
+     */
+    public void onDrawRepresentativePoints() {
+        mapControl.setPointAggregation(Renderer.PointAggregation.REPRESENTATIVE);
+    }
+
+    /**
+     * User select the drawing of the point density
+     */
+    public void onDrawPointDensity() {
+        mapControl.setPointAggregation(Renderer.PointAggregation.DENSITY);
+    }
+
     /**
      * User click on the Show/Hide maps tree
      */
@@ -42,12 +42,14 @@ public interface MapEditorAction extends ActionFactoryService<MapEditorExtension
      */
     public static final String TOGGLE_GROUP_AUTOMATONS = "automatons";
     public static final String TOGGLE_GROUP_DATA_PROVIDERS = "DATA_PROVIDERS";
+    public static final String TOGGLE_GROUP_POINT_AGGREGATION = "POINT_AGGREGATION";
     // Map editor Actions ID
     // Group
     public static final String A_MEASURE_GROUP = "A_MEASURE_GROUP";
     public static final String A_DRAWING_GROUP = "A_DRAWING_GROUP";
     public static final String A_CLEAR_SELECTION_GROUP = "A_CLEAR_SELECTION_GROUP";    
     public static final String A_ZOOM_SELECTION_GROUP = "A_ZOOM_SELECTION_GROUP";
+    public static final String A_POINT_AGGREGATION_GROUP = "A_POINT_AGGREGATION_GROUP";
 
     // Built-in Automaton
     public static final String A_ZOOM_IN = "A_ZOOM_IN";
@@ -71,6 +73,9 @@ public interface MapEditorAction extends ActionFactoryService<MapEditorExtension
     public static final String A_MAP_TREE = "A_MAP_TREE";
     public static final String A_MAP_EXPORT_IMAGE = "A_MAP_EXPORT_IMAGE";
     public static final String A_MAP_CLEAR_CACHE = "A_MAP_CLEAR_CACHE";
+    public static final String A_POINT_AGGREGATION_NONE = "A_POINT_AGGREGATION_NONE";
+    public static final String A_POINT_AGGREGATION_REPRESENTATIVE = "A_POINT_AGGREGATION_REPRESENTATIVE";
+    public static final String A_POINT_AGGREGATION_DENSITY = "A_POINT_AGGREGATION_DENSITY";
 
     // Parameters
     public static final String A_PARAMETERS = "A_PARAMETERS";
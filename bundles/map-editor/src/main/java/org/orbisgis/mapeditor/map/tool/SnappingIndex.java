@@ -0,0 +1,323 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.mapeditor.map.tool;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.LineSegment;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.index.quadtree.Quadtree;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import org.orbisgis.corejdbc.common.LongUnion;
+import org.orbisgis.coremap.layerModel.ILayer;
+import org.orbisgis.coremap.renderer.ScreenHitIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Vertices and segments of the features shown on the map, used to snap the mouse cursor of the editing tools.
+ * The coordinates of each geometry part are split in chunks of {@link #CHUNK_SIZE} segments, the chunk envelopes
+ * are kept in a packed {@link STRtree}. A query reads the few chunks around the cursor, so it does not depend on
+ * the number of visible vertices.
+ *
+ * The packed tree cannot be updated. Edited features are hidden in the tree and their new geometry is kept in a
+ * small {@link Quadtree} until the next drawing builds a new index.
+ *
+ * The index has its own coordinate budget. A layer that does not fit in it is not snapped at all, the active layer
+ * is added first so the edited features are snapped even if the map shows many other vertices.
+ */
+public class SnappingIndex {
+    /** Maximum number of segments in a chunk */
+    public static final int CHUNK_SIZE = 32;
+    /** Default maximum number of kept coordinates, all layers included (about 16 MB) */
+    public static final long DEFAULT_MAX_COORDINATES = 1000000;
+    private final long maxCoordinates;
+    private long coordinates = 0;
+    private final STRtree tree = new STRtree();
+    private final Quadtree editedChunks = new Quadtree();
+    private final Map<ILayer, Map<Long, List<Chunk>>> editedFeatures = new IdentityHashMap<>();
+    private final Map<ILayer, LongUnion> hiddenFeatures = new IdentityHashMap<>();
+    private final Set<ILayer> hiddenLayers = Collections.newSetFromMap(new IdentityHashMap<ILayer, Boolean>());
+    private final LineSegment segment = new LineSegment();
+    private boolean built = false;
+
+    /**
+     * Snapping index limited to {@link #DEFAULT_MAX_COORDINATES}
+     */
+    public SnappingIndex() {
+        this(DEFAULT_MAX_COORDINATES);
+    }
+
+    /**
+     * @param maxCoordinates Maximum number of kept coordinates
+     */
+    public SnappingIndex(long maxCoordinates) {
+        this.maxCoordinates = maxCoordinates;
+    }
+
+    /**
+     * @param screenHitIndex Features of the last drawing
+     * @param firstLayer Layer added first, usually the active layer, may be null
+     * @return Snapping index of the drawn features
+     */
+    public static SnappingIndex create(ScreenHitIndex screenHitIndex, ILayer firstLayer) {
+        return create(screenHitIndex, firstLayer, DEFAULT_MAX_COORDINATES);
+    }
+
+    /**
+     * @param screenHitIndex Features of the last drawing
+     * @param firstLayer Layer added first, usually the active layer, may be null
+     * @param maxCoordinates Maximum number of kept coordinates
+     * @return Snapping index of the drawn features
+     */
+    public static SnappingIndex create(ScreenHitIndex screenHitIndex, ILayer firstLayer, long maxCoordinates) {
+        final SnappingIndex index = new SnappingIndex(maxCoordinates);
+        List<ILayer> layers = screenHitIndex.getLayers();
+        if (firstLayer != null && layers.remove(firstLayer)) {
+            layers.add(0, firstLayer);
+        }
+        ScreenHitIndex.FeatureVisitor visitor = new ScreenHitIndex.FeatureVisitor() {
+            @Override
+            public void visit(ILayer layer, long pk, Geometry geometry) {
+                index.addFeature(layer, pk, geometry);
+            }
+        };
+        for (ILayer layer : layers) {
+            // Do not decode the layers that cannot fit
+            if (index.coordinates + screenHitIndex.getCoordinateCount(layer) <= maxCoordinates) {
+                screenHitIndex.visitFeatures(layer, visitor);
+            }
+        }
+        index.build();
+        return index;
+    }
+
+    /**
+     * Add a feature. Before {@link #build()} the feature goes to the packed tree, after it is kept as an edited
+     * feature. If the coordinate budget is exceeded the whole layer is removed, see {@link #removeLayer(ILayer)}.
+     * @param layer Feature layer
+     * @param pk Feature primary key
+     * @param geometry Feature geometry
+     */
+    public synchronized void addFeature(ILayer layer, long pk, Geometry geometry) {
+        if (hiddenLayers.contains(layer) && !built) {
+            return;
+        }
+        int count = geometry.getNumPoints();
+        if (coordinates + count > maxCoordinates) {
+            removeLayer(layer);
+            return;
+        }
+        coordinates += count;
+        List<Chunk> chunks = new ArrayList<>();
+        addChunks(layer, pk, geometry, chunks);
+        if (!built) {
+            for (Chunk chunk : chunks) {
+                tree.insert(chunk.envelope, chunk);
+            }
+        } else {
+            for (Chunk chunk : chunks) {
+                editedChunks.insert(chunk.envelope, chunk);
+            }
+            Map<Long, List<Chunk>> layerFeatures = editedFeatures.get(layer);
+            if (layerFeatures == null) {
+                layerFeatures = new HashMap<>();
+                editedFeatures.put(layer, layerFeatures);
+            }
+            layerFeatures.put(pk, chunks);
+        }
+    }
+
+    /**
+     * Pack the features added so far.
+     */
+    public synchronized void build() {
+        tree.build();
+        built = true;
+    }
+
+    /**
+     * Hide a feature, it is no longer used for snapping.
+     * @param layer Feature layer
+     * @param pk Feature primary key
+     */
+    public synchronized void removeFeature(ILayer layer, long pk) {
+        LongUnion hidden = hiddenFeatures.get(layer);
+        if (hidden == null) {
+            hidden = new LongUnion();
+            hiddenFeatures.put(layer, hidden);
+        }
+        hidden.add(pk);
+        Map<Long, List<Chunk>> layerFeatures = editedFeatures.get(layer);
+        if (layerFeatures != null) {
+            List<Chunk> chunks = layerFeatures.remove(pk);
+            if (chunks != null) {
+                for (Chunk chunk : chunks) {
+                    editedChunks.remove(chunk.envelope, chunk);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hide all the features of a layer, they are no longer used for snapping.
+     * @param layer Layer
+     */
+    public synchronized void removeLayer(ILayer layer) {
+        hiddenLayers.add(layer);
+        hiddenFeatures.remove(layer);
+        Map<Long, List<Chunk>> layerFeatures = editedFeatures.remove(layer);
+        if (layerFeatures != null) {
+            for (List<Chunk> chunks : layerFeatures.values()) {
+                for (Chunk chunk : chunks) {
+                    editedChunks.remove(chunk.envelope, chunk);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the nearest vertex around a point, or if there is no vertex, the nearest point on a segment.
+     * @param point Cursor position
+     * @param tolerance Maximum distance
+     * @return Snapped coordinate, null if there is nothing at less than the tolerance
+     */
+    public synchronized Coordinate snap(Coordinate point, double tolerance) {
+        Envelope search = new Envelope(point);
+        search.expandBy(tolerance);
+        List<?> candidates = tree.query(search);
+        List<?> editedCandidates = editedChunks.query(search);
+        double vertexDistance = tolerance;
+        Coordinate vertex = null;
+        double segmentDistance = tolerance;
+        Coordinate segmentPoint = null;
+        for (List<?> list : new List<?>[]{candidates, editedCandidates}) {
+            boolean edited = list == editedCandidates;
+            for (Object item : list) {
+                Chunk chunk = (Chunk) item;
+                if (!chunk.envelope.intersects(search) || (!edited && isHidden(chunk))) {
+                    continue;
+                }
+                int count = chunk.xy.length / 2;
+                for (int i = 0; i < count; i++) {
+                    double distance = Math.hypot(chunk.xy[i * 2] - point.x, chunk.xy[i * 2 + 1] - point.y);
+                    if (distance <= vertexDistance) {
+                        vertexDistance = distance;
+                        vertex = new Coordinate(chunk.xy[i * 2], chunk.xy[i * 2 + 1]);
+                    }
+                }
+                if (vertex == null) {
+                    for (int i = 0; i < count - 1; i++) {
+                        segment.p0.x = chunk.xy[i * 2];
+                        segment.p0.y = chunk.xy[i * 2 + 1];
+                        segment.p1.x = chunk.xy[i * 2 + 2];
+                        segment.p1.y = chunk.xy[i * 2 + 3];
+                        double distance = segment.distance(point);
+                        if (distance <= segmentDistance) {
+                            segmentDistance = distance;
+                            segmentPoint = segment.closestPoint(point);
+                        }
+                    }
+                }
+            }
+        }
+        if (vertex != null) {
+            return vertex;
+        }
+        return segmentPoint;
+    }
+
+    private boolean isHidden(Chunk chunk) {
+        if (hiddenLayers.contains(chunk.layer)) {
+            return true;
+        }
+        LongUnion hidden = hiddenFeatures.get(chunk.layer);
+        return hidden != null && hidden.contains(chunk.pk);
+    }
+
+    private static void addChunks(ILayer layer, long pk, Geometry geometry, List<Chunk> chunks) {
+        if (geometry instanceof Point || geometry instanceof LineString) {
+            Coordinate[] coordinates = geometry.getCoordinates();
+            if (coordinates.length == 0) {
+                return;
+            }
+            int last = coordinates.length - 1;
+            // Consecutive chunks share a vertex, so every segment is in a chunk
+            int start = 0;
+            do {
+                int end = Math.min(start + CHUNK_SIZE, last);
+                chunks.add(new Chunk(layer, pk, coordinates, start, end));
+                start = end;
+            } while (start < last);
+        } else if (geometry instanceof Polygon) {
+            Polygon polygon = (Polygon) geometry;
+            addChunks(layer, pk, polygon.getExteriorRing(), chunks);
+            for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+                addChunks(layer, pk, polygon.getInteriorRingN(i), chunks);
+            }
+        } else if (geometry != null) {
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                Geometry part = geometry.getGeometryN(i);
+                if (part != geometry) {
+                    addChunks(layer, pk, part, chunks);
+                }
+            }
+        }
+    }
+
+    /**
+     * Consecutive coordinates of a geometry part, packed as x, y pairs so the decoded geometries are not kept.
+     */
+    private static final class Chunk {
+        private final ILayer layer;
+        private final long pk;
+        private final double[] xy;
+        private final Envelope envelope = new Envelope();
+
+        private Chunk(ILayer layer, long pk, Coordinate[] coordinates, int start, int end) {
+            this.layer = layer;
+            this.pk = pk;
+            this.xy = new double[(end - start + 1) * 2];
+            for (int i = start; i <= end; i++) {
+                xy[(i - start) * 2] = coordinates[i].x;
+                xy[(i - start) * 2 + 1] = coordinates[i].y;
+                envelope.expandToInclude(coordinates[i]);
+            }
+        }
+    }
+}
@@ -28,6 +28,7 @@
  */
 package org.orbisgis.mapeditor.map.tool;
 
+import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryCollection;
@@ -87,10 +88,13 @@ import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
 import org.orbisgis.corejdbc.CreateTable;
 import org.orbisgis.corejdbc.ReversibleRowSet;
+import org.orbisgis.corejdbc.TableEditEvent;
+import org.orbisgis.corejdbc.TableEditListener;
 import org.orbisgis.corejdbc.common.IntegerUnion;
 import org.orbisgis.coremap.layerModel.*;
 import org.orbisgis.coremap.map.MapTransform;
 import org.orbisgis.coremap.map.TransformListener;
+import org.orbisgis.coremap.renderer.ScreenHitIndex;
 import org.orbisgis.coremap.renderer.se.AreaSymbolizer;
 import org.orbisgis.coremap.renderer.se.LineSymbolizer;
 import org.orbisgis.coremap.renderer.se.PointSymbolizer;
@@ -103,6 +107,8 @@ import org.orbisgis.coremap.renderer.se.parameter.real.RealLiteral;
 import org.orbisgis.coremap.renderer.se.stroke.PenStroke;
 import org.orbisgis.mapeditor.map.CachedResultSetContainer;
 import org.orbisgis.mapeditor.map.tool.Automaton.Code;
+import org.orbisgis.mapeditor.map.tools.InsertionTool;
+import org.orbisgis.mapeditor.map.tools.MoveVertexTool;
 import org.orbisgis.mapeditor.map.tools.PanTool;
 import org.orbisgis.mapeditor.map.tools.ToolUtilities;
 import org.orbisgis.mapeditor.map.tools.ZoomInTool;
@@ -151,6 +157,10 @@ public class ToolManager implements MouseListener,MouseWheelListener,MouseMotion
         private LineSymbolizer lineSymbolizer;
         private PointSymbolizer pointSymbolizer;
         private ReversibleRowSet activeLayerRowSet;
+        private volatile ScreenHitIndex screenHitIndex;
+        private volatile SnappingIndex snappingIndex;
+        private TableEditListener snappingUpdater = new SnappingUpdater();
+        private static final int MAX_SNAPPING_UPDATE = 1000;
 
         /**
          * Creates a new EditionToolAdapter.
@@ -231,6 +241,7 @@ public class ToolManager implements MouseListener,MouseWheelListener,MouseMotion
                         activeLayerRowSet = (ReversibleRowSet)rowSet;
                         activeLayerRowSet.setCommand("SELECT * FROM "+activeLayer.getTableReference());
                         activeLayerRowSet.execute();
+                        activeLayerRowSet.addTableEditListener(activeLayer.getTableReference(), snappingUpdater);
                     } else {
                         UILOGGER.warn(I18N.tr("Unable to generate edition tool on the table %s for the map editor, edition is deactivated", activeLayer.getTableReference()));
                     }
@@ -255,6 +266,33 @@ public class ToolManager implements MouseListener,MouseWheelListener,MouseMotion
             recalculateHandlers();
         }
 
+        /**
+         * @param screenHitIndex Features of the last complete drawing, null if unknown
+         */
+        public void setScreenHitIndex(ScreenHitIndex screenHitIndex) {
+                this.screenHitIndex = screenHitIndex;
+                // The snapping index is kept after an edit, it is updated by the SnappingUpdater
+                if (screenHitIndex != null) {
+                        snappingIndex = SnappingIndex.create(screenHitIndex, activeLayer);
+                }
+        }
+
+        /**
+         * Find the features of a layer using the last drawing instead of the database.
+         * @param layer Queried layer
+         * @param selection Selection geometry
+         * @param contains True to keep the geometries contained in the selection, false to keep the geometries that
+         * intersect it
+         * @return Primary keys of the matching features, null if the database has to be queried
+         */
+        public Set<Long> getDrawnFeatures(ILayer layer, Geometry selection, boolean contains) {
+                ScreenHitIndex index = screenHitIndex;
+                if (index == null || !index.isValid(mapTransform)) {
+                        return null;
+                }
+                return index.query(layer, selection, contains);
+        }
+
         /**
          * @return The active layer rowset, null if there is no active layer
          */
@@ -265,6 +303,9 @@ public class ToolManager implements MouseListener,MouseWheelListener,MouseMotion
         private void removeSourceListener() {
             if (activeLayer != null) {
                 activeLayer.removeLayerListener(layerListener);
+                if (activeLayerRowSet != null) {
+                    activeLayerRowSet.removeTableEditListener(activeLayer.getTableReference(), snappingUpdater);
+                }
                 //TODO remove jdbc listener
                 /*
                 if (activeLayer.getDataSource().isEditable()) {
@@ -419,6 +460,19 @@ public class ToolManager implements MouseListener,MouseWheelListener,MouseMotion
                     break;
                 }
             }
+            // Snap the editing tools on the vertices and segments of the visible features
+            SnappingIndex index = snappingIndex;
+            if (adjustedPoint == null && index != null &&
+                    (currentTool instanceof InsertionTool || currentTool instanceof MoveVertexTool)) {
+                Point2D mousePoint = mapTransform.toMapPoint(lastMouseX, lastMouseY);
+                Coordinate snapped = index.snap(new Coordinate(mousePoint.getX(), mousePoint.getY()),
+                        getTolerance());
+                if (snapped != null) {
+                    worldAdjustedPoint = new Point2D.Double(snapped.x, snapped.y);
+                    Point2D p = mapTransform.fromMapPoint(worldAdjustedPoint);
+                    adjustedPoint = new Point((int) p.getX(), (int) p.getY());
+                }
+            }
         }
 
         public void paintEdition(Graphics g) {
@@ -805,6 +859,55 @@ public class ToolManager implements MouseListener,MouseWheelListener,MouseMotion
         public void mouseExited(MouseEvent me) {
         }
 
+        /**
+         * Keep the snapping index up to date with the edits of the active layer.
+         */
+        private class SnappingUpdater implements TableEditListener {
+                @Override
+                public void tableChange(TableEditEvent event) {
+                        SnappingIndex index = snappingIndex;
+                        ILayer layer = activeLayer;
+                        ReversibleRowSet rowSet = activeLayerRowSet;
+                        if (index == null || layer == null || rowSet == null) {
+                                return;
+                        }
+                        Long firstPk = event.getFirstRowPK();
+                        Long lastPk = event.getLastRowPK();
+                        if (firstPk == null || lastPk == null || lastPk - firstPk >= MAX_SNAPPING_UPDATE) {
+                                // Too many rows, wait for the next drawing
+                                index.removeLayer(layer);
+                                return;
+                        }
+                        SortedSet<Long> editedPk = new TreeSet<>();
+                        for (long pk = firstPk; pk <= lastPk; pk++) {
+                                index.removeFeature(layer, pk);
+                                editedPk.add(pk);
+                        }
+                        Lock readLock = rowSet.getReadLock();
+                        try {
+                                if (readLock.tryLock(TRY_LOCK_TIME, TimeUnit.MILLISECONDS)) {
+                                        try {
+                                                // Deleted rows are not found
+                                                for (int row : rowSet.getRowNumberFromRowPk(editedPk)) {
+                                                        if (rowSet.absolute(row)) {
+                                                                Geometry geometry = rowSet.getGeometry();
+                                                                if (geometry != null) {
+                                                                        index.addFeature(layer, rowSet.getPk(),
+                                                                                geometry);
+                                                                }
+                                                        }
+                                                }
+                                        } finally {
+                                                readLock.unlock();
+                                        }
+                                }
+                        } catch (SQLException | InterruptedException ex) {
+                                UILOGGER.warn(I18N.tr("Cannot update the snapping index"), ex);
+                                index.removeLayer(layer);
+                        }
+                }
+        }
+
         private class ToolLayerListener extends LayerListenerAdapter implements
                 LayerListener {
 
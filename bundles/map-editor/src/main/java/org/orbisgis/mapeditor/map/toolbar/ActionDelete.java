@@ -38,8 +38,6 @@ import org.orbisgis.mapeditor.map.icons.MapEditorIcons;
 import org.orbisgis.mapeditorapi.MapEditorExtension;
 import org.orbisgis.mapeditorapi.MapElement;
 import org.orbisgis.sif.UIFactory;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
@@ -50,7 +48,6 @@ import java.awt.event.ActionEvent;
 import java.beans.EventHandler;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Set;
 import java.util.TreeSet;
@@ -105,33 +102,15 @@ public class ActionDelete extends ActionActiveLayer {
                 // Launch process
                 MapElement mapElement = getExtension().getMapElement();
                 UndoManager undoManager = mapElement.getMapUndoManager();
-                if(undoManager == null || selectedRows.size() > undoManager.getLimit()) {
+                ReversibleRowSet activeLayerRowSet = getExtension().getToolManager().getActiveLayerRowSet();
+                if(undoManager == null || activeLayerRowSet == null) {
                     executorService.execute(new DeleteSelectedRows(new TreeSet<>(selectedRows),
                             activeLayer.getTableReference(), activeLayer.getDataManager().getDataSource()));
                 } else {
-                    executorService.execute(new RowSetDelete(selectedRows, getExtension().getToolManager().getActiveLayerRowSet()));
+                    // The deletion is recorded as a single undoable edit whatever the number of rows
+                    executorService.execute(new DeleteSelectedRows(new TreeSet<>(selectedRows), activeLayerRowSet));
                 }
             }
         }
     }
-
-    private static class RowSetDelete implements Runnable {
-        private Set<Long> selectedRows;
-        private ReversibleRowSet activeLayerRowSet;
-        private static final Logger LOGGER = LoggerFactory.getLogger(RowSetDelete.class);
-
-        public RowSetDelete(Set<Long> selectedRows, ReversibleRowSet activeLayerRowSet) {
-            this.selectedRows = selectedRows;
-            this.activeLayerRowSet = activeLayerRowSet;
-        }
-
-        @Override
-        public void run() {
-            try {
-                DeleteSelectedRows.deleteUsingRowSet(activeLayerRowSet, new TreeSet<>(selectedRows));
-            } catch (SQLException | InterruptedException ex) {
-                LOGGER.error(ex.getLocalizedMessage(), ex);
-            }
-        }
-    }
 }
@@ -300,7 +300,10 @@ public abstract class AbstractSelectionTool extends Selection {
 
             @Override
             protected Set<Long> doInBackground() throws Exception {
-                Set<Long> newSelection;
+                Set<Long> newSelection = tm.getDrawnFeatures(activeLayer, selectionRect, !intersects);
+                if(newSelection != null) {
+                    return newSelection;
+                }
                 // Get all primary value where default geometry intersects a bounding box
                 try (Connection connection = SFSUtilities.wrapConnection(activeLayer.getDataManager().getDataSource().getConnection())) {
                     List<String> geometryFields = SFSUtilities.getGeometryFields(connection,
@@ -332,13 +335,11 @@ public abstract class AbstractSelectionTool extends Selection {
             protected void done() {
                 try {
                     if (controlDown) {
-                        LongUnion newSel = new LongUnion(activeLayer.getSelection());
-                        for (long el : get()) {
-                            if (!newSel.remove(el)) {
-                                newSel.add(el);
-                            }
-                        }
-                        activeLayer.setSelection(newSel);
+                        // Toggle picked rows: symmetric difference, computed range by range
+                        LongUnion oldSel = new LongUnion(activeLayer.getSelection());
+                        LongUnion picked = new LongUnion(get());
+                        activeLayer.setSelection(LongUnion.union(LongUnion.difference(oldSel, picked),
+                                LongUnion.difference(picked, oldSel)));
                     } else {
                         activeLayer.setSelection(get());
                     }
@@ -33,8 +33,11 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.List;
 import java.util.Observable;
+import java.util.Set;
+import java.util.TreeSet;
 import javax.swing.ImageIcon;
 import javax.swing.SwingWorker;
 
@@ -42,8 +45,10 @@ import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.SFSUtilities;
 import org.h2gis.utilities.TableLocation;
+import org.orbisgis.corejdbc.MetaData;
 import org.orbisgis.corejdbc.ReadTable;
 import org.orbisgis.coremap.layerModel.ILayer;
 import org.orbisgis.coremap.layerModel.MapContext;
@@ -79,7 +84,9 @@ public class InfoTool extends AbstractRectangleTool {
         double miny = rect.getMinY();
         double maxx = rect.getMaxX();
         double maxy = rect.getMaxY();
-        new PopulateViewJob(new Envelope(minx, maxx, miny, maxy), layer).execute();
+        Envelope envelope = new Envelope(minx, maxx, miny, maxy);
+        Set<Long> drawnFeatures = tm.getDrawnFeatures(layer, new GeometryFactory().toGeometry(envelope), false);
+        new PopulateViewJob(envelope, layer, drawnFeatures).execute();
 
     }
 
@@ -105,11 +112,57 @@ public class InfoTool extends AbstractRectangleTool {
 
         private final Envelope envelope;
         private final ILayer layer;
+        private final Set<Long> drawnFeatures;
         private static final I18n I18N = I18nFactory.getI18n(PopulateViewJob.class);
 
-        private PopulateViewJob(Envelope envelope, ILayer layer) {
+        /**
+         * @param envelope Queried envelope
+         * @param layer Queried layer
+         * @param drawnFeatures Primary keys of the features in the envelope, null if unknown
+         */
+        private PopulateViewJob(Envelope envelope, ILayer layer, Set<Long> drawnFeatures) {
             this.envelope = envelope;
             this.layer = layer;
+            this.drawnFeatures = drawnFeatures;
+        }
+
+        /**
+         * Print the features found in the last drawing, without spatial query. Only the rows that can be printed
+         * are fetched, the lowest primary keys first.
+         */
+        private void printDrawnFeatures(Connection connection, TableLocation tableLocation) throws SQLException {
+            if(drawnFeatures.isEmpty()) {
+                return;
+            }
+            boolean isH2 = JDBCUtilities.isH2DataBase(connection.getMetaData());
+            String pkName = MetaData.getPkName(connection, tableLocation.toString(isH2), true);
+            StringBuilder pkList = new StringBuilder();
+            int pkCount = 0;
+            for(Long pk : new TreeSet<>(drawnFeatures)) {
+                if(pkCount == MAX_PRINTED_ROWS) {
+                    break;
+                }
+                if(pkCount++ != 0) {
+                    pkList.append(",");
+                }
+                pkList.append(pk);
+            }
+            if(drawnFeatures.size() > MAX_PRINTED_ROWS) {
+                UILOGGER.info(I18N.tr("{0} features found, only the first {1} are shown", drawnFeatures.size(),
+                        MAX_PRINTED_ROWS));
+            }
+            try(Statement st = connection.createStatement();
+                ResultSet rs = st.executeQuery("SELECT * FROM " + tableLocation.toString(isH2) + " WHERE " +
+                        TableLocation.quoteIdentifier(pkName, isH2) + " IN (" + pkList + ")")) {
+                printLines(ReadTable.resultSetToString(rs, MAX_FIELD_LENGTH, MAX_PRINTED_ROWS, false, false));
+            }
+        }
+
+        private static void printLines(String lines) {
+            UILOGGER.info(lines);
+            if (lines.length() <= POPUP_MAX_LENGTH) {
+                POPUPLOGGER.info(lines);
+            }
         }
 
         @Override
@@ -123,6 +176,10 @@ public class InfoTool extends AbstractRectangleTool {
             Geometry envGeom = geometryFactory.toGeometry(envelope);
             TableLocation tableLocation = TableLocation.parse(layer.getTableReference());
             try(Connection connection = layer.getDataManager().getDataSource().getConnection()) {
+                if(drawnFeatures != null) {
+                    printDrawnFeatures(connection, tableLocation);
+                    return null;
+                }
                 // Fetch SRID for PostGIS constraints
                 try(PreparedStatement pst = SFSUtilities.prepareInformationSchemaStatement(connection,
                         tableLocation.getCatalog(), tableLocation.getSchema(), tableLocation.getTable(),
@@ -143,12 +200,8 @@ public class InfoTool extends AbstractRectangleTool {
                         " WHERE "+TableLocation.quoteIdentifier(geomFields.get(0))+" && ?")) {
                     pst.setObject(1, envGeom);
                     try(ResultSet rs = pst.executeQuery()) {
-                        String lines = ReadTable.resultSetToString(rs, MAX_FIELD_LENGTH, MAX_PRINTED_ROWS, false, false,
-                                new EnvelopeFilter(envelope));
-                        UILOGGER.info(lines);
-                        if (lines.length() <= POPUP_MAX_LENGTH) {
-                            POPUPLOGGER.info(lines);
-                        }
+                        printLines(ReadTable.resultSetToString(rs, MAX_FIELD_LENGTH, MAX_PRINTED_ROWS, false, false,
+                                new EnvelopeFilter(envelope)));
                     }
                 }
             } catch (SQLException ex) {
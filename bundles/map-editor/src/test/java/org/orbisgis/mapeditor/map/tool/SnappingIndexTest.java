@@ -0,0 +1,176 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.mapeditor.map.tool;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.io.WKTReader;
+import org.junit.Test;
+import org.orbisgis.coremap.layerModel.ILayer;
+import org.orbisgis.coremap.layerModel.Layer;
+import org.orbisgis.coremap.map.MapTransform;
+import org.orbisgis.coremap.renderer.ScreenHitIndex;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Check the vertex and segment snapping.
+ */
+public class SnappingIndexTest {
+    private static final double EPSILON = 1e-12;
+
+    private static SnappingIndex createIndex(ILayer layer) throws Exception {
+        WKTReader reader = new WKTReader();
+        SnappingIndex index = new SnappingIndex();
+        index.addFeature(layer, 1, reader.read("LINESTRING(0 0, 10 0, 10 10)"));
+        index.addFeature(layer, 2, reader.read("POLYGON((20 20, 30 20, 30 30, 20 30, 20 20))"));
+        index.addFeature(layer, 3, reader.read("POINT(50 50)"));
+        index.build();
+        return index;
+    }
+
+    @Test
+    public void testSnap() throws Exception {
+        SnappingIndex index = createIndex(new Layer("layer", "LAYER", null));
+        // Vertex first
+        assertEquals(new Coordinate(10, 0), index.snap(new Coordinate(9.5, 0.2), 1));
+        assertEquals(new Coordinate(50, 50), index.snap(new Coordinate(50.5, 49.5), 1));
+        // Then segment
+        Coordinate onSegment = index.snap(new Coordinate(5, 0.5), 1);
+        assertEquals(5, onSegment.x, EPSILON);
+        assertEquals(0, onSegment.y, EPSILON);
+        onSegment = index.snap(new Coordinate(29.5, 25), 1);
+        assertEquals(30, onSegment.x, EPSILON);
+        assertEquals(25, onSegment.y, EPSILON);
+        // Nothing near
+        assertNull(index.snap(new Coordinate(40, 40), 1));
+    }
+
+    @Test
+    public void testLongLine() throws Exception {
+        StringBuilder wkt = new StringBuilder("LINESTRING(");
+        int count = SnappingIndex.CHUNK_SIZE * 3 + 5;
+        for(int i = 0; i < count; i++) {
+            if(i > 0) {
+                wkt.append(", ");
+            }
+            wkt.append(i * 2).append(" 0");
+        }
+        wkt.append(")");
+        SnappingIndex index = new SnappingIndex();
+        index.addFeature(new Layer("layer", "LAYER", null), 1, new WKTReader().read(wkt.toString()));
+        index.build();
+        // Segments at the junction of two chunks
+        for(int i = 0; i < count - 1; i++) {
+            Coordinate onSegment = index.snap(new Coordinate(i * 2 + 1, 0.2), 0.5);
+            assertEquals(i * 2 + 1, onSegment.x, EPSILON);
+        }
+    }
+
+    @Test
+    public void testEdit() throws Exception {
+        ILayer layer = new Layer("layer", "LAYER", null);
+        SnappingIndex index = createIndex(layer);
+        index.removeFeature(layer, 1);
+        assertNull(index.snap(new Coordinate(9.5, 0.2), 1));
+        index.addFeature(layer, 1, new WKTReader().read("LINESTRING(0 0, 9 0)"));
+        assertEquals(new Coordinate(9, 0), index.snap(new Coordinate(9.5, 0.2), 1));
+        // Edit again
+        index.removeFeature(layer, 1);
+        index.addFeature(layer, 1, new WKTReader().read("LINESTRING(0 0, 8 0)"));
+        assertNull(index.snap(new Coordinate(9.5, 0.2), 1));
+        assertEquals(new Coordinate(8, 0), index.snap(new Coordinate(8.5, 0.2), 1));
+        // Other features are kept
+        assertEquals(new Coordinate(50, 50), index.snap(new Coordinate(50.5, 49.5), 1));
+        index.removeLayer(layer);
+        assertNull(index.snap(new Coordinate(50.5, 49.5), 1));
+        assertNull(index.snap(new Coordinate(8.5, 0.2), 1));
+    }
+
+    @Test
+    public void testBudget() throws Exception {
+        MapTransform mt = new MapTransform();
+        mt.setImage(new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB));
+        mt.setExtent(new Envelope(0, 1000, 0, 1000));
+        ScreenHitIndex screenHitIndex = new ScreenHitIndex(mt);
+        GeometryFactory factory = new GeometryFactory();
+        // Fill the drawn features up to the default budget, 999 lines of 1000 vertices and 1000 points
+        ILayer lines = new Layer("lines", "LINES", null);
+        ScreenHitIndex.LayerHits hits = screenHitIndex.beginLayer();
+        for (int y = 0; y < 999; y++) {
+            Coordinate[] coordinates = new Coordinate[1000];
+            for (int x = 0; x < coordinates.length; x++) {
+                coordinates[x] = new Coordinate(x, y);
+            }
+            hits.add(y, factory.createLineString(coordinates));
+        }
+        hits.setFilled();
+        screenHitIndex.endLayer(lines, hits);
+        ILayer points = new Layer("points", "POINTS", null);
+        hits = screenHitIndex.beginLayer();
+        for (int x = 0; x < 1000; x++) {
+            hits.add(x, factory.createPoint(new Coordinate(x + 0.5, 999.5)));
+        }
+        hits.setFilled();
+        screenHitIndex.endLayer(points, hits);
+        assertTrue(screenHitIndex.contains(lines));
+        assertTrue(screenHitIndex.contains(points));
+        // Every drawn feature fits in the default snapping budget
+        SnappingIndex index = SnappingIndex.create(screenHitIndex, null);
+        assertEquals(new Coordinate(998, 998), index.snap(new Coordinate(998.1, 998.1), 0.2));
+        assertEquals(new Coordinate(998.5, 999.5), index.snap(new Coordinate(998.4, 999.4), 0.2));
+        // A smaller budget keeps the first layer, the layers that do not fit are not snapped at all
+        index = SnappingIndex.create(screenHitIndex, points, 500000);
+        assertEquals(new Coordinate(998.5, 999.5), index.snap(new Coordinate(998.4, 999.4), 0.2));
+        assertNull(index.snap(new Coordinate(998.1, 998.1), 0.2));
+        index = SnappingIndex.create(screenHitIndex, lines, 999000);
+        assertEquals(new Coordinate(998, 998), index.snap(new Coordinate(998.1, 998.1), 0.2));
+        assertNull(index.snap(new Coordinate(998.4, 999.4), 0.2));
+    }
+
+    @Test
+    public void testAddBeyondBudget() throws Exception {
+        ILayer layer = new Layer("layer", "LAYER", null);
+        ILayer other = new Layer("other", "OTHER", null);
+        WKTReader reader = new WKTReader();
+        SnappingIndex index = new SnappingIndex(4);
+        index.addFeature(other, 1, reader.read("POINT(50 50)"));
+        index.addFeature(layer, 1, reader.read("LINESTRING(0 0, 10 0)"));
+        index.addFeature(layer, 2, reader.read("LINESTRING(20 0, 30 0)"));
+        index.build();
+        // The partially added layer is removed
+        assertNull(index.snap(new Coordinate(9.5, 0.2), 1));
+        assertEquals(new Coordinate(50, 50), index.snap(new Coordinate(50.5, 49.5), 1));
+    }
+}
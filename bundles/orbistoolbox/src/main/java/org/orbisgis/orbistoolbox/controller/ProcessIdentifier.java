@@ -21,6 +21,11 @@ package org.orbisgis.orbistoolbox.controller;
 
 import org.orbisgis.orbistoolbox.model.Process;
 
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * @author Sylvain PALOMINOS
  **/
@@ -30,11 +35,14 @@ public class ProcessIdentifier {
     private Class clazz;
     private Process process;
     private String absolutePath;
+    /** Accessible input and output fields of the process class, by identifier */
+    private Map<URI, Field> fieldMap;
 
     public ProcessIdentifier(Class clazz, Process process, String absolutePath){
         this.clazz = clazz;
         this.process = process;
         this.absolutePath = absolutePath;
+        this.fieldMap = new ConcurrentHashMap<>();
     }
 
 
@@ -49,4 +57,22 @@ public class ProcessIdentifier {
     public String getAbsolutePath() {
         return absolutePath;
     }
+
+    /**
+     * Returns the cached field corresponding to the given identifier.
+     * @param identifier Identifier of the input or output.
+     * @return The accessible field, null if it has not been resolved yet.
+     */
+    public Field getField(URI identifier) {
+        return fieldMap.get(identifier);
+    }
+
+    /**
+     * Keep the field corresponding to the given identifier.
+     * @param identifier Identifier of the input or output.
+     * @param field Accessible field.
+     */
+    public void putField(URI identifier, Field field) {
+        fieldMap.put(identifier, field);
+    }
 }
@@ -32,6 +32,12 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Class used to manage process.
@@ -41,8 +47,10 @@ import java.util.*;
  **/
 
 public class ProcessManager {
-    /** List of process identifier*/
-    private List<ProcessIdentifier> processIdList;
+    /** Process identifiers indexed by process identifier */
+    private Map<URI, ProcessIdentifier> processIdMap;
+    /** Process identifiers indexed by script absolute path */
+    private Map<String, ProcessIdentifier> processPathMap;
     /** Controller used to parse process */
     private ParserController parserController;
 
@@ -50,10 +58,21 @@ public class ProcessManager {
      * Main constructor.
      */
     public ProcessManager(){
-        processIdList = new ArrayList<>();
+        processIdMap = new ConcurrentHashMap<>();
+        processPathMap = new ConcurrentHashMap<>();
         parserController = new ParserController();
     }
 
+    /**
+     * Constructor keeping the compiled scripts in the given folder.
+     * @param cacheFolder Folder of the compiled scripts.
+     */
+    public ProcessManager(File cacheFolder){
+        processIdMap = new ConcurrentHashMap<>();
+        processPathMap = new ConcurrentHashMap<>();
+        parserController = new ParserController(cacheFolder);
+    }
+
     /**
      * Adds a local source to the toolbox and get all the groovy script.
      * @param path Path to the local source.
@@ -63,11 +82,74 @@ public class ProcessManager {
         if(!folder.exists() || !folder.isDirectory()){
             return;
         }
-        for(File f : folder.listFiles()){
-            addLocalScript(f);
+        File[] files = folder.listFiles();
+        if(files == null){
+            return;
+        }
+        //Parse the new scripts concurrently, then register them in the folder order
+        List<Future<AbstractMap.SimpleEntry<Process, Class>>> parsedList = new ArrayList<>(files.length);
+        ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            for (final File f : files) {
+                if (isScript(f) && getProcess(f) == null) {
+                    parsedList.add(executorService.submit(new Callable<AbstractMap.SimpleEntry<Process, Class>>() {
+                        @Override
+                        public AbstractMap.SimpleEntry<Process, Class> call() {
+                            return parserController.parseProcess(f.getAbsolutePath());
+                        }
+                    }));
+                } else {
+                    parsedList.add(null);
+                }
+            }
+            for (int i = 0; i < files.length; i++) {
+                if (parsedList.get(i) != null) {
+                    try {
+                        addProcess(files[i], parsedList.get(i).get());
+                    } catch (ExecutionException e) {
+                        LoggerFactory.getLogger(ProcessManager.class).error(e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            LoggerFactory.getLogger(ProcessManager.class).error(e.getMessage());
+        } finally {
+            executorService.shutdown();
         }
     }
 
+    /**
+     * Test that the script name is not only '.groovy'
+     * @param f File to test.
+     * @return True if the file is a groovy script.
+     */
+    private boolean isScript(File f){
+        return f.getName().endsWith(".groovy") && f.getName().length()>7;
+    }
+
+    /**
+     * Register a parsed script.
+     * @param f File of the script.
+     * @param entry Parsed process and class.
+     * @return The process, null if the script has not been well parsed.
+     */
+    private Process addProcess(File f, AbstractMap.SimpleEntry<Process, Class> entry){
+        //Check if the process has been well parsed
+        if (entry != null && entry.getKey() != null && entry.getValue() != null) {
+            //Save the process in a ProcessIdentifier
+            ProcessIdentifier pi = new ProcessIdentifier(
+                    entry.getValue(),
+                    entry.getKey(),
+                    f.getAbsolutePath()
+            );
+            processIdMap.put(entry.getKey().getIdentifier(), pi);
+            processPathMap.put(pi.getAbsolutePath(), pi);
+            //return the process
+            return entry.getKey();
+        }
+        return null;
+    }
+
     /**
      * Add a local script.
      * @param f File of the local script.
@@ -75,22 +157,11 @@ public class ProcessManager {
      */
     public Process addLocalScript(File f){
         //Test that the script name is not only '.groovy'
-        if (f.getName().endsWith(".groovy") && f.getName().length()>7) {
+        if (isScript(f)) {
             //Ensure that the process does not already exists.
             if(getProcess(f) == null) {
                 //Parse the process
-                AbstractMap.SimpleEntry<Process, Class> entry = parserController.parseProcess(f.getAbsolutePath());
-                //Check if the process has been well parsed
-                if (entry != null && entry.getKey() != null && entry.getValue() != null) {
-                    //Save the process in a ProcessIdentifier
-                    processIdList.add(new ProcessIdentifier(
-                            entry.getValue(),
-                            entry.getKey(),
-                            f.getAbsolutePath()
-                    ));
-                    //return the process
-                    return entry.getKey();
-                }
+                return addProcess(f, parserController.parseProcess(f.getAbsolutePath()));
             }
         }
         return null;
@@ -120,12 +191,7 @@ public class ProcessManager {
      * @return A groovy object representing the process with the given data.
      */
     private GroovyObject createProcess(Process process, Map<URI, Object> dataMap){
-        ProcessIdentifier pi = null;
-        for(ProcessIdentifier proId : processIdList){
-            if(proId.getProcess().getIdentifier().equals(process.getIdentifier())){
-                pi = proId;
-            }
-        }
+        ProcessIdentifier pi = processIdMap.get(process.getIdentifier());
         if(pi == null){
             return null;
         }
@@ -138,43 +204,57 @@ public class ProcessManager {
         }
         try {
             for(Input i : process.getInput()) {
-                Field f = getField(pi.getClazz(), i.getIdentifier());
-                f.setAccessible(true);
-                f.set(groovyObject, dataMap.get(i.getIdentifier()));
+                getCachedField(pi, i.getIdentifier()).set(groovyObject, dataMap.get(i.getIdentifier()));
             }
             for(Output o : process.getOutput()) {
-                Field f = getField(pi.getClazz(), o.getIdentifier());
-                f.setAccessible(true);
-                f.set(groovyObject, dataMap.get(o.getIdentifier()));
+                getCachedField(pi, o.getIdentifier()).set(groovyObject, dataMap.get(o.getIdentifier()));
             }
-        } catch (IllegalAccessException e) {
+        } catch (IllegalAccessException|IllegalArgumentException e) {
             LoggerFactory.getLogger(ProcessManager.class).error(e.getMessage());
             return null;
         }
         return groovyObject;
     }
 
+    /**
+     * Return the field corresponding to the given identifier.
+     * The field is only looked up by reflection on the first call, it is then kept in the ProcessIdentifier.
+     * @param pi ProcessIdentifier of the process class.
+     * @param identifier Identifier of the input or output.
+     * @return The accessible field.
+     * @throws IllegalAccessException If the field can not be found.
+     */
+    private Field getCachedField(ProcessIdentifier pi, URI identifier) throws IllegalAccessException {
+        Field field = pi.getField(identifier);
+        if(field == null) {
+            field = getField(pi.getClazz(), identifier);
+            if(field == null) {
+                throw new IllegalAccessException("No field found for the identifier " + identifier);
+            }
+            field.setAccessible(true);
+            pi.putField(identifier, field);
+        }
+        return field;
+    }
+
     /**
      * Return the process corresponding to the given identifier.
      * @param identifier Identifier of the desired process.
      * @return The process.
      */
     public Process getProcess(URI identifier){
-        for(ProcessIdentifier pi : processIdList){
-            if(pi.getProcess().getIdentifier().equals(identifier)){
-                return pi.getProcess();
-            }
-        }
-        return null;
+        ProcessIdentifier pi = processIdMap.get(identifier);
+        return pi == null ? null : pi.getProcess();
     }
 
+    /**
+     * Return the process corresponding to the given script file.
+     * @param f Script file of the desired process.
+     * @return The process.
+     */
     public Process getProcess(File f){
-        for(ProcessIdentifier pi : processIdList){
-            if(pi.getAbsolutePath().equals(f.getAbsolutePath())){
-                return pi.getProcess();
-            }
-        }
-        return null;
+        ProcessIdentifier pi = processPathMap.get(f.getAbsolutePath());
+        return pi == null ? null : pi.getProcess();
     }
 
     /**
@@ -204,14 +284,13 @@ public class ProcessManager {
      * @param process Process to remove.
      */
     public void removeProcess(Process process) {
-        ProcessIdentifier toRemove = null;
-        for(ProcessIdentifier pi : processIdList){
-            if(pi.getProcess().equals(process)){
-                toRemove = pi;
-            }
+        if(process == null){
+            return;
         }
-        if(toRemove != null){
-            processIdList.remove(toRemove);
+        ProcessIdentifier toRemove = processIdMap.get(process.getIdentifier());
+        if(toRemove != null && toRemove.getProcess().equals(process)){
+            processIdMap.remove(process.getIdentifier());
+            processPathMap.remove(toRemove.getAbsolutePath());
         }
     }
 }
@@ -49,6 +49,8 @@ public class ParserController {
     private DefaultParser defaultParser;
     private ProcessParser processParser;
     private GroovyClassLoader groovyClassLoader;
+    /** Cache of compiled scripts, null if scripts are compiled on each parsing */
+    private ScriptClassCache scriptClassCache;
 
     public ParserController(){
         parserList = new ArrayList<>();
@@ -61,13 +63,29 @@ public class ParserController {
         groovyClassLoader = new GroovyShell().getClassLoader();
     }
 
+    /**
+     * Constructor keeping the compiled scripts in the given folder.
+     * The parsing of scripts can then be done concurrently.
+     * @param cacheFolder Folder of the compiled scripts.
+     */
+    public ParserController(File cacheFolder){
+        this();
+        scriptClassCache = new ScriptClassCache(cacheFolder, groovyClassLoader);
+    }
+
     public AbstractMap.SimpleEntry<Process, Class> parseProcess(String processPath){
         Class clazz;
         File process = new File(processPath);
         try {
-            groovyClassLoader.clearCache();
-            clazz = groovyClassLoader.parseClass(process);
-        } catch (IOException|GroovyRuntimeException e) {
+            if(scriptClassCache != null) {
+                clazz = scriptClassCache.loadClass(process);
+            } else {
+                synchronized (groovyClassLoader) {
+                    groovyClassLoader.clearCache();
+                    clazz = groovyClassLoader.parseClass(process);
+                }
+            }
+        } catch (IOException|GroovyRuntimeException|ClassNotFoundException e) {
             return null;
         }
 
@@ -0,0 +1,184 @@
+/**
+ * OrbisToolBox is an OrbisGIS plugin dedicated to create and manage processing.
+ *
+ * OrbisToolBox is distributed under GPL 3 license. It is produced by CNRS <http://www.cnrs.fr/> as part of the
+ * MApUCE project, funded by the French Agence Nationale de la Recherche (ANR) under contract ANR-13-VBDU-0004.
+ *
+ * OrbisToolBox is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * OrbisToolBox is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with OrbisToolBox. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/> or contact directly: info_at_orbisgis.org
+ */
+
+package org.orbisgis.orbistoolbox.controller.parser;
+
+import groovy.lang.GroovySystem;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.tools.GroovyClass;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Persistent cache of compiled groovy scripts.
+ * Each script is compiled into its own folder, named with the script name, a hash of the script path and a hash of
+ * the script content and of the groovy version. A modified script has a new hash, so it is compiled again and the
+ * outdated folder is removed.
+ * Compiled classes are loaded in a class loader dedicated to the script.
+ **/
+
+public class ScriptClassCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScriptClassCache.class);
+    /** Name of the file containing the name of the main class of the script */
+    private static final String MAIN_CLASS_FILE = "main_class";
+    /** Folder containing the compiled scripts */
+    private File cacheFolder;
+    /** Class loader providing the groovy runtime and the toolbox annotations */
+    private ClassLoader parentClassLoader;
+
+    /**
+     * Main constructor.
+     * @param cacheFolder Folder containing the compiled scripts.
+     * @param parentClassLoader Parent class loader of the script class loaders.
+     */
+    public ScriptClassCache(File cacheFolder, ClassLoader parentClassLoader){
+        this.cacheFolder = cacheFolder;
+        this.parentClassLoader = parentClassLoader;
+        if(!cacheFolder.exists() && !cacheFolder.mkdirs()) {
+            LOGGER.warn("Cannot create the script cache folder " + cacheFolder.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Returns the main class of the script, compiling it only if the cache does not contain it.
+     * @param script Groovy script file.
+     * @return The main class of the script.
+     * @throws IOException If the script cannot be read or the cache cannot be written.
+     * @throws ClassNotFoundException If the compiled class cannot be loaded.
+     */
+    public Class loadClass(File script) throws IOException, ClassNotFoundException {
+        byte[] content = Files.readAllBytes(script.toPath());
+        String scriptName = getScriptName(script);
+        String scriptPrefix = scriptName + "_" + getHash(script.getAbsolutePath().getBytes(StandardCharsets.UTF_8))
+                .substring(0, 8) + "_";
+        File scriptFolder = new File(cacheFolder, scriptPrefix + getHash(content));
+        File mainClassFile = new File(scriptFolder, MAIN_CLASS_FILE);
+        if(!mainClassFile.exists()) {
+            compile(script, scriptName, scriptPrefix, scriptFolder, mainClassFile);
+        }
+        String mainClass = new String(Files.readAllBytes(mainClassFile.toPath()), StandardCharsets.UTF_8).trim();
+        ClassLoader classLoader = new URLClassLoader(new URL[]{scriptFolder.toURI().toURL()}, parentClassLoader);
+        return classLoader.loadClass(mainClass);
+    }
+
+    /**
+     * Compile the script into the given folder and remove outdated compilations of the same script.
+     */
+    private void compile(File script, String scriptName, String scriptPrefix, File scriptFolder, File mainClassFile)
+            throws IOException {
+        // Compile in a temporary folder, a folder is complete only when renamed
+        File tempFolder = Files.createTempDirectory(cacheFolder.toPath(), "tmp_").toFile();
+        try {
+            CompilerConfiguration configuration = new CompilerConfiguration();
+            configuration.setTargetDirectory(tempFolder);
+            CompilationUnit compilationUnit = new CompilationUnit(configuration, null,
+                    new groovy.lang.GroovyClassLoader(parentClassLoader));
+            compilationUnit.addSource(script);
+            compilationUnit.compile(Phases.OUTPUT);
+            String mainClass = null;
+            List classes = compilationUnit.getClasses();
+            for (Object groovyClass : classes) {
+                String className = ((GroovyClass) groovyClass).getName();
+                if (mainClass == null || className.equals(scriptName) || className.endsWith("." + scriptName)) {
+                    mainClass = className;
+                }
+            }
+            if (mainClass == null) {
+                throw new IOException("The script " + script.getName() + " does not contain any class");
+            }
+            Files.write(new File(tempFolder, MAIN_CLASS_FILE).toPath(), mainClass.getBytes(StandardCharsets.UTF_8));
+            removeOutdated(scriptPrefix);
+            if (!tempFolder.renameTo(scriptFolder) && !mainClassFile.exists()) {
+                throw new IOException("Cannot move the compiled script into " + scriptFolder.getAbsolutePath());
+            }
+        } finally {
+            if (tempFolder.exists()) {
+                deleteFolder(tempFolder);
+            }
+        }
+    }
+
+    /**
+     * Remove the previous compilations of the script.
+     * @param scriptPrefix Folder name prefix of the script.
+     */
+    private void removeOutdated(String scriptPrefix) {
+        File[] folders = cacheFolder.listFiles();
+        if(folders != null) {
+            for (File folder : folders) {
+                if (folder.isDirectory() && folder.getName().startsWith(scriptPrefix)) {
+                    deleteFolder(folder);
+                }
+            }
+        }
+    }
+
+    private static void deleteFolder(File folder) {
+        File[] files = folder.listFiles();
+        if(files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    deleteFolder(file);
+                } else if(!file.delete()) {
+                    LOGGER.warn("Cannot delete the file " + file.getAbsolutePath());
+                }
+            }
+        }
+        if(!folder.delete()) {
+            LOGGER.warn("Cannot delete the folder " + folder.getAbsolutePath());
+        }
+    }
+
+    private static String getScriptName(File script) {
+        String name = script.getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    /**
+     * @param content Script content or path.
+     * @return Hash of the content and of the groovy version.
+     */
+    private static String getHash(byte[] content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(GroovySystem.getVersion().getBytes(StandardCharsets.UTF_8));
+            digest.update(content);
+            StringBuilder hash = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hash.append(String.format("%02x", b));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -28,12 +28,16 @@ import org.slf4j.LoggerFactory;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Thread executing a process.
+ * The worker can be run alone with {@link #execute()} or submitted with others to a
+ * {@link ProcessExecutionService}. Without {@link ProcessExecutionData} (batch execution), the log is only written
+ * with the logger and the result is retrieved with {@link #get()}.
  *
  * @author Sylvain PALOMINOS
  **/
@@ -50,6 +54,8 @@ public class ExecutionWorker extends SwingWorkerPM{
     private ProcessExecutionData processExecutionData;
     /** GroovyObject of the process execution */
     private GroovyObject groovyObject;
+    /** Output file paths of this execution, saved during the pre-processing */
+    private Map<URI, Object> outputFileMap;
 
     /**
      * Main constructor.
@@ -57,7 +63,7 @@ public class ExecutionWorker extends SwingWorkerPM{
      * @param outputDataMap Output data map.
      * @param inputDataMap Input data map.
      * @param toolBox ToolBox.
-     * @param processExecutionData Execution data.
+     * @param processExecutionData Execution data, can be null.
      */
     public ExecutionWorker(Process process,
                            Map<URI, Object> outputDataMap,
@@ -65,20 +71,30 @@ public class ExecutionWorker extends SwingWorkerPM{
                            ToolBox toolBox,
                            ProcessExecutionData processExecutionData){
         this.process = process;
-        this.dataMap = new HashMap<>();
+        //The inputs and outputs may be pre and post processed concurrently
+        this.dataMap = Collections.synchronizedMap(new HashMap<URI, Object>());
         this.dataMap.putAll(inputDataMap);
         this.dataMap.putAll(outputDataMap);
         this.toolBox = toolBox;
         this.processExecutionData = processExecutionData;
+        this.outputFileMap = Collections.synchronizedMap(new HashMap<URI, Object>());
+        setTaskName(process.getTitle());
     }
 
+    /**
+     * Execute the process.
+     * @return The output data map, or null if the execution has been cancelled or has failed.
+     */
     @Override
     protected Object doInBackground() throws Exception {
         long startTime = System.currentTimeMillis();
+        if(getProgressMonitor().isCancelled()) {
+            return null;
+        }
         //Catch all the Exception that can be get on executing the script.
         try {
             //Print in the log the process execution start
-            processExecutionData.appendLog(System.currentTimeMillis() - startTime,
+            appendLog(System.currentTimeMillis() - startTime,
                     ProcessExecutionData.LogType.INFO,
                     "Start process : " + process.getTitle());
 
@@ -93,23 +109,54 @@ public class ExecutionWorker extends SwingWorkerPM{
             toolBox.getProcessingManager().postProcessData(this);
 
             //Print in the log the process execution end
-            processExecutionData.appendLog(System.currentTimeMillis() - startTime,
+            appendLog(System.currentTimeMillis() - startTime,
                     ProcessExecutionData.LogType.INFO,
                     "End process : " + process.getTitle());
         }
         catch (Exception e) {
-            processExecutionData.setState(ProcessExecutionData.ProcessState.ERROR);
-            //Print in the log the process execution error
-            processExecutionData.appendLog(System.currentTimeMillis() - startTime,
-                    ProcessExecutionData.LogType.ERROR,
-                    e.getMessage());
+            if(processExecutionData != null) {
+                processExecutionData.setState(ProcessExecutionData.ProcessState.ERROR);
+                //Print in the log the process execution error
+                processExecutionData.appendLog(System.currentTimeMillis() - startTime,
+                        ProcessExecutionData.LogType.ERROR,
+                        e.getMessage());
+            }
             LoggerFactory.getLogger(ExecutionWorker.class).error(e.getMessage());
+            return null;
+        }
+        return getOutputDataMap();
+    }
+
+    /**
+     * Append a message to the execution log, or to the logger if there is no execution data.
+     */
+    private void appendLog(long time, ProcessExecutionData.LogType logType, String message){
+        if(processExecutionData != null) {
+            processExecutionData.appendLog(time, logType, message);
+        } else {
+            LoggerFactory.getLogger(ExecutionWorker.class).info(message);
+        }
+    }
+
+    /**
+     * Returns the output data of the executed process.
+     * @return Map of the output data.
+     */
+    private Map<URI, Object> getOutputDataMap(){
+        Map<URI, Object> outputDataMap = new HashMap<>();
+        for(Map.Entry<URI, Object> entry : dataMap.entrySet()){
+            if(entry.getKey().toString().contains("output")) {
+                outputDataMap.put(entry.getKey(), entry.getValue());
+            }
         }
-        return null;
+        return outputDataMap;
     }
 
     @Override
     protected void done(){
+        if(processExecutionData == null) {
+            return;
+        }
         //Retrieve the executed process output data
         List<String> listOutput = new ArrayList<>();
         for(Map.Entry<URI, Object> entry : dataMap.entrySet()){
@@ -136,4 +183,12 @@ public class ExecutionWorker extends SwingWorkerPM{
     public Map<URI, Object> getDataMap(){
         return dataMap;
     }
+
+    /**
+     * Returns the output file paths of this execution, filled by the pre-processing.
+     * @return Map of the output file paths.
+     */
+    public Map<URI, Object> getOutputFileMap(){
+        return outputFileMap;
+    }
 }
@@ -0,0 +1,180 @@
+/**
+ * OrbisToolBox is an OrbisGIS plugin dedicated to create and manage processing.
+ * <p/>
+ * OrbisToolBox is distributed under GPL 3 license. It is produced by CNRS <http://www.cnrs.fr/> as part of the
+ * MApUCE project, funded by the French Agence Nationale de la Recherche (ANR) under contract ANR-13-VBDU-0004.
+ * <p/>
+ * OrbisToolBox is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * <p/>
+ * OrbisToolBox is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * <p/>
+ * You should have received a copy of the GNU General Public License along with OrbisToolBox. If not, see
+ * <http://www.gnu.org/licenses/>.
+ * <p/>
+ * For more information, please consult: <http://www.orbisgis.org/> or contact directly: info_at_orbisgis.org
+ */
+
+package org.orbisgis.orbistoolbox.controller.processexecution;
+
+import org.orbisgis.commons.progress.ProgressMonitor;
+import org.orbisgis.orbistoolbox.model.Process;
+import org.orbisgis.orbistoolbox.view.ToolBox;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service executing the processes on a bounded pool of threads.
+ * Independent process instances run concurrently, each one with its own ExecutionWorker giving the progression and
+ * the cancellation of the job. A process can also be run as a batch over a list of input data, each job of the batch
+ * can be cancelled on its own.
+ **/
+
+public class ProcessExecutionService {
+    /** Delay between two checks of the batch cancellation, in milliseconds */
+    private static final long CANCEL_CHECK_DELAY = 200;
+    /** Executor running the ExecutionWorkers */
+    private ExecutorService executorService;
+
+    /**
+     * Main constructor.
+     * @param maxConcurrency Maximum number of processes executed at the same time.
+     */
+    public ProcessExecutionService(int maxConcurrency){
+        final AtomicInteger threadCount = new AtomicInteger();
+        executorService = Executors.newFixedThreadPool(Math.max(1, maxConcurrency), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ToolBox-execution-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Queue the given worker. It will be executed as soon as a thread of the pool is available.
+     * @param executionWorker Worker to execute.
+     * @return The worker, which gives the progression, the cancellation and the result of the job.
+     */
+    public ExecutionWorker execute(ExecutionWorker executionWorker){
+        executorService.execute(executionWorker);
+        return executionWorker;
+    }
+
+    /**
+     * Queue one execution of the process for each input data map.
+     * @param toolBox ToolBox.
+     * @param process Process to execute.
+     * @param inputDataMapList List of the input data, one map for each execution.
+     * @param outputDataMapList List of the output data, one map for each execution.
+     * @return The list of the queued workers, in the order of the input data.
+     */
+    public List<ExecutionWorker> executeBatch(ToolBox toolBox,
+                                              Process process,
+                                              List<Map<URI, Object>> inputDataMapList,
+                                              List<Map<URI, Object>> outputDataMapList){
+        if(inputDataMapList.size() != outputDataMapList.size()){
+            throw new IllegalArgumentException("The input and output data lists should have the same size.");
+        }
+        List<ExecutionWorker> workerList = new ArrayList<>(inputDataMapList.size());
+        for(int i = 0; i < inputDataMapList.size(); i++){
+            workerList.add(execute(createWorker(toolBox, process, inputDataMapList.get(i), outputDataMapList.get(i))));
+        }
+        return workerList;
+    }
+
+    /**
+     * Create the worker of one job of a batch. The worker has no ProcessExecutionData, its log is written with the
+     * logger.
+     * @param toolBox ToolBox.
+     * @param process Process to execute.
+     * @param inputDataMap Input data of the job.
+     * @param outputDataMap Output data of the job.
+     * @return The worker.
+     */
+    protected ExecutionWorker createWorker(ToolBox toolBox,
+                                           Process process,
+                                           Map<URI, Object> inputDataMap,
+                                           Map<URI, Object> outputDataMap){
+        return new ExecutionWorker(process, outputDataMap, inputDataMap, toolBox, null);
+    }
+
+    /**
+     * Wait for the end of the given workers and collect their output data.
+     * If the progress monitor is cancelled, all the workers not yet ended are cancelled.
+     * @param workerList Workers to wait for.
+     * @param pm Progress monitor of the whole batch.
+     * @return The output data map of each worker, in the same order. The map is null for a failed or cancelled job.
+     */
+    public static List<Map<URI, Object>> getResults(List<ExecutionWorker> workerList, ProgressMonitor pm){
+        List<Map<URI, Object>> resultList = new ArrayList<>(workerList.size());
+        ProgressMonitor batchPm = pm.startTask(workerList.size());
+        try {
+            for (ExecutionWorker worker : workerList) {
+                resultList.add(getResult(worker, pm));
+                batchPm.endTask();
+            }
+        } catch (InterruptedException e) {
+            cancel(workerList);
+            Thread.currentThread().interrupt();
+        }
+        while(resultList.size() < workerList.size()){
+            resultList.add(null);
+        }
+        return resultList;
+    }
+
+    /**
+     * Wait for the end of the worker, checking regularly the batch cancellation.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<URI, Object> getResult(ExecutionWorker worker, ProgressMonitor pm) throws InterruptedException {
+        while(true) {
+            if(pm.isCancelled()) {
+                worker.cancel();
+            }
+            try {
+                return (Map<URI, Object>) worker.get(CANCEL_CHECK_DELAY, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                //Check again the cancellation
+            } catch (CancellationException e) {
+                return null;
+            } catch (ExecutionException e) {
+                LoggerFactory.getLogger(ProcessExecutionService.class).error(e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Cancel the given workers. The workers not started yet will not be executed.
+     * @param workerList Workers to cancel.
+     */
+    public static void cancel(List<ExecutionWorker> workerList){
+        for(ExecutionWorker worker : workerList){
+            worker.cancel();
+        }
+    }
+
+    /**
+     * Stop the service, the running processes are interrupted.
+     */
+    public void shutdown(){
+        executorService.shutdownNow();
+    }
+}
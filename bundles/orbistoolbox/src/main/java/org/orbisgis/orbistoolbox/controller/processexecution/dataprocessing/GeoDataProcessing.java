@@ -20,6 +20,7 @@
 package org.orbisgis.orbistoolbox.controller.processexecution.dataprocessing;
 
 import org.h2gis.h2spatialapi.DriverFunction;
+import org.orbisgis.corejdbc.DataManager;
 import org.orbisgis.corejdbc.H2GISProgressMonitor;
 import org.orbisgis.orbistoolbox.controller.processexecution.ExecutionWorker;
 import org.orbisgis.orbistoolbox.controller.processexecution.utils.FormatFactory;
@@ -30,18 +31,22 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Pre and postProcessing of the GeoData.
+ * The data already stored in the database are given to the process as table references. A file given as input is
+ * linked to the database (no copy) only if it is not already linked, and an output is exported into a file only
+ * if a file path has been given for it. So chained processes exchange their results through tables.
  *
  * @author Sylvain PALOMINOS
  **/
 
 public class GeoDataProcessing implements ProcessingData{
-    private Map<URI, Object> saveMap = new HashMap<>();
+    /** The inputs are processed concurrently, the table name of a linked file is found and taken under this lock */
+    private static final Object REGISTER_LOCK = new Object();
 
     @Override
     public Class<? extends DataDescription> getDataClass() {
@@ -51,71 +56,127 @@ public class GeoDataProcessing implements ProcessingData{
     public void preProcessing(DescriptionType inputOrOutput, ExecutionWorker executionWorker) {
         Map<URI, Object> dataMap = executionWorker.getDataMap();
         ToolBox toolBox = executionWorker.getToolBox();
-        //If the descriptionType is an input, try to import the input file in OrbisGIS
+        //If the descriptionType is an input, give the table to the process, linking the input file if needed
         if (inputOrOutput instanceof Input) {
             Input input = (Input)inputOrOutput;
-            if (input.getDataDescription() instanceof GeoData) {
-                //Get the GeoData
-                GeoData geoData = ((GeoData) input.getDataDescription());
-                //Find the default format and the sql format
-                for (Format format : geoData.getFormats()) {
-                    if (format.isDefaultFormat() && !format.getMimeType().equals(FormatFactory.SQL_MIMETYPE)) {
-                        //Load the geoFile in OrbisGIS and put in the inputDataMap the table name.
-                        File geoFile = new File((String) dataMap.get(input.getIdentifier()));
-                        String tableName = null;
-                        try {
-                            tableName = toolBox.getDataManager().registerDataSource(geoFile.toURI());
-                        } catch (SQLException e) {
-                            LoggerFactory.getLogger(GeoDataProcessing.class).error(e.getMessage());
-                        }
-                        dataMap.put(input.getIdentifier(), tableName);
-                    }
+            if (input.getDataDescription() instanceof GeoData && isFileFormat((GeoData) input.getDataDescription())) {
+                Object data = dataMap.get(input.getIdentifier());
+                if(data != null) {
+                    dataMap.put(input.getIdentifier(), getTableReference(toolBox, data.toString()));
                 }
             }
         }
-        //If the descriptionType is an output, save the file path, and get the table name.
+        //If the descriptionType is an output written in a file, save the file path, and get the table name.
         if (inputOrOutput instanceof Output) {
             Output output = (Output) inputOrOutput;
-            if (output.getDataDescription() instanceof GeoData) {
-                //Save the output geoFile path and replace it in the output by the table name.
-                saveMap.put(output.getIdentifier(), dataMap.get(output.getIdentifier()));
-                File geoFile = new File((String) dataMap.get(output.getIdentifier()));
-                String tableName = geoFile.getName().replaceFirst("[.][^.]+$", "").toUpperCase();
-                dataMap.put(output.getIdentifier(), tableName);
+            if (output.getDataDescription() instanceof GeoData && isFileFormat((GeoData) output.getDataDescription())) {
+                Object data = dataMap.get(output.getIdentifier());
+                if(data != null && getExportDriver(toolBox, data.toString()) != null) {
+                    //Save the output geoFile path and replace it in the output by the table name.
+                    executionWorker.getOutputFileMap().put(output.getIdentifier(), data);
+                    File geoFile = new File(data.toString());
+                    String tableName = geoFile.getName().replaceFirst("[.][^.]+$", "").toUpperCase();
+                    dataMap.put(output.getIdentifier(), tableName);
+                }
+                //Otherwise the output is a table reference, kept in the database
             }
         }
     }
 
     public void postProcessing(DescriptionType inputOrOutput, ExecutionWorker executionWorker){
         Map<URI, Object> dataMap = executionWorker.getDataMap();
+        Map<URI, Object> saveMap = executionWorker.getOutputFileMap();
         ToolBox toolBox = executionWorker.getToolBox();
         if (inputOrOutput instanceof Output) {
             Output output = (Output) inputOrOutput;
-            if (output.getDataDescription() instanceof GeoData) {
-                //Get the GeoData
-                GeoData geoData = ((GeoData) output.getDataDescription());
-                //Find the default format
-                for (Format format : geoData.getFormats()) {
-                    if (format.isDefaultFormat() && !format.getMimeType().equals(FormatFactory.SQL_MIMETYPE)) {
-                        //Thank to the saved path, export the table as a geoFile.
-                        URI uri = output.getIdentifier();
-                        String extension = saveMap.get(uri).toString().substring(
-                                saveMap.get(uri).toString().lastIndexOf('.')+1);
-                        DriverFunction export =
-                                toolBox.getDriverFunctionContainer().getExportDriverFromExt(
-                                extension, DriverFunction.IMPORT_DRIVER_TYPE.COPY);
-                        try {
-                            export.exportTable(toolBox.getDataManager().getDataSource().getConnection(),
-                                    dataMap.get(uri).toString(),
-                                    new File(saveMap.get(uri).toString()),
-                                    new H2GISProgressMonitor(executionWorker.getProgressMonitor()));
-                        } catch (SQLException|IOException e) {
-                            LoggerFactory.getLogger(GeoDataProcessing.class).error(e.getMessage());
-                        }
-                        dataMap.put(uri, saveMap.get(uri));
-                    }
+            URI uri = output.getIdentifier();
+            //Only the outputs with a saved file path have to be exported
+            if (output.getDataDescription() instanceof GeoData && saveMap.get(uri) != null) {
+                //Thank to the saved path, export the table as a geoFile.
+                String filePath = saveMap.get(uri).toString();
+                DriverFunction export = getExportDriver(toolBox, filePath);
+                try (Connection connection = toolBox.getDataManager().getDataSource().getConnection()) {
+                    export.exportTable(connection,
+                            dataMap.get(uri).toString(),
+                            new File(filePath),
+                            new H2GISProgressMonitor(executionWorker.getProgressMonitor()));
+                } catch (SQLException|IOException e) {
+                    LoggerFactory.getLogger(GeoDataProcessing.class).error(e.getMessage());
                 }
+                dataMap.put(uri, filePath);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the default format of the GeoData is not the SQL one, so the data can be given as a file.
+     * @param geoData GeoData to analyse.
+     * @return True if the data can be given as a file.
+     */
+    private boolean isFileFormat(GeoData geoData){
+        for (Format format : geoData.getFormats()) {
+            if (format.isDefaultFormat() && !format.getMimeType().equals(FormatFactory.SQL_MIMETYPE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the reference of the table containing the given data.
+     * An existing file is linked to the database, or the already linked table is reused. Otherwise, the data is
+     * considered as a table reference and given as it is to the process.
+     * @param toolBox ToolBox.
+     * @param data File path or table reference.
+     * @return The table reference.
+     */
+    private String getTableReference(ToolBox toolBox, String data){
+        File geoFile = new File(data);
+        if(geoFile.isFile()) {
+            try {
+                return registerFile(toolBox.getDataManager(), geoFile);
+            } catch (SQLException e) {
+                LoggerFactory.getLogger(GeoDataProcessing.class).error(e.getMessage());
+                return null;
             }
         }
+        try {
+            if(!toolBox.getDataManager().isTableExists(data)) {
+                LoggerFactory.getLogger(GeoDataProcessing.class).error("The table " + data + " does not exists");
+            }
+        } catch (SQLException e) {
+            LoggerFactory.getLogger(GeoDataProcessing.class).error(e.getMessage());
+        }
+        return data;
+    }
+
+    /**
+     * Link the file to the database, or return the table already linked to it.
+     * DataManager.registerDataSource finds a free table name then creates the link, so two concurrent registrations
+     * could take the same name, or link the same file twice. The registrations are then done one after the other.
+     * @param dataManager DataManager.
+     * @param file Existing file.
+     * @return The table reference.
+     * @throws SQLException If the file can not be linked.
+     */
+    static String registerFile(DataManager dataManager, File file) throws SQLException {
+        synchronized (REGISTER_LOCK) {
+            return dataManager.registerDataSource(file.toURI());
+        }
+    }
+
+    /**
+     * Returns the driver able to export a table into the given file.
+     * @param toolBox ToolBox.
+     * @param filePath Path of the file.
+     * @return The export driver, null if the path has no known file extension.
+     */
+    private DriverFunction getExportDriver(ToolBox toolBox, String filePath){
+        int extensionIndex = filePath.lastIndexOf('.');
+        if(extensionIndex == -1 || extensionIndex < filePath.lastIndexOf(File.separatorChar)) {
+            return null;
+        }
+        return toolBox.getDriverFunctionContainer().getExportDriverFromExt(
+                filePath.substring(extensionIndex + 1), DriverFunction.IMPORT_DRIVER_TYPE.COPY);
     }
 }
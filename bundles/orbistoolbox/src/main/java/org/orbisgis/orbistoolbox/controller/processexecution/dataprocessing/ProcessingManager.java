@@ -29,8 +29,16 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Field;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Manager for the processing tools which pre and post process the input and output to well form the data.
@@ -43,6 +51,8 @@ public class ProcessingManager {
     ToolBox toolBox;
     /** Map of the ProcessingData and the corresponding data class. */
     private Map<Class, ProcessingData> classProcessingMap;
+    /** Executor running concurrently the pre and post processing of the data of a process. */
+    private ExecutorService executorService;
 
     /**
      * Main constructor.
@@ -51,6 +61,21 @@ public class ProcessingManager {
         this.toolBox = toolBox;
         classProcessingMap = new HashMap<>();
         classProcessingMap.put(GeoData.class, new GeoDataProcessing());
+        executorService = Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ToolBox-data-processing");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Stop the threads of the data processing.
+     */
+    public void dispose(){
+        executorService.shutdownNow();
     }
 
     /**
@@ -71,18 +96,7 @@ public class ProcessingManager {
      * @param executionWorker The executionWorker which execute the process.
      */
     public void preProcessData(ExecutionWorker executionWorker){
-        ProcessingData prossData;
-        Process process = executionWorker.getProcess();
-        for(Input input : process.getInput()){
-            if((prossData = getProcessingData(input.getDataDescription().getClass())) != null) {
-                prossData.preProcessing(input, executionWorker);
-            }
-        }
-        for(Output output : process.getOutput()){
-            if((prossData = getProcessingData(output.getDataDescription().getClass())) != null) {
-                prossData.preProcessing(output, executionWorker);
-            }
-        }
+        processAll(executionWorker, true);
     }
 
     /**
@@ -109,17 +123,61 @@ public class ProcessingManager {
                 }
             }
         }
-        ProcessingData prossData;
+        processAll(executionWorker, false);
+    }
+
+    /**
+     * Pre or post process all the inputs and outputs of the process. As the inputs and outputs are independent,
+     * when there is more than one to process (file import or export), they are processed concurrently.
+     * @param executionWorker The executionWorker which execute the process.
+     * @param isPreProcessing True to pre process the data, false to post process it.
+     */
+    private void processAll(final ExecutionWorker executionWorker, final boolean isPreProcessing){
         Process process = executionWorker.getProcess();
-        for(Input input : process.getInput()){
-            if((prossData = getProcessingData(input.getDataDescription().getClass())) != null) {
-                prossData.postProcessing(input, executionWorker);
+        List<DescriptionType> descriptionTypeList = new ArrayList<>();
+        descriptionTypeList.addAll(process.getInput());
+        descriptionTypeList.addAll(process.getOutput());
+        List<Callable<Object>> taskList = new ArrayList<>();
+        for(final DescriptionType descriptionType : descriptionTypeList){
+            final ProcessingData prossData = getProcessingData(getDataDescription(descriptionType).getClass());
+            if(prossData != null) {
+                taskList.add(new Callable<Object>() {
+                    @Override
+                    public Object call() {
+                        if (isPreProcessing) {
+                            prossData.preProcessing(descriptionType, executionWorker);
+                        } else {
+                            prossData.postProcessing(descriptionType, executionWorker);
+                        }
+                        return null;
+                    }
+                });
             }
         }
-        for(Output output : process.getOutput()){
-            if((prossData = getProcessingData(output.getDataDescription().getClass())) != null) {
-                prossData.postProcessing(output, executionWorker);
+        try {
+            if(taskList.size() == 1) {
+                taskList.get(0).call();
+            } else if(!taskList.isEmpty()) {
+                for(Future<Object> future : executorService.invokeAll(taskList)) {
+                    future.get();
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LoggerFactory.getLogger(ProcessingManager.class).error(e.getCause().getMessage());
+        } catch (Exception e) {
+            LoggerFactory.getLogger(ProcessingManager.class).error(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the DataDescription of an Input or an Output.
+     */
+    private DataDescription getDataDescription(DescriptionType descriptionType){
+        if(descriptionType instanceof Input) {
+            return ((Input) descriptionType).getDataDescription();
         }
+        return ((Output) descriptionType).getDataDescription();
     }
 }
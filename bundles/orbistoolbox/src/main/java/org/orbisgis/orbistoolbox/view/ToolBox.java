@@ -22,7 +22,9 @@ package org.orbisgis.orbistoolbox.view;
 import org.h2gis.h2spatialapi.DriverFunction;
 import org.orbisgis.corejdbc.DataManager;
 import org.orbisgis.dbjobs.api.DriverFunctionContainer;
+import org.orbisgis.frameworkapi.CoreWorkspace;
 import org.orbisgis.orbistoolbox.controller.ProcessManager;
+import org.orbisgis.orbistoolbox.controller.processexecution.ProcessExecutionService;
 import org.orbisgis.orbistoolbox.controller.processexecution.dataprocessing.ProcessingManager;
 import org.orbisgis.orbistoolbox.controller.processexecution.utils.FormatFactory;
 import org.orbisgis.orbistoolbox.model.Process;
@@ -74,17 +76,27 @@ public class ToolBox implements DockingPanel {
     private static DataManager dataManager;
     private static DriverFunctionContainer driverFunctionContainer;
     private ProcessingManager processingManager;
+    /** Service executing the processes */
+    private ProcessExecutionService processExecutionService;
 
     private Map<String, Object> properties;
     private List<ProcessExecutionData> processExecutionDataList;
+    /** Application folder, used to keep the compiled scripts */
+    private CoreWorkspace coreWorkspace;
+    private static final String SCRIPT_CACHE_FOLDER = "toolbox_cache";
 
     @Activate
     public void init(){
         toolBoxPanel = new ToolBoxPanel(this);
-        processManager = new ProcessManager();
+        if(coreWorkspace != null) {
+            processManager = new ProcessManager(new File(coreWorkspace.getApplicationFolder(), SCRIPT_CACHE_FOLDER));
+        } else {
+            processManager = new ProcessManager();
+        }
         dataUIManager = new DataUIManager();
         processExecutionDataList = new ArrayList<>();
         processingManager = new ProcessingManager(this);
+        processExecutionService = new ProcessExecutionService(Runtime.getRuntime().availableProcessors());
 
         ActionCommands dockingActions = new ActionCommands();
 
@@ -101,6 +113,8 @@ public class ToolBox implements DockingPanel {
     @Deactivate
     public void dispose(){
         toolBoxPanel.dispose();
+        processExecutionService.shutdown();
+        processingManager.dispose();
     }
 
     /**
@@ -115,6 +129,14 @@ public class ToolBox implements DockingPanel {
         return processingManager;
     }
 
+    /**
+     * Returns the service executing the processes.
+     * @return The process execution service.
+     */
+    public ProcessExecutionService getProcessExecutionService(){
+        return processExecutionService;
+    }
+
     @Override
     public DockingPanelParameters getDockingParameters() {
         return parameters;
@@ -274,6 +296,15 @@ public class ToolBox implements DockingPanel {
         this.driverFunctionContainer = null;
     }
 
+    @Reference
+    public void setCoreWorkspace(CoreWorkspace coreWorkspace) {
+        this.coreWorkspace = coreWorkspace;
+    }
+
+    public void unsetCoreWorkspace(CoreWorkspace coreWorkspace) {
+        this.coreWorkspace = null;
+    }
+
     public DriverFunctionContainer getDriverFunctionContainer(){
         return driverFunctionContainer;
     }
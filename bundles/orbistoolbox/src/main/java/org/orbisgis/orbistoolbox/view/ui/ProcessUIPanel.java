@@ -32,8 +32,11 @@ import org.orbisgis.sif.UIPanel;
 import org.slf4j.LoggerFactory;
 
 import javax.swing.*;
+import javax.swing.event.ListSelectionListener;
 import javax.swing.text.*;
 import java.awt.*;
+import java.awt.event.ActionListener;
+import java.beans.EventHandler;
 import java.net.URI;
 import java.net.URL;
 import java.util.ArrayList;
@@ -47,6 +50,8 @@ import java.util.Map;
  **/
 
 public class ProcessUIPanel extends JPanel implements UIPanel {
+    /** Number of visible rows in the batch table lists */
+    private static final int BATCH_TABLE_ROW_COUNT = 6;
 
     /** TabbedPane containing the configuration panel, the info panel and the execution panel */
     private JTabbedPane tabbedPane;
@@ -60,6 +65,10 @@ public class ProcessUIPanel extends JPanel implements UIPanel {
     private ProcessExecutionData processExecutionData;
     /**TextPane used to display the process execution log.*/
     private JTextPane logPane;
+    /** List of the jobs of the batch, one for each selected table */
+    private JList<String> batchJobList;
+    /** Panel of the batch jobs, only visible when the process is run as a batch */
+    private JPanel batchJobPanel;
 
     /**
      * Main constructor with no ProcessExecutionData.
@@ -153,6 +162,9 @@ public class ProcessUIPanel extends JPanel implements UIPanel {
                 processExecutionData.getState().equals(ProcessExecutionData.ProcessState.ERROR) ||
                 processExecutionData.getState().equals(ProcessExecutionData.ProcessState.COMPLETED)) {
             clearLogPanel();
+            List<String> batchTableList = processExecutionData.getBatchTableList();
+            batchJobList.setListData(batchTableList.toArray(new String[batchTableList.size()]));
+            batchJobPanel.setVisible(!batchTableList.isEmpty());
             processExecutionData.runProcess();
             //Select the execution tab
             stateLabel.setText(processExecutionData.getState().getValue());
@@ -185,6 +197,14 @@ public class ProcessUIPanel extends JPanel implements UIPanel {
             panel.add(inputPanel, "growx, wrap");
         }
 
+        //If the process takes a table, it can be run as a batch over several tables
+        for(Input i : processExecutionData.getProcess().getInput()){
+            if(i.getDataDescription() instanceof GeoData) {
+                panel.add(buildUIBatch(i, processExecutionData), "growx, wrap");
+                break;
+            }
+        }
+
         //For each output, display its title, its abstract and gets its UI from the dataUIManager
         for(Output o : processExecutionData.getProcess().getOutput()){
             DataUI dataUI = dataUIManager.getDataUI(o.getDataDescription().getClass());
@@ -204,6 +224,47 @@ public class ProcessUIPanel extends JPanel implements UIPanel {
         return panel;
     }
 
+    /**
+     * Build the UI used to select the tables of a batch execution.
+     * @param input Input receiving the tables.
+     * @param processExecutionData Process data.
+     * @return The UI for the selection of the batch tables.
+     */
+    private JComponent buildUIBatch(Input input, ProcessExecutionData processExecutionData){
+        JPanel batchPanel = new JPanel(new MigLayout("fill"));
+        batchPanel.setBorder(BorderFactory.createTitledBorder("Batch :"));
+        JLabel batchAbstrac = new JLabel("Run the process once for each selected table given as '" +
+                input.getTitle() + "'");
+        batchAbstrac.setFont(batchAbstrac.getFont().deriveFont(Font.ITALIC));
+        batchPanel.add(batchAbstrac, "wrap");
+        List<String> geoTableList = ToolBox.getGeoTableList();
+        JList<String> tableList = new JList<>(geoTableList.toArray(new String[geoTableList.size()]));
+        tableList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        tableList.setVisibleRowCount(BATCH_TABLE_ROW_COUNT);
+        //Restore the tables of the previous batch
+        for(String tableName : processExecutionData.getBatchTableList()) {
+            int index = geoTableList.indexOf(tableName);
+            if(index != -1) {
+                tableList.addSelectionInterval(index, index);
+            }
+        }
+        tableList.putClientProperty("uri", input.getIdentifier());
+        tableList.addListSelectionListener(EventHandler.create(ListSelectionListener.class, this,
+                "onBatchTableSelected", "source"));
+        batchPanel.add(new JScrollPane(tableList), "growx, wrap");
+        return batchPanel;
+    }
+
+    /**
+     * Call on selecting the tables of the batch.
+     * @param source The JList containing the tables.
+     */
+    public void onBatchTableSelected(Object source){
+        JList<String> tableList = (JList<String>) source;
+        processExecutionData.setBatchTables((URI) tableList.getClientProperty("uri"),
+                tableList.getSelectedValuesList());
+    }
+
     /**
      * Build the UI of the given process according to the given data.
      * @param processExecutionData Process data.
@@ -297,6 +358,19 @@ public class ProcessUIPanel extends JPanel implements UIPanel {
             resultPanel.add(result, "wrap");
         }
 
+        //Jobs of the batch, each one can be cancelled
+        batchJobPanel = new JPanel(new MigLayout("fill"));
+        batchJobPanel.setBorder(BorderFactory.createTitledBorder("Batch jobs :"));
+        List<String> batchTableList = processExecutionData.getBatchTableList();
+        batchJobList = new JList<>(batchTableList.toArray(new String[batchTableList.size()]));
+        batchJobList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        batchJobList.setVisibleRowCount(BATCH_TABLE_ROW_COUNT);
+        batchJobPanel.add(new JScrollPane(batchJobList), "growx, wrap");
+        JButton cancelButton = new JButton("Cancel the selected jobs");
+        cancelButton.addActionListener(EventHandler.create(ActionListener.class, this, "onCancelBatchJobs"));
+        batchJobPanel.add(cancelButton);
+        batchJobPanel.setVisible(!batchTableList.isEmpty());
+
         JPanel logPanel = new JPanel(new BorderLayout());
         logPanel.setBorder(BorderFactory.createTitledBorder("Log :"));
         logPane = new JTextPane();
@@ -307,11 +381,27 @@ public class ProcessUIPanel extends JPanel implements UIPanel {
         panel.add(executorPanel, "growx, wrap");
         panel.add(statusPanel, "growx, wrap");
         panel.add(resultPanel, "growx, wrap");
+        panel.add(batchJobPanel, "growx, hidemode 3, wrap");
         panel.add(logPanel, "growx, growy, wrap");
 
         return panel;
     }
 
+    /**
+     * Cancel the jobs selected in the batch job list.
+     */
+    public void onCancelBatchJobs(){
+        processExecutionData.cancelBatchJobs(batchJobList.getSelectedIndices());
+    }
+
+    /**
+     * Sets the text of the state label.
+     * @param state State of the process.
+     */
+    public void setStateText(String state) {
+        stateLabel.setText(state);
+    }
+
     /**
      * Sets the outputs label with the outputs results.
      * @param outputs Outputs results.
@@ -19,7 +19,9 @@
 
 package org.orbisgis.orbistoolbox.view.utils;
 
+import org.orbisgis.commons.progress.SwingWorkerPM;
 import org.orbisgis.orbistoolbox.controller.processexecution.ExecutionWorker;
+import org.orbisgis.orbistoolbox.controller.processexecution.ProcessExecutionService;
 import org.orbisgis.orbistoolbox.model.Process;
 import org.orbisgis.orbistoolbox.view.ToolBox;
 import org.orbisgis.orbistoolbox.view.ui.ProcessUIPanel;
@@ -55,6 +57,12 @@ public class ProcessExecutionData {
     private Map<String, Color> logMap;
     /** List of listeners for the processState*/
     private List<PropertyChangeListener> propertyChangeListenerList;
+    /** Identifier of the input receiving the tables of the batch, null if the process is not run as a batch */
+    private URI batchInputIdentifier;
+    /** Tables of the batch, the process is run once for each one */
+    private List<String> batchTableList;
+    /** Workers of the last batch, in the order of the batch tables */
+    private List<ExecutionWorker> batchWorkerList;
 
     public ProcessExecutionData(ToolBox toolBox, Process process){
         this.toolBox = toolBox;
@@ -63,6 +71,8 @@ public class ProcessExecutionData {
         this.inputDataMap = new HashMap<>();
         this.logMap = new LinkedHashMap<>();
         this.propertyChangeListenerList = new ArrayList<>();
+        this.batchTableList = new ArrayList<>();
+        this.batchWorkerList = new ArrayList<>();
     }
 
     public Map<String, Color> getLogMap(){
@@ -122,18 +132,101 @@ public class ProcessExecutionData {
         }
     }
 
+    /**
+     * Sets the tables of the batch. If the list is not empty, the process is run once for each table given to the
+     * input with the given identifier.
+     * @param inputIdentifier Identifier of the input receiving the tables.
+     * @param tableList Tables of the batch.
+     */
+    public void setBatchTables(URI inputIdentifier, List<String> tableList){
+        this.batchInputIdentifier = inputIdentifier;
+        this.batchTableList = new ArrayList<>(tableList);
+    }
+
+    public List<String> getBatchTableList(){
+        return Collections.unmodifiableList(batchTableList);
+    }
+
     /**
      * Run the process.
      */
     public void runProcess(){
         logMap = new HashMap<>();
+        if(batchInputIdentifier != null && !batchTableList.isEmpty()) {
+            runBatch();
+            return;
+        }
         //Check that all the data field were filled.
         if(inputDataMap.size() == process.getInput().size()) {
             setState(ProcessState.RUNNING);
-            //Run the process in a separated thread
+            //Queue the process in the execution service
             ExecutionWorker thread = new ExecutionWorker(process, outputDataMap, inputDataMap, toolBox, this);
-            thread.execute();
+            toolBox.getProcessExecutionService().execute(thread);
+        }
+    }
+
+    /**
+     * Run the process once for each batch table, then collect the results of the jobs.
+     */
+    private void runBatch(){
+        Map<URI, Object> inputMap = new HashMap<>(inputDataMap);
+        inputMap.put(batchInputIdentifier, batchTableList.get(0));
+        //Check that all the data field were filled, the batch input being given by the tables.
+        if(inputMap.size() != process.getInput().size()) {
+            return;
         }
+        setState(ProcessState.RUNNING);
+        List<Map<URI, Object>> inputDataMapList = new ArrayList<>(batchTableList.size());
+        List<Map<URI, Object>> outputDataMapList = new ArrayList<>(batchTableList.size());
+        for(String tableName : batchTableList) {
+            Map<URI, Object> jobInputMap = new HashMap<>(inputDataMap);
+            jobInputMap.put(batchInputIdentifier, tableName);
+            inputDataMapList.add(jobInputMap);
+            //Each job writes its own outputs
+            Map<URI, Object> jobOutputMap = new HashMap<>();
+            for(Map.Entry<URI, Object> entry : outputDataMap.entrySet()) {
+                jobOutputMap.put(entry.getKey(), getBatchOutputValue(entry.getValue(), tableName));
+            }
+            outputDataMapList.add(jobOutputMap);
+        }
+        appendLog(0, LogType.INFO, "Start batch of " + batchTableList.size() + " jobs : " + process.getTitle());
+        batchWorkerList = toolBox.getProcessExecutionService().executeBatch(toolBox, process,
+                inputDataMapList, outputDataMapList);
+        new BatchResultWorker(new ArrayList<>(batchTableList), batchWorkerList).execute();
+    }
+
+    /**
+     * Returns the output value of a batch job: the table name or the file name given by the user followed by the
+     * name of the input table.
+     * @param value Output value given by the user.
+     * @param tableName Input table of the job.
+     * @return The output value of the job.
+     */
+    static Object getBatchOutputValue(Object value, String tableName){
+        if(!(value instanceof String) || ((String) value).isEmpty()) {
+            return value;
+        }
+        String output = (String) value;
+        int nameStart = Math.max(output.lastIndexOf('/'), output.lastIndexOf('\\')) + 1;
+        int extensionStart = output.lastIndexOf('.');
+        if(extensionStart > nameStart) {
+            return output.substring(0, extensionStart) + "_" + tableName + output.substring(extensionStart);
+        }
+        return output + "_" + tableName;
+    }
+
+    /**
+     * Cancel the given jobs of the running batch.
+     * @param jobIndices Index of the jobs, in the order of the batch tables.
+     */
+    public void cancelBatchJobs(int[] jobIndices){
+        List<ExecutionWorker> toCancel = new ArrayList<>(jobIndices.length);
+        for(int jobIndex : jobIndices) {
+            if(jobIndex >= 0 && jobIndex < batchWorkerList.size()) {
+                toCancel.add(batchWorkerList.get(jobIndex));
+            }
+        }
+        ProcessExecutionService.cancel(toCancel);
     }
 
     /**
@@ -177,6 +270,56 @@ public class ProcessExecutionData {
     }
 
 
+    /**
+     * Wait for the end of the batch jobs and print the result of each one.
+     */
+    private class BatchResultWorker extends SwingWorkerPM<List<Map<URI, Object>>, Object> {
+        private final List<String> tableList;
+        private final List<ExecutionWorker> workerList;
+        private final long startTime = System.currentTimeMillis();
+
+        BatchResultWorker(List<String> tableList, List<ExecutionWorker> workerList) {
+            this.tableList = tableList;
+            this.workerList = workerList;
+            setTaskName(process.getTitle());
+        }
+
+        @Override
+        protected List<Map<URI, Object>> doInBackground() throws Exception {
+            return ProcessExecutionService.getResults(workerList, getProgressMonitor());
+        }
+
+        @Override
+        protected void done() {
+            List<Map<URI, Object>> resultList;
+            try {
+                resultList = get();
+            } catch (Exception e) {
+                setState(ProcessState.ERROR);
+                appendLog(System.currentTimeMillis() - startTime, LogType.ERROR, e.getMessage());
+                return;
+            }
+            int failedCount = 0;
+            for(int i = 0; i < resultList.size(); i++) {
+                Map<URI, Object> result = resultList.get(i);
+                if(result == null) {
+                    failedCount++;
+                    appendLog(System.currentTimeMillis() - startTime, LogType.WARN,
+                            tableList.get(i) + " : " + (workerList.get(i).isCancelled() ? "cancelled" : "failed"));
+                } else {
+                    appendLog(System.currentTimeMillis() - startTime, LogType.INFO,
+                            tableList.get(i) + " : " + result.values());
+                }
+            }
+            appendLog(System.currentTimeMillis() - startTime, LogType.INFO,
+                    "End batch : " + (resultList.size() - failedCount) + " jobs completed on " + resultList.size());
+            setState(failedCount == resultList.size() ? ProcessState.ERROR : ProcessState.COMPLETED);
+            if(processUIPanel != null) {
+                processUIPanel.setStateText(getState().getValue());
+            }
+        }
+    }
+
     public enum ProcessState{
         RUNNING("Running"),
         COMPLETED("Completed"),
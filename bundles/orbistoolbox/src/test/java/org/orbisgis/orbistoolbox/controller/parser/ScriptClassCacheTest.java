@@ -0,0 +1,71 @@
+/**
+ * OrbisToolBox is an OrbisGIS plugin dedicated to create and manage processing.
+ *
+ * OrbisToolBox is distributed under GPL 3 license. It is produced by CNRS <http://www.cnrs.fr/> as part of the
+ * MApUCE project, funded by the French Agence Nationale de la Recherche (ANR) under contract ANR-13-VBDU-0004.
+ *
+ * OrbisToolBox is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * OrbisToolBox is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with OrbisToolBox. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/> or contact directly: info_at_orbisgis.org
+ */
+
+package org.orbisgis.orbistoolbox.controller.parser;
+
+import groovy.lang.GroovyShell;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Tests for the ScriptClassCache class.
+ */
+
+public class ScriptClassCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Tests that a script is compiled once, and compiled again only when modified.
+     */
+    @Test
+    public final void cacheTest() throws Exception {
+        File cacheFolder = folder.newFolder("cache");
+        File script = new File(folder.getRoot(), "cachedScript.groovy");
+        Files.write(script.toPath(), "class cachedScript { def processing() { return 1 } }".getBytes(StandardCharsets.UTF_8));
+        ClassLoader parent = new GroovyShell().getClassLoader();
+
+        Class clazz = new ScriptClassCache(cacheFolder, parent).loadClass(script);
+        Assert.assertEquals("cachedScript", clazz.getName());
+        Assert.assertEquals(1, clazz.getMethod("processing").invoke(clazz.newInstance()));
+        File[] compiled = cacheFolder.listFiles();
+        Assert.assertEquals(1, compiled.length);
+        long compilationTime = compiled[0].lastModified();
+
+        // A new cache instance reuse the compiled classes
+        clazz = new ScriptClassCache(cacheFolder, parent).loadClass(script);
+        Assert.assertEquals(1, clazz.getMethod("processing").invoke(clazz.newInstance()));
+        Assert.assertEquals(1, cacheFolder.listFiles().length);
+        Assert.assertEquals(compilationTime, cacheFolder.listFiles()[0].lastModified());
+
+        // Modified script, the outdated compilation is removed
+        Files.write(script.toPath(), "class cachedScript { def processing() { return 2 } }".getBytes(StandardCharsets.UTF_8));
+        clazz = new ScriptClassCache(cacheFolder, parent).loadClass(script);
+        Assert.assertEquals(2, clazz.getMethod("processing").invoke(clazz.newInstance()));
+        compiled = cacheFolder.listFiles();
+        Assert.assertEquals(1, compiled.length);
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * OrbisToolBox is an OrbisGIS plugin dedicated to create and manage processing.
+ *
+ * OrbisToolBox is distributed under GPL 3 license. It is produced by CNRS <http://www.cnrs.fr/> as part of the
+ * MApUCE project, funded by the French Agence Nationale de la Recherche (ANR) under contract ANR-13-VBDU-0004.
+ *
+ * OrbisToolBox is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * OrbisToolBox is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with OrbisToolBox. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/> or contact directly: info_at_orbisgis.org
+ */
+
+package org.orbisgis.orbistoolbox.controller.processexecution;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.orbisgis.commons.progress.RootProgressMonitor;
+import org.orbisgis.orbistoolbox.model.Format;
+import org.orbisgis.orbistoolbox.model.Input;
+import org.orbisgis.orbistoolbox.model.Output;
+import org.orbisgis.orbistoolbox.model.Process;
+import org.orbisgis.orbistoolbox.model.RawData;
+import org.orbisgis.orbistoolbox.view.ToolBox;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Tests for the batch execution of the ProcessExecutionService class.
+ */
+
+public class ProcessExecutionServiceTest {
+    private static final URI INPUT_URI = URI.create("test:input:table");
+    private static final URI OUTPUT_URI = URI.create("test:output:table");
+
+    /**
+     * Run a process over several tables as a batch and cancel one of the jobs before it starts.
+     */
+    @Test
+    public void testBatchCancelOneJob() throws Exception {
+        Format format = new Format("test", new URI("http://orbisgis.org"));
+        format.setDefaultFormat(true);
+        Process process = new Process("test", URI.create("test"), new Output("output", OUTPUT_URI,
+                new RawData(format)));
+        process.setInput(Collections.singletonList(new Input("input", INPUT_URI, new RawData(format))));
+        //The jobs wait for the gate, so they are all queued when one of them is cancelled
+        final CountDownLatch gate = new CountDownLatch(1);
+        ProcessExecutionService service = new ProcessExecutionService(1) {
+            @Override
+            protected ExecutionWorker createWorker(ToolBox toolBox, Process process, Map<URI, Object> inputDataMap,
+                                                   Map<URI, Object> outputDataMap) {
+                return new TableWorker(process, inputDataMap, outputDataMap, gate);
+            }
+        };
+        try {
+            int tableCount = 5;
+            int cancelledJob = 3;
+            List<Map<URI, Object>> inputDataMapList = new ArrayList<>();
+            List<Map<URI, Object>> outputDataMapList = new ArrayList<>();
+            for (int i = 0; i < tableCount; i++) {
+                Map<URI, Object> inputDataMap = new HashMap<>();
+                inputDataMap.put(INPUT_URI, "TABLE" + i);
+                inputDataMapList.add(inputDataMap);
+                outputDataMapList.add(new HashMap<URI, Object>());
+            }
+            List<ExecutionWorker> workerList = service.executeBatch(null, process, inputDataMapList,
+                    outputDataMapList);
+            Assert.assertEquals(tableCount, workerList.size());
+            ProcessExecutionService.cancel(Collections.singletonList(workerList.get(cancelledJob)));
+            gate.countDown();
+            List<Map<URI, Object>> resultList = ProcessExecutionService.getResults(workerList,
+                    new RootProgressMonitor(1));
+            Assert.assertEquals(tableCount, resultList.size());
+            for (int i = 0; i < tableCount; i++) {
+                if (i == cancelledJob) {
+                    Assert.assertNull(resultList.get(i));
+                    Assert.assertTrue(workerList.get(i).isCancelled());
+                } else {
+                    Assert.assertEquals("RESULT_TABLE" + i, resultList.get(i).get(OUTPUT_URI));
+                    Assert.assertFalse(workerList.get(i).isCancelled());
+                }
+            }
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    /**
+     * Worker giving a result table for its input table, once the gate is open.
+     */
+    private static class TableWorker extends ExecutionWorker {
+        private final CountDownLatch gate;
+
+        TableWorker(Process process, Map<URI, Object> inputDataMap, Map<URI, Object> outputDataMap,
+                    CountDownLatch gate) {
+            super(process, outputDataMap, inputDataMap, null, null);
+            this.gate = gate;
+        }
+
+        @Override
+        protected Object doInBackground() throws Exception {
+            gate.await();
+            Map<URI, Object> outputDataMap = new HashMap<>();
+            outputDataMap.put(OUTPUT_URI, "RESULT_" + getDataMap().get(INPUT_URI));
+            return outputDataMap;
+        }
+    }
+}
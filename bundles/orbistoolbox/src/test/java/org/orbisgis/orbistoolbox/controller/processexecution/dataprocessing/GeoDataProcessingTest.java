@@ -0,0 +1,126 @@
+/**
+ * OrbisToolBox is an OrbisGIS plugin dedicated to create and manage processing.
+ *
+ * OrbisToolBox is distributed under GPL 3 license. It is produced by CNRS <http://www.cnrs.fr/> as part of the
+ * MApUCE project, funded by the French Agence Nationale de la Recherche (ANR) under contract ANR-13-VBDU-0004.
+ *
+ * OrbisToolBox is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * OrbisToolBox is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with OrbisToolBox. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/> or contact directly: info_at_orbisgis.org
+ */
+
+package org.orbisgis.orbistoolbox.controller.processexecution.dataprocessing;
+
+import org.h2gis.drivers.shp.SHPDriverFunction;
+import org.h2gis.h2spatial.ut.SpatialH2UT;
+import org.h2gis.h2spatialapi.EmptyProgressVisitor;
+import org.h2gis.h2spatialext.CreateSpatialExtension;
+import org.h2gis.utilities.SFSUtilities;
+import org.h2gis.utilities.TableLocation;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.internal.DataManagerImpl;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tests for the GeoDataProcessing class.
+ */
+
+public class GeoDataProcessingTest {
+    private static DataSource dataSource;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        dataSource = SFSUtilities.wrapSpatialDataSource(SpatialH2UT.createDataSource(
+                GeoDataProcessingTest.class.getSimpleName(), false));
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement()) {
+            CreateSpatialExtension.initSpatialExtension(connection);
+            st.execute("CREATE TABLE PTS(id integer primary key, the_geom POINT)");
+            st.execute("INSERT INTO PTS SELECT X, ST_MakePoint(X, X) FROM SYSTEM_RANGE(1, 10)");
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE PTS");
+        }
+    }
+
+    /**
+     * Files with the same name in different folders are linked concurrently, each file must have its own table and a
+     * file must be linked only once.
+     */
+    @Test
+    public void testConcurrentRegistration() throws Exception {
+        final List<File> files = new ArrayList<>();
+        try(Connection connection = dataSource.getConnection()) {
+            for(String folderName : new String[]{"a", "b", "c"}) {
+                File file = new File(folder.newFolder(folderName), "input.shp");
+                new SHPDriverFunction().exportTable(connection, "PTS", file, new EmptyProgressVisitor());
+                files.add(file);
+            }
+        }
+        final DataManager dataManager = new DataManagerImpl(dataSource);
+        ExecutorService executorService = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for(int i = 0; i < 4; i++) {
+                for(final File file : files) {
+                    results.add(executorService.submit(new Callable<String>() {
+                        @Override
+                        public String call() throws Exception {
+                            return GeoDataProcessing.registerFile(dataManager, file);
+                        }
+                    }));
+                }
+            }
+            Set<String> tables = new HashSet<>();
+            for(int idResult = 0; idResult < results.size(); idResult++) {
+                // The first registration returns the table name, the next ones the full table location
+                String table = TableLocation.parse(results.get(idResult).get()).getTable();
+                if(idResult < files.size()) {
+                    Assert.assertTrue(tables.add(table));
+                } else {
+                    // Already linked file
+                    Assert.assertEquals(TableLocation.parse(results.get(idResult % files.size()).get()).getTable(),
+                            table);
+                }
+            }
+            Assert.assertEquals(files.size(), tables.size());
+        } finally {
+            executorService.shutdown();
+            dataManager.dispose();
+        }
+    }
+}
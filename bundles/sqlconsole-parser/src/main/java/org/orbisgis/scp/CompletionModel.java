@@ -0,0 +1,248 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.scp;
+
+import org.h2.bnf.Bnf;
+import org.h2.bnf.context.DbContents;
+import org.h2.bnf.context.DbContextRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Completion grammar and database content, shared by all the consoles that use the same DataSource.
+ * The database content is read again only when the structure of the database has changed. A change is notified
+ * through {@link #invalidate(DataSource)} by {@link SchemaChangeListener} on DDL statements. Changes done by other
+ * clients of the database are found by comparing a fingerprint of the information schema (number of tables and
+ * columns, length of their names), read at most every {@link #UPDATE_INTERVAL} ms. When a change is found, the
+ * whole database content is read again, there is no incremental update of the grammar.
+ * The models are kept in a weak map, a model only keeps a weak reference to its DataSource so it is released with it.
+ */
+public class CompletionModel {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompletionModel.class);
+    private static final int UPDATE_INTERVAL = 30000; // ms, minimal interval between two fingerprint readings
+    private static final String FINGERPRINT_QUERY = "SELECT (SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES), " +
+            "COUNT(*), SUM(LENGTH(TABLE_NAME) + LENGTH(COLUMN_NAME)) FROM INFORMATION_SCHEMA.COLUMNS";
+    private static final Map<DataSource, CompletionModel> MODELS = new WeakHashMap<>();
+    private static final ExecutorService UPDATE_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "SQL completion model update");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private final WeakReference<DataSource> dataSource;
+    private volatile Bnf parser;
+    private volatile Future<?> pendingUpdate;
+    private final AtomicBoolean updating = new AtomicBoolean(false);
+    private final AtomicLong schemaVersion = new AtomicLong();
+    private volatile long lastCheck = 0;
+    private volatile String fingerprint = null;
+    private volatile boolean invalidated = true;
+
+    private CompletionModel(DataSource dataSource) {
+        this.dataSource = new WeakReference<>(dataSource);
+    }
+
+    /**
+     * @param dataSource DataSource
+     * @return The model shared by all users of this DataSource
+     */
+    public static synchronized CompletionModel getInstance(DataSource dataSource) {
+        CompletionModel model = MODELS.get(dataSource);
+        if(model == null) {
+            model = new CompletionModel(dataSource);
+            MODELS.put(dataSource, model);
+        }
+        return model;
+    }
+
+    /**
+     * The structure of the database has been changed, the next check will read the database content.
+     * @param dataSource DataSource
+     */
+    public static void invalidate(DataSource dataSource) {
+        CompletionModel model;
+        synchronized (CompletionModel.class) {
+            model = MODELS.get(dataSource);
+        }
+        if(model != null) {
+            model.invalidate();
+        }
+    }
+
+    /**
+     * The structure of the database has been changed, the next check will read the database content.
+     */
+    public void invalidate() {
+        invalidated = true;
+    }
+
+    /**
+     * @return Incremented each time the database content is read again after the first read
+     */
+    public long getSchemaVersion() {
+        return schemaVersion.get();
+    }
+
+    /**
+     * @param timeout Time to wait for the first read of the database, in milliseconds
+     * @return The grammar, null if not available
+     */
+    public Bnf getParser(long timeout) {
+        Bnf current = parser;
+        Future<?> update = pendingUpdate;
+        if(current == null && update != null) {
+            try {
+                update.get(timeout, TimeUnit.MILLISECONDS);
+            } catch (Exception ex) {
+                return null;
+            }
+            current = parser;
+        }
+        return current;
+    }
+
+    /**
+     * Read the database content in background if the model has been invalidated, or check the fingerprint of the
+     * database structure if it has not been checked for {@link #UPDATE_INTERVAL} ms. Otherwise nothing is done, the
+     * call is cheap enough to be done on each parse or completion request.
+     */
+    public void checkUpdate() {
+        long now = System.currentTimeMillis();
+        boolean due = invalidated || parser == null || lastCheck + UPDATE_INTERVAL < now;
+        if(due && updating.compareAndSet(false, true)) {
+            lastCheck = now;
+            pendingUpdate = UPDATE_EXECUTOR.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        update();
+                    } finally {
+                        updating.set(false);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Check now if the database structure has changed, and read the database content if it is the case.
+     */
+    public void updateNow() {
+        lastCheck = System.currentTimeMillis();
+        update();
+    }
+
+    private void update() {
+        DataSource source = dataSource.get();
+        if(source == null) {
+            // The DataSource has been released, the model is no longer used
+            return;
+        }
+        try (Connection connection = source.getConnection()) {
+            // Reset before reading, an invalidation done while reading is not lost
+            boolean changed = invalidated || parser == null;
+            invalidated = false;
+            String currentFingerprint = readFingerprint(connection);
+            if(!changed && (currentFingerprint == null || currentFingerprint.equals(fingerprint))) {
+                // Same structure, keep the grammar and the schema version
+                return;
+            }
+            boolean firstRead = parser == null;
+            parser = readParser(connection);
+            fingerprint = currentFingerprint;
+            if(!firstRead) {
+                schemaVersion.incrementAndGet();
+            }
+        } catch (SQLException | IOException ex) {
+            LOGGER.error(ex.getLocalizedMessage(), ex);
+        }
+    }
+
+    /**
+     * @param connection Active connection
+     * @return Fingerprint of the database structure, null if not available
+     */
+    private static String readFingerprint(Connection connection) {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery(FINGERPRINT_QUERY)) {
+            return rs.next() ? rs.getLong(1) + ":" + rs.getLong(2) + ":" + rs.getLong(3) : null;
+        } catch (SQLException ex) {
+            LOGGER.trace(ex.getLocalizedMessage(), ex);
+            return null;
+        }
+    }
+
+    private static Bnf readParser(Connection connection) throws SQLException, IOException {
+        Bnf parser;
+        // Read copy of h2 syntax, temporary until #118 not merged
+        // https://github.com/h2database/h2database/pull/118
+        try(InputStreamReader fileReader = new InputStreamReader(SQLCompletionProvider.class.getResourceAsStream("exthelp.csv"))) {
+            parser = Bnf.getInstance(fileReader);
+        }
+        DbContents contents = new DbContents();
+        contents.readContents(connection.getMetaData().getURL(), connection);
+        DbContextRule columnRule = new DbContextRule(contents, DbContextRule.COLUMN);
+        DbContextRule newAliasRule = new DbContextRule(contents, DbContextRule.NEW_TABLE_ALIAS);
+        DbContextRule aliasRule = new DbContextRule(contents, DbContextRule.TABLE_ALIAS);
+        DbContextRule tableRule = new DbContextRule(contents, DbContextRule.TABLE);
+        DbContextRule schemaRule = new DbContextRule(contents, DbContextRule.SCHEMA);
+        DbContextRule columnAliasRule = new DbContextRule(contents, DbContextRule.COLUMN_ALIAS);
+        DbContextRule procedureRule = new DbContextRule(contents, DbContextRule.PROCEDURE);
+
+        parser.updateTopic("procedure", procedureRule);
+        parser.updateTopic("new_table_alias", newAliasRule);
+        parser.updateTopic("table_alias", aliasRule);
+        parser.updateTopic("column_alias", columnAliasRule);
+        parser.updateTopic("schema_name", schemaRule);
+        parser.updateTopic("table_name", tableRule);
+        parser.updateTopic("column_name", columnRule);
+        parser.linkStatements();
+        return parser;
+    }
+}
@@ -29,6 +29,7 @@
 package org.orbisgis.scp;
 
 import javax.sql.DataSource;
+import javax.swing.SwingUtilities;
 
 import org.fife.ui.rsyntaxtextarea.RSyntaxDocument;
 import org.fife.ui.rsyntaxtextarea.parser.AbstractParser;
@@ -41,19 +42,40 @@ import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * A parser for SQL syntax that provides error locations.
+ * The result of the validation of each statement is kept in a cache, only new or edited statements are sent to the
+ * database. With background validation enabled, these statements are validated in another thread and the parsing
+ * is requested again when they are all done. The statements are never prepared on the swing thread, a parsing done
+ * on the swing thread always validates in the background.
  * @author Antoine Gourlay
  * @author Nicolas Fortin
  */
 public class RSyntaxSQLParser extends AbstractParser {
+    private static final int MIN_CACHE_SIZE = 1000;
     private DataSource dataSource;
     private Logger log = LoggerFactory.getLogger(RSyntaxSQLParser.class);
     public static int WORD_POSITION = 0;
     public static int WORD_LENGTH = 1;
+    private final ValidationCache cache = new ValidationCache();
+    private final AtomicLong schemaVersion = new AtomicLong();
+    private final AtomicLong parseGeneration = new AtomicLong();
+    private Runnable reparseRequest;
+    private boolean backgroundValidation = false;
+    private ExecutorService validationExecutor;
+    private Future<?> pendingValidation;
 
     /**
      * Constructor
@@ -90,56 +112,251 @@ public class RSyntaxSQLParser extends AbstractParser {
      */
     public void setDataSource(DataSource dataSource) {
         this.dataSource = dataSource;
+        invalidateCache();
+    }
+
+    /**
+     * Validate new statements in a background thread.
+     * @param reparseRequest Called on the swing thread when the validation is done, it must request a new parsing
+     *                       of the document.
+     */
+    public synchronized void enableBackgroundValidation(Runnable reparseRequest) {
+        this.reparseRequest = reparseRequest;
+        backgroundValidation = true;
+    }
+
+    /**
+     * Stop the background validation
+     */
+    public synchronized void dispose() {
+        if(validationExecutor != null) {
+            validationExecutor.shutdownNow();
+            validationExecutor = null;
+        }
+        reparseRequest = null;
+        backgroundValidation = false;
+    }
+
+    /**
+     * The database schema has been changed, all statements must be validated again.
+     */
+    public void invalidateCache() {
+        schemaVersion.incrementAndGet();
     }
 
     @Override
     public ParseResult parse(RSyntaxDocument doc, String style) {
         DefaultParseResult res = new DefaultParseResult(this);
+        long generation = parseGeneration.incrementAndGet();
+        cancelPendingValidation();
         int docLength = doc.getLength();
         if (docLength==0) {
             return res;
         }
         DocumentSQLReader documentReader = new DocumentSQLReader(doc);
         long start = System.currentTimeMillis();
+        // Results are outdated when the parser is invalidated or when the shared completion model finds a change
+        long version = schemaVersion.get();
+        if (dataSource != null) {
+            CompletionModel model = CompletionModel.getInstance(dataSource);
+            model.checkUpdate();
+            version += model.getSchemaVersion();
+        }
+        List<String> notValidated = new ArrayList<>();
+        boolean background;
+        synchronized (this) {
+            // Preparing statements may take a while, it must not freeze the swing thread
+            background = backgroundValidation || SwingUtilities.isEventDispatchThread();
+        }
+        Connection connection = null;
         try {
-            try (Connection connection = dataSource.getConnection()) {
+            try {
                 while (documentReader.hasNext()) {
                     String statement = documentReader.next();
                     if (!documentReader.isInsideRemark()) {
-                        try {
-                            connection.prepareStatement(statement);
-                        } catch (SQLException ex) {
-                            // Find the beginning of the rightmost word in error
-                            int syntaxErrorPosition = ex.getLocalizedMessage().indexOf("[*]");
-                            int syntaxErrorLength;
-                            if (syntaxErrorPosition == -1) {
-                                // Could not find exact position, underline all the statement (remove preceding line break)
-                                syntaxErrorPosition = statement.indexOf(statement.trim());
-                                syntaxErrorLength = statement.length() - syntaxErrorPosition;
-                            } else {
-                                int[] syntaxWord = getLastWordPositionAndLength(ex.getLocalizedMessage(), syntaxErrorPosition);
-                                String word = ex.getLocalizedMessage().substring(syntaxWord[WORD_POSITION], syntaxWord[WORD_POSITION] + syntaxWord[WORD_LENGTH]);
-                                syntaxErrorPosition = statement.toLowerCase().indexOf(word.toLowerCase());
-                                syntaxErrorLength = syntaxWord[WORD_LENGTH];
+                        ValidationResult result = cache.get(statement, version);
+                        if (result == null) {
+                            if (background) {
+                                notValidated.add(statement);
+                                continue;
                             }
-                            // Compute syntax error position from the beginning of the document, (-1 is length of ; char)
+                            if (connection == null) {
+                                connection = dataSource.getConnection();
+                            }
+                            result = validate(connection, statement, version);
+                            cache.put(statement, result);
+                        }
+                        if (result.message != null) {
+                            // Compute syntax error position from the beginning of the document
                             int syntaxErrorPositionOffset = Math.min(docLength,
-                                    documentReader.getPosition() + syntaxErrorPosition);
-                            DefaultParserNotice notice = new DefaultParserNotice(this, ex.getLocalizedMessage(),
+                                    documentReader.getPosition() + result.errorPosition);
+                            DefaultParserNotice notice = new DefaultParserNotice(this, result.message,
                                     documentReader.getLineIndex(syntaxErrorPositionOffset), syntaxErrorPositionOffset,
-                                    syntaxErrorLength);
+                                    result.errorLength);
                             notice.setLevel(ParserNotice.ERROR);
                             res.addNotice(notice);
                         }
                     }
                 }
+            } finally {
+                if (connection != null) {
+                    connection.close();
+                }
             }
         } catch (SQLException ex) {
             log.trace(ex.getLocalizedMessage(), ex);
             // ignore
         }
+        if(!notValidated.isEmpty()) {
+            cache.ensureCapacity(notValidated.size() * 2);
+            submitValidation(notValidated, version, generation);
+        }
         long time = System.currentTimeMillis() - start;
         res.setParseTime(time);
         return res;
     }
+
+    private synchronized void cancelPendingValidation() {
+        if(pendingValidation != null) {
+            pendingValidation.cancel(false);
+            pendingValidation = null;
+        }
+    }
+
+    private synchronized void submitValidation(List<String> statements, long version, long generation) {
+        if(validationExecutor == null) {
+            validationExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "SQL syntax validation");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        pendingValidation = validationExecutor.submit(new ValidationTask(statements, version, generation));
+    }
+
+    /**
+     * Prepare the statement in order to find syntax errors
+     * @param connection Active connection
+     * @param statement SQL statement
+     * @param version Schema version
+     * @return Validation result
+     */
+    private static ValidationResult validate(Connection connection, String statement, long version) {
+        try {
+            connection.prepareStatement(statement).close();
+            return new ValidationResult(version, null, 0, 0);
+        } catch (SQLException ex) {
+            // Find the beginning of the rightmost word in error
+            int syntaxErrorPosition = ex.getLocalizedMessage().indexOf("[*]");
+            int syntaxErrorLength;
+            if (syntaxErrorPosition == -1) {
+                // Could not find exact position, underline all the statement (remove preceding line break)
+                syntaxErrorPosition = statement.indexOf(statement.trim());
+                syntaxErrorLength = statement.length() - syntaxErrorPosition;
+            } else {
+                int[] syntaxWord = getLastWordPositionAndLength(ex.getLocalizedMessage(), syntaxErrorPosition);
+                String word = ex.getLocalizedMessage().substring(syntaxWord[WORD_POSITION], syntaxWord[WORD_POSITION] + syntaxWord[WORD_LENGTH]);
+                syntaxErrorPosition = statement.toLowerCase().indexOf(word.toLowerCase());
+                syntaxErrorLength = syntaxWord[WORD_LENGTH];
+            }
+            return new ValidationResult(version, ex.getLocalizedMessage(), syntaxErrorPosition, syntaxErrorLength);
+        }
+    }
+
+    /**
+     * Validation of a statement, message is null if there is no error.
+     */
+    private static class ValidationResult {
+        private final long schemaVersion;
+        private final String message;
+        private final int errorPosition;
+        private final int errorLength;
+
+        public ValidationResult(long schemaVersion, String message, int errorPosition, int errorLength) {
+            this.schemaVersion = schemaVersion;
+            this.message = message;
+            this.errorPosition = errorPosition;
+            this.errorLength = errorLength;
+        }
+    }
+
+    /**
+     * Least recently used validation results, by statement text.
+     */
+    private static class ValidationCache {
+        private int capacity = MIN_CACHE_SIZE;
+        private final Map<String, ValidationResult> results = new LinkedHashMap<String, ValidationResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ValidationResult> eldest) {
+                return size() > capacity;
+            }
+        };
+
+        public synchronized ValidationResult get(String statement, long schemaVersion) {
+            ValidationResult result = results.get(statement);
+            if(result != null && result.schemaVersion != schemaVersion) {
+                results.remove(statement);
+                return null;
+            }
+            return result;
+        }
+
+        public synchronized void put(String statement, ValidationResult result) {
+            results.put(statement, result);
+        }
+
+        /**
+         * @param size Number of statements that must stay in the cache
+         */
+        public synchronized void ensureCapacity(int size) {
+            capacity = Math.max(capacity, size);
+        }
+    }
+
+    /**
+     * Validate statements, stop as soon as the document has been parsed again.
+     */
+    private class ValidationTask implements Runnable {
+        private final List<String> statements;
+        private final long version;
+        private final long generation;
+
+        public ValidationTask(List<String> statements, long version, long generation) {
+            this.statements = statements;
+            this.version = version;
+            this.generation = generation;
+        }
+
+        private boolean isStale() {
+            return parseGeneration.get() != generation;
+        }
+
+        @Override
+        public void run() {
+            if (dataSource == null || isStale()) {
+                return;
+            }
+            try (Connection connection = dataSource.getConnection()) {
+                for (String statement : statements) {
+                    if (isStale()) {
+                        return;
+                    }
+                    cache.put(statement, validate(connection, statement, version));
+                }
+            } catch (SQLException ex) {
+                log.trace(ex.getLocalizedMessage(), ex);
+                return;
+            }
+            final Runnable request;
+            synchronized (RSyntaxSQLParser.this) {
+                request = reparseRequest;
+            }
+            if (request != null && !isStale()) {
+                SwingUtilities.invokeLater(request);
+            }
+        }
+    }
 }
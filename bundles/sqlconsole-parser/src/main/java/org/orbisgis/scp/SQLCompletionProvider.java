@@ -29,24 +29,14 @@
 package org.orbisgis.scp;
 
 import java.awt.Point;
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 import javax.sql.DataSource;
-import javax.swing.SwingWorker;
 import javax.swing.text.JTextComponent;
 
 import org.fife.ui.autocomplete.BasicCompletion;
@@ -54,11 +44,6 @@ import org.fife.ui.autocomplete.Completion;
 import org.fife.ui.autocomplete.CompletionProvider;
 import org.fife.ui.autocomplete.CompletionProviderBase;
 import org.h2.bnf.Bnf;
-import org.h2.bnf.RuleHead;
-import org.h2.bnf.RuleList;
-import org.h2.bnf.Sentence;
-import org.h2.bnf.context.DbContents;
-import org.h2.bnf.context.DbContextRule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -71,12 +56,9 @@ import org.slf4j.LoggerFactory;
  */
 public class SQLCompletionProvider extends CompletionProviderBase {
     private DataSource dataSource;
-    private Bnf parser;
+    private CompletionModel completionModel;
     private Logger log = LoggerFactory.getLogger(SQLCompletionProvider.class);
-    private static final int UPDATE_INTERVAL = 30000; // ms, metadata update interval
     private static final int UPDATE_TIMEOUT = 1000;
-    private long lastUpdate = 0;
-    private UpdateParserThread fetchingParser = null;
     private final static Pattern LTRIM = Pattern.compile("^\\s+");
 
     public SQLCompletionProvider(DataSource dataSource, boolean immediateInit) {
@@ -102,18 +84,20 @@ public class SQLCompletionProvider extends CompletionProviderBase {
     }
 
     /***
-     * Read the data source in order to update parser grammar.
+     * Use the completion model shared with other consoles, the model read the data source only if the database
+     * structure has changed.
      * @param dataSource New DataSource, to extract meta data, can be null
      */
     public void updateParser(DataSource dataSource, boolean immediateInit) throws SQLException, IOException {
         if(dataSource != null) {
-            lastUpdate = System.currentTimeMillis();
-            fetchingParser = new UpdateParserThread(dataSource);
+            completionModel = CompletionModel.getInstance(dataSource);
             if(!immediateInit) {
-                fetchingParser.execute();
+                completionModel.checkUpdate();
             } else {
-                fetchingParser.run();
+                completionModel.updateNow();
             }
+        } else {
+            completionModel = null;
         }
     }
 
@@ -129,19 +113,13 @@ public class SQLCompletionProvider extends CompletionProviderBase {
 
 
     public List<Completion> getCompletionsAtIndex(JTextComponent jTextComponent, int charIndex) {
-        UpdateParserThread fetchingParserTmp = fetchingParser;
-        if(fetchingParserTmp != null) {
-            if(!fetchingParserTmp.isDone()) {
-                try {
-                    // Wait until update is done
-                    fetchingParserTmp.get(UPDATE_TIMEOUT, TimeUnit.MILLISECONDS);
-                } catch (Exception ex) {
-                    return new ArrayList<>();
-                }
-            } else {
-                parser = fetchingParserTmp.getParser();
-            }
-        } if(parser == null) {
+        CompletionModel model = completionModel;
+        if(model == null) {
+            return new ArrayList<>();
+        }
+        // Wait for the first read of the database
+        Bnf parser = model.getParser(UPDATE_TIMEOUT);
+        if(parser == null) {
             return new ArrayList<>();
         }
         //Completion completion = new BasicCompletion(this, token);
@@ -165,15 +143,8 @@ public class SQLCompletionProvider extends CompletionProviderBase {
             completionList.add(completion);
         }
 
-        // Update table list if it has not be done more than UPDATE_INTERVAL ms ago
-        long now = System.currentTimeMillis();
-        if(lastUpdate + UPDATE_INTERVAL < now) {
-            try {
-                updateParser(dataSource, false);
-            } catch (Exception ex) {
-                log.warn("Could not update auto-completion engine", ex);
-            }
-        }
+        // Update table list if the database structure has changed
+        model.checkUpdate();
         return completionList;
     }
 
@@ -206,51 +177,4 @@ public class SQLCompletionProvider extends CompletionProviderBase {
             return completeToken.substring(0, completeToken.length() - append.length());
         }
     }
-
-    private static class UpdateParserThread extends SwingWorker<Object, Object> {
-        private static final Logger LOGGER = LoggerFactory.getLogger(UpdateParserThread.class);
-        private DataSource dataSource;
-        private Bnf parser;
-
-
-        public UpdateParserThread(DataSource dataSource) {
-            this.dataSource = dataSource;
-        }
-
-        public Bnf getParser() {
-            return parser;
-        }
-
-        @Override
-        protected Object doInBackground() {
-            try (Connection connection = dataSource.getConnection()) {
-                // Read copy of h2 syntax, temporary until #118 not merged
-                // https://github.com/h2database/h2database/pull/118
-                try(InputStreamReader fileReader = new InputStreamReader(SQLCompletionProvider.class.getResourceAsStream("exthelp.csv"))) {
-                    parser = Bnf.getInstance(fileReader);
-                }
-                DbContents contents = new DbContents();
-                contents.readContents(connection.getMetaData().getURL(), connection);
-                DbContextRule columnRule = new DbContextRule(contents, DbContextRule.COLUMN);
-                DbContextRule newAliasRule = new DbContextRule(contents, DbContextRule.NEW_TABLE_ALIAS);
-                DbContextRule aliasRule = new DbContextRule(contents, DbContextRule.TABLE_ALIAS);
-                DbContextRule tableRule = new DbContextRule(contents, DbContextRule.TABLE);
-                DbContextRule schemaRule = new DbContextRule(contents, DbContextRule.SCHEMA);
-                DbContextRule columnAliasRule = new DbContextRule(contents, DbContextRule.COLUMN_ALIAS);
-                DbContextRule procedureRule = new DbContextRule(contents, DbContextRule.PROCEDURE);
-
-                parser.updateTopic("procedure", procedureRule);
-                parser.updateTopic("new_table_alias", newAliasRule);
-                parser.updateTopic("table_alias", aliasRule);
-                parser.updateTopic("column_alias", columnAliasRule);
-                parser.updateTopic("schema_name", schemaRule);
-                parser.updateTopic("table_name", tableRule);
-                parser.updateTopic("column_name", columnRule);
-                parser.linkStatements();
-            } catch (SQLException|IOException ex) {
-                LOGGER.error(ex.getLocalizedMessage(), ex);
-            }
-            return null;
-        }
-    }
 }
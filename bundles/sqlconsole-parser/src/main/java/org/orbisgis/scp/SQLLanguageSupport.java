@@ -79,10 +79,11 @@ public class SQLLanguageSupport extends AbstractLanguageSupport {
                             properties.setProperty(DataSourceFactory.JDBC_URL, "jdbc:h2:mem:syntax");
                             dataSource = dataSourceFactory.createDataSource(properties);
                         }
-                        // SQL parser take too much time to evaluate, currently deactivated
-                        //parser = new RSyntaxSQLParser(dataSource);
-                        //textArea.putClientProperty(PROPERTY_LANGUAGE_PARSER, parser);
-                        //textArea.addParser(parser);
+                        // install parser, only edited statements are validated in a background thread
+                        parser = new RSyntaxSQLParser(dataSource);
+                        parser.enableBackgroundValidation(new ReparseRequest(textArea, parser));
+                        textArea.putClientProperty(PROPERTY_LANGUAGE_PARSER, parser);
+                        textArea.addParser(parser);
 
                         // install auto-completion
                         sqlCompletionProvider = new SQLCompletionProvider(dataSource, false);
@@ -132,7 +133,26 @@ public class SQLLanguageSupport extends AbstractLanguageSupport {
                 Object parser = textArea.getClientProperty(PROPERTY_LANGUAGE_PARSER);
                 if(parser instanceof RSyntaxSQLParser) {
                     textArea.removeParser((Parser)parser);
+                    ((RSyntaxSQLParser) parser).dispose();
                 }
                 textArea.putClientProperty(PROPERTY_LANGUAGE_PARSER, null);
         }
+
+        /**
+         * Parse again the document when the background validation is done.
+         */
+        private static class ReparseRequest implements Runnable {
+                private final RSyntaxTextArea textArea;
+                private final Parser parser;
+
+                public ReparseRequest(RSyntaxTextArea textArea, Parser parser) {
+                        this.textArea = textArea;
+                        this.parser = parser;
+                }
+
+                @Override
+                public void run() {
+                        textArea.forceReparsing(parser);
+                }
+        }
 }
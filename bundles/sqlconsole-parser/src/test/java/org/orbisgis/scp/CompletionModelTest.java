@@ -0,0 +1,133 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.scp;
+
+import org.h2.util.OsgiDataSourceFactory;
+import org.junit.Test;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.StateEvent;
+import org.orbisgis.corejdbc.internal.DataManagerImpl;
+
+import javax.sql.DataSource;
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test the completion model shared by consoles
+ */
+public class CompletionModelTest {
+
+    @Test
+    public void testSharedModel() throws Exception {
+        org.h2.Driver driver = org.h2.Driver.load();
+        OsgiDataSourceFactory dataSourceFactory = new OsgiDataSourceFactory(driver);
+        Properties properties = new Properties();
+        properties.setProperty(OsgiDataSourceFactory.JDBC_URL, "jdbc:h2:mem:completionmodel");
+        DataSource dataSource = dataSourceFactory.createDataSource(properties);
+        // Keep the memory database alive
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement()) {
+            CompletionModel model = CompletionModel.getInstance(dataSource);
+            assertSame(model, CompletionModel.getInstance(dataSource));
+            model.updateNow();
+            assertNotNull(model.getParser(0));
+            long version = model.getSchemaVersion();
+            // No change, the database content is not read again
+            model.updateNow();
+            assertEquals(version, model.getSchemaVersion());
+            // New table, the change is found
+            st.execute("CREATE TABLE COMPLETIONTEST(id integer)");
+            model.updateNow();
+            assertEquals(version + 1, model.getSchemaVersion());
+            // Explicit invalidation
+            CompletionModel.invalidate(dataSource);
+            model.updateNow();
+            assertEquals(version + 2, model.getSchemaVersion());
+        }
+    }
+
+    @Test
+    public void testModelReleased() throws Exception {
+        org.h2.Driver driver = org.h2.Driver.load();
+        OsgiDataSourceFactory dataSourceFactory = new OsgiDataSourceFactory(driver);
+        Properties properties = new Properties();
+        properties.setProperty(OsgiDataSourceFactory.JDBC_URL, "jdbc:h2:mem:completionrelease");
+        DataSource dataSource = dataSourceFactory.createDataSource(properties);
+        CompletionModel model = CompletionModel.getInstance(dataSource);
+        model.updateNow();
+        WeakReference<DataSource> dataSourceRef = new WeakReference<>(dataSource);
+        // The model does not keep its DataSource, the entry of the shared map can be released
+        dataSource = null;
+        for(int i = 0; i < 50 && dataSourceRef.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(dataSourceRef.get());
+    }
+
+    @Test
+    public void testSchemaChangeListener() throws Exception {
+        org.h2.Driver driver = org.h2.Driver.load();
+        OsgiDataSourceFactory dataSourceFactory = new OsgiDataSourceFactory(driver);
+        Properties properties = new Properties();
+        properties.setProperty(OsgiDataSourceFactory.JDBC_URL, "jdbc:h2:mem:schemachangelistener");
+        DataSource dataSource = dataSourceFactory.createDataSource(properties);
+        try(Connection connection = dataSource.getConnection()) {
+            DataManager dataManager = new DataManagerImpl(dataSource);
+            SchemaChangeListener listener = new SchemaChangeListener();
+            listener.setDataManager(dataManager);
+            CompletionModel model = CompletionModel.getInstance(dataSource);
+            model.updateNow();
+            long version = model.getSchemaVersion();
+            // Not a DDL statement
+            dataManager.fireDatabaseProgression(new StateEvent(StateEvent.DB_STATES.STATE_STATEMENT_END,
+                    "SELECT * FROM INFORMATION_SCHEMA.TABLES", 0, 0));
+            model.updateNow();
+            assertEquals(version, model.getSchemaVersion());
+            // The fingerprint does not change but the DDL event invalidates the model
+            dataManager.fireDatabaseProgression(new StateEvent(StateEvent.DB_STATES.STATE_STATEMENT_END,
+                    "ALTER TABLE IF EXISTS NOTHING RENAME TO NOTHING2", 0, 0));
+            model.updateNow();
+            assertEquals(version + 1, model.getSchemaVersion());
+            listener.unsetDataManager(dataManager);
+            dataManager.fireDatabaseProgression(new StateEvent(StateEvent.DB_STATES.STATE_STATEMENT_END,
+                    "DROP TABLE IF EXISTS NOTHING", 0, 0));
+            model.updateNow();
+            assertEquals(version + 1, model.getSchemaVersion());
+            dataManager.dispose();
+        }
+    }
+}
@@ -7,11 +7,22 @@ import org.fife.ui.rsyntaxtextarea.parser.ParserNotice;
 import org.h2.util.OsgiDataSourceFactory;
 import org.junit.Test;
 
+import javax.sql.DataSource;
+import javax.swing.SwingUtilities;
 import java.awt.GraphicsEnvironment;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeTrue;
 
 /**
@@ -89,4 +100,139 @@ public class RSyntaxSQLParserTest {
         assertEquals(0, notice.getOffset());
         assertEquals(5, notice.getLength());
     }
+
+    @Test
+    public void testValidationCache() throws Exception {
+        org.h2.Driver driver = org.h2.Driver.load();
+        OsgiDataSourceFactory dataSourceFactory = new OsgiDataSourceFactory(driver);
+        Properties properties = new Properties();
+        properties.setProperty(OsgiDataSourceFactory.JDBC_URL, "jdbc:h2:mem:syntaxcache");
+        DataSource dataSource = dataSourceFactory.createDataSource(properties);
+        // Keep the memory database alive
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement()) {
+            RSyntaxDocument document = new RSyntaxDocument("sql");
+            document.insertString(0, "select * from cachetest;\nselect 1;", null);
+            RSyntaxSQLParser parser = new RSyntaxSQLParser(dataSource);
+            ParseResult res = parser.parse(document, "");
+            assertEquals(1, res.getNotices().size());
+            st.execute("CREATE TABLE CACHETEST(id integer)");
+            // Result comes from the cache
+            res = parser.parse(document, "");
+            assertEquals(1, res.getNotices().size());
+            // Schema change, statements are validated again
+            parser.invalidateCache();
+            res = parser.parse(document, "");
+            assertEquals(0, res.getNotices().size());
+            // Edited statement is validated, position of the notice follows the edit
+            document.insertString(0, "selec 2;\n", null);
+            res = parser.parse(document, "");
+            assertEquals(1, res.getNotices().size());
+            assertEquals(0, ((ParserNotice)res.getNotices().get(0)).getLine());
+        }
+    }
+
+    @Test
+    public void testPrepareCount() throws Exception {
+        AtomicInteger prepareCount = new AtomicInteger();
+        DataSource dataSource = createCountingDataSource("jdbc:h2:mem:syntaxcount", prepareCount,
+                new AtomicInteger());
+        RSyntaxDocument document = new RSyntaxDocument("sql");
+        document.insertString(0, "select 1 as prepare_count;\nselect 2 as prepare_count;", null);
+        RSyntaxSQLParser parser = new RSyntaxSQLParser(dataSource);
+        parser.parse(document, "");
+        assertEquals(2, prepareCount.get());
+        // Unchanged script, nothing is prepared
+        parser.parse(document, "");
+        parser.parse(document, "");
+        assertEquals(2, prepareCount.get());
+        // Only the edited statement is prepared
+        document.insertString(document.getLength(), "\nselect 3 as prepare_count;", null);
+        parser.parse(document, "");
+        assertEquals(3, prepareCount.get());
+        // Schema change, every statement is prepared again
+        parser.invalidateCache();
+        parser.parse(document, "");
+        assertEquals(6, prepareCount.get());
+    }
+
+    @Test
+    public void testNoPrepareOnSwingThread() throws Exception {
+        AtomicInteger prepareCount = new AtomicInteger();
+        AtomicInteger edtPrepareCount = new AtomicInteger();
+        DataSource dataSource = createCountingDataSource("jdbc:h2:mem:syntaxedt", prepareCount, edtPrepareCount);
+        final RSyntaxDocument document = new RSyntaxDocument("sql");
+        document.insertString(0, "select 1 as prepare_count;\nselec 2 as prepare_count;", null);
+        final RSyntaxSQLParser parser = new RSyntaxSQLParser(dataSource);
+        final AtomicReference<ParseResult> result = new AtomicReference<>();
+        Runnable parse = new Runnable() {
+            @Override
+            public void run() {
+                result.set(parser.parse(document, ""));
+            }
+        };
+        try {
+            SwingUtilities.invokeAndWait(parse);
+            // The statements are not validated yet
+            assertEquals(0, result.get().getNotices().size());
+            // The results of the background validation come from the cache
+            for (int i = 0; i < 100 && result.get().getNotices().isEmpty(); i++) {
+                Thread.sleep(50);
+                SwingUtilities.invokeAndWait(parse);
+            }
+            assertEquals(1, result.get().getNotices().size());
+            assertTrue(prepareCount.get() >= 2);
+            assertEquals(0, edtPrepareCount.get());
+        } finally {
+            parser.dispose();
+        }
+    }
+
+    /**
+     * @param url H2 database URL
+     * @param prepareCount Incremented when a statement containing "prepare_count" is prepared
+     * @param edtPrepareCount Incremented when such statement is prepared on the swing thread
+     * @return DataSource that counts the prepared statements of the parser
+     */
+    private static DataSource createCountingDataSource(String url, final AtomicInteger prepareCount,
+                                                       final AtomicInteger edtPrepareCount) throws Exception {
+        org.h2.Driver driver = org.h2.Driver.load();
+        OsgiDataSourceFactory dataSourceFactory = new OsgiDataSourceFactory(driver);
+        Properties properties = new Properties();
+        properties.setProperty(OsgiDataSourceFactory.JDBC_URL, url);
+        final DataSource dataSource = dataSourceFactory.createDataSource(properties);
+        return (DataSource) Proxy.newProxyInstance(RSyntaxSQLParserTest.class.getClassLoader(),
+                new Class[]{DataSource.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        final Object target = invokeTarget(dataSource, method, args);
+                        if (!(target instanceof Connection)) {
+                            return target;
+                        }
+                        return Proxy.newProxyInstance(RSyntaxSQLParserTest.class.getClassLoader(),
+                                new Class[]{Connection.class}, new InvocationHandler() {
+                                    @Override
+                                    public Object invoke(Object proxy, Method method, Object[] args)
+                                            throws Throwable {
+                                        if (method.getName().equals("prepareStatement") &&
+                                                args[0].toString().contains("prepare_count")) {
+                                            prepareCount.incrementAndGet();
+                                            if (SwingUtilities.isEventDispatchThread()) {
+                                                edtPrepareCount.incrementAndGet();
+                                            }
+                                        }
+                                        return invokeTarget(target, method, args);
+                                    }
+                                });
+                    }
+                });
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
 }
@@ -28,9 +28,10 @@
  */
 package org.orbisgis.sqlconsole.actions;
 
+import org.h2gis.utilities.JDBCUtilities;
 import org.orbisgis.commons.progress.SwingWorkerPM;
-import org.orbisgis.corejdbc.ReadTable;
 import org.orbisgis.commons.progress.ProgressMonitor;
+import org.orbisgis.corejdbc.ReadTable;
 import org.orbisgis.sqlparserapi.ScriptSplitter;
 import org.orbisgis.sqlparserapi.ScriptSplitterFactory;
 import org.orbisgis.sqlconsole.ui.SQLConsolePanel;
@@ -50,11 +51,27 @@ import javax.swing.text.Segment;
 import javax.swing.text.StringContent;
 import javax.swing.undo.UndoableEdit;
 import java.beans.EventHandler;
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Execute SQL script in a background process
@@ -69,7 +86,10 @@ public class ExecuteScriptProcess extends SwingWorkerPM {
         private ScriptSplitterFactory splitterFactory;
         private static final int MAX_PRINTED_ROWS = 100;
         private static final int MAX_FIELD_LENGTH = 30;
+        private static final int PRINTED_ROWS_CHUNK = 20;
         private int timeOut =0;
+        private boolean parallelExecution = false;
+        private int maxConcurrency = Runtime.getRuntime().availableProcessors();
         /**
          * @param panel Console panel (Can be null)
          * @param ds DataSource to acquire DBMS Connection
@@ -95,67 +115,335 @@ public class ExecuteScriptProcess extends SwingWorkerPM {
                 }
         }
 
-        private void parseAndExecuteScript(ProgressMonitor pm, Statement st) throws SQLException {
-            // Clone SQL script
+        /**
+         * @param parallelExecution Execute independent statements at the same time on several connections
+         */
+        public void setParallelExecution(boolean parallelExecution) {
+                this.parallelExecution = parallelExecution;
+        }
+
+        /**
+         * @param maxConcurrency Maximum number of statements executed at the same time in parallel execution
+         */
+        public void setMaxConcurrency(int maxConcurrency) {
+                this.maxConcurrency = Math.max(1, maxConcurrency);
+        }
+
+        /**
+         * @return A copy of the script, the user can edit the script while it is executed
+         */
+        private Document cloneScript() {
             AbstractDocument.Content sqlScript = new StringContent(panel.getScriptPanel().getDocument().getLength());
             try {
                 sqlScript.insertString(0, panel.getScriptPanel().getText());
             } catch (BadLocationException ex) {
                 LOGGER.error(ex.getLocalizedMessage(), ex);
+                return null;
+            }
+            return new PlainDocument(sqlScript);
+        }
+
+        private void parseAndExecuteScript(ProgressMonitor pm, Statement st) throws SQLException {
+            // Clone SQL script
+            Document sqlDocument = cloneScript();
+            if(sqlDocument == null) {
                 return;
             }
-            Document sqlDocument = new PlainDocument(sqlScript);
+            // Single pass, progression is the position in the script
             ScriptSplitter splitter = splitterFactory.create(sqlDocument, true);
-            int totalRequests = 0;
-            while (splitter.hasNext()) {
-                if (!splitter.next().trim().isEmpty()) {
-                    totalRequests++;
-                }
-            }
-            splitter = splitterFactory.create(sqlDocument, true);
             int currentRequest = 0;
-            while (splitter.hasNext()) {
-                currentRequest++;
+            while (splitter.hasNext() && !pm.isCancelled()) {
                 String query = splitter.next().trim();
                 if (!query.isEmpty()) {
+                    currentRequest++;
                     // Some queries need to be shown to the user
-                    LOGGER.info(I18N.tr("Execute request {0}/{1}: {2}", currentRequest, totalRequests, query));
-                    long debQuery = System.currentTimeMillis();
-                    if (st.execute(query)) {
-                        ResultSet rs = st.getResultSet();
-                        LOGGER.info("\n" + ReadTable.resultSetToString(rs, MAX_FIELD_LENGTH, MAX_PRINTED_ROWS, true, true));
+                    LOGGER.info(I18N.tr("Execute request {0}: {1}", currentRequest, query));
+                    executeStatement(pm, st, query);
+                }
+                pm.progressTo(splitter.getPosition());
+            }
+        }
 
+        /**
+         * Execute independent statements on several connections, a statement is executed when all the statements it
+         * depends on are done. Statements that depend on a statement in error are not executed.
+         * @param pm Progress monitor
+         * @return False if the script must be executed on a single connection
+         * @throws SQLException
+         * @throws InterruptedException
+         */
+        private boolean parseAndExecuteParallelScript(ProgressMonitor pm) throws SQLException, InterruptedException {
+            Document sqlDocument = cloneScript();
+            if(sqlDocument == null) {
+                return true;
+            }
+            List<String> statements = new ArrayList<>();
+            ScriptSplitter splitter = splitterFactory.create(sqlDocument, true);
+            while (splitter.hasNext()) {
+                String query = splitter.next().trim();
+                if (!query.isEmpty()) {
+                    statements.add(query);
+                }
+            }
+            if(statements.isEmpty()) {
+                return true;
+            }
+            List<Set<Integer>> dependencies;
+            try (Connection connection = ds.getConnection()) {
+                DatabaseMetaData meta = connection.getMetaData();
+                List<String> views = new ArrayList<>();
+                try (ResultSet rs = meta.getTables(null, null, null, new String[]{"VIEW"})) {
+                    while (rs.next()) {
+                        views.add(rs.getString("TABLE_NAME"));
                     }
-                    LOGGER.info(I18N.tr("Done in {0} seconds\n", (System.currentTimeMillis() - debQuery) / 1000.));
-                    pm.endTask();
+                }
+                dependencies = ScriptDependencies.getDependencies(statements, JDBCUtilities.isH2DataBase(meta), views);
+            }
+            if(dependencies == null) {
+                LOGGER.info(I18N.tr("The script depends on the connection state, statements are executed one by one"));
+                return false;
+            }
+            int statementCount = statements.size();
+            int[] remainingDependencies = new int[statementCount];
+            List<List<Integer>> dependents = new ArrayList<>(statementCount);
+            for (int idStatement = 0; idStatement < statementCount; idStatement++) {
+                dependents.add(new ArrayList<Integer>());
+            }
+            for (int idStatement = 0; idStatement < statementCount; idStatement++) {
+                remainingDependencies[idStatement] = dependencies.get(idStatement).size();
+                for (int dependency : dependencies.get(idStatement)) {
+                    dependents.get(dependency).add(idStatement);
                 }
             }
+            final Set<Statement> runningStatements = Collections.newSetFromMap(new ConcurrentHashMap<Statement, Boolean>());
+            PropertyChangeListener cancelListener = new PropertyChangeListener() {
+                @Override
+                public void propertyChange(PropertyChangeEvent evt) {
+                    for (Statement st : runningStatements) {
+                        try {
+                            st.cancel();
+                        } catch (SQLException ex) {
+                            LOGGER.debug(ex.getLocalizedMessage(), ex);
+                        }
+                    }
+                }
+            };
+            pm.addPropertyChangeListener(ProgressMonitor.PROP_CANCEL, cancelListener);
+            ExecutorService executorService = Executors.newFixedThreadPool(Math.min(maxConcurrency, statementCount));
+            // True if the loop is left before the end of the running statements
+            boolean aborted = true;
+            try {
+                CompletionService<Integer> completionService = new ExecutorCompletionService<>(executorService);
+                boolean[] skipped = new boolean[statementCount];
+                Deque<Integer> finished = new ArrayDeque<>();
+                int runningTasks = 0;
+                for (int idStatement = 0; idStatement < statementCount; idStatement++) {
+                    if (remainingDependencies[idStatement] == 0) {
+                        completionService.submit(new StatementTask(pm, statements.get(idStatement), idStatement,
+                                runningStatements));
+                        runningTasks++;
+                    }
+                }
+                int doneStatements = 0;
+                long scriptLength = sqlDocument.getLength();
+                while (doneStatements < statementCount) {
+                    if (finished.isEmpty()) {
+                        if (runningTasks == 0) {
+                            break;
+                        }
+                        int result;
+                        try {
+                            result = completionService.take().get();
+                        } catch (ExecutionException ex) {
+                            // Statement task catch all exceptions
+                            LOGGER.error(ex.getLocalizedMessage(), ex);
+                            break;
+                        }
+                        runningTasks--;
+                        if (result < 0) {
+                            result = -result - 1;
+                            skipped[result] = true;
+                        }
+                        finished.add(result);
+                    }
+                    int idStatement = finished.poll();
+                    doneStatements++;
+                    pm.progressTo(scriptLength * doneStatements / statementCount);
+                    for (int dependent : dependents.get(idStatement)) {
+                        skipped[dependent] |= skipped[idStatement];
+                        if (--remainingDependencies[dependent] == 0) {
+                            if (skipped[dependent] || pm.isCancelled()) {
+                                if (!pm.isCancelled()) {
+                                    LOGGER.warn(I18N.tr("Request {0} is not executed, it depends on a request in error",
+                                            dependent + 1));
+                                }
+                                skipped[dependent] = true;
+                                finished.add(dependent);
+                            } else {
+                                completionService.submit(new StatementTask(pm, statements.get(dependent), dependent,
+                                        runningStatements));
+                                runningTasks++;
+                            }
+                        }
+                    }
+                }
+                aborted = runningTasks > 0;
+            } finally {
+                try {
+                    if (aborted) {
+                        // Do not start pending statements and stop the running ones
+                        executorService.shutdownNow();
+                        cancelListener.propertyChange(null);
+                    } else {
+                        executorService.shutdown();
+                    }
+                    // Connections must be released before returning
+                    while (!executorService.awaitTermination(1, TimeUnit.SECONDS)) {
+                        if (aborted) {
+                            cancelListener.propertyChange(null);
+                        }
+                    }
+                } finally {
+                    pm.removePropertyChangeListener(cancelListener);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Execute a single statement and print its result
+         * @param pm Progress monitor, used to stop printing rows
+         * @param st Statement
+         * @param query SQL request
+         * @throws SQLException
+         */
+        private void executeStatement(ProgressMonitor pm, Statement st, String query) throws SQLException {
+            long debQuery = System.currentTimeMillis();
+            if (st.execute(query)) {
+                try (ResultSet rs = st.getResultSet()) {
+                    printResultSet(pm, rs);
+                }
+            } else if (st.getUpdateCount() >= 0) {
+                LOGGER.info(I18N.tr("{0} row(s) affected", st.getUpdateCount()));
+            }
+            LOGGER.info(I18N.tr("Done in {0} seconds\n", (System.currentTimeMillis() - debQuery) / 1000.));
+        }
+
+        /**
+         * Print rows by small chunks, only the first {@link #MAX_PRINTED_ROWS} rows are read.
+         * @param pm Progress monitor, printing stops on cancel
+         * @param rs Result set to print
+         * @throws SQLException
+         */
+        private void printResultSet(final ProgressMonitor pm, ResultSet rs) throws SQLException {
+            int shownLines = ReadTable.printResultSet(rs, MAX_FIELD_LENGTH, MAX_PRINTED_ROWS, PRINTED_ROWS_CHUNK,
+                    true, true, new ReadTable.ResultSetPrinter() {
+                        @Override
+                        public void print(String chunk) {
+                            LOGGER.info("\n" + chunk);
+                        }
+
+                        @Override
+                        public boolean isCancelled() {
+                            return pm.isCancelled();
+                        }
+                    });
+            if(shownLines == 0) {
+                LOGGER.info(I18N.tr("No attributes to show"));
+            } else if(shownLines == MAX_PRINTED_ROWS && rs.next()) {
+                LOGGER.info(I18N.tr("Only the first {0} rows are shown", MAX_PRINTED_ROWS));
+            }
         }
 
     @Override
     protected Object doInBackground() throws Exception {
         long t1 = System.currentTimeMillis();
-        ProgressMonitor pm = getProgressMonitor().startTask(I18N.tr("Execute SQL Request"), panel.getScriptPanel().getLineCount());
+        ProgressMonitor pm = getProgressMonitor().startTask(I18N.tr("Execute SQL Request"), panel.getScriptPanel().getDocument().getLength());
+        if(parallelExecution && splitterFactory != null) {
+            try {
+                if (parseAndExecuteParallelScript(pm)) {
+                    showOverallTime(t1);
+                    return null;
+                }
+            } catch (SQLException ex) {
+                LOGGER.error(ex.getLocalizedMessage(), ex);
+                showOverallTime(t1);
+                return null;
+            }
+        }
         try(Connection connection = ds.getConnection()) {
             try(Statement st = connection.createStatement()) {
                 st.setQueryTimeout(timeOut);
+                // Do not let the database produce rows that will not be shown
+                st.setMaxRows(MAX_PRINTED_ROWS + 1);
+                st.setFetchSize(PRINTED_ROWS_CHUNK);
                 // If the user clicks on cancel, cancel the execution
-                pm.addPropertyChangeListener(ProgressMonitor.PROP_CANCEL ,
-                        EventHandler.create(PropertyChangeListener.class, st, "cancel"));
-                if(splitterFactory != null) {
-                    parseAndExecuteScript(pm, st);
-                } else {
-                    st.execute(panel.getScriptPanel().getText().trim());
+                PropertyChangeListener cancelListener = EventHandler.create(PropertyChangeListener.class, st, "cancel");
+                pm.addPropertyChangeListener(ProgressMonitor.PROP_CANCEL, cancelListener);
+                try {
+                    if (splitterFactory != null) {
+                        parseAndExecuteScript(pm, st);
+                    } else {
+                        executeStatement(pm, st, panel.getScriptPanel().getText().trim());
+                    }
+                } finally {
+                    pm.removePropertyChangeListener(cancelListener);
                 }
             }
         } catch (SQLException ex) {
             LOGGER.error(ex.getLocalizedMessage(), ex);
         }
+        showOverallTime(t1);
+        return null;
+    }
+
+    private void showOverallTime(long t1) {
         long t2 = System.currentTimeMillis();
         double lastExecTime = ((t2 - t1) / 1000.0);
         String message = I18N.tr("OVERALL EXECUTION TIME: {0} seconds",lastExecTime);
         LOGGER.info(message);
         showPanelMessage(message);
-        return null;
+    }
+
+    /**
+     * Execute a statement of the script on its own connection.
+     * Return the statement index, or -(index + 1) if the statement failed.
+     */
+    private class StatementTask implements Callable<Integer> {
+        private final ProgressMonitor pm;
+        private final String query;
+        private final int idStatement;
+        private final Set<Statement> runningStatements;
+
+        public StatementTask(ProgressMonitor pm, String query, int idStatement, Set<Statement> runningStatements) {
+            this.pm = pm;
+            this.query = query;
+            this.idStatement = idStatement;
+            this.runningStatements = runningStatements;
+        }
+
+        @Override
+        public Integer call() {
+            if (pm.isCancelled()) {
+                return -idStatement - 1;
+            }
+            try (Connection connection = ds.getConnection();
+                 Statement st = connection.createStatement()) {
+                st.setQueryTimeout(timeOut);
+                st.setMaxRows(MAX_PRINTED_ROWS + 1);
+                st.setFetchSize(PRINTED_ROWS_CHUNK);
+                runningStatements.add(st);
+                try {
+                    LOGGER.info(I18N.tr("Execute request {0}: {1}", idStatement + 1, query));
+                    executeStatement(pm, st, query);
+                } finally {
+                    runningStatements.remove(st);
+                }
+                return idStatement;
+            } catch (SQLException | RuntimeException ex) {
+                LOGGER.error(I18N.tr("Request {0} failed: {1}", idStatement + 1, ex.getLocalizedMessage()), ex);
+                return -idStatement - 1;
+            }
+        }
     }
 }
@@ -0,0 +1,248 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.sqlconsole.actions;
+
+import org.h2gis.utilities.TableLocation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Find the tables read and written by each statement of a script, then the statements that must be executed before
+ * each statement.
+ * A statement that cannot be analysed is a barrier, it waits for all previous statements and all following statements
+ * wait for it. Views hide the tables they read, a statement that reads a view is also a barrier. Foreign keys
+ * link tables and functions may read or write any table, statements with a REFERENCES clause and queries that call
+ * functions without a FROM clause are barriers too.
+ * Statements that depend on the connection state (temporary tables, transactions, session settings)
+ * cannot be executed on several connections, scripts that contain such statements are not split.
+ */
+public class ScriptDependencies {
+    private static final String IDENTIFIER = "(?:\"[^\"]+\"|[\\w$]+)(?:\\s*\\.\\s*(?:\"[^\"]+\"|[\\w$]+)){0,2}";
+    private static final Pattern SESSION_STATEMENT = Pattern.compile("^(?:set|begin|commit|rollback|savepoint|" +
+            "release|start|prepare|execute|connect|runscript|shutdown)\\b|\\btemp(?:orary)?\\s+(?:table|view)\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern CREATE_TABLE = Pattern.compile("^create\\s+(?:or\\s+replace\\s+)?(?:(?:cached|" +
+            "memory|force)\\s+)*(?:table|view)\\s+(?:if\\s+not\\s+exists\\s+)?(" + IDENTIFIER + ")",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern CREATE_VIEW = Pattern.compile("^create\\s+(?:or\\s+replace\\s+)?(?:force\\s+)?view\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern CREATE_INDEX = Pattern.compile("^create\\s+(?:(?:unique|spatial|hash|primary\\s+key)" +
+            "\\s+)*index\\s+(?:if\\s+not\\s+exists\\s+)?(?:" + IDENTIFIER + "\\s+)?on\\s+(" + IDENTIFIER + ")",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern DROP_TABLE = Pattern.compile("^drop\\s+(?:table|view)\\s+(?:if\\s+exists\\s+)?(" +
+            IDENTIFIER + "(?:\\s*,\\s*" + IDENTIFIER + ")*)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern RENAME_TABLE = Pattern.compile("^alter\\s+table\\s+(?:if\\s+exists\\s+)?(" +
+            IDENTIFIER + ")\\s+rename\\s+to\\s+(" + IDENTIFIER + ")", Pattern.CASE_INSENSITIVE);
+    private static final Pattern REFERENCES = Pattern.compile("\\breferences\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WRITE_TABLE = Pattern.compile("^(?:insert\\s+into|merge\\s+into|update|" +
+            "delete\\s+from|delete|truncate\\s+table|alter\\s+table\\s+(?:if\\s+exists\\s+)?)\\s*(" + IDENTIFIER + ")",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern SELECT = Pattern.compile("^(?:select|with|\\()", Pattern.CASE_INSENSITIVE);
+    private static final Pattern READ_TABLE = Pattern.compile("\\b(?:from|join)\\s+(" + IDENTIFIER + ")(\\s*\\()?",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern MERGE_USING = Pattern.compile("^merge\\s+into\\s+" + IDENTIFIER +
+            "(?:\\s+(?:as\\s+)?(?!using\\b)[\\w$]+)?\\s+using\\s+(" + IDENTIFIER + ")(\\s*\\()?",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern READ_TABLE_LIST = Pattern.compile("\\bfrom\\s+" + IDENTIFIER +
+            "(?:\\s+(?:as\\s+)?(?!where\\b|group\\b|order\\b|limit\\b|join\\b|inner\\b|left\\b|right\\b|natural\\b|" +
+            "cross\\b|union\\b|on\\b)[\\w$]+)?((?:\\s*,\\s*" + IDENTIFIER + "(?:\\s+(?:as\\s+)?[\\w$]+)?)+)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern QUERY = Pattern.compile("\\bselect\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FROM = Pattern.compile("\\bfrom\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FUNCTION_CALL = Pattern.compile("\\b(?!(?:select|distinct|all|and|or|not|in|" +
+            "exists|as|case|when|then|else|end|is|null|like|between|any|some)\\b)[\\w$]+\\s*\\(",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern LIST_ITEM = Pattern.compile(",\\s*(" + IDENTIFIER + ")(\\s*\\()?");
+
+    private ScriptDependencies() {
+    }
+
+    /**
+     * @param statements Statements of the script, in execution order
+     * @param isH2 True if the statements target a H2 database
+     * @param viewNames Name of the views of the database
+     * @return For each statement the index of the statements that must be done before, null if the script must be
+     * executed on a single connection
+     */
+    public static List<Set<Integer>> getDependencies(List<String> statements, boolean isH2,
+                                                     Collection<String> viewNames) {
+        Set<String> views = new HashSet<>(viewNames.size());
+        for(String view : viewNames) {
+            views.add(view.toUpperCase(Locale.ROOT));
+        }
+        List<StatementTables> tables = new ArrayList<>(statements.size());
+        for(String statement : statements) {
+            if(SESSION_STATEMENT.matcher(statement.trim()).find()) {
+                return null;
+            }
+            StatementTables statementTables = analyse(statement.trim(), isH2);
+            if(!Collections.disjoint(statementTables.read, views)) {
+                statementTables.barrier = true;
+            }
+            if(CREATE_VIEW.matcher(statement.trim()).find()) {
+                views.addAll(statementTables.write);
+            }
+            tables.add(statementTables);
+        }
+        List<Set<Integer>> dependencies = new ArrayList<>(statements.size());
+        int lastBarrier = -1;
+        for(int idStatement = 0; idStatement < tables.size(); idStatement++) {
+            StatementTables current = tables.get(idStatement);
+            Set<Integer> statementDependencies = new HashSet<>();
+            if(current.barrier) {
+                // Wait for everything
+                for(int idPrevious = lastBarrier + 1; idPrevious < idStatement; idPrevious++) {
+                    statementDependencies.add(idPrevious);
+                }
+                if(lastBarrier >= 0) {
+                    statementDependencies.add(lastBarrier);
+                }
+                lastBarrier = idStatement;
+            } else {
+                if(lastBarrier >= 0) {
+                    statementDependencies.add(lastBarrier);
+                }
+                for(int idPrevious = lastBarrier + 1; idPrevious < idStatement; idPrevious++) {
+                    if(tables.get(idPrevious).conflictWith(current)) {
+                        statementDependencies.add(idPrevious);
+                    }
+                }
+            }
+            dependencies.add(statementDependencies);
+        }
+        return dependencies;
+    }
+
+    /**
+     * @param statement SQL statement
+     * @param isH2 True if H2 database
+     * @return Read and written tables
+     */
+    static StatementTables analyse(String statement, boolean isH2) {
+        StatementTables tables = new StatementTables();
+        if(REFERENCES.matcher(statement).find()) {
+            // Foreign keys, the referenced table is read and locked by the constraint
+            tables.barrier = true;
+            return tables;
+        }
+        Matcher matcher = QUERY.matcher(statement);
+        if(matcher.find()) {
+            String query = statement.substring(matcher.start());
+            if(!FROM.matcher(query).find() && FUNCTION_CALL.matcher(query).find()) {
+                // Function call without table (ex: SHPREAD), read and written tables are unknown
+                tables.barrier = true;
+                return tables;
+            }
+        }
+        if((matcher = RENAME_TABLE.matcher(statement)).find()) {
+            tables.write.add(getTableKey(matcher.group(1), isH2));
+            tables.write.add(getTableKey(matcher.group(2), isH2));
+            return tables;
+        }
+        if((matcher = CREATE_TABLE.matcher(statement)).find() || (matcher = CREATE_INDEX.matcher(statement)).find() ||
+                (matcher = WRITE_TABLE.matcher(statement)).find()) {
+            tables.write.add(getTableKey(matcher.group(1), isH2));
+        } else if((matcher = DROP_TABLE.matcher(statement)).find()) {
+            for(String table : matcher.group(1).split("\\s*,\\s*")) {
+                tables.write.add(getTableKey(table, isH2));
+            }
+        } else if(!SELECT.matcher(statement).find()) {
+            // Not a known statement, other tables may be changed
+            tables.barrier = true;
+            return tables;
+        }
+        matcher = READ_TABLE.matcher(statement);
+        while(matcher.find()) {
+            if(matcher.group(2) != null) {
+                // Table function, read tables are unknown
+                tables.barrier = true;
+                return tables;
+            }
+            tables.read.add(getTableKey(matcher.group(1), isH2));
+        }
+        matcher = MERGE_USING.matcher(statement);
+        if(matcher.find()) {
+            // Source table of MERGE INTO ... USING, a table function source reads unknown tables
+            if(matcher.group(2) != null) {
+                tables.barrier = true;
+                return tables;
+            }
+            tables.read.add(getTableKey(matcher.group(1), isH2));
+        }
+        matcher = READ_TABLE_LIST.matcher(statement);
+        while(matcher.find()) {
+            Matcher item = LIST_ITEM.matcher(matcher.group(1));
+            while(item.find()) {
+                if(item.group(2) != null) {
+                    tables.barrier = true;
+                    return tables;
+                }
+                tables.read.add(getTableKey(item.group(1), isH2));
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Tables are compared by name only, as a table with the same name in another schema is considered as the same
+     * table the dependencies can only be overestimated.
+     * @param identifier Table identifier
+     * @param isH2 True if H2 database
+     * @return Table key
+     */
+    private static String getTableKey(String identifier, boolean isH2) {
+        return TableLocation.parse(identifier.replaceAll("\\s", ""), isH2).getTable().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Tables used by a statement
+     */
+    static class StatementTables {
+        Set<String> read = new HashSet<>();
+        Set<String> write = new HashSet<>();
+        boolean barrier = false;
+
+        /**
+         * @param other Following statement
+         * @return True if the other statement must wait this one
+         */
+        public boolean conflictWith(StatementTables other) {
+            return !Collections.disjoint(write, other.write) || !Collections.disjoint(write, other.read) ||
+                    !Collections.disjoint(read, other.write);
+        }
+    }
+}
@@ -48,4 +48,5 @@ public interface SQLAction extends ActionFactoryService<SQLConsoleEditor> {
     public static final String A_BLOCKCOMMENT = "M_BLOCKCOMMENT";
     public static final String A_SQL_LIST = "M_SQL_LIST";    
     public static final String A_SQL_TIMEOUT = "M_SQL_TIMEOUT";
+    public static final String A_SQL_PARALLEL = "M_SQL_PARALLEL";
 }
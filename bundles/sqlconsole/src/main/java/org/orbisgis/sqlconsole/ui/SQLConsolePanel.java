@@ -113,6 +113,8 @@ public class SQLConsolePanel extends JPanel {
         private DefaultAction saveAsAction;
         private DataSource dataSource;
         private int timeOut =0;
+        private boolean parallelExecution = false;
+        private DefaultAction parallelAction;
         private ExecutorService executorService;
         private SQLElement sqlElement;
         private DeactivableSplitPane split;
@@ -280,6 +282,14 @@ public class SQLConsolePanel extends JPanel {
                         EventHandler.create(ActionListener.class,this,"onSQLTimeOut"),
                         KeyStroke.getKeyStroke(KeyEvent.VK_T, InputEvent.CTRL_DOWN_MASK)
                 ).setLogicalGroup("custom"));
+                //Parallel execution action
+                parallelAction = new DefaultAction(SQLAction.A_SQL_PARALLEL,
+                        I18N.tr("Parallel execution"),
+                        I18N.tr("Execute the statements that do not use the same tables at the same time"),
+                        SQLConsoleIcon.getIcon("execute"),
+                        EventHandler.create(ActionListener.class,this,"onSQLParallelExecution"),
+                        null).setSelected(false).setLogicalGroup("custom");
+                actions.addAction(parallelAction);
         }
 
         public void onShowHideFunctionPanel() {
@@ -337,7 +347,10 @@ public class SQLConsolePanel extends JPanel {
          */
         public void onExecute() {      
                 if (scriptPanel.getDocument().getLength() > 0) {
-                    execute(new ExecuteScriptProcess(this, dataSource, splitterFactory, timeOut));
+                    ExecuteScriptProcess executeScriptProcess = new ExecuteScriptProcess(this, dataSource,
+                            splitterFactory, timeOut);
+                    executeScriptProcess.setParallelExecution(parallelExecution);
+                    execute(executeScriptProcess);
                 }
         }
 
@@ -487,6 +500,19 @@ public class SQLConsolePanel extends JPanel {
                 character = scriptPanel.getCaretOffsetFromLineStart();
                 setStatusMessage(message);
         }
+    /**
+     * Enable or disable the parallel execution of scripts
+     */
+    public void onSQLParallelExecution() {
+        parallelExecution = !parallelExecution;
+        parallelAction.setSelected(parallelExecution);
+        if(parallelExecution) {
+            setStatusMessage(I18N.tr("Parallel execution enabled"));
+        } else {
+            setStatusMessage(I18N.tr("Parallel execution disabled"));
+        }
+    }
+
         /**
      * Open a panel to change the SQL time out
      */
@@ -0,0 +1,150 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.sqlconsole.actions;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test of the statement dependencies used by the parallel script execution.
+ */
+public class ScriptDependenciesTest {
+
+    private static Set<Integer> set(Integer... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+
+    private static List<Set<Integer>> getDependencies(String... statements) {
+        return ScriptDependencies.getDependencies(Arrays.asList(statements), true, Collections.<String>emptyList());
+    }
+
+    @Test
+    public void testIndependentStatements() {
+        List<Set<Integer>> dependencies = getDependencies(
+                "CREATE TABLE A(ID INT)",
+                "CREATE TABLE B(ID INT)",
+                "INSERT INTO A VALUES (1)",
+                "INSERT INTO B SELECT * FROM A",
+                "SELECT * FROM B");
+        assertEquals(set(), dependencies.get(0));
+        assertEquals(set(), dependencies.get(1));
+        assertEquals(set(0), dependencies.get(2));
+        assertEquals(set(0, 1, 2), dependencies.get(3));
+        assertEquals(set(1, 3), dependencies.get(4));
+    }
+
+    @Test
+    public void testRenameWritesBothTables() {
+        ScriptDependencies.StatementTables tables = ScriptDependencies.analyse("ALTER TABLE A RENAME TO B", true);
+        assertFalse(tables.barrier);
+        assertEquals(new HashSet<>(Arrays.asList("A", "B")), tables.write);
+        List<Set<Integer>> dependencies = getDependencies(
+                "CREATE TABLE A(ID INT)",
+                "ALTER TABLE A RENAME TO B",
+                "SELECT * FROM B",
+                "CREATE TABLE A(ID INT)");
+        assertEquals(set(0), dependencies.get(1));
+        assertEquals(set(1), dependencies.get(2));
+        assertEquals(set(0, 1), dependencies.get(3));
+    }
+
+    @Test
+    public void testReferencesIsBarrier() {
+        assertTrue(ScriptDependencies.analyse("CREATE TABLE C(ID INT, A_ID INT REFERENCES A(ID))", true).barrier);
+        assertTrue(ScriptDependencies.analyse("ALTER TABLE C ADD CONSTRAINT FK FOREIGN KEY(A_ID) REFERENCES A(ID)",
+                true).barrier);
+        List<Set<Integer>> dependencies = getDependencies(
+                "CREATE TABLE A(ID INT PRIMARY KEY)",
+                "CREATE TABLE B(ID INT)",
+                "CREATE TABLE C(ID INT, A_ID INT REFERENCES A(ID))",
+                "INSERT INTO B VALUES (1)");
+        assertEquals(set(0, 1), dependencies.get(2));
+        assertEquals(set(2), dependencies.get(3));
+    }
+
+    @Test
+    public void testFunctionWithoutFromIsBarrier() {
+        assertTrue(ScriptDependencies.analyse("SELECT SHPREAD('x.shp','T')", true).barrier);
+        assertTrue(ScriptDependencies.analyse("CALL SHPREAD('x.shp','T')", true).barrier);
+        assertTrue(ScriptDependencies.analyse("SELECT * FROM FILE_TABLE('x.shp')", true).barrier);
+        assertFalse(ScriptDependencies.analyse("SELECT 1", true).barrier);
+        assertFalse(ScriptDependencies.analyse("SELECT COUNT(*) FROM T", true).barrier);
+        List<Set<Integer>> dependencies = getDependencies(
+                "CREATE TABLE A(ID INT)",
+                "SELECT SHPREAD('x.shp','T')",
+                "SELECT * FROM T");
+        assertEquals(set(0), dependencies.get(1));
+        assertEquals(set(1), dependencies.get(2));
+    }
+
+    @Test
+    public void testMergeUsingReadsSource() {
+        ScriptDependencies.StatementTables tables = ScriptDependencies.analyse("MERGE INTO A T USING B S ON T.ID = " +
+                "S.ID WHEN MATCHED THEN UPDATE SET T.V = S.V", true);
+        assertFalse(tables.barrier);
+        assertEquals(new HashSet<>(Arrays.asList("A")), tables.write);
+        assertEquals(new HashSet<>(Arrays.asList("B")), tables.read);
+        tables = ScriptDependencies.analyse("MERGE INTO A USING (SELECT * FROM B) S ON A.ID = S.ID " +
+                "WHEN NOT MATCHED THEN INSERT VALUES (S.ID)", true);
+        assertFalse(tables.barrier);
+        assertEquals(new HashSet<>(Arrays.asList("B")), tables.read);
+        List<Set<Integer>> dependencies = getDependencies(
+                "CREATE TABLE A(ID INT, V INT)",
+                "CREATE TABLE B(ID INT, V INT)",
+                "MERGE INTO A T USING B S ON T.ID = S.ID WHEN MATCHED THEN UPDATE SET T.V = S.V",
+                "INSERT INTO B VALUES (1, 1)");
+        assertEquals(set(0, 1), dependencies.get(2));
+        assertEquals(set(1, 2), dependencies.get(3));
+    }
+
+    @Test
+    public void testViewReadIsBarrier() {
+        List<Set<Integer>> dependencies = ScriptDependencies.getDependencies(Arrays.asList(
+                "CREATE TABLE A(ID INT)",
+                "CREATE TABLE B(ID INT)",
+                "SELECT * FROM V"), true, Arrays.asList("v"));
+        assertEquals(set(0, 1), dependencies.get(2));
+    }
+
+    @Test
+    public void testSessionStatement() {
+        assertNull(getDependencies("CREATE TABLE A(ID INT)", "SET AUTOCOMMIT FALSE", "INSERT INTO A VALUES (1)"));
+        assertNull(getDependencies("CREATE TEMPORARY TABLE A(ID INT)"));
+    }
+}
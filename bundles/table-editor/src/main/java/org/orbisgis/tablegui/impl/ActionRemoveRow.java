@@ -46,7 +46,6 @@ import java.awt.event.ActionEvent;
 import java.beans.EventHandler;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.sql.SQLException;
 import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
@@ -61,18 +60,16 @@ public class ActionRemoveRow extends AbstractAction {
         private static final I18n I18N = I18nFactory.getI18n(ActionRemoveRow.class);
         private Component parentComponent;
         private ExecutorService executorService;
-        private final int limitUndoableDelete;
         private static final Logger LOGGER = LoggerFactory.getLogger(ActionRemoveRow.class);
 
         /**
          * Constructor
          * @param editable Table editable instance
          */
-        public ActionRemoveRow(TableEditableElement editable, Component parentComponent,ExecutorService executorService, int limitUndoableDelete) {
+        public ActionRemoveRow(TableEditableElement editable, Component parentComponent,ExecutorService executorService) {
                 super(I18N.tr("Delete selected rows"), TableEditorIcon.getIcon("delete_row"));
                 this.parentComponent = parentComponent;
                 this.executorService = executorService;
-                this.limitUndoableDelete = limitUndoableDelete;
                 putValue(ActionTools.LOGICAL_GROUP, TableEditorActions.LGROUP_MODIFICATION_GROUP);
                 putValue(ActionTools.MENU_ID,TableEditorActions.A_REMOVE_ROW);
                 this.editable = editable;
@@ -102,16 +99,11 @@ public class ActionRemoveRow extends AbstractAction {
                                 JOptionPane.YES_NO_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE);
                         if(response == JOptionPane.YES_OPTION) {
                                 SortedSet<Long> pkToDelete = editable.getSelection();
-                                if(pkToDelete.size() > limitUndoableDelete) {
-                                    // Launch process without undoing capabilities
-                                    executorService.execute(new DeleteSelectedRows(editable.getSelection(), editable.getTableReference(), editable.getDataManager().getDataSource()));
-                                } else {
-                                    // Launch process with undoing capabilities
-                                    try {
-                                        DeleteSelectedRows.deleteUsingRowSet(editable.getRowSet(), pkToDelete);
-                                    } catch (EditableElementException | InterruptedException | SQLException ex) {
-                                        LOGGER.error(ex.getLocalizedMessage(), ex);
-                                    }
+                                try {
+                                    // Launch process with undoing capabilities, recorded as a single edit
+                                    executorService.execute(new DeleteSelectedRows(pkToDelete, editable.getRowSet()));
+                                } catch (EditableElementException ex) {
+                                    LOGGER.error(ex.getLocalizedMessage(), ex);
                                 }
                         }
                 }
@@ -82,6 +82,7 @@ import org.orbisgis.editorjdbc.EditableSource;
 import org.orbisgis.editorjdbc.EditorUndoableEdit;
 import org.orbisgis.editorjdbc.jobs.CreateSourceFromSelection;
 import org.orbisgis.mapeditorapi.MapElement;
+import org.orbisgis.sif.UIFactory;
 import org.orbisgis.sif.components.actions.ActionCommands;
 import org.orbisgis.sif.components.actions.DefaultAction;
 import org.orbisgis.sif.components.filter.DefaultActiveFilter;
@@ -92,6 +93,9 @@ import org.orbisgis.sif.edition.EditableElement;
 import org.orbisgis.sif.edition.EditableElementException;
 import org.orbisgis.sif.edition.EditorDockable;
 import org.orbisgis.sif.edition.EditorManager;
+import org.orbisgis.sif.multiInputPanel.MIPValidation;
+import org.orbisgis.sif.multiInputPanel.MultiInputPanel;
+import org.orbisgis.sif.multiInputPanel.TextBoxType;
 import org.orbisgis.tablegui.api.TableEditableElement;
 import org.orbisgis.tablegui.icons.TableEditorIcon;
 import org.orbisgis.tablegui.impl.ext.SourceTable;
@@ -100,6 +104,7 @@ import org.orbisgis.tablegui.impl.filters.FieldsContainsFilterFactory;
 import org.orbisgis.tablegui.impl.filters.TableSelectionFilter;
 import org.orbisgis.tablegui.impl.filters.WhereSQLFilterFactory;
 import org.orbisgis.tablegui.impl.jobs.ComputeFieldStatistics;
+import org.orbisgis.tablegui.impl.jobs.ComputeFieldValues;
 import org.orbisgis.tablegui.impl.jobs.OptimalWidthJob;
 import org.orbisgis.tablegui.impl.jobs.SearchJob;
 import org.slf4j.Logger;
@@ -115,6 +120,7 @@ public class TableEditor extends JPanel implements EditorDockable, SourceTable,T
         protected final static I18n I18N = I18nFactory.getI18n(TableEditor.class);
         private static final Logger LOGGER = LoggerFactory.getLogger("gui." + TableEditor.class);
         private static final int TABLE_SCROLL_PERC = 5;
+        private static final String EXPRESSION_INPUT = "expression";
         private final UndoManager undoManager = new UndoManager();
         private static final long serialVersionUID = 1L;
         private TableEditableElement tableEditableElement;
@@ -220,7 +226,7 @@ public class TableEditor extends JPanel implements EditorDockable, SourceTable,T
                 if(tableEditableElement.isEditable()) {
                         actions.add(new ActionAddColumn(tableEditableElement));
                         actions.add(new ActionAddRow(tableEditableElement));
-                        actions.add(new ActionRemoveRow(tableEditableElement, this, executorService, undoManager.getLimit()));
+                        actions.add(new ActionRemoveRow(tableEditableElement, this, executorService));
                         actions.add(new ActionUndo(tableEditableElement, undoManager));
                         actions.add(new ActionRedo(tableEditableElement, undoManager));
                         actions.add(new ActionEdition(tableEditableElement));
@@ -703,6 +709,29 @@ public class TableEditor extends JPanel implements EditorDockable, SourceTable,T
                         pop.add(showStats);                                
                         
                 }
+                boolean isPrimaryKeyField = true;
+                if(tableEditableElement.isEditing()) {
+                        try {
+                            isPrimaryKeyField = isPrimaryKey(tableModel.getColumnName(col));
+                        } catch (SQLException ex) {
+                            LOGGER.error(ex.getLocalizedMessage(), ex);
+                        }
+                }
+                if(!isPrimaryKeyField) {
+                        //Compute values with an SQL expression
+                        String text = I18N.tr("Compute column values");
+                        if(!tableEditableElement.getSelection().isEmpty()) {
+                                text = I18N.tr("Compute column selection values");
+                        }
+                        JMenuItem computeValues =
+                                new JMenuItem(text,
+                                        TableEditorIcon.getIcon("execute")
+                                );
+                        computeValues.addActionListener(
+                        EventHandler.create(ActionListener.class,this,
+                        "onMenuComputeValues"));
+                        pop.add(computeValues);
+                }
                 popupActions.copyEnabledActions(pop);
                 return pop;
 
@@ -765,6 +794,34 @@ public class TableEditor extends JPanel implements EditorDockable, SourceTable,T
                         .x, tableEditableElement.getTableReference()));
         }
 
+        /**
+         * Ask for an SQL expression and set the values of the selected rows, or of all rows if there is no selection
+         */
+        public void onMenuComputeValues() {
+                String columnName = tableModel.getColumnName(popupCellAdress.x);
+                MultiInputPanel expressionPanel = new MultiInputPanel(I18N.tr("Compute column values"));
+                expressionPanel.addInput(EXPRESSION_INPUT,
+                        I18N.tr("SQL expression of the new values of the column {0}", columnName),
+                        new TextBoxType(30));
+                expressionPanel.addValidation(new MIPValidation() {
+                        @Override
+                        public String validate(MultiInputPanel mip) {
+                                String expression = mip.getInput(EXPRESSION_INPUT);
+                                return expression == null || expression.trim().isEmpty() ?
+                                        I18N.tr("The expression cannot be empty") : null;
+                        }
+                });
+                if(UIFactory.showDialog(expressionPanel)) {
+                        String expression = expressionPanel.getInput(EXPRESSION_INPUT);
+                        try {
+                                executorService.execute(new ComputeFieldValues(tableEditableElement.getRowSet(),
+                                        columnName, expression, tableEditableElement.getSelection()));
+                        } catch (EditableElementException ex) {
+                                LOGGER.error(ex.getLocalizedMessage(), ex);
+                        }
+                }
+        }
+
         /**
          * Compute the optimal width for this column
          */
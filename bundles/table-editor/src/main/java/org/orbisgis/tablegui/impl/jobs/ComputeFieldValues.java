@@ -0,0 +1,92 @@
+/*
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information. 
+ * 
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ * 
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ * 
+ * This file is part of OrbisGIS.
+ * 
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.tablegui.impl.jobs;
+
+import java.sql.SQLException;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import org.orbisgis.commons.progress.SwingWorkerPM;
+import org.orbisgis.corejdbc.ReversibleRowSet;
+import org.orbisgis.corejdbc.common.LongUnion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnap.commons.i18n.I18n;
+import org.xnap.commons.i18n.I18nFactory;
+
+/**
+ * This job set the values of a column using an SQL expression. The database evaluates the expression on all the
+ * rows in one statement, the update can be undone.
+ */
+public class ComputeFieldValues extends SwingWorkerPM {
+    protected final static I18n I18N = I18nFactory.getI18n(ComputeFieldValues.class);
+    private static final Logger LOGGER = LoggerFactory.getLogger("gui." + ComputeFieldValues.class);
+    private static final long TRY_LOCK_TIME = 10;
+    private final ReversibleRowSet rowSet;
+    private final String columnName;
+    private final String expression;
+    private final SortedSet<Long> rowPkFilter;
+
+    /**
+     * Constructor
+     *
+     * @param rowSet      Row set of the edited table
+     * @param columnName  Column to update
+     * @param expression  SQL expression of the new values
+     * @param rowPkFilter Primary key of the rows to update, all rows are updated if empty
+     */
+    public ComputeFieldValues(ReversibleRowSet rowSet, String columnName, String expression,
+                              SortedSet<Long> rowPkFilter) {
+        this.rowSet = rowSet;
+        this.columnName = columnName;
+        this.expression = expression;
+        this.rowPkFilter = rowPkFilter.isEmpty() ? null : new LongUnion(rowPkFilter);
+        setTaskName(I18N.tr("Compute the values of the column {0}", columnName));
+    }
+
+    @Override
+    protected Object doInBackground() throws Exception {
+        try {
+            Lock lock = rowSet.getReadLock();
+            if (lock.tryLock(TRY_LOCK_TIME, TimeUnit.SECONDS)) {
+                try {
+                    rowSet.updateColumn(columnName, expression, rowPkFilter);
+                } finally {
+                    lock.unlock();
+                }
+            } else {
+                LOGGER.error(I18N.tr("The table is in use, the column {0} has not been updated", columnName));
+            }
+        } catch (SQLException ex) {
+            LOGGER.error(ex.getLocalizedMessage(), ex);
+        }
+        return null;
+    }
+}
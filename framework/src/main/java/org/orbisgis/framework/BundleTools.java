@@ -46,7 +46,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.jar.Attributes;
-import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 
@@ -77,9 +76,19 @@ public class BundleTools {
     private final Logger LOGGER;
     private static final int DELETE_TRY_COUNT = 3;
     private static final long WAIT_RETRY_DELETE = 250;
+    private final JarIndex jarIndex;
 
     public BundleTools(Logger LOGGER) {
+        this(LOGGER, null);
+    }
+
+    /**
+     * @param LOGGER Logger
+     * @param indexFile File of the class path Jars index, null to not keep the index between two launches
+     */
+    public BundleTools(Logger LOGGER, File indexFile) {
         this.LOGGER = LOGGER;
+        this.jarIndex = new JarIndex(indexFile, LOGGER);
     }
 
     /**
@@ -377,14 +386,8 @@ public class BundleTools {
                     LOGGER.log(Logger.LOG_ERROR, "Error while installing bundle in bundle directory", ex);
                 }
             }
-            // Start new bundles
-            for (Bundle bundle :installedBundleList) {
-                try {
-                    bundle.start();
-                } catch (BundleException ex) {
-                    LOGGER.log(Logger.LOG_ERROR, "Error while starting bundle in bundle directory", ex);
-                }
-            }
+            // Start new bundles, in dependency waves
+            new StartupOrchestrator(hostBundle, LOGGER).startBundles(installedBundleList, 0);
         }
     }
 
@@ -432,6 +435,21 @@ public class BundleTools {
         classPath.addAll(Arrays.asList(pathElements));
         return classPath;
     }
+
+    /**
+     * @param pathElements Class path elements
+     * @return The index of the existing Jars of the class path, by absolute path
+     */
+    private Map<String, JarIndex.JarEntryIndex> getJarIndex(List<String> pathElements) {
+        Set<File> jarFiles = new HashSet<>();
+        for (String element : pathElements) {
+            File filePath = new File(element);
+            if (FilenameUtils.getExtension(element).equals("jar") && filePath.isFile()) {
+                jarFiles.add(filePath);
+            }
+        }
+        return jarIndex.update(jarFiles);
+    }
     /**
      * Read the class path, search for OSGi manifest declaration.
      * Reading MANIFEST is useful to read package versions of OSGi compliant Jars.
@@ -442,14 +460,14 @@ public class BundleTools {
     public Collection<PackageDeclaration> fetchManifests() {
         List<PackageDeclaration> packages = new LinkedList<PackageDeclaration>();
         List<String> pathElements = getClassPath();
+        Map<String, JarIndex.JarEntryIndex> jarEntries = getJarIndex(pathElements);
         // Fetch
         for (String element : pathElements) {
             File filePath = new File(element);
             if (FilenameUtils.getExtension(element).equals("jar") && filePath.exists()) {
-                try {
-                    parseJarManifest(filePath, packages);
-                } catch (IOException ex) {
-                    LOGGER.log(Logger.LOG_DEBUG, "Unable to fetch packages in " + filePath.getAbsolutePath(), ex);
+                JarIndex.JarEntryIndex jarEntry = jarEntries.get(filePath.getAbsolutePath());
+                if (jarEntry != null) {
+                    packages.addAll(jarEntry.getExportedPackages());
                 }
             } else if (filePath.isDirectory()) {
                 try {
@@ -548,12 +566,14 @@ public class BundleTools {
     private Set<String> getAllPackages() {
         Set<String> packages = new HashSet<String>();
         List<String> pathElements = getClassPath();
+        Map<String, JarIndex.JarEntryIndex> jarEntries = getJarIndex(pathElements);
         for (String element : pathElements) {
             File filePath = new File(element);
             if (element.endsWith("jar")) {
-                try {
-                    parseJar(filePath, packages);
-                } catch (IOException ex) {
+                JarIndex.JarEntryIndex jarEntry = jarEntries.get(filePath.getAbsolutePath());
+                if (jarEntry != null) {
+                    packages.addAll(jarEntry.getClassPackages());
+                } else {
                     LOGGER.log(Logger.LOG_DEBUG, "Unable to fetch packages in " + filePath.getAbsolutePath());
                 }
             } else if (filePath.isDirectory()) {
@@ -583,23 +603,4 @@ public class BundleTools {
             }
         }
     }
-
-    private static void parseJar(File jarFilePath, Set<String> packages) throws IOException {
-        try(JarFile jar = new JarFile(jarFilePath)) {
-            Enumeration<? extends JarEntry> entryEnum = jar.entries();
-            while (entryEnum.hasMoreElements()) {
-                JarEntry entry = entryEnum.nextElement();
-                if (!entry.isDirectory()) {
-                    final String path = entry.getName();
-                    if (path.endsWith(".class")) {
-                        // Extract folder
-                        String parentPath = (new File(path)).getParent();
-                        if (parentPath != null) {
-                            packages.add(parentPath.replace(File.separator, "."));
-                        }
-                    }
-                }
-            }
-        }
-    }
 }
@@ -0,0 +1,311 @@
+/*
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information. 
+ * 
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ * 
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ * 
+ * This file is part of OrbisGIS.
+ * 
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import org.apache.felix.framework.Logger;
+import org.osgi.framework.Version;
+
+/**
+ * Persisted index of the packages found in the class path Jars.
+ * For each Jar the index keeps its size, its last modification date, the packages exported by its manifest and the
+ * packages of its classes. A Jar is opened again only if its size or its modification date has changed, then the
+ * modified Jars are scanned concurrently.
+ */
+public class JarIndex {
+    private static final int FORMAT_VERSION = 1;
+    private final Logger LOGGER;
+    private final File indexFile;
+    private final Map<String, JarEntryIndex> entries = new HashMap<>();
+    private boolean loaded = false;
+
+    /**
+     * @param indexFile Index file, null to keep the index only in memory
+     * @param logger Logger
+     */
+    public JarIndex(File indexFile, Logger logger) {
+        this.indexFile = indexFile;
+        this.LOGGER = logger;
+    }
+
+    /**
+     * Validate the index of the provided Jars, scan again the new or modified Jars and save the index if it changed.
+     * @param jarFiles Jar files
+     * @return The index of each readable Jar, by Jar absolute path
+     */
+    public synchronized Map<String, JarEntryIndex> update(Collection<File> jarFiles) {
+        if(!loaded) {
+            load();
+            loaded = true;
+        }
+        // Find new or modified Jars
+        Map<String, JarEntryIndex> result = new HashMap<>(jarFiles.size());
+        Set<String> seenPaths = new HashSet<>(jarFiles.size());
+        List<File> toScan = new ArrayList<>();
+        for(File jarFile : jarFiles) {
+            String path = jarFile.getAbsolutePath();
+            seenPaths.add(path);
+            JarEntryIndex entry = entries.get(path);
+            if(entry != null && entry.length == jarFile.length() && entry.lastModified == jarFile.lastModified()) {
+                result.put(path, entry);
+            } else {
+                // Outdated entry, it is not kept if the Jar is no longer readable
+                entries.remove(path);
+                toScan.add(jarFile);
+            }
+        }
+        // Remove the Jars that are no longer in the class path
+        boolean pruned = entries.keySet().retainAll(seenPaths);
+        if(!toScan.isEmpty()) {
+            for(JarEntryIndex entry : scan(toScan)) {
+                entries.put(entry.path, entry);
+                result.put(entry.path, entry);
+            }
+            LOGGER.log(Logger.LOG_DEBUG, toScan.size() + " jars indexed on " + jarFiles.size());
+        }
+        if(!toScan.isEmpty() || pruned) {
+            save();
+        }
+        return result;
+    }
+
+    /**
+     * @return Absolute path of the indexed Jars
+     */
+    synchronized Set<String> getIndexedJars() {
+        return new HashSet<>(entries.keySet());
+    }
+
+    /**
+     * Read the Jars concurrently
+     * @param jarFiles Jars to read
+     * @return Index of readable Jars
+     */
+    private List<JarEntryIndex> scan(List<File> jarFiles) {
+        List<JarEntryIndex> scanned = new ArrayList<>(jarFiles.size());
+        ExecutorService executorService = Executors.newFixedThreadPool(
+                Math.min(jarFiles.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            List<Future<JarEntryIndex>> futures = new ArrayList<>(jarFiles.size());
+            for(final File jarFile : jarFiles) {
+                futures.add(executorService.submit(new Callable<JarEntryIndex>() {
+                    @Override
+                    public JarEntryIndex call() throws Exception {
+                        return readJar(jarFile);
+                    }
+                }));
+            }
+            for(int i = 0; i < futures.size(); i++) {
+                try {
+                    scanned.add(futures.get(i).get());
+                } catch (ExecutionException ex) {
+                    LOGGER.log(Logger.LOG_DEBUG, "Unable to fetch packages in " + jarFiles.get(i).getAbsolutePath(),
+                            ex.getCause());
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executorService.shutdown();
+        }
+        return scanned;
+    }
+
+    /**
+     * Read the manifest and the class entries of a Jar
+     * @param jarFile Jar file
+     * @return Jar index
+     * @throws IOException
+     */
+    private static JarEntryIndex readJar(File jarFile) throws IOException {
+        // Read size and date before opening, a modification while reading will be seen at the next startup
+        long length = jarFile.length();
+        long lastModified = jarFile.lastModified();
+        List<PackageDeclaration> exportedPackages = new ArrayList<>();
+        Set<String> classPackages = new HashSet<>();
+        try(JarFile jar = new JarFile(jarFile)) {
+            Manifest manifest = jar.getManifest();
+            if(manifest != null) {
+                BundleTools.parseManifest(manifest, exportedPackages);
+            }
+            Enumeration<? extends JarEntry> entryEnum = jar.entries();
+            while (entryEnum.hasMoreElements()) {
+                JarEntry entry = entryEnum.nextElement();
+                if (!entry.isDirectory()) {
+                    final String path = entry.getName();
+                    if (path.endsWith(".class")) {
+                        // Extract folder
+                        String parentPath = (new File(path)).getParent();
+                        if (parentPath != null) {
+                            classPackages.add(parentPath.replace(File.separator, "."));
+                        }
+                    }
+                }
+            }
+        }
+        return new JarEntryIndex(jarFile.getAbsolutePath(), length, lastModified, exportedPackages, classPackages);
+    }
+
+    /**
+     * Read the index file, an invalid file is ignored.
+     */
+    private void load() {
+        if(indexFile == null || !indexFile.isFile()) {
+            return;
+        }
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if(in.readInt() != FORMAT_VERSION) {
+                return;
+            }
+            int entryCount = in.readInt();
+            Map<String, JarEntryIndex> loadedEntries = new HashMap<>(entryCount);
+            for(int i = 0; i < entryCount; i++) {
+                String path = in.readUTF();
+                long length = in.readLong();
+                long lastModified = in.readLong();
+                int exportCount = in.readInt();
+                List<PackageDeclaration> exportedPackages = new ArrayList<>(exportCount);
+                for(int j = 0; j < exportCount; j++) {
+                    String packageName = in.readUTF();
+                    String version = in.readUTF();
+                    exportedPackages.add(new PackageDeclaration(packageName,
+                            version.isEmpty() ? null : new Version(version)));
+                }
+                int packageCount = in.readInt();
+                Set<String> classPackages = new HashSet<>(packageCount);
+                for(int j = 0; j < packageCount; j++) {
+                    classPackages.add(in.readUTF());
+                }
+                loadedEntries.put(path, new JarEntryIndex(path, length, lastModified, exportedPackages,
+                        classPackages));
+            }
+            entries.putAll(loadedEntries);
+        } catch (IOException | IllegalArgumentException ex) {
+            LOGGER.log(Logger.LOG_WARNING, "Unable to read the class path index " + indexFile.getAbsolutePath(), ex);
+        }
+    }
+
+    /**
+     * Write the index file, through a temporary file in order to never keep a partially written index.
+     */
+    private void save() {
+        if(indexFile == null) {
+            return;
+        }
+        File parent = indexFile.getAbsoluteFile().getParentFile();
+        if(parent != null && !parent.exists() && !parent.mkdirs()) {
+            return;
+        }
+        File tmpFile = new File(indexFile.getAbsolutePath() + ".tmp");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(entries.size());
+            for(JarEntryIndex entry : entries.values()) {
+                out.writeUTF(entry.path);
+                out.writeLong(entry.length);
+                out.writeLong(entry.lastModified);
+                out.writeInt(entry.exportedPackages.size());
+                for(PackageDeclaration packageDeclaration : entry.exportedPackages) {
+                    out.writeUTF(packageDeclaration.getPackageName());
+                    out.writeUTF(packageDeclaration.getVersion() == null ? "" :
+                            packageDeclaration.getVersion().toString());
+                }
+                out.writeInt(entry.classPackages.size());
+                for(String classPackage : entry.classPackages) {
+                    out.writeUTF(classPackage);
+                }
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Logger.LOG_WARNING, "Unable to write the class path index " + indexFile.getAbsolutePath(), ex);
+            return;
+        }
+        if((indexFile.exists() && !indexFile.delete()) || !tmpFile.renameTo(indexFile)) {
+            LOGGER.log(Logger.LOG_WARNING, "Unable to write the class path index " + indexFile.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Index of a single Jar
+     */
+    public static class JarEntryIndex {
+        private final String path;
+        private final long length;
+        private final long lastModified;
+        private final List<PackageDeclaration> exportedPackages;
+        private final Set<String> classPackages;
+
+        private JarEntryIndex(String path, long length, long lastModified,
+                              List<PackageDeclaration> exportedPackages, Set<String> classPackages) {
+            this.path = path;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.exportedPackages = exportedPackages;
+            this.classPackages = classPackages;
+        }
+
+        /**
+         * @return Packages exported by the Jar manifest
+         */
+        public List<PackageDeclaration> getExportedPackages() {
+            return Collections.unmodifiableList(exportedPackages);
+        }
+
+        /**
+         * @return Packages of the Jar classes
+         */
+        public Set<String> getClassPackages() {
+            return Collections.unmodifiableSet(classPackages);
+        }
+    }
+}
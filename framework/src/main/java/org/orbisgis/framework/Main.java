@@ -35,8 +35,10 @@ import java.io.InputStream;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Stack;
@@ -46,6 +48,8 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.felix.framework.Logger;
 import org.apache.felix.main.AutoProcessor;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
 import org.osgi.framework.FrameworkEvent;
 import org.osgi.framework.Version;
@@ -64,6 +68,7 @@ final class Main {
     private static final int BUNDLE_STABILITY_TIMEOUT = 3000;
     private static final int SAFE_MODE_COUNTDOWN_DELETE = 5000;
     private static final Logger LOGGER = new Logger();
+    private static final String STARTUP_REPORT_FILE = "startup_report.txt";
 
     //Minimum supported java version
     public static final char MIN_JAVA_VERSION = '7';
@@ -175,6 +180,7 @@ final class Main {
 
 
     public static void startFelix(String bundleDir, String cacheDir) {
+        long beginStartFelix = System.currentTimeMillis();
         // Load system properties.
         org.apache.felix.main.Main.loadSystemProperties();
 
@@ -205,6 +211,9 @@ final class Main {
             configProps.put(Constants.FRAMEWORK_STORAGE, cacheDir);
         }
 
+        // Deployed bundles are started by the StartupOrchestrator instead of the AutoProcessor
+        boolean orchestratedStart = removeDeployStartAction(configProps);
+
         // If enabled, register a shutdown hook to make sure the framework is
         // cleanly shutdown when the VM exits.
         String enableHook = configProps.get(org.apache.felix.main.Main.SHUTDOWN_HOOK_PROP);
@@ -238,11 +247,22 @@ final class Main {
             // Use the system bundle context to process the auto-deploy
             // and auto-install/auto-start properties.
             AutoProcessor.process(configProps, m_fwk.getBundleContext());
+            List<Bundle> deployedBundles = new ArrayList<>();
+            if(orchestratedStart) {
+                deployedBundles = getDeployedBundles(m_fwk.getBundleContext(),
+                        configProps.get(AutoProcessor.AUTO_DEPLOY_DIR_PROPERY));
+            }
             FrameworkEvent event;
             do
             {
                 // Start the framework.
                 m_fwk.start();
+                if(orchestratedStart) {
+                    startDeployedBundles(m_fwk.getBundleContext(), deployedBundles,
+                            new File(configProps.get(Constants.FRAMEWORK_STORAGE)));
+                }
+                LOGGER.log(Logger.LOG_INFO, I18N.tr("Framework started in {0} s",
+                        (System.currentTimeMillis() - beginStartFelix) / 1000.0));
                 // Wait for framework to stop to exit the VM.
                 event = m_fwk.waitForStop(0);
             }
@@ -256,6 +276,82 @@ final class Main {
             System.exit(0);
         }
     }
+    /**
+     * Remove the start action of the auto deploy configuration.
+     * @param configProps Framework configuration
+     * @return True if the deployed bundles have to be started
+     */
+    private static boolean removeDeployStartAction(Map<String, String> configProps) {
+        String deployAction = configProps.get(AutoProcessor.AUTO_DEPLOY_ACTION_PROPERY);
+        if(deployAction == null) {
+            return false;
+        }
+        StringBuilder actions = new StringBuilder();
+        boolean hasStart = false;
+        for(String action : deployAction.split(",")) {
+            if(action.trim().equalsIgnoreCase(AutoProcessor.AUTO_DEPLOY_START_VALUE)) {
+                hasStart = true;
+            } else {
+                if(actions.length() != 0) {
+                    actions.append(",");
+                }
+                actions.append(action.trim());
+            }
+        }
+        if(hasStart) {
+            configProps.put(AutoProcessor.AUTO_DEPLOY_ACTION_PROPERY, actions.toString());
+        }
+        return hasStart;
+    }
+
+    /**
+     * @param context Framework bundle context
+     * @param bundleDir Auto deploy directory
+     * @return Bundles installed from the deploy directory
+     */
+    private static List<Bundle> getDeployedBundles(BundleContext context, String bundleDir) {
+        List<Bundle> deployedBundles = new ArrayList<>();
+        if(bundleDir == null) {
+            return deployedBundles;
+        }
+        String deployLocation = new File(bundleDir).getAbsoluteFile().toURI().toString();
+        for(Bundle bundle : context.getBundles()) {
+            if(bundle.getLocation() != null && bundle.getLocation().startsWith(deployLocation)) {
+                deployedBundles.add(bundle);
+            }
+        }
+        return deployedBundles;
+    }
+
+    /**
+     * Start the deployed bundles in dependency waves, and write the activation time of each bundle.
+     * The persistent start state of the bundles is kept. A bundle persistently started, by a previous version or
+     * from the bundle manager, has already been started by the framework and is not started again.
+     * @param context Framework bundle context
+     * @param deployedBundles Bundles installed from the deploy directory
+     * @param cacheDir Framework cache directory, the report is written in its parent folder
+     */
+    private static void startDeployedBundles(BundleContext context, List<Bundle> deployedBundles, File cacheDir) {
+        List<Bundle> toStart = new ArrayList<>(deployedBundles.size());
+        for(Bundle bundle : deployedBundles) {
+            if(bundle.getState() == Bundle.INSTALLED || bundle.getState() == Bundle.RESOLVED) {
+                toStart.add(bundle);
+            }
+        }
+        StartupOrchestrator orchestrator = new StartupOrchestrator(context, LOGGER);
+        // Transient start, the bundles are started again by the orchestrator at the next launch
+        orchestrator.startBundles(toStart, Bundle.START_TRANSIENT);
+        File reportFolder = cacheDir.getAbsoluteFile().getParentFile();
+        if(reportFolder != null) {
+            orchestrator.writeReport(new File(reportFolder, STARTUP_REPORT_FILE));
+        }
+        List<StartupOrchestrator.ActivationRecord> records = orchestrator.getActivationRecords();
+        if(!records.isEmpty()) {
+            LOGGER.log(Logger.LOG_INFO, I18N.tr("Slowest bundle activation: {0} in {1} ms",
+                    records.get(0).getBundle().getSymbolicName(), records.get(0).getDuration()));
+        }
+    }
+
     /**
      * Utility method to check if the java machine is supported.
      *
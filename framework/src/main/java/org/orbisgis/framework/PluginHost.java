@@ -51,6 +51,8 @@ public class PluginHost {
     private File pluginCacheFolder;
     private List<PackageDeclaration> packageList = new ArrayList<PackageDeclaration>();
     private Logger LOGGER;
+    /** Index of the packages of the class path Jars, kept between two launches */
+    private static final String CLASS_PATH_INDEX_FILE = "classpath.index";
     /**
      * 
      * @param pluginCacheFolder Cache folder
@@ -86,7 +88,9 @@ public class PluginHost {
      * @return 
      */
     private String getExtraPackage(Set<String> ignorePackages) {
-        BundleTools bundleTools = new BundleTools(LOGGER);
+        File indexFile = pluginCacheFolder.getAbsoluteFile().getParentFile() != null ?
+                new File(pluginCacheFolder.getAbsoluteFile().getParentFile(), CLASS_PATH_INDEX_FILE) : null;
+        BundleTools bundleTools = new BundleTools(LOGGER, indexFile);
         //Build a set of packages to skip programmaticaly defined packages
         Set<String> packagesName = new HashSet<>(ignorePackages);
         List<String> sortedPackagesExport = new ArrayList<String>();
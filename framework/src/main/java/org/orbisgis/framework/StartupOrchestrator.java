@@ -0,0 +1,302 @@
+/*
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information. 
+ * 
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ * 
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ * 
+ * This file is part of OrbisGIS.
+ * 
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.felix.framework.Logger;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
+import org.osgi.framework.wiring.FrameworkWiring;
+
+/**
+ * Start a set of bundles in dependency waves. All bundles are resolved first, then a bundle is put in the wave
+ * following the waves of the bundles it is wired to. The bundles of a wave are started concurrently, so heavy
+ * activators that do not depend on each other do not stack up. Bundles declaring a lazy activation policy are only
+ * marked as started, their activator runs on the first class load.
+ * The activation time of each bundle is kept in order to write a startup report.
+ */
+public class StartupOrchestrator {
+    private final BundleContext hostBundle;
+    private final Logger LOGGER;
+    private final List<ActivationRecord> activationRecords = Collections.synchronizedList(new ArrayList<ActivationRecord>());
+    private final int maxConcurrency;
+
+    /**
+     * @param hostBundle Framework bundle context
+     * @param logger Logger
+     */
+    public StartupOrchestrator(BundleContext hostBundle, Logger logger) {
+        this(hostBundle, logger, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param hostBundle Framework bundle context
+     * @param logger Logger
+     * @param maxConcurrency Maximum number of bundles started at the same time
+     */
+    public StartupOrchestrator(BundleContext hostBundle, Logger logger, int maxConcurrency) {
+        this.hostBundle = hostBundle;
+        this.LOGGER = logger;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+    }
+
+    /**
+     * Resolve and start the provided bundles, wave by wave.
+     * @param bundles Bundles to start, fragments are ignored
+     * @param startOptions Options of {@link Bundle#start(int)}, {@link Bundle#START_ACTIVATION_POLICY} is added for
+     *                     lazy bundles
+     */
+    public void startBundles(Collection<Bundle> bundles, int startOptions) {
+        if (bundles.isEmpty()) {
+            return;
+        }
+        // Resolve all bundles at once, with their fragments, the wiring gives the dependencies
+        FrameworkWiring frameworkWiring = hostBundle.getBundle(Constants.SYSTEM_BUNDLE_LOCATION)
+                .adapt(FrameworkWiring.class);
+        if (frameworkWiring != null) {
+            frameworkWiring.resolveBundles(bundles);
+        }
+        List<List<Bundle>> waves = computeWaves(bundles);
+        ExecutorService executorService = Executors.newFixedThreadPool(maxConcurrency);
+        try {
+            for (int waveId = 0; waveId < waves.size(); waveId++) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (Bundle bundle : waves.get(waveId)) {
+                    futures.add(executorService.submit(new StartTask(bundle, waveId, startOptions)));
+                }
+                // Wait for the end of the wave
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException ex) {
+                        LOGGER.log(Logger.LOG_ERROR, "Error while starting bundle", ex.getCause());
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Sort the bundles in waves, a bundle is started after the bundles that provide its requirements.
+     * Fragments are not started, they are ignored. When no bundle can be placed because of a dependency cycle, all
+     * the remaining bundles are placed in the same wave.
+     * @param allBundles Bundles to sort, with their fragments
+     * @return Waves of bundles
+     */
+    static List<List<Bundle>> computeWaves(Collection<Bundle> allBundles) {
+        Set<Bundle> bundles = new LinkedHashSet<>();
+        for (Bundle bundle : allBundles) {
+            if (bundle.getHeaders().get(Constants.FRAGMENT_HOST) == null) {
+                bundles.add(bundle);
+            }
+        }
+        Map<Bundle, Set<Bundle>> dependencies = new HashMap<>(bundles.size());
+        for (Bundle bundle : bundles) {
+            Set<Bundle> providers = new HashSet<>();
+            BundleWiring wiring = bundle.adapt(BundleWiring.class);
+            if (wiring != null) {
+                List<BundleWire> wires = wiring.getRequiredWires(null);
+                if (wires != null) {
+                    for (BundleWire wire : wires) {
+                        Bundle provider = wire.getProviderWiring().getBundle();
+                        if (provider != bundle && bundles.contains(provider)) {
+                            providers.add(provider);
+                        }
+                    }
+                }
+            }
+            dependencies.put(bundle, providers);
+        }
+        List<List<Bundle>> waves = new ArrayList<>();
+        Set<Bundle> placed = new HashSet<>(bundles.size());
+        Set<Bundle> remaining = new LinkedHashSet<>(bundles);
+        while (!remaining.isEmpty()) {
+            List<Bundle> wave = new ArrayList<>();
+            for (Bundle bundle : remaining) {
+                if (placed.containsAll(dependencies.get(bundle))) {
+                    wave.add(bundle);
+                }
+            }
+            if (wave.isEmpty()) {
+                // Dependency cycle, start the remaining bundles together
+                wave.addAll(remaining);
+            }
+            placed.addAll(wave);
+            remaining.removeAll(wave);
+            waves.add(wave);
+        }
+        return waves;
+    }
+
+    /**
+     * @return Activation records, the slowest first
+     */
+    public List<ActivationRecord> getActivationRecords() {
+        List<ActivationRecord> records;
+        synchronized (activationRecords) {
+            records = new ArrayList<>(activationRecords);
+        }
+        Collections.sort(records, new Comparator<ActivationRecord>() {
+            @Override
+            public int compare(ActivationRecord r1, ActivationRecord r2) {
+                return Long.compare(r2.getDuration(), r1.getDuration());
+            }
+        });
+        return records;
+    }
+
+    /**
+     * Write the activation time of the started bundles, the slowest first.
+     * @param reportFile Report file
+     */
+    public void writeReport(File reportFile) {
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(reportFile),
+                StandardCharsets.UTF_8))) {
+            writer.println("wave\tduration(ms)\tlazy\tstate\tbundle");
+            for (ActivationRecord record : getActivationRecords()) {
+                writer.println(record.getWave() + "\t" + record.getDuration() + "\t" + record.isLazy() + "\t" +
+                        BundleTools.getStateString(record.getBundle().getState()).trim() + "\t" +
+                        record.getBundle().getSymbolicName());
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Logger.LOG_WARNING, "Unable to write the startup report " + reportFile.getAbsolutePath(), ex);
+        }
+    }
+
+    /**
+     * @param bundle Bundle instance
+     * @return True if the bundle activation is delayed until its first class load
+     */
+    private static boolean isLazy(Bundle bundle) {
+        String policy = bundle.getHeaders().get(Constants.BUNDLE_ACTIVATIONPOLICY);
+        return policy != null && policy.trim().startsWith(Constants.ACTIVATION_LAZY);
+    }
+
+    /**
+     * Start a bundle and record its activation time
+     */
+    private class StartTask implements Callable<Object> {
+        private final Bundle bundle;
+        private final int wave;
+        private final int startOptions;
+
+        public StartTask(Bundle bundle, int wave, int startOptions) {
+            this.bundle = bundle;
+            this.wave = wave;
+            this.startOptions = startOptions;
+        }
+
+        @Override
+        public Object call() {
+            boolean lazy = isLazy(bundle);
+            long begin = System.currentTimeMillis();
+            try {
+                bundle.start(lazy ? startOptions | Bundle.START_ACTIVATION_POLICY : startOptions);
+            } catch (BundleException | IllegalStateException ex) {
+                LOGGER.log(Logger.LOG_ERROR, "Error while starting bundle " + bundle.getSymbolicName(), ex);
+            }
+            activationRecords.add(new ActivationRecord(bundle, wave, System.currentTimeMillis() - begin, lazy));
+            return null;
+        }
+    }
+
+    /**
+     * Activation time of a bundle
+     */
+    public static class ActivationRecord {
+        private final Bundle bundle;
+        private final int wave;
+        private final long duration;
+        private final boolean lazy;
+
+        public ActivationRecord(Bundle bundle, int wave, long duration, boolean lazy) {
+            this.bundle = bundle;
+            this.wave = wave;
+            this.duration = duration;
+            this.lazy = lazy;
+        }
+
+        /**
+         * @return Started bundle
+         */
+        public Bundle getBundle() {
+            return bundle;
+        }
+
+        /**
+         * @return Wave index of the bundle
+         */
+        public int getWave() {
+            return wave;
+        }
+
+        /**
+         * @return Activation time in milliseconds
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * @return True if the bundle has a lazy activation policy
+         */
+        public boolean isLazy() {
+            return lazy;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information. 
+ * 
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ * 
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ * 
+ * This file is part of OrbisGIS.
+ * 
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.apache.felix.framework.Logger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.osgi.framework.Constants;
+import org.osgi.framework.Version;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test of the class path Jar index.
+ */
+public class JarIndexTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteRead() throws IOException {
+        File jarFile = createJar("a.jar", "org.orbisgis.a", "1.2.0");
+        File indexFile = new File(folder.getRoot(), "classpath.index");
+        Map<String, JarIndex.JarEntryIndex> index = new JarIndex(indexFile, new Logger())
+                .update(Collections.singletonList(jarFile));
+        checkEntry(index.get(jarFile.getAbsolutePath()), "org.orbisgis.a");
+        assertTrue(indexFile.isFile());
+        // Replace the content with an unreadable Jar of the same size and date, the index must not open it again
+        long lastModified = jarFile.lastModified();
+        try(FileOutputStream out = new FileOutputStream(jarFile)) {
+            out.write(new byte[(int) jarFile.length()]);
+        }
+        assertTrue(jarFile.setLastModified(lastModified));
+        index = new JarIndex(indexFile, new Logger()).update(Collections.singletonList(jarFile));
+        checkEntry(index.get(jarFile.getAbsolutePath()), "org.orbisgis.a");
+    }
+
+    @Test
+    public void testInvalidation() throws IOException {
+        File jarFile = createJar("a.jar", "org.orbisgis.a", "1.2.0");
+        File indexFile = new File(folder.getRoot(), "classpath.index");
+        new JarIndex(indexFile, new Logger()).update(Collections.singletonList(jarFile));
+        // Replace the Jar, the modification date changes
+        long lastModified = jarFile.lastModified();
+        createJar("a.jar", "org.orbisgis.b", "1.2.0");
+        assertTrue(jarFile.setLastModified(lastModified + 2000));
+        Map<String, JarIndex.JarEntryIndex> index = new JarIndex(indexFile, new Logger())
+                .update(Collections.singletonList(jarFile));
+        checkEntry(index.get(jarFile.getAbsolutePath()), "org.orbisgis.b");
+        // The index file contains the new entry
+        index = new JarIndex(indexFile, new Logger()).update(Collections.singletonList(jarFile));
+        checkEntry(index.get(jarFile.getAbsolutePath()), "org.orbisgis.b");
+        // An unreadable Jar is removed from the index
+        try(FileOutputStream out = new FileOutputStream(jarFile)) {
+            out.write(new byte[16]);
+        }
+        JarIndex jarIndex = new JarIndex(indexFile, new Logger());
+        assertTrue(jarIndex.update(Collections.singletonList(jarFile)).isEmpty());
+        assertTrue(jarIndex.getIndexedJars().isEmpty());
+    }
+
+    @Test
+    public void testPruneMissingJars() throws IOException {
+        File jarA = createJar("a.jar", "org.orbisgis.a", "1.2.0");
+        File jarB = createJar("b.jar", "org.orbisgis.b", "1.2.0");
+        File indexFile = new File(folder.getRoot(), "classpath.index");
+        JarIndex jarIndex = new JarIndex(indexFile, new Logger());
+        assertEquals(2, jarIndex.update(Arrays.asList(jarA, jarB)).size());
+        assertEquals(2, jarIndex.getIndexedJars().size());
+        // The Jar b is no longer in the class path
+        assertEquals(1, jarIndex.update(Collections.singletonList(jarA)).size());
+        assertEquals(Collections.singleton(jarA.getAbsolutePath()), jarIndex.getIndexedJars());
+        // The index file has been written without the Jar b
+        jarIndex = new JarIndex(indexFile, new Logger());
+        jarIndex.update(Collections.singletonList(jarA));
+        assertEquals(Collections.singleton(jarA.getAbsolutePath()), jarIndex.getIndexedJars());
+        assertFalse(jarIndex.getIndexedJars().contains(jarB.getAbsolutePath()));
+    }
+
+    private static void checkEntry(JarIndex.JarEntryIndex entry, String packageName) {
+        assertTrue(entry != null);
+        assertEquals(Collections.singleton(packageName), entry.getClassPackages());
+        assertEquals(1, entry.getExportedPackages().size());
+        PackageDeclaration packageDeclaration = entry.getExportedPackages().get(0);
+        assertEquals(packageName, packageDeclaration.getPackageName());
+        assertEquals(new Version(1, 2, 0), packageDeclaration.getVersion());
+    }
+
+    /**
+     * Write a Jar that exports a package and contains a single class in this package
+     * @param name Jar file name
+     * @param packageName Package name
+     * @param version Package version
+     * @return Jar file
+     * @throws IOException
+     */
+    private File createJar(String name, String packageName, String version) throws IOException {
+        File jarFile = new File(folder.getRoot(), name);
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue(Constants.EXPORT_PACKAGE, packageName + ";version=" + version);
+        try(JarOutputStream out = new JarOutputStream(new FileOutputStream(jarFile), manifest)) {
+            out.putNextEntry(new JarEntry(packageName.replace(".", "/") + "/Foo.class"));
+            out.write(new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE});
+            out.closeEntry();
+        }
+        return jarFile;
+    }
+}
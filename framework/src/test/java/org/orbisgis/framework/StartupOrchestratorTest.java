@@ -0,0 +1,264 @@
+/*
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information. 
+ * 
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ * 
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ * 
+ * This file is part of OrbisGIS.
+ * 
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.felix.framework.Logger;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test of the bundle start in dependency waves.
+ */
+public class StartupOrchestratorTest {
+
+    @Test
+    public void testWaves() {
+        AtomicInteger startCounter = new AtomicInteger();
+        BundleStub a = new BundleStub("a", startCounter);
+        BundleStub b = new BundleStub("b", startCounter, a);
+        BundleStub c = new BundleStub("c", startCounter, b);
+        BundleStub d = new BundleStub("d", startCounter, a);
+        List<List<Bundle>> waves = StartupOrchestrator.computeWaves(Arrays.asList(c.bundle, d.bundle, b.bundle,
+                a.bundle));
+        assertEquals(3, waves.size());
+        assertEquals(Collections.singletonList(a.bundle), waves.get(0));
+        assertEquals(new HashSet<>(Arrays.asList(b.bundle, d.bundle)), new HashSet<>(waves.get(1)));
+        assertEquals(Collections.singletonList(c.bundle), waves.get(2));
+    }
+
+    @Test
+    public void testWavesCycle() {
+        AtomicInteger startCounter = new AtomicInteger();
+        BundleStub a = new BundleStub("a", startCounter);
+        BundleStub b = new BundleStub("b", startCounter, a);
+        BundleStub c = new BundleStub("c", startCounter, b);
+        // b and c depend on each other
+        b.providers.add(c);
+        BundleStub d = new BundleStub("d", startCounter, c);
+        List<List<Bundle>> waves = StartupOrchestrator.computeWaves(Arrays.asList(a.bundle, b.bundle, c.bundle,
+                d.bundle));
+        // The cycle and the bundles depending on it are started together, after their other providers
+        assertEquals(2, waves.size());
+        assertEquals(Collections.singletonList(a.bundle), waves.get(0));
+        assertEquals(new HashSet<>(Arrays.asList(b.bundle, c.bundle, d.bundle)), new HashSet<>(waves.get(1)));
+    }
+
+    @Test
+    public void testWavesFragmentAndLazy() {
+        AtomicInteger startCounter = new AtomicInteger();
+        BundleStub host = new BundleStub("host", startCounter);
+        BundleStub fragment = new BundleStub("fragment", startCounter, host);
+        fragment.headers.put(Constants.FRAGMENT_HOST, "host");
+        BundleStub lazy = new BundleStub("lazy", startCounter, host);
+        lazy.headers.put(Constants.BUNDLE_ACTIVATIONPOLICY, Constants.ACTIVATION_LAZY);
+        BundleStub user = new BundleStub("user", startCounter, lazy);
+        List<List<Bundle>> waves = StartupOrchestrator.computeWaves(Arrays.asList(fragment.bundle, user.bundle,
+                lazy.bundle, host.bundle));
+        // The fragment is not started, a lazy bundle is placed like the other bundles
+        assertEquals(3, waves.size());
+        assertEquals(Collections.singletonList(host.bundle), waves.get(0));
+        assertEquals(Collections.singletonList(lazy.bundle), waves.get(1));
+        assertEquals(Collections.singletonList(user.bundle), waves.get(2));
+    }
+
+    @Test
+    public void testStartBundles() {
+        AtomicInteger startCounter = new AtomicInteger();
+        BundleStub a = new BundleStub("a", startCounter);
+        BundleStub b = new BundleStub("b", startCounter, a);
+        b.startError = new BundleException("Activator failure");
+        BundleStub c = new BundleStub("c", startCounter, b);
+        BundleStub lazy = new BundleStub("lazy", startCounter, a);
+        lazy.headers.put(Constants.BUNDLE_ACTIVATIONPOLICY, Constants.ACTIVATION_LAZY + ";include:=\"org.lazy\"");
+        BundleStub fragment = new BundleStub("fragment", startCounter, a);
+        fragment.headers.put(Constants.FRAGMENT_HOST, "a");
+        StartupOrchestrator orchestrator = new StartupOrchestrator(new FrameworkStub().context, new Logger(), 2);
+        orchestrator.startBundles(Arrays.asList(c.bundle, lazy.bundle, b.bundle, a.bundle, fragment.bundle),
+                Bundle.START_TRANSIENT);
+        // Providers are started before the bundles that use them
+        assertTrue(a.startOrder < b.startOrder);
+        assertTrue(a.startOrder < lazy.startOrder);
+        assertTrue(b.startOrder < c.startOrder);
+        // The failure of b does not stop the start of the other bundles
+        assertEquals(Bundle.RESOLVED, b.state);
+        assertEquals(Bundle.ACTIVE, c.state);
+        // Lazy bundles are started with their activation policy, the others with the given options only
+        assertEquals(Bundle.START_TRANSIENT, a.startOptions);
+        assertEquals(Bundle.START_TRANSIENT | Bundle.START_ACTIVATION_POLICY, lazy.startOptions);
+        // The fragment is not started
+        assertEquals(0, fragment.startOrder);
+        List<StartupOrchestrator.ActivationRecord> records = orchestrator.getActivationRecords();
+        assertEquals(4, records.size());
+        for (StartupOrchestrator.ActivationRecord record : records) {
+            if (record.getBundle() == a.bundle) {
+                assertEquals(0, record.getWave());
+                assertFalse(record.isLazy());
+            } else if (record.getBundle() == lazy.bundle) {
+                assertEquals(1, record.getWave());
+                assertTrue(record.isLazy());
+            } else if (record.getBundle() == c.bundle) {
+                assertEquals(2, record.getWave());
+            }
+        }
+        // The slowest activation comes first
+        for (int i = 1; i < records.size(); i++) {
+            assertTrue(records.get(i - 1).getDuration() >= records.get(i).getDuration());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> clazz, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StartupOrchestratorTest.class.getClassLoader(), new Class[]{clazz},
+                handler);
+    }
+
+    /**
+     * Bundle wired to its providers, the start is recorded.
+     */
+    private static class BundleStub implements InvocationHandler {
+        private final String name;
+        private final AtomicInteger startCounter;
+        private final List<BundleStub> providers;
+        private final Dictionary<String, String> headers = new Hashtable<>();
+        private final Bundle bundle;
+        private volatile int state = Bundle.RESOLVED;
+        private volatile int startOptions = -1;
+        private volatile int startOrder = 0;
+        private BundleException startError;
+
+        BundleStub(String name, AtomicInteger startCounter, BundleStub... providers) {
+            this.name = name;
+            this.startCounter = startCounter;
+            this.providers = new ArrayList<>(Arrays.asList(providers));
+            this.bundle = proxy(Bundle.class, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getSymbolicName":
+                case "toString":
+                    return name;
+                case "getHeaders":
+                    return headers;
+                case "getState":
+                    return state;
+                case "adapt":
+                    return args[0] == BundleWiring.class ? getWiring() : null;
+                case "start":
+                    startOptions = (Integer) args[0];
+                    startOrder = startCounter.incrementAndGet();
+                    if (startError != null) {
+                        throw startError;
+                    }
+                    state = Bundle.ACTIVE;
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+
+        private BundleWiring getWiring() {
+            final List<BundleWire> wires = new ArrayList<>();
+            for (final BundleStub provider : providers) {
+                wires.add(proxy(BundleWire.class, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("getProviderWiring")) {
+                            return provider.getWiring();
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                }));
+            }
+            return proxy(BundleWiring.class, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    switch (method.getName()) {
+                        case "getBundle":
+                            return bundle;
+                        case "getRequiredWires":
+                            return wires;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Framework without the wiring service, the bundles are already resolved.
+     */
+    private static class FrameworkStub implements InvocationHandler {
+        private final BundleContext context = proxy(BundleContext.class, this);
+        private final Bundle systemBundle = proxy(Bundle.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("adapt")) {
+                    return null;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("getBundle")) {
+                return systemBundle;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        }
+    }
+}